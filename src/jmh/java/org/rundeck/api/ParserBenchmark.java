@@ -0,0 +1,155 @@
+package org.rundeck.api;
+
+import org.apache.commons.io.IOUtils;
+import org.dom4j.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecutionState;
+import org.rundeck.api.domain.RundeckHistory;
+import org.rundeck.api.domain.RundeckNode;
+import org.rundeck.api.domain.RundeckOutput;
+import org.rundeck.api.parser.ExecutionParser;
+import org.rundeck.api.parser.ExecutionStateParser;
+import org.rundeck.api.parser.ExecutionStaxParser;
+import org.rundeck.api.parser.HistoryParser;
+import org.rundeck.api.parser.ListParser;
+import org.rundeck.api.parser.NodeParser;
+import org.rundeck.api.parser.NodeStaxParser;
+import org.rundeck.api.parser.OutputEntryParser;
+import org.rundeck.api.parser.OutputEntryStaxParser;
+import org.rundeck.api.parser.OutputParser;
+import org.rundeck.api.parser.OutputStaxParser;
+import org.rundeck.api.parser.ParserHelper;
+import org.rundeck.api.parser.StaxHistoryParser;
+import org.rundeck.api.parser.StaxListParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the responses read the most, with the dom4j parsers and with their StAX counterparts, from responses of
+ * {@link #size} elements scaled from the Betamax tapes (the nodes from the resources.xml test document, no tape
+ * recording a list of nodes). The executions are also parsed with XPath expressions given as strings, as before they
+ * were precompiled. Run with "-prof gc" (the default of the benchmarks profile) to get the bytes allocated per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    /** number of executions, nodes, output entries, events or node states in the responses */
+    @Param({ "10", "1000" })
+    public int size;
+
+    private byte[] executions;
+    private byte[] nodes;
+    private byte[] output;
+    private byte[] history;
+    private byte[] state;
+
+    @Setup
+    public void setUp() throws IOException {
+        executions = Tapes.scale(Tapes.body("get_executions_v14"), "<execution id=", "</execution>", size);
+        output = Tapes.scale(Tapes.body("execution_output_basic"), "<entry ", "/>", size);
+        history = Tapes.scale(Tapes.body("get_history_v14"), "<event ", "</event>", size);
+        state = Tapes.scale(Tapes.body("execution_state"), "<nodeState name=", "</nodeState>", size);
+        try (InputStream resources = getClass().getResourceAsStream("/org/rundeck/api/parser/resources.xml")) {
+            nodes = Tapes.scale(IOUtils.toString(resources, StandardCharsets.UTF_8), "<node ", "/>", size);
+        }
+        check("executions", executionsStax().size());
+        check("executions", executionsStringXpath().size());
+        check("nodes", nodesStax().size());
+        check("output entries", outputStax().getLogEntries().size());
+        check("events", historyStax().getEvents().size());
+    }
+
+    private void check(final String elements, final int parsed) {
+        if (parsed < size) {
+            throw new IllegalStateException("Only " + parsed + " " + elements + " parsed, " + size + " expected");
+        }
+    }
+
+    @Benchmark
+    public Document loadDocument() {
+        return ParserHelper.loadDocument(new ByteArrayInputStream(executions));
+    }
+
+    @Benchmark
+    public List<RundeckExecution> executions() {
+        return new ListParser<>(new ExecutionParser(), "/executions/execution").parseXmlNode(
+                ParserHelper.loadDocument(new ByteArrayInputStream(executions)));
+    }
+
+    /**
+     * Baseline of {@link #executions()} : the parsers as they were before their expressions were precompiled
+     */
+    @Benchmark
+    public List<RundeckExecution> executionsStringXpath() {
+        return new StringXpathParsers.ListParser<>(new StringXpathParsers.ExecutionParser(), "/executions/execution")
+                .parseXmlNode(ParserHelper.loadDocument(new ByteArrayInputStream(executions)));
+    }
+
+    @Benchmark
+    public List<RundeckExecution> executionsStax() {
+        return new StaxListParser<>(new ExecutionStaxParser(), "/executions/execution").parseResponse(
+                new ByteArrayInputStream(executions));
+    }
+
+    @Benchmark
+    public List<RundeckNode> nodes() {
+        return new ListParser<>(new NodeParser(), "project/node").parseXmlNode(
+                ParserHelper.loadDocument(new ByteArrayInputStream(nodes)));
+    }
+
+    @Benchmark
+    public List<RundeckNode> nodesStax() {
+        return new StaxListParser<>(new NodeStaxParser(), "project/node").parseResponse(
+                new ByteArrayInputStream(nodes));
+    }
+
+    @Benchmark
+    public RundeckOutput output() {
+        return new OutputParser("/output", new OutputEntryParser()).parseXmlNode(
+                ParserHelper.loadDocument(new ByteArrayInputStream(output)));
+    }
+
+    @Benchmark
+    public RundeckOutput outputStax() {
+        return new OutputStaxParser("/output", new OutputEntryStaxParser()).parseResponse(
+                new ByteArrayInputStream(output));
+    }
+
+    @Benchmark
+    public RundeckHistory history() {
+        return new HistoryParser("/events").parseXmlNode(ParserHelper.loadDocument(new ByteArrayInputStream(history)));
+    }
+
+    @Benchmark
+    public RundeckHistory historyStax() {
+        return new StaxHistoryParser("/events").parseResponse(new ByteArrayInputStream(history));
+    }
+
+    @Benchmark
+    public RundeckExecutionState executionState() {
+        return new ExecutionStateParser("/executionState").parseXmlNode(
+                ParserHelper.loadDocument(new ByteArrayInputStream(state)));
+    }
+}
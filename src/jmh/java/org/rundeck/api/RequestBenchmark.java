@@ -0,0 +1,103 @@
+package org.rundeck.api;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.dom4j.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rundeck.api.domain.ProjectConfig;
+import org.rundeck.api.domain.RundeckProject;
+import org.rundeck.api.generator.DeleteExecutionsGenerator;
+import org.rundeck.api.generator.ProjectGenerator;
+import org.rundeck.api.util.DocumentContentProducer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building of the requests : the URL of a query with an {@link ApiPathBuilder}, and the XML content of a POST generated
+ * and serialized like {@link ApiCall} does, with {@link #size} executions or project properties. Run
+ * with "-prof gc" (the default of the benchmarks profile) to get the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+
+    /** number of executions to delete, or of properties of the project */
+    @Param({ "10", "1000" })
+    public int size;
+
+    private final Date begin = new Date(1455145137924L);
+    private final Properties nodeFilters = new Properties();
+    private Set<Long> executionIds;
+    private RundeckProject project;
+
+    @Setup
+    public void setUp() {
+        nodeFilters.setProperty("tags", "web+prod");
+        nodeFilters.setProperty("os-family", "unix");
+        nodeFilters.setProperty("exclude-name", "node-6.qa.subgroup.mycompany.com");
+        executionIds = new LinkedHashSet<>();
+        ProjectConfig config = new ProjectConfig();
+        for (int i = 0; i < size; i++) {
+            executionIds.add(1000L + i);
+            config.setProperty("project.plugin.ResourceModelSource." + i + ".type", "file");
+        }
+        project = new RundeckProject();
+        project.setName("test");
+        project.setProjectConfig(config);
+    }
+
+    @Benchmark
+    public String executionsQuery() {
+        return new ApiPathBuilder("/project/", "test", "/executions").param("jobFilter", "deploy")
+                                                                      .param("groupPath", "web/deploy")
+                                                                      .param("userFilter", "admin")
+                                                                      .param("begin", begin)
+                                                                      .param("jobIdListFilter",
+                                                                             Arrays.asList("a1", "b2", "c3"))
+                                                                      .param("max", 20L)
+                                                                      .param("offset", 0L)
+                                                                      .toString();
+    }
+
+    @Benchmark
+    public String runCommand() {
+        return new ApiPathBuilder("/project/", "test", "/run/command").param("exec", "ls -la ${option.dir}")
+                                                                      .param("nodeThreadcount", 4)
+                                                                      .param("nodeKeepgoing", Boolean.TRUE)
+                                                                      .nodeFilters(nodeFilters)
+                                                                      .toString();
+    }
+
+    @Benchmark
+    public Document deleteExecutions() throws IOException {
+        Document document = new DeleteExecutionsGenerator(executionIds).generateXmlDocument();
+        new DocumentContentProducer(document).writeTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        return document;
+    }
+
+    @Benchmark
+    public Document createProject() throws IOException {
+        Document document = new ProjectGenerator(project).generateXmlDocument();
+        new DocumentContentProducer(document).writeTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        return document;
+    }
+}
@@ -0,0 +1,195 @@
+package org.rundeck.api;
+
+import org.apache.commons.lang.StringUtils;
+import org.dom4j.Node;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
+import org.rundeck.api.domain.RundeckJob;
+import org.rundeck.api.domain.RundeckNode;
+import org.rundeck.api.domain.RundeckNodeIdentity;
+import org.rundeck.api.parser.BaseXpathParser;
+import org.rundeck.api.parser.XmlNodeParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Copies of the parsers of the executions as they were before their XPath expressions were precompiled : the same
+ * fields, with the expressions given as strings to dom4j, and thus compiled for each evaluation. Used as the baseline
+ * of {@link ParserBenchmark#executionsStringXpath()}.
+ */
+final class StringXpathParsers {
+
+    private StringXpathParsers() {
+    }
+
+    /**
+     * Parser selecting its node with an expression given as a string
+     */
+    abstract static class StringXpathParser<T> implements XmlNodeParser<T> {
+        private final String xpath;
+
+        StringXpathParser(final String xpath) {
+            this.xpath = xpath;
+        }
+
+        abstract T parse(Node node);
+
+        @Override
+        public final T parseXmlNode(final Node node) {
+            String useXpath = BaseXpathParser.unwrapXpath(node, xpath);
+            return parse(StringUtils.isNotEmpty(useXpath) ? node.selectSingleNode(useXpath) : node);
+        }
+    }
+
+    /**
+     * Parser for a list of elements, selected with an expression given as a string
+     */
+    static class ListParser<T> implements XmlNodeParser<List<T>> {
+        private final XmlNodeParser<T> parser;
+        private final String xpath;
+
+        ListParser(final XmlNodeParser<T> parser, final String xpath) {
+            this.parser = parser;
+            this.xpath = xpath;
+        }
+
+        @Override
+        public List<T> parseXmlNode(final Node node) {
+            List<T> elements = new ArrayList<T>();
+            @SuppressWarnings("unchecked")
+            List<Node> elementNodes = node.selectNodes(BaseXpathParser.unwrapXpath(node, xpath));
+            for (Node elementNode : elementNodes) {
+                elements.add(parser.parseXmlNode(elementNode));
+            }
+            return elements;
+        }
+    }
+
+    static class ExecutionParser extends StringXpathParser<RundeckExecution> {
+        ExecutionParser() {
+            super(null);
+        }
+
+        @Override
+        RundeckExecution parse(final Node execNode) {
+            RundeckExecution execution = new RundeckExecution();
+
+            execution.setId(Long.valueOf(execNode.valueOf("@id")));
+            execution.setUrl(StringUtils.trimToNull(execNode.valueOf("@href")));
+            try {
+                execution.setStatus(ExecutionStatus.valueOf(
+                        StringUtils.replace(StringUtils.upperCase(execNode.valueOf("@status")), "-", "_")));
+            } catch (IllegalArgumentException e) {
+                execution.setStatus(null);
+            }
+            execution.setDescription(StringUtils.trimToNull(execNode.valueOf("description")));
+            execution.setArgstring(StringUtils.trimToNull(execNode.valueOf("argstring")));
+            execution.setStartedBy(StringUtils.trimToNull(execNode.valueOf("user")));
+            execution.setAbortedBy(StringUtils.trimToNull(execNode.valueOf("abortedby")));
+            execution.setProject(StringUtils.trimToNull(execNode.valueOf("@project")));
+            String startedAt = StringUtils.trimToNull(execNode.valueOf("date-started/@unixtime"));
+            if (startedAt != null) {
+                execution.setStartedAt(new Date(Long.valueOf(startedAt)));
+            }
+            String endedAt = StringUtils.trimToNull(execNode.valueOf("date-ended/@unixtime"));
+            if (endedAt != null) {
+                execution.setEndedAt(new Date(Long.valueOf(endedAt)));
+            }
+
+            Node jobNode = execNode.selectSingleNode("job");
+            if (jobNode != null) {
+                execution.setJob(new JobParser().parseXmlNode(jobNode));
+            }
+
+            Node successfulNodes = execNode.selectSingleNode("successfulNodes");
+            if (successfulNodes != null) {
+                List<RundeckNode> rundeckNodes = new ListParser<RundeckNode>(new NodeParser(), "successfulNodes/node")
+                        .parseXmlNode(execNode);
+                execution.setSuccessfulNodes(new HashSet<RundeckNodeIdentity>(rundeckNodes));
+            } else {
+                execution.setSuccessfulNodes(Collections.<RundeckNodeIdentity>emptySet());
+            }
+
+            Node failedNodes = execNode.selectSingleNode("failedNodes");
+            if (failedNodes != null) {
+                List<RundeckNode> rundeckNodes = new ListParser<RundeckNode>(new NodeParser(), "failedNodes/node")
+                        .parseXmlNode(execNode);
+                execution.setFailedNodes(new HashSet<RundeckNodeIdentity>(rundeckNodes));
+            } else {
+                execution.setFailedNodes(Collections.<RundeckNodeIdentity>emptySet());
+            }
+
+            return execution;
+        }
+    }
+
+    static class JobParser extends StringXpathParser<RundeckJob> {
+        JobParser() {
+            super(null);
+        }
+
+        @Override
+        RundeckJob parse(final Node jobNode) {
+            RundeckJob job = new RundeckJob();
+
+            job.setName(StringUtils.trimToNull(jobNode.valueOf("name")));
+            job.setDescription(StringUtils.trimToNull(jobNode.valueOf("description")));
+            job.setGroup(StringUtils.trimToNull(jobNode.valueOf("group")));
+
+            // ID is either an attribute or an child element...
+            String jobId = jobNode.valueOf("id");
+            if (StringUtils.isBlank(jobId)) {
+                jobId = jobNode.valueOf("@id");
+            }
+            job.setId(jobId);
+
+            String averageDuration = StringUtils.trimToNull(jobNode.valueOf("@averageDuration"));
+            if (averageDuration != null) {
+                job.setAverageDuration(Long.valueOf(averageDuration));
+            }
+
+            // project is either a nested element of context, or just a child element
+            Node contextNode = jobNode.selectSingleNode("context");
+            if (contextNode != null) {
+                job.setProject(StringUtils.trimToNull(contextNode.valueOf("project")));
+            } else {
+                job.setProject(StringUtils.trimToNull(jobNode.valueOf("project")));
+            }
+
+            return job;
+        }
+    }
+
+    static class NodeParser extends StringXpathParser<RundeckNode> {
+        NodeParser() {
+            super(null);
+        }
+
+        @Override
+        RundeckNode parse(final Node rundeckNodeNode) {
+            RundeckNode rundeckNode = new RundeckNode();
+
+            rundeckNode.setName(StringUtils.trimToNull(rundeckNodeNode.valueOf("@name")));
+            rundeckNode.setType(StringUtils.trimToNull(rundeckNodeNode.valueOf("@type")));
+            rundeckNode.setDescription(StringUtils.trimToNull(rundeckNodeNode.valueOf("@description")));
+            rundeckNode.setHostname(StringUtils.trimToNull(rundeckNodeNode.valueOf("@hostname")));
+            rundeckNode.setOsArch(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osArch")));
+            rundeckNode.setOsFamily(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osFamily")));
+            rundeckNode.setOsName(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osName")));
+            rundeckNode.setOsVersion(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osVersion")));
+            rundeckNode.setUsername(StringUtils.trimToNull(rundeckNodeNode.valueOf("@username")));
+            rundeckNode.setEditUrl(StringUtils.trimToNull(rundeckNodeNode.valueOf("@editUrl")));
+            rundeckNode.setRemoteUrl(StringUtils.trimToNull(rundeckNodeNode.valueOf("@remoteUrl")));
+
+            String tags = StringUtils.trimToEmpty(rundeckNodeNode.valueOf("@tags"));
+            rundeckNode.setTags(Arrays.asList(StringUtils.split(tags, ",")));
+
+            return rundeckNode;
+        }
+    }
+}
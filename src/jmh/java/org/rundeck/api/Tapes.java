@@ -0,0 +1,87 @@
+package org.rundeck.api;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs of the benchmarks : the responses recorded in the Betamax tapes of the tests, scaled by repeating their
+ * elements.
+ */
+final class Tapes {
+
+    private Tapes() {
+    }
+
+    /**
+     * @param tape name of the tape in src/test/resources/betamax/tapes, without extension
+     * @return the body of the response of the first interaction recorded in the tape
+     */
+    static String body(final String tape) throws IOException {
+        return body(tape, 0);
+    }
+
+    /**
+     * @param tape        name of the tape in src/test/resources/betamax/tapes, without extension
+     * @param interaction index of the interaction
+     * @return the body of the response of the interaction
+     */
+    @SuppressWarnings("unchecked")
+    static String body(final String tape, final int interaction) throws IOException {
+        try (InputStream stream = Tapes.class.getResourceAsStream("/betamax/tapes/" + tape + ".yaml")) {
+            if (null == stream) {
+                throw new IOException("Tape not found : " + tape);
+            }
+            Map<String, Object> content = (Map<String, Object>) new Yaml(new TapeConstructor()).load(stream);
+            List<Map<String, Object>> interactions = (List<Map<String, Object>>) content.get("interactions");
+            Map<String, Object> response = (Map<String, Object>) interactions.get(interaction).get("response");
+            Object body = response.get("body");
+            return body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : (String) body;
+        }
+    }
+
+    /**
+     * Repeat the elements of a response, from the first start of an element to the end of the last one
+     *
+     * @param body  recorded response
+     * @param start start of each element, such as "&lt;execution id="
+     * @param end   end of the element, such as "&lt;/execution&gt;"
+     * @param count number of elements wanted, rounded up to a multiple of the number of elements recorded
+     * @return the scaled response, in UTF-8
+     */
+    static byte[] scale(final String body, final String start, final String end, final int count) {
+        int first = body.indexOf(start);
+        int last = body.lastIndexOf(start);
+        if (first < 0) {
+            throw new IllegalArgumentException("No element " + start + " in " + body);
+        }
+        int stop = body.indexOf(end, last) + end.length();
+        String elements = body.substring(first, stop);
+        int recorded = 0;
+        for (int i = elements.indexOf(start); i >= 0; i = elements.indexOf(start, i + start.length())) {
+            recorded++;
+        }
+        StringBuilder scaled = new StringBuilder(body.length() + elements.length() * (count / recorded + 1));
+        scaled.append(body, 0, first);
+        for (int i = 0; i < count; i += recorded) {
+            scaled.append(elements);
+        }
+        scaled.append(body, stop, body.length());
+        return scaled.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the "!tape" root of a tape as a map
+     */
+    private static class TapeConstructor extends SafeConstructor {
+        TapeConstructor() {
+            this.yamlConstructors.put(new Tag("!tape"), new ConstructYamlMap());
+        }
+    }
+}
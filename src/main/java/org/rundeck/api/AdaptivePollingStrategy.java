@@ -0,0 +1,72 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the status of an execution according to its expected duration (the average duration of its job) : sparsely
+ * at first, then more and more densely near the expected end, each delay being half of the remaining time. Once the
+ * expected duration is passed (or when it is unknown, eg. for ad-hoc executions), the delay grows exponentially : it
+ * is the time elapsed since the expected end, so it doubles at each check. All delays are bounded by a minimum and a
+ * maximum interval.
+ */
+public class AdaptivePollingStrategy implements PollingStrategy {
+    /** Default minimum interval : 100 milliseconds */
+    public static final long DEFAULT_MIN_INTERVAL = 100;
+    /** Default maximum interval : 1 minute */
+    public static final long DEFAULT_MAX_INTERVAL = 60000;
+
+    private final long minInterval;
+    private final long maxInterval;
+
+    /**
+     * Adaptive strategy with the default intervals : from 100 milliseconds to 1 minute
+     */
+    public AdaptivePollingStrategy() {
+        this(DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param minInterval minimum delay between two checks. Must be &gt; 0.
+     * @param maxInterval maximum delay between two checks. Must be &gt;= minInterval.
+     * @param unit        of the intervals - mandatory
+     * @throws IllegalArgumentException if the intervals are invalid, or the unit is null
+     */
+    public AdaptivePollingStrategy(final long minInterval, final long maxInterval, final TimeUnit unit)
+            throws IllegalArgumentException {
+        if (null == unit) {
+            throw new IllegalArgumentException("unit is mandatory for a polling strategy !");
+        }
+        if (minInterval <= 0 || maxInterval < minInterval) {
+            throw new IllegalArgumentException("intervals must be greater than 0, with minInterval <= maxInterval");
+        }
+        this.minInterval = Math.max(1, unit.toMillis(minInterval));
+        this.maxInterval = Math.max(this.minInterval, unit.toMillis(maxInterval));
+    }
+
+    @Override
+    public long nextDelay(final RundeckExecution execution, final long elapsed) {
+        long expected = null != execution.getJob() ? execution.getJob().getAverageDuration() : -1;
+        long delay;
+        if (expected > 0 && elapsed < expected) {
+            delay = (expected - elapsed) / 2;
+        } else {
+            delay = elapsed - Math.max(0, expected);
+        }
+        return Math.min(maxInterval, Math.max(minInterval, delay));
+    }
+
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePollingStrategy [minInterval=" + minInterval + "ms, maxInterval=" + maxInterval + "ms]";
+    }
+}
@@ -17,50 +17,46 @@ package org.rundeck.api;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.lang.StringUtils;
-import org.apache.http.*;
-import org.apache.http.client.HttpClient;
+import org.apache.http.Consts;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.*;
-import org.apache.http.conn.ssl.*;
 import org.apache.http.entity.*;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.protocol.HttpContext;
-import org.apache.http.util.EntityUtils;
+import org.rundeck.api.ApiCallEvent.Phase;
 import org.rundeck.api.RundeckApiException.RundeckApiLoginException;
 import org.rundeck.api.RundeckApiException.RundeckApiTokenException;
 import org.rundeck.api.parser.ParserHelper;
 import org.rundeck.api.parser.ResponseParser;
+import org.rundeck.api.parser.StaxParser;
 import org.rundeck.api.parser.XmlNodeParser;
+import org.rundeck.api.transport.RundeckRequest;
+import org.rundeck.api.transport.RundeckResponse;
+import org.rundeck.api.transport.RundeckTransport;
 import org.rundeck.api.util.AssertUtil;
 import org.rundeck.api.util.DocumentContentProducer;
 
 import java.io.*;
-import java.net.ProxySelector;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 
 /**
- * Class responsible for making the HTTP API calls
+ * Class responsible for making the HTTP API calls : builds the requests, and checks and parses the responses. The
+ * requests are sent by the {@link RundeckTransport} of the client.
  *
  * @author Vincent Behar
  */
 class ApiCall {
 
     /** Rundeck HTTP header for the auth-token (in case of token-based authentication) */
-    private static final transient String AUTH_TOKEN_HEADER = "X-Rundeck-Auth-Token";
+    private static final String AUTH_TOKEN_HEADER = "X-Rundeck-Auth-Token";
 
     /** Rundeck HTTP header for the setting session cookie (in case of session-based authentication) */
-    private static final transient String COOKIE_HEADER = "Cookie";
+    private static final String COOKIE_HEADER = "Cookie";
 
     /** {@link RundeckClient} instance holding the Rundeck url and the credentials */
     private final RundeckClient client;
@@ -83,7 +79,7 @@ class ApiCall {
      * @throws RundeckApiException if the ping fails
      */
     public void ping() throws RundeckApiException {
-        CloseableHttpClient httpClient = instantiateHttpClient();
+        RundeckTransport transport = client.getTransport();
         String UrlToPing = null;
         if (client.getToken() != null || client.getSessionID() != null) {
             // The preauthenticated mode always returns a HTTP 403 if we make a
@@ -93,20 +89,18 @@ class ApiCall {
         } else {
             UrlToPing = client.getUrl() ;
         }
+        RundeckResponse response = null;
         try {
-            HttpResponse response = httpClient.execute(new HttpGet(UrlToPing));
-            if (response.getStatusLine().getStatusCode() / 100 != 2) {
+            response = transport.execute(newRequest("GET", UrlToPing), null);
+            if (response.getStatusCode() / 100 != 2) {
                 throw new RundeckApiException("Invalid HTTP response '" + response.getStatusLine() + "' when pinging "
                                               + client.getUrl());
             }
         } catch (IOException e) {
             throw new RundeckApiException("Failed to ping Rundeck instance at " + client.getUrl(), e);
         } finally {
-            try {
-                httpClient.close();
-            } catch (IOException e) {
-                // ignore
-            }
+            // release the connection back to the pool
+            release(response);
         }
     }
 
@@ -137,13 +131,7 @@ class ApiCall {
      * @see #testAuth()
      */
     public String testLoginAuth() throws RundeckApiLoginException {
-        String sessionID = null;
-        try (CloseableHttpClient httpClient = instantiateHttpClient()){
-            sessionID = login(httpClient);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return sessionID;
+        return login(client.getTransport().newSession());
     }
 
     /**
@@ -154,7 +142,7 @@ class ApiCall {
      */
     public void testTokenAuth() throws RundeckApiTokenException {
         try {
-            execute(new HttpGet(client.getUrl() + client.getApiEndpoint() + "/system/info"));
+            execute(newRequest("GET", new ApiPathBuilder("/system/info")));
         } catch (RundeckApiTokenException e) {
             throw e;
         } catch (RundeckApiException e) {
@@ -175,10 +163,7 @@ class ApiCall {
      */
     public <T> T get(ApiPathBuilder apiPath, XmlNodeParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        HttpGet request = new HttpGet(client.getUrl() + client.getApiEndpoint() + apiPath);
-        if (null != apiPath.getAccept()) {
-            request.setHeader("Accept", apiPath.getAccept());
-        }
+        RundeckRequest request = createGet(apiPath);
         return execute(request, parser);
     }
 
@@ -196,11 +181,18 @@ class ApiCall {
      */
     public <T> T get(ApiPathBuilder apiPath, ResponseParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        HttpGet request = new HttpGet(client.getUrl() + client.getApiEndpoint() + apiPath);
-        if (null != apiPath.getAccept()) {
-            request.setHeader("Accept", apiPath.getAccept());
-        }
-        return execute(request, new ContentHandler<T>(parser));
+        RundeckRequest request = createGet(apiPath);
+        return execute(request, contentHandler(parser, client.isStreamingResponses()));
+    }
+
+    /**
+     * Same as {@link #get(ApiPathBuilder, ResponseParser)}, but a StAX parser always parses the response while it is
+     * received, whether the client streams the responses or not
+     */
+    public <T> T getStreamed(ApiPathBuilder apiPath, ResponseParser<T> parser) throws RundeckApiException,
+            RundeckApiLoginException, RundeckApiTokenException {
+        RundeckRequest request = createGet(apiPath);
+        return execute(request, contentHandler(parser, true));
     }
 
     /**
@@ -215,37 +207,79 @@ class ApiCall {
      */
     public InputStream get(ApiPathBuilder apiPath, boolean parseXml) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException {
-        HttpGet request = new HttpGet(client.getUrl() + client.getApiEndpoint() + apiPath);
-        if (null != apiPath.getAccept()) {
-            request.setHeader("Accept", apiPath.getAccept());
-        }
+        RundeckRequest request = createGet(apiPath);
         ByteArrayInputStream response = execute(request);
 
-        // try to load the document, to throw an exception in case of error
+        // try to parse the document, to throw an exception in case of error
         if(parseXml) {
-            ParserHelper.loadDocument(response);
+            ParserHelper.checkDocument(response);
             response.reset();
         }
 
         return response;
     }
 
+    /**
+     * Create an HTTP GET request to the Rundeck API, on the given path
+     *
+     * @param apiPath on which we will make the HTTP request - see {@link ApiPathBuilder}
+     */
+    RundeckRequest createGet(ApiPathBuilder apiPath) {
+        RundeckRequest request = newRequest("GET", apiPath);
+        if (null != apiPath.getAccept()) {
+            request.setHeader("Accept", apiPath.getAccept());
+        }
+        return request;
+    }
+
+    /**
+     * @return a new request to the given path of the API, with the authentication of the client
+     */
+    RundeckRequest newRequest(String method, ApiPathBuilder apiPath) {
+        RundeckRequest request = newRequest(method, client.getUrl() + client.getApiEndpoint() + apiPath);
+        request.setEndpoint(apiPath.getTemplate());
+        return request;
+    }
+
+    /**
+     * Create an HTTP request to the given URL, with the authentication header in case of token-based or
+     * session-based authentication
+     *
+     * @param method HTTP method
+     * @param url    absolute URL
+     */
+    RundeckRequest newRequest(String method, String url) {
+        RundeckRequest request = new RundeckRequest(method, url);
+        if (client.getToken() != null) {
+            request.setHeader(AUTH_TOKEN_HEADER, client.getToken());
+        } else if (client.getSessionID() != null) {
+            request.setHeader(COOKIE_HEADER, "JSESSIONID=" + client.getSessionID());
+        }
+        return request;
+    }
+
     /**
      * Execute an HTTP GET request to the Rundeck instance, on the given path. We will login first, and then execute the
      * API call without appending the API_ENDPOINT to the URL.
      *
      * @param apiPath on which we will make the HTTP request - see {@link ApiPathBuilder}
-     * @return a new {@link InputStream} instance, not linked with network resources
+     * @return a new {@link InputStream} instance, not linked with network resources. If the client has an output
+     *         spill threshold, a response larger than the threshold is read from a temp file, deleted when the stream
+     *         is closed.
      * @throws RundeckApiException in case of error when calling the API
      * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
      * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
      */
     public InputStream getNonApi(ApiPathBuilder apiPath) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException {
-        HttpGet request = new HttpGet(client.getUrl() + apiPath);
+        RundeckRequest request = newRequest("GET", client.getUrl() + apiPath);
+        request.setEndpoint(apiPath.getTemplate());
         if (null != apiPath.getAccept()) {
             request.setHeader("Accept", apiPath.getAccept());
         }
+        if (client.getOutputSpillThreshold() >= 0) {
+            return execute(request, new SpillingResultHandler(client.getOutputSpillThreshold()));
+        }
         ByteArrayInputStream response = execute(request);
         response.reset();
 
@@ -276,6 +310,30 @@ class ApiCall {
         }
     }
 
+    /**
+     * Execute an HTTP POST or GET request to the Rundeck instance, on the given path, depending of the {@link
+     * ApiPathBuilder} contains POST content or not (attachments or Form data). We will login first, and then execute
+     * the API call. At the end, the given parser will be used to convert the response to a more useful result object.
+     *
+     * @param apiPath on which we will make the HTTP request - see {@link ApiPathBuilder}
+     * @param parser  used to parse the response
+     *
+     * @return the result of the call, as formatted by the parser
+     *
+     * @throws RundeckApiException      in case of error when calling the API
+     * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
+     * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
+     */
+    public <T> T postOrGet(ApiPathBuilder apiPath, ResponseParser<T> parser) throws RundeckApiException,
+                                                                                    RundeckApiLoginException,
+                                                                                    RundeckApiTokenException {
+        if (apiPath.hasPostContent()) {
+            return post(apiPath, parser);
+        } else {
+            return get(apiPath, parser);
+        }
+    }
+
     /**
      * Execute an HTTP POST request to the Rundeck instance, on the given path. We will login first, and then execute
      * the API call. At the end, the given parser will be used to convert the response to a more useful result object.
@@ -289,9 +347,26 @@ class ApiCall {
      */
     public <T> T post(ApiPathBuilder apiPath, XmlNodeParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        HttpPost httpPost = new HttpPost(client.getUrl() + client.getApiEndpoint() + apiPath);
+        RundeckRequest httpPost = newRequest("POST", apiPath);
         return requestWithEntity(apiPath, parser, httpPost);
     }
+
+    /**
+     * Execute an HTTP POST request to the Rundeck instance, on the given path. We will login first, and then execute
+     * the API call. At the end, the given parser will be used to convert the response to a more useful result object.
+     *
+     * @param apiPath on which we will make the HTTP request - see {@link ApiPathBuilder}
+     * @param parser used to parse the response
+     * @return the result of the call, as formatted by the parser
+     * @throws RundeckApiException in case of error when calling the API
+     * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
+     * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
+     */
+    public <T> T post(ApiPathBuilder apiPath, ResponseParser<T> parser) throws RundeckApiException,
+            RundeckApiLoginException, RundeckApiTokenException {
+        RundeckRequest httpPost = newRequest("POST", apiPath);
+        return requestWithEntity(apiPath, contentHandler(parser, client.isStreamingResponses()), httpPost);
+    }
     /**
      * Execute an HTTP PUT request to the Rundeck instance, on the given path. We will login first, and then execute
      * the API call. At the end, the given parser will be used to convert the response to a more useful result object.
@@ -305,7 +380,7 @@ class ApiCall {
      */
     public <T> T put(ApiPathBuilder apiPath, XmlNodeParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        HttpPut httpPut = new HttpPut(client.getUrl() + client.getApiEndpoint() + apiPath);
+        RundeckRequest httpPut = newRequest("PUT", apiPath);
         return requestWithEntity(apiPath, parser, httpPut);
     }
 
@@ -322,15 +397,24 @@ class ApiCall {
      */
     public <T> T put(ApiPathBuilder apiPath, ResponseParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        HttpPut httpPut = new HttpPut(client.getUrl() + client.getApiEndpoint() + apiPath);
-        return requestWithEntity(apiPath, new ContentHandler<T>(parser), httpPut);
+        RundeckRequest httpPut = newRequest("PUT", apiPath);
+        return requestWithEntity(apiPath, contentHandler(parser, client.isStreamingResponses()), httpPut);
+    }
+    private <T> T requestWithEntity(ApiPathBuilder apiPath, XmlNodeParser<T> parser, RundeckRequest httpPost) {
+        return requestWithEntity(apiPath, xmlHandler(parser), httpPost);
     }
-    private <T> T requestWithEntity(ApiPathBuilder apiPath, XmlNodeParser<T> parser, HttpEntityEnclosingRequestBase
-            httpPost) {
-        return new ParserHandler<T>(parser).handle(requestWithEntity(apiPath, new ResultHandler(), httpPost));
+    private <T> T requestWithEntity(ApiPathBuilder apiPath, Handler<RundeckResponse,T> handler,
+            RundeckRequest httpPost) {
+        return execute(httpPost, prepareEntity(apiPath, handler, httpPost));
     }
-    private <T> T requestWithEntity(ApiPathBuilder apiPath, Handler<HttpResponse,T> handler, HttpEntityEnclosingRequestBase
-            httpPost) {
+
+    /**
+     * Set the headers and the content of the request from the given path
+     *
+     * @return the handler to use for the response, which will cleanup temp files if needed
+     */
+    <T> Handler<RundeckResponse, T> prepareEntity(ApiPathBuilder apiPath, Handler<RundeckResponse, T> handler,
+            RundeckRequest httpPost) {
         if(null!= apiPath.getAccept()) {
             httpPost.setHeader("Accept", apiPath.getAccept());
         }
@@ -360,10 +444,10 @@ class ApiCall {
                 multipartEntityBuilder.addBinaryBody(attachment.getKey(), attachment.getValue());
             }
 
-            httpPost.setEntity(multipartEntityBuilder.build());
+            httpPost.setBody(new EntityBody(multipartEntityBuilder.build()));
         } else if (apiPath.getForm().size() > 0) {
             try {
-                httpPost.setEntity(new UrlEncodedFormEntity(apiPath.getForm(), "UTF-8"));
+                httpPost.setBody(new EntityBody(new UrlEncodedFormEntity(apiPath.getForm(), "UTF-8")));
             } catch (UnsupportedEncodingException e) {
                 throw new RundeckApiException("Unsupported encoding: " + e.getMessage(), e);
             }
@@ -372,7 +456,7 @@ class ApiCall {
                 ArrayList<File> tempfiles = new ArrayList<>();
                 File f = copyToTempfile(apiPath.getContentStream());
                 tempfiles.add(f);
-                httpPost.setEntity(new FileEntity(f, ContentType.create(apiPath.getContentType())));
+                httpPost.setBody(new EntityBody(new FileEntity(f, ContentType.create(apiPath.getContentType()))));
 
                 handler = TempFileCleanupHandler.chain(handler, tempfiles);
             }else{
@@ -380,7 +464,7 @@ class ApiCall {
                         apiPath.getContentStream(),
                         ContentType.create(apiPath.getContentType())
                 );
-                httpPost.setEntity(entity);
+                httpPost.setBody(new EntityBody(entity));
             }
         } else if (apiPath.getContents() != null && apiPath.getContentType() != null) {
             ByteArrayEntity bae = new ByteArrayEntity(
@@ -388,19 +472,19 @@ class ApiCall {
                     ContentType.create(apiPath.getContentType())
             );
 
-            httpPost.setEntity(bae);
+            httpPost.setBody(new EntityBody(bae));
         } else if (apiPath.getContentFile() != null && apiPath.getContentType() != null) {
-            httpPost.setEntity(new FileEntity(apiPath.getContentFile(), ContentType.create(apiPath.getContentType())));
+            httpPost.setBody(new EntityBody(new FileEntity(apiPath.getContentFile(),
+                                                           ContentType.create(apiPath.getContentType()))));
         } else if (apiPath.getXmlDocument() != null) {
             httpPost.setHeader("Content-Type", "application/xml");
-            httpPost.setEntity(new EntityTemplate(new DocumentContentProducer(apiPath.getXmlDocument())));
+            httpPost.setBody(new EntityBody(new EntityTemplate(new DocumentContentProducer(apiPath.getXmlDocument()))));
         } else if (apiPath.isEmptyContent()) {
             //empty content
         } else {
             throw new IllegalArgumentException("No Form or Multipart entity for POST content-body");
         }
-
-        return execute(httpPost, handler);
+        return handler;
     }
 
     private File copyToTempfile(final InputStream stream) throws RundeckApiException {
@@ -427,7 +511,7 @@ class ApiCall {
      */
     public <T> T delete(ApiPathBuilder apiPath, XmlNodeParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
-        return execute(new HttpDelete(client.getUrl() + client.getApiEndpoint() + apiPath), parser);
+        return execute(newRequest("DELETE", apiPath), parser);
     }
     /**
      * Execute an HTTP DELETE request to the Rundeck instance, on the given path, and expect a 204 response.
@@ -440,7 +524,7 @@ class ApiCall {
     public void delete(ApiPathBuilder apiPath) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
 
-        InputStream response = execute(new HttpDelete(client.getUrl() + client.getApiEndpoint() + apiPath));
+        InputStream response = execute(newRequest("DELETE", apiPath));
         if(null!=response){
             throw new RundeckApiException("Unexpected Rundeck response content, expected no content!");
         }
@@ -450,17 +534,17 @@ class ApiCall {
      * Execute an HTTP request to the Rundeck instance. We will login first, and then execute the API call. At the end,
      * the given parser will be used to convert the response to a more useful result object.
      *
-     * @param request to execute. see {@link HttpGet}, {@link HttpDelete}, and so on...
+     * @param request to execute
      * @param parser used to parse the response
      * @return the result of the call, as formatted by the parser
      * @throws RundeckApiException in case of error when calling the API
      * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
      * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
      */
-    private <T> T execute(HttpRequestBase request, XmlNodeParser<T> parser) throws RundeckApiException,
+    private <T> T execute(RundeckRequest request, XmlNodeParser<T> parser) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException {
         // execute the request
-        return new ParserHandler<T>(parser).handle(execute(request, new ResultHandler()));
+        return execute(request, xmlHandler(parser));
     }
 
     /**
@@ -478,12 +562,9 @@ class ApiCall {
      */
     public int get(ApiPathBuilder apiPath, OutputStream outputStream) throws RundeckApiException,
             RundeckApiLoginException, RundeckApiTokenException, IOException {
-        HttpGet request = new HttpGet(client.getUrl() + client.getApiEndpoint() + apiPath);
-        if (null != apiPath.getAccept()) {
-            request.setHeader("Accept", apiPath.getAccept());
-        }
+        RundeckRequest request = createGet(apiPath);
         final WriteOutHandler writeOutHandler = new WriteOutHandler(outputStream);
-        Handler<HttpResponse,Integer> handler = writeOutHandler;
+        Handler<RundeckResponse,Integer> handler = writeOutHandler;
         if(null!=apiPath.getRequiredContentType()){
             handler = new RequireContentTypeHandler<Integer>(apiPath.getRequiredContentType(), handler);
         }
@@ -496,13 +577,13 @@ class ApiCall {
     /**
      * Execute an HTTP request to the Rundeck instance. We will login first, and then execute the API call.
      *
-     * @param request to execute. see {@link HttpGet}, {@link HttpDelete}, and so on...
+     * @param request to execute
      * @return a new {@link InputStream} instance, not linked with network resources
      * @throws RundeckApiException in case of error when calling the API
      * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
      * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
      */
-    private ByteArrayInputStream execute(HttpUriRequest request) throws RundeckApiException, RundeckApiLoginException,
+    private ByteArrayInputStream execute(RundeckRequest request) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException {
         return execute(request, new ResultHandler() );
     }
@@ -512,25 +593,62 @@ class ApiCall {
      * @param <T>
      * @param <V>
      */
-    private static interface Handler<T,V>{
+    interface Handler<T,V>{
         public V handle(T response);
     }
 
     /**
-     * Handles parsing inputstream via a parser
+     * @return a handler reading the response as XML and parsing it with the given parser : straight from the content
+     * of the response if the client streams the responses, otherwise from a copy in memory
+     */
+    <T> Handler<RundeckResponse, T> xmlHandler(final XmlNodeParser<T> parser) {
+        return new XmlHandler<T>(parser, client.isStreamingResponses());
+    }
+
+    /**
+     * @return a handler parsing the response content with the given parser
+     */
+    static <T> Handler<RundeckResponse, T> contentHandler(final ResponseParser<T> parser) {
+        return contentHandler(parser, false);
+    }
+
+    /**
+     * @param streaming true to parse the response straight from its content, only if the parser reads the whole
+     *                  content before returning (StAX parsers), false to parse a copy in memory
+     * @return a handler parsing the response content with the given parser
+     */
+    static <T> Handler<RundeckResponse, T> contentHandler(final ResponseParser<T> parser, final boolean streaming) {
+        return new ContentHandler<T>(parser, streaming && parser instanceof StaxParser);
+    }
+
+    /**
+     * Handles parsing the XML content of a response via a parser
      * @param <S>
      */
-    private static class ParserHandler<S> implements Handler<InputStream,S> {
+    private static class XmlHandler<S> implements Handler<RundeckResponse,S> {
         XmlNodeParser<S> parser;
+        boolean streaming;
 
-        private ParserHandler(XmlNodeParser<S> parser) {
+        private XmlHandler(XmlNodeParser<S> parser, boolean streaming) {
             this.parser = parser;
+            this.streaming = streaming;
         }
 
         @Override
-        public S handle(InputStream response) {
+        public S handle(RundeckResponse response) {
+            InputStream content;
+            if (streaming) {
+                // the connection is released once the document has been read
+                try {
+                    content = response.getContent();
+                } catch (IOException e) {
+                    throw new RundeckApiException("Failed to read the Rundeck response", e);
+                }
+            } else {
+                content = new ResultHandler().handle(response);
+            }
             // read and parse the response
-            return parser.parseXmlNode(ParserHelper.loadDocument(response));
+            return parser.parseXmlNode(ParserHelper.loadDocument(content));
         }
     }
 
@@ -555,15 +673,25 @@ class ApiCall {
      *
      * @param <S>
      */
-    private static class ContentHandler<S> implements Handler<HttpResponse, S> {
+    private static class ContentHandler<S> implements Handler<RundeckResponse, S> {
         ResponseParser<S> parser;
+        boolean streaming;
 
-        private ContentHandler(ResponseParser<S> parser) {
+        private ContentHandler(ResponseParser<S> parser, boolean streaming) {
             this.parser = parser;
+            this.streaming = streaming;
         }
 
         @Override
-        public S handle(HttpResponse response) {
+        public S handle(RundeckResponse response) {
+            if (streaming) {
+                // the connection is released once the parser has read the content
+                try {
+                    return parser.parseResponse(response.getContent());
+                } catch (IOException e) {
+                    throw new RundeckApiException("Failed to read the Rundeck response", e);
+                }
+            }
             // read and parse the response
             return parser.parseResponse(new ResultHandler().handle(response));
         }
@@ -572,13 +700,13 @@ class ApiCall {
     /**
      * Handles writing response to an output stream
      */
-    private static class ChainHandler<T> implements Handler<HttpResponse,T> {
-        Handler<HttpResponse, T> chain;
-        private ChainHandler(Handler<HttpResponse,T> chain) {
+    private static class ChainHandler<T> implements Handler<RundeckResponse,T> {
+        Handler<RundeckResponse, T> chain;
+        private ChainHandler(Handler<RundeckResponse,T> chain) {
             this.chain=chain;
         }
         @Override
-        public T handle(final HttpResponse response) {
+        public T handle(final RundeckResponse response) {
             return chain.handle(response);
         }
     }
@@ -589,15 +717,15 @@ class ApiCall {
     private static class RequireContentTypeHandler<T> extends ChainHandler<T> {
         String contentType;
 
-        private RequireContentTypeHandler(final String contentType, final Handler<HttpResponse, T> chain) {
+        private RequireContentTypeHandler(final String contentType, final Handler<RundeckResponse, T> chain) {
             super(chain);
             this.contentType = contentType;
         }
 
         @Override
-        public T handle(final HttpResponse response) {
-            final Header firstHeader = response.getFirstHeader("Content-Type");
-            final String[] split = firstHeader.getValue().split(";");
+        public T handle(final RundeckResponse response) {
+            final String firstHeader = response.getHeader("Content-Type");
+            final String[] split = null != firstHeader ? firstHeader.split(";") : new String[0];
             boolean matched=false;
             for (int i = 0; i < split.length; i++) {
                 String s = split[i];
@@ -607,7 +735,7 @@ class ApiCall {
                 }
             }
             if(!matched) {
-                throw new RundeckApiException.RundeckApiHttpContentTypeException(firstHeader.getValue(),
+                throw new RundeckApiException.RundeckApiHttpContentTypeException(firstHeader,
                         this.contentType);
             }
             return super.handle(response);
@@ -617,7 +745,7 @@ class ApiCall {
     /**
      * Handles writing response to an output stream
      */
-    private static class WriteOutHandler implements Handler<HttpResponse,Integer> {
+    private static class WriteOutHandler implements Handler<RundeckResponse,Integer> {
         private WriteOutHandler(OutputStream writeOut) {
             this.writeOut = writeOut;
         }
@@ -625,9 +753,9 @@ class ApiCall {
         OutputStream writeOut;
         IOException thrown;
         @Override
-        public Integer handle(final HttpResponse response) {
+        public Integer handle(final RundeckResponse response) {
             try {
-                return IOUtils.copy(response.getEntity().getContent(), writeOut);
+                return IOUtils.copy(response.getContent(), writeOut);
             } catch (IOException e) {
                 thrown=e;
             }
@@ -638,30 +766,73 @@ class ApiCall {
     /**
      * Handles reading response into a byte array stream
      */
-    private static class ResultHandler implements Handler<HttpResponse,ByteArrayInputStream> {
+    private static class ResultHandler implements Handler<RundeckResponse,ByteArrayInputStream> {
         @Override
-        public ByteArrayInputStream handle(final HttpResponse response) {
+        public ByteArrayInputStream handle(final RundeckResponse response) {
             // return a new inputStream, so that we can close all network resources
             try {
-                return new ByteArrayInputStream(EntityUtils.toByteArray(response.getEntity()));
+                return new ByteArrayInputStream(IOUtils.toByteArray(response.getContent()));
             } catch (IOException e) {
                 throw new RundeckApiException("Failed to consume entity and convert the inputStream", e);
             }
         }
     }
+    /**
+     * Handles reading response in memory, or into a temp file once larger than a threshold
+     */
+    private static class SpillingResultHandler implements Handler<RundeckResponse, InputStream> {
+        private final int threshold;
+
+        private SpillingResultHandler(final long threshold) {
+            this.threshold = (int) Math.min(threshold, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public InputStream handle(final RundeckResponse response) {
+            DeferredFileOutputStream output = new DeferredFileOutputStream(threshold, "rundeck-download-", ".tmp",
+                                                                           null);
+            try {
+                try {
+                    IOUtils.copyLarge(response.getContent(), output);
+                } finally {
+                    output.close();
+                }
+                if (output.isInMemory()) {
+                    return new ByteArrayInputStream(output.getData());
+                }
+                final File file = output.getFile();
+                return new FileInputStream(file) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            FileUtils.deleteQuietly(file);
+                        }
+                    }
+                };
+            } catch (IOException e) {
+                if (!output.isInMemory()) {
+                    FileUtils.deleteQuietly(output.getFile());
+                }
+                throw new RundeckApiException("Failed to consume entity and convert the inputStream", e);
+            }
+        }
+    }
+
     /**
      * Removes temp files after response
      */
     private static class TempFileCleanupHandler<T> extends  ChainHandler<T> {
         List<File> files;
 
-        public TempFileCleanupHandler(final Handler<HttpResponse, T> chain, final List<File> files) {
+        public TempFileCleanupHandler(final Handler<RundeckResponse, T> chain, final List<File> files) {
             super(chain);
             this.files = files;
         }
 
         public static <T> TempFileCleanupHandler<T> chain(
-                final Handler<HttpResponse, T> chain,
+                final Handler<RundeckResponse, T> chain,
                 final List<File> files
         )
         {
@@ -669,7 +840,7 @@ class ApiCall {
         }
 
         @Override
-        public T handle(final HttpResponse response) {
+        public T handle(final RundeckResponse response) {
             try {
                 return super.handle(response);
             }finally {
@@ -682,217 +853,459 @@ class ApiCall {
     /**
      * Execute an HTTP request to the Rundeck instance. We will login first, and then execute the API call.
      *
-     * @param request to execute. see {@link HttpGet}, {@link HttpDelete}, and so on...
-     * @return a new {@link InputStream} instance, not linked with network resources
+     * @param request to execute
+     * @param handler converting the response
+     * @return the result of the handler
      * @throws RundeckApiException in case of error when calling the API
      * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
      * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
      */
-    private <T> T execute(HttpUriRequest request, Handler<HttpResponse,T> handler) throws RundeckApiException,
+    private <T> T execute(RundeckRequest request, Handler<RundeckResponse,T> handler) throws RundeckApiException,
             RundeckApiLoginException,
             RundeckApiTokenException {
-        try(CloseableHttpClient httpClient = instantiateHttpClient()) {
-            // we only need to manually login in case of login-based authentication
-            // note that in case of token-based auth, the auth (via an HTTP header) is managed by an interceptor.
-            if (client.getToken() == null && client.getSessionID() == null) {
-                login(httpClient);
+        RundeckClientMetrics metrics = client.getMetrics();
+        if (null == metrics) {
+            return execute(request, handler, null);
+        }
+        CallRecorder recorder = new CallRecorder();
+        recorder.start(metrics, request);
+        Throwable failure = null;
+        try {
+            return execute(request, handler, recorder);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            recorder.complete(metrics, request, failure);
+        }
+    }
+
+    /**
+     * @param recorder measuring the call, or null
+     */
+    private <T> T execute(RundeckRequest request, Handler<RundeckResponse, T> handler, CallRecorder recorder)
+            throws RundeckApiException, RundeckApiLoginException, RundeckApiTokenException {
+        RundeckTransport transport = client.getTransport();
+        // in case of token-based auth, the auth (via an HTTP header) is set when building the request
+        if (client.getToken() != null || client.getSessionID() != null) {
+            return execute(transport, null, request, handler, false, recorder);
+        }
+
+        // login-based authentication : reuse the current session, and login again only once if it has expired
+        LoginSession session = client.getLoginSession();
+        LoginSession.Authenticator authenticator = authenticator();
+        long start = System.nanoTime();
+        long generation = session.acquire(authenticator);
+        CallRecorder.add(recorder, Phase.LOGIN, start);
+        try {
+            return execute(transport, session.getSession(), request, handler, true, recorder);
+        } catch (LoginSessionExpiredException e) {
+            start = System.nanoTime();
+            session.renew(generation, authenticator);
+            CallRecorder.add(recorder, Phase.LOGIN, start);
+            if (!request.isRepeatable()) {
+                throw e.getFailure();
+            }
+            return execute(transport, session.getSession(), request, handler, false, recorder);
+        }
+    }
+
+    /**
+     * @return performs the login requests of a {@link LoginSession}, using the transport of the client
+     */
+    LoginSession.Authenticator authenticator() {
+        return new LoginSession.Authenticator() {
+            @Override
+            public String login(RundeckTransport.Session session) throws RundeckApiLoginException {
+                return ApiCall.this.login(session);
             }
+        };
+    }
 
-            // execute the HTTP request
-            HttpResponse response = null;
+    /**
+     * Execute an HTTP request to the Rundeck instance, with the given session
+     *
+     * @param session              cookies to use, or null to only keep them for this call
+     * @param detectExpiredSession true to throw a {@link LoginSessionExpiredException} if the response shows that
+     *                             the login session has expired
+     * @param recorder             measuring the call, or null
+     */
+    private <T> T execute(RundeckTransport transport, RundeckTransport.Session session, RundeckRequest request,
+            Handler<RundeckResponse, T> handler, boolean detectExpiredSession, CallRecorder recorder)
+            throws RundeckApiException, RundeckApiLoginException, RundeckApiTokenException {
+        // execute the HTTP request
+        RundeckResponse response = null;
+        try {
+            long start = System.nanoTime();
             try {
-                response = httpClient.execute(request);
+                response = transport.execute(request, session);
             } catch (IOException e) {
                 throw new RundeckApiException("Failed to execute an HTTP " + request.getMethod() + " on url : "
                                               + request.getURI(), e);
+            } finally {
+                CallRecorder.add(recorder, Phase.REQUEST, start);
             }
 
             // in case of error, we get a redirect to /api/error
             // that we need to follow manually for POST and DELETE requests (as GET)
-            int statusCode = response.getStatusLine().getStatusCode();
+            int statusCode = response.getStatusCode();
             if (statusCode / 100 == 3) {
-                String newLocation = response.getFirstHeader("Location").getValue();
-                try {
-                    EntityUtils.consume(response.getEntity());
-                } catch (IOException e) {
-                    throw new RundeckApiException("Failed to consume entity (release connection)", e);
+                String newLocation = response.getHeader("Location");
+                if (isLoginRedirect(newLocation)) {
+                    throw sessionExpired(request.getURI(), null, detectExpiredSession);
                 }
-                request = new HttpGet(newLocation);
+                release(response);
+                response = null;
+                request = newRequest("GET", request.getURI().resolve(newLocation).toString());
+                start = System.nanoTime();
                 try {
-                    response = httpClient.execute(request);
-                    statusCode = response.getStatusLine().getStatusCode();
+                    response = transport.execute(request, session);
                 } catch (IOException e) {
                     throw new RundeckApiException("Failed to execute an HTTP GET on url : " + request.getURI(), e);
+                } finally {
+                    CallRecorder.add(recorder, Phase.REQUEST, start);
                 }
             }
+            if (null != recorder) {
+                return recorder.handle(this, request.getURI(), response, handler, detectExpiredSession);
+            }
+            return handleResponse(request.getURI(), response, handler, detectExpiredSession);
+        } finally {
+            // make sure the connection goes back to the pool, even if the handler did not read the whole content
+            release(response);
+        }
+    }
+
+    /**
+     * Check the response of the request, and convert it with the handler
+     *
+     * @param uri                  of the request, for error messages
+     * @param detectExpiredSession true to throw a {@link LoginSessionExpiredException} if the response shows that
+     *                             the login session has expired
+     * @throws RundeckApiException in case of error response
+     */
+    <T> T handleResponse(URI uri, RundeckResponse response, Handler<RundeckResponse, T> handler,
+            boolean detectExpiredSession) throws RundeckApiException,
+            RundeckApiLoginException,
+            RundeckApiTokenException {
+        int statusCode = response.getStatusCode();
+        if (isLoginRedirect(response.getRedirectLocations())) {
+            // GET requests are redirected automatically
+            throw sessionExpired(uri, null, detectExpiredSession);
+        }
 
-            // check the response code (should be 2xx, even in case of error : error message is in the XML result)
-            if (statusCode / 100 != 2) {
-                if (statusCode == 403 &&
-                        (client.getToken() != null || client.getSessionID() != null)) {
-                    throw new RundeckApiTokenException("Invalid Token or sessionID ! Got HTTP response '" + response.getStatusLine()
-                                                       + "' for " + request.getURI());
-                } else {
-                    throw new RundeckApiException.RundeckApiHttpStatusException("Invalid HTTP response '" + response.getStatusLine() + "' for "
-                                                  + request.getURI(), statusCode);
+        // check the response code (should be 2xx, even in case of error : error message is in the XML result)
+        if (statusCode / 100 != 2) {
+            if (statusCode == 403 &&
+                    (client.getToken() != null || client.getSessionID() != null)) {
+                throw new RundeckApiTokenException("Invalid Token or sessionID ! Got HTTP response '" + response.getStatusLine()
+                                                   + "' for " + uri);
+            } else {
+                RundeckApiException failure = new RundeckApiException.RundeckApiHttpStatusException(
+                        "Invalid HTTP response '" + response.getStatusLine() + "' for " + uri,
+                        statusCode);
+                if (statusCode == 403 && detectExpiredSession) {
+                    throw sessionExpired(uri, failure, true);
                 }
+                throw failure;
             }
-            if(statusCode==204){
-                return null;
-            }
-            if (response.getEntity() == null) {
+        }
+        if(statusCode==204){
+            return null;
+        }
+        try {
+            if (response.getContent() == null) {
                 throw new RundeckApiException("Empty Rundeck response ! HTTP status line is : "
                                               + response.getStatusLine());
             }
-            return handler.handle(response);
         } catch (IOException e) {
-            throw new RundeckApiException("failed closing http client", e);
+            throw new RundeckApiException("Failed to read the Rundeck response", e);
+        }
+        return handler.handle(response);
+    }
+
+    /**
+     * @return true if the location is the login page (or the login form action) of the Rundeck instance
+     */
+    private static boolean isLoginRedirect(final String location) {
+        return null != location && (location.contains("/user/login") || location.contains("j_security_check"));
+    }
+
+    /**
+     * @return true if one of the redirects is the login page
+     */
+    private static boolean isLoginRedirect(final List<URI> redirects) {
+        for (URI redirect : redirects) {
+            if (isLoginRedirect(redirect.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param failure exception to report if the request cannot be retried, or null for a login failure
+     * @param retry   true to allow a retry with a new session
+     */
+    private RundeckApiException sessionExpired(final URI uri, final RundeckApiException failure,
+            final boolean retry) {
+        RundeckApiException error = null != failure ? failure : new RundeckApiLoginException(
+                "Login session expired ! Got redirected to the login page for " + uri);
+        return retry ? new LoginSessionExpiredException(error) : error;
+    }
+
+    /**
+     * Signals that the login session has expired, and that the request may be sent again after a new login
+     */
+    static class LoginSessionExpiredException extends RundeckApiLoginException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RundeckApiException failure;
+
+        private LoginSessionExpiredException(final RundeckApiException failure) {
+            super(failure.getMessage(), failure);
+            this.failure = failure;
+        }
+
+        /**
+         * @return the exception to report if the request is not retried
+         */
+        RundeckApiException getFailure() {
+            return failure;
         }
     }
 
     /**
-     * Do the actual work of login, using the given {@link HttpClient} instance. You'll need to re-use this instance
-     * when making API calls (such as running a job). Only use this in case of login-based authentication.
+     * Close the response (if any), so that the underlying connection is released back to the pool
      *
-     * @param httpClient pre-instantiated
+     * @param response may be null
+     */
+    private static void release(final RundeckResponse response) {
+        if (null != response) {
+            IOUtils.closeQuietly(response);
+        }
+    }
+
+    /**
+     * Measures the phases of a call, the status and the bytes of its response, for the metrics of the client
+     */
+    private static class CallRecorder {
+        private final long start = System.nanoTime();
+        private final long[] nanos = new long[Phase.values().length];
+        private int statusCode;
+        private long bytesReceived;
+
+        /**
+         * Add the time elapsed since the start to a phase, if the recorder is not null
+         */
+        private static void add(final CallRecorder recorder, final Phase phase, final long start) {
+            if (null != recorder) {
+                recorder.add(phase, start);
+            }
+        }
+
+        private void add(final Phase phase, final long start) {
+            nanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+
+        /**
+         * Handle the response, counting the time waiting for its content as read, and the rest as parse
+         */
+        private <T> T handle(final ApiCall call, final URI uri, final RundeckResponse response,
+                final Handler<RundeckResponse, T> handler, final boolean detectExpiredSession) {
+            statusCode = response.getStatusCode();
+            long read = nanos[Phase.READ.ordinal()];
+            long start = System.nanoTime();
+            try {
+                return call.handleResponse(uri, new RecordedResponse(response, this), handler, detectExpiredSession);
+            } finally {
+                nanos[Phase.PARSE.ordinal()] += System.nanoTime() - start - (nanos[Phase.READ.ordinal()] - read);
+            }
+        }
+
+        private static String endpoint(final RundeckRequest request) {
+            return null != request.getEndpoint() ? request.getEndpoint() : request.getURI().getPath();
+        }
+
+        private void start(final RundeckClientMetrics metrics, final RundeckRequest request) {
+            try {
+                metrics.callStarted(request.getMethod(), endpoint(request));
+            } catch (RuntimeException e) {
+                // the metrics must not fail the call
+            }
+        }
+
+        private void complete(final RundeckClientMetrics metrics, final RundeckRequest request,
+                final Throwable failure) {
+            long total = System.nanoTime() - start;
+            long bytesSent = null != request.getBody() ? request.getBody().getContentLength() : 0;
+            String endpoint = endpoint(request);
+            try {
+                metrics.callCompleted(new ApiCallEvent(endpoint, request.getMethod(), statusCode, bytesSent,
+                                                       bytesReceived, nanos, total, failure));
+            } catch (RuntimeException e) {
+                // the metrics must not fail the call
+            }
+        }
+    }
+
+    /**
+     * Response counting the bytes read from its content, and the time spent waiting for them
+     */
+    private static class RecordedResponse implements RundeckResponse {
+        private final RundeckResponse response;
+        private final CallRecorder recorder;
+        private InputStream content;
+
+        private RecordedResponse(final RundeckResponse response, final CallRecorder recorder) {
+            this.response = response;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusLine() {
+            return response.getStatusLine();
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public List<URI> getRedirectLocations() {
+            return response.getRedirectLocations();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (null == content) {
+                InputStream original = response.getContent();
+                if (null == original) {
+                    return null;
+                }
+                content = new FilterInputStream(original) {
+                    @Override
+                    public int read() throws IOException {
+                        long start = System.nanoTime();
+                        int read = super.read();
+                        recorder.add(Phase.READ, start);
+                        if (read >= 0) {
+                            recorder.bytesReceived++;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public int read(final byte[] b, final int off, final int len) throws IOException {
+                        long start = System.nanoTime();
+                        int read = super.read(b, off, len);
+                        recorder.add(Phase.READ, start);
+                        if (read > 0) {
+                            recorder.bytesReceived += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public long skip(final long n) throws IOException {
+                        long start = System.nanoTime();
+                        long skipped = super.skip(n);
+                        recorder.add(Phase.READ, start);
+                        recorder.bytesReceived += skipped;
+                        return skipped;
+                    }
+                };
+            }
+            return content;
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+    }
+
+    /**
+     * Do the actual work of login, using the transport of the client. You'll need to re-use the same session (holding
+     * the session cookie) when making API calls (such as running a job). Only use this in case of login-based
+     * authentication.
+     *
+     * @param session transport session, holding the cookies of the web session
      * @throws RundeckApiLoginException if the login failed
      */
-    private String login(HttpClient httpClient) throws RundeckApiLoginException {
+    private String login(RundeckTransport.Session session) throws RundeckApiLoginException {
+        RundeckTransport transport = client.getTransport();
         String sessionID = null;
 
         // 1. call expected GET request
         String location = client.getUrl();
 
+        RundeckResponse response = null;
         try {
-            HttpGet getRequest = new HttpGet(location);
-            HttpResponse response = httpClient.execute(getRequest);
+            response = transport.execute(new RundeckRequest("GET", location), session);
 
             // sessionID stored in case user wants to cache it for reuse
-            Header cookieHeader = response.getFirstHeader("Set-Cookie");
-            if (cookieHeader != null) {
-                String cookieStr = cookieHeader.getValue();
-                if (cookieStr != null) {
-                    int i1 = cookieStr.indexOf("JSESSIONID=");
-                    if (i1 >= 0) {
-                        cookieStr = cookieStr.substring(i1 + "JSESSIONID=".length());
-                        int i2 = cookieStr.indexOf(";");
-                        if (i2 >= 0) {
-                            sessionID = cookieStr.substring(0, i2);
-                        }
+            String cookieStr = response.getHeader("Set-Cookie");
+            if (cookieStr != null) {
+                int i1 = cookieStr.indexOf("JSESSIONID=");
+                if (i1 >= 0) {
+                    cookieStr = cookieStr.substring(i1 + "JSESSIONID=".length());
+                    int i2 = cookieStr.indexOf(";");
+                    if (i2 >= 0) {
+                        sessionID = cookieStr.substring(0, i2);
                     }
                 }
             }
-
-            try {
-                EntityUtils.consume(response.getEntity());
-            } catch (IOException e) {
-                throw new RundeckApiLoginException("Failed to consume entity (release connection)", e);
-            }
         } catch (IOException e) {
             throw new RundeckApiLoginException("Failed to get request on " + location, e);
+        } finally {
+            release(response);
         }
 
         // 2. then call POST login request
         location += "/j_security_check";
 
         while (true) {
+            response = null;
             try {
-                HttpPost postLogin = new HttpPost(location);
+                RundeckRequest postLogin = new RundeckRequest("POST", location);
                 List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
                 params.add(new BasicNameValuePair("j_username", client.getLogin()));
                 params.add(new BasicNameValuePair("j_password", client.getPassword()));
                 params.add(new BasicNameValuePair("action", "login"));
-                postLogin.setEntity(new UrlEncodedFormEntity(params, Consts.UTF_8));
-                HttpResponse response = httpClient.execute(postLogin);
-
-                if (response.getStatusLine().getStatusCode() / 100 == 3) {
-                    // HTTP client refuses to handle redirects (code 3xx) for POST, so we have to do it manually...
-                    location = response.getFirstHeader("Location").getValue();
-                    try {
-                        EntityUtils.consume(response.getEntity());
-                    } catch (IOException e) {
-                        throw new RundeckApiLoginException("Failed to consume entity (release connection)", e);
-                    }
+                postLogin.setBody(new EntityBody(new UrlEncodedFormEntity(params, Consts.UTF_8)));
+                response = transport.execute(postLogin, session);
+
+                if (response.getStatusCode() / 100 == 3) {
+                    // redirects (code 3xx) are not followed for POST, so we have to do it manually...
+                    location = postLogin.getURI().resolve(response.getHeader("Location")).toString();
                     continue;
                 }
 
-                if (response.getStatusLine().getStatusCode() / 100 != 2) {
+                if (response.getStatusCode() / 100 != 2) {
                     throw new RundeckApiLoginException("Invalid HTTP response '" + response.getStatusLine() + "' for "
                             + location);
                 }
 
-                try {
-                    String content = EntityUtils.toString(response.getEntity(), Consts.UTF_8);
-                    if (StringUtils.contains(content, "j_security_check")) {
-                        throw new RundeckApiLoginException("Login failed for user " + client.getLogin());
-                    }
-                    try {
-                        EntityUtils.consume(response.getEntity());
-                    } catch (IOException e) {
-                        throw new RundeckApiLoginException("Failed to consume entity (release connection)", e);
-                    }
-                    break;
-                } catch (IOException io) {
-                    throw new RundeckApiLoginException("Failed to read Rundeck result", io);
-                } catch (ParseException p) {
-                    throw new RundeckApiLoginException("Failed to parse Rundeck response", p);
+                InputStream content = response.getContent();
+                if (null != content && StringUtils.contains(IOUtils.toString(content, "UTF-8"), "j_security_check")) {
+                    throw new RundeckApiLoginException("Login failed for user " + client.getLogin());
                 }
+                break;
             } catch (IOException e) {
                 throw new RundeckApiLoginException("Failed to post login form on " + location, e);
+            } finally {
+                release(response);
             }
         }
 
         return sessionID;
     }
-
-
-    /**
-     * Instantiate a new {@link HttpClient} instance, configured to accept all SSL certificates
-     *
-     * @return an {@link HttpClient} instance - won't be null
-     */
-    private CloseableHttpClient instantiateHttpClient() {
-        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create().useSystemProperties();
-
-        // configure user-agent
-        httpClientBuilder.setUserAgent( "Rundeck API Java Client " + client.getApiVersion());
-
-        if (client.isSslHostnameVerifyAllowAll()) {
-            httpClientBuilder.setHostnameVerifier(SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-        }
-        if (client.isSslCertificateTrustAllowSelfSigned()) {
-            // configure SSL
-            try {
-                httpClientBuilder.setSslcontext(
-                        new SSLContextBuilder()
-                                .loadTrustMaterial(null, new TrustSelfSignedStrategy())
-                                .build());
-            } catch (KeyManagementException | KeyStoreException | NoSuchAlgorithmException e) {
-                throw new RuntimeException(e);
-            }
-
-        }
-        if(client.isSystemProxyEnabled()) {
-            // configure proxy (use system env : http.proxyHost / http.proxyPort)
-            httpClientBuilder.setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()));
-        }
-        // in case of token-based authentication, add the correct HTTP header to all requests via an interceptor
-        httpClientBuilder.addInterceptorFirst(
-                new HttpRequestInterceptor() {
-
-                    @Override
-                    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
-                        if (client.getToken() != null) {
-                            request.addHeader(AUTH_TOKEN_HEADER, client.getToken());
-                            //System.out.println("httpClient adding token header");
-                        } else if (client.getSessionID() != null) {
-                            request.addHeader(COOKIE_HEADER, "JSESSIONID=" + client.getSessionID());
-                            //System.out.println("httpClient adding session header, sessionID="+client.getSessionID());
-                        }
-                    }
-                }
-        );
-
-        return httpClientBuilder.build();
-    }
 }
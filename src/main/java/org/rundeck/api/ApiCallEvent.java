@@ -0,0 +1,114 @@
+package org.rundeck.api;
+
+/**
+ * An API call completed by a client, sent to its {@link RundeckClientMetrics}. The time of the call is split in
+ * phases : see {@link Phase}.
+ */
+public class ApiCallEvent {
+
+    /**
+     * Phases of an API call
+     */
+    public static enum Phase {
+        /** login to get a web session, in case of login-based authentication */
+        LOGIN,
+        /** connection, sending of the request and wait for the response headers, including redirects */
+        REQUEST,
+        /** wait for the content of the response */
+        READ,
+        /** parsing of the content of the response, excluding the time spent waiting for it */
+        PARSE
+    }
+
+    private final String endpoint;
+    private final String method;
+    private final int statusCode;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long[] phaseNanos;
+    private final long totalNanos;
+    private final Throwable failure;
+
+    ApiCallEvent(final String endpoint, final String method, final int statusCode, final long bytesSent,
+            final long bytesReceived, final long[] phaseNanos, final long totalNanos, final Throwable failure) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.statusCode = statusCode;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.phaseNanos = phaseNanos;
+        this.totalNanos = totalNanos;
+        this.failure = failure;
+    }
+
+    /**
+     * @return the endpoint called, with a placeholder instead of each id or name, such as "/execution/{id}/output"
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the HTTP method, such as GET or POST
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the HTTP status of the response, or 0 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the number of bytes of the content of the request, or -1 if unknown (streamed content)
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the number of bytes of the content of the response read by the client
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the time spent in the given phase, in nanoseconds
+     */
+    public long getNanos(final Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the time of the whole call, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return the exception thrown by the call, or null if it succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return true if the call succeeded
+     */
+    public boolean isSuccess() {
+        return null == failure;
+    }
+
+    @Override
+    public String toString() {
+        return "ApiCallEvent [" + method + " " + endpoint + ", status=" + statusCode + ", bytesSent=" + bytesSent
+               + ", bytesReceived=" + bytesReceived + ", login=" + getNanos(Phase.LOGIN) + ", request="
+               + getNanos(Phase.REQUEST) + ", read=" + getNanos(Phase.READ) + ", parse=" + getNanos(Phase.PARSE)
+               + ", total=" + totalNanos + (null != failure ? ", failure=" + failure : "") + "]";
+    }
+}
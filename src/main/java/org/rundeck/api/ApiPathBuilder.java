@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.NameValuePair;
 import org.apache.http.message.BasicNameValuePair;
@@ -42,6 +43,14 @@ class ApiPathBuilder {
     /** Internally, we store everything in a {@link StringBuilder} */
     private final StringBuilder apiPath;
 
+    /** The path, with a placeholder instead of each variable element, such as "/execution/{id}/output" */
+    private final StringBuilder template = new StringBuilder();
+
+    /** Pattern of the elements of a literal path which are ids, such as "/execution/42" */
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "[0-9]+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}"
+    );
+
     private String accept="text/xml";
 
     /** When POSTing, we can add attachments */
@@ -77,12 +86,47 @@ class ApiPathBuilder {
             for (String path : paths) {
                 if (StringUtils.isNotBlank(path)) {
                     append(path);
+                    appendTemplate(path);
                 }
             }
         }
         return this;
     }
 
+    /**
+     * Append an element of the path to the template : the elements starting with a "/" are literal (except the ids
+     * they may contain), the others are variables, such as the project in ("/project/", project, "/jobs")
+     */
+    private void appendTemplate(String path) {
+        if (template.indexOf("?") >= 0) {
+            return;
+        }
+        if (!path.startsWith("/") && template.length() > 0) {
+            template.append(template.toString().endsWith("/project/") ? "{project}" : "{id}");
+            return;
+        }
+        String literal = StringUtils.substringBefore(path, "?");
+        String[] segments = literal.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                template.append('/');
+            }
+            template.append(ID_SEGMENT.matcher(segments[i]).matches() ? "{id}" : segments[i]);
+        }
+        if (literal.length() < path.length()) {
+            template.append('?');
+        }
+    }
+
+    /**
+     * @return the path without its parameters, with a placeholder instead of each variable element : the endpoint
+     * of the API, such as "/execution/{id}/output"
+     */
+    public String getTemplate() {
+        int query = template.indexOf("?");
+        return query >= 0 ? template.substring(0, query) : template.toString();
+    }
+
     /**
      * Set the accept header
      */
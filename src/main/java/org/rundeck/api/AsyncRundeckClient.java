@@ -0,0 +1,718 @@
+package org.rundeck.api;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.rundeck.api.domain.RundeckAbort;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecutionState;
+import org.rundeck.api.domain.RundeckHistory;
+import org.rundeck.api.domain.RundeckJob;
+import org.rundeck.api.domain.RundeckNode;
+import org.rundeck.api.domain.RundeckOutput;
+import org.rundeck.api.domain.RundeckProject;
+import org.rundeck.api.domain.RundeckSystemInfo;
+import org.rundeck.api.parser.AbortParser;
+import org.rundeck.api.parser.ExecutionParser;
+import org.rundeck.api.parser.ExecutionStateParser;
+import org.rundeck.api.parser.HistoryParser;
+import org.rundeck.api.parser.JobParser;
+import org.rundeck.api.parser.ListParser;
+import org.rundeck.api.parser.NodeParser;
+import org.rundeck.api.parser.OutputParser;
+import org.rundeck.api.parser.ResponseParser;
+import org.rundeck.api.parser.SystemInfoParser;
+import org.rundeck.api.parser.XmlNodeParser;
+import org.rundeck.api.transport.RequestBody;
+import org.rundeck.api.transport.RundeckRequest;
+import org.rundeck.api.transport.RundeckResponse;
+import org.rundeck.api.transport.RundeckTransport;
+import org.rundeck.api.util.AssertUtil;
+import org.rundeck.api.util.ParametersUtil;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProxySelector;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variant of the {@link RundeckClient} API : each operation sends its request on a non-blocking HTTP
+ * engine and returns immediately with a {@link CompletableFuture}, so that a few threads can keep many requests in
+ * flight.
+ * <p>
+ * The URL, credentials, API version, SSL and connection pool settings are those of the given {@link RundeckClient}.
+ * Responses are parsed with the same parsers as the blocking client, on the given {@link Executor} (the common
+ * {@link ForkJoinPool} by default, or a virtual thread per task if the client is configured with
+ * {@link RundeckClientBuilder#virtualThreads(boolean)}) rather than on the I/O threads, and the futures are completed
+ * on that executor.
+ * Failures complete the future exceptionally with the same exceptions as the blocking client would throw.
+ * <p>
+ * In case of login-based authentication, the login session is shared with the {@link RundeckClient} : the first login
+ * and re-logins on session expiry block, so they are performed on a single thread of this async client, never on the
+ * executor, and the requests waiting for a login are queued without holding any thread. The requests are always sent
+ * with Apache HttpAsyncClient, so the session can not be shared with a client using
+ * {@link RundeckClientBuilder#jdkHttpClient(boolean)}.
+ * <p>
+ * Usage :
+ * <pre>
+ * AsyncRundeckClient async = new AsyncRundeckClient(rundeck);
+ * async.getExecution(42L).thenAccept(execution -&gt; ...);
+ * ...
+ * async.close();
+ * </pre>
+ */
+public class AsyncRundeckClient implements Closeable {
+
+    private final RundeckClient client;
+
+    private final Executor executor;
+
+    /** executor created by this async client, shut down on close - null if given by the caller */
+    private final ExecutorService ownedExecutor;
+
+    /** runs the blocking logins, shut down on close - null in case of token-based or session-based authentication */
+    private final ExecutorService loginExecutor;
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    /**
+     * Create an async client for the given client, completing the futures on the common {@link ForkJoinPool}, or on
+     * virtual threads if enabled for the client
+     *
+     * @param client configured client
+     */
+    public AsyncRundeckClient(final RundeckClient client) {
+        this(client, defaultExecutor(client), null != client && client.isVirtualThreads());
+    }
+
+    /**
+     * Create an async client for the given client
+     *
+     * @param client   configured client
+     * @param executor used to parse the responses and complete the futures
+     */
+    public AsyncRundeckClient(final RundeckClient client, final Executor executor) {
+        this(client, executor, false);
+    }
+
+    /**
+     * @param ownsExecutor true if the executor has been created for this async client, and must be shut down on close
+     */
+    private AsyncRundeckClient(final RundeckClient client, final Executor executor, final boolean ownsExecutor) {
+        AssertUtil.notNull(client, "The Rundeck Client must not be null !");
+        AssertUtil.notNull(executor, "The executor must not be null !");
+        if (client.isJdkHttpClient() && null == client.getToken() && null == client.getSessionID()) {
+            throw new IllegalArgumentException(
+                    "Login-based authentication is not supported for a client using the JDK HTTP client");
+        }
+        this.client = client;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+        this.loginExecutor = null == client.getToken() && null == client.getSessionID()
+                             ? Executors.newSingleThreadExecutor(
+                                     VirtualThreads.factory("rundeck-client-async-login-", client.isVirtualThreads()))
+                             : null;
+        this.httpClient = createHttpClient(client);
+        this.httpClient.start();
+    }
+
+    private static Executor defaultExecutor(final RundeckClient client) {
+        if (null != client && client.isVirtualThreads()) {
+            return VirtualThreads.newExecutor("rundeck-client-async-");
+        }
+        return ForkJoinPool.commonPool();
+    }
+
+    private static CloseableHttpAsyncClient createHttpClient(final RundeckClient client) {
+        // system properties are not used : they would override the pool size with http.maxConnections
+        HttpAsyncClientBuilder httpClientBuilder = HttpAsyncClients.custom();
+        httpClientBuilder.setMaxConnTotal(client.getMaxConnectionsTotal());
+        httpClientBuilder.setMaxConnPerRoute(client.getMaxConnectionsPerRoute());
+        httpClientBuilder.setUserAgent("Rundeck API Java Client " + client.getApiVersion());
+        // follow redirects (to /api/error) as GET for all methods, like the blocking client does
+        httpClientBuilder.setRedirectStrategy(new LaxRedirectStrategy());
+
+        SSLContext sslContext = ConnectionPool.createSelfSignedSslContext(client);
+        if (null != sslContext) {
+            httpClientBuilder.setSSLStrategy(new SSLIOSessionStrategy(
+                    sslContext,
+                    ConnectionPool.createHostnameVerifier(client)));
+        } else {
+            try {
+                httpClientBuilder.setSSLStrategy(new SSLIOSessionStrategy(
+                        SSLContext.getDefault(),
+                        ConnectionPool.split(System.getProperty("https.protocols")),
+                        ConnectionPool.split(System.getProperty("https.cipherSuites")),
+                        ConnectionPool.createHostnameVerifier(client)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (client.isSystemProxyEnabled()) {
+            httpClientBuilder.setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()));
+        }
+        return httpClientBuilder.build();
+    }
+
+    /**
+     * @return the blocking client used for the configuration
+     */
+    public RundeckClient getClient() {
+        return client;
+    }
+
+    /**
+     * Stop the I/O threads and close the connections. Pending futures are cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            httpClient.close();
+        } finally {
+            if (null != loginExecutor) {
+                loginExecutor.shutdown();
+            }
+            if (null != ownedExecutor) {
+                ownedExecutor.shutdown();
+            }
+        }
+    }
+
+    /*
+     * Projects
+     */
+
+    /**
+     * List all projects
+     *
+     * @see RundeckClient#getProjects()
+     */
+    public CompletableFuture<List<RundeckProject>> getProjects() {
+        return get(new ApiPathBuilder("/projects"),
+                   new ListParser<>(client.createProjectParser(null), "/projects/project"));
+    }
+
+    /**
+     * Get the definition of a single project, identified by the given name
+     *
+     * @param projectName name of the project - mandatory
+     * @throws IllegalArgumentException if the projectName is blank (null, empty or whitespace)
+     * @see RundeckClient#getProject(String)
+     */
+    public CompletableFuture<RundeckProject> getProject(final String projectName) throws IllegalArgumentException {
+        AssertUtil.notBlank(projectName, "projectName is mandatory to get the details of a project !");
+        return get(new ApiPathBuilder("/project/", projectName),
+                   client.createProjectParser(
+                           client.getApiVersion() < RundeckClient.Version.V11.getVersionNumber()
+                           ? "/projects/project"
+                           : "/project"
+                   ));
+    }
+
+    /*
+     * Jobs
+     */
+
+    /**
+     * List all jobs that belongs to the given project
+     *
+     * @param project name of the project - mandatory
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @see RundeckClient#getJobs(String)
+     */
+    public CompletableFuture<List<RundeckJob>> getJobs(final String project) throws IllegalArgumentException {
+        return getJobs(project, null, null);
+    }
+
+    /**
+     * List the jobs that belongs to the given project, and matches the given criteria (jobFilter, groupPath and jobIds)
+     *
+     * @param project   name of the project - mandatory
+     * @param jobFilter a filter for the job Name - optional
+     * @param groupPath a group or partial group path to include all jobs within that group path - optional
+     * @param jobIds    a list of Job IDs to include - optional
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @see RundeckClient#getJobs(String, String, String, String...)
+     */
+    public CompletableFuture<List<RundeckJob>> getJobs(final String project, final String jobFilter,
+            final String groupPath, final String... jobIds) throws IllegalArgumentException {
+        AssertUtil.notBlank(project, "project is mandatory to get all jobs !");
+        ApiPathBuilder builder;
+        if (client.isApiAtLeast(RundeckClient.Version.V14)) {
+            builder = new ApiPathBuilder("/project/", project, "/jobs");
+        } else {
+            builder = new ApiPathBuilder("/jobs").param("project", project);
+        }
+        return get(
+                builder.param("jobFilter", jobFilter)
+                       .param("groupPath", groupPath)
+                       .param("idlist", StringUtils.join(jobIds, ",")),
+                new ListParser<>(new JobParser(), "/jobs/job")
+        );
+    }
+
+    /**
+     * Get the definition of a single job, identified by the given ID
+     *
+     * @param jobId identifier of the job - mandatory
+     * @throws IllegalArgumentException if the jobId is blank (null, empty or whitespace)
+     * @see RundeckClient#getJob(String)
+     */
+    public CompletableFuture<RundeckJob> getJob(final String jobId) throws IllegalArgumentException {
+        AssertUtil.notBlank(jobId, "jobId is mandatory to get the details of a job !");
+        boolean v18 = client.getApiVersion() >= RundeckClient.Version.V18.getVersionNumber();
+        return get(new ApiPathBuilder(v18 ? "/job/" + jobId + "/info" : "/job/" + jobId),
+                   new JobParser(v18 ? "job" : "joblist/job"));
+    }
+
+    /**
+     * Delete a single job, identified by the given ID
+     *
+     * @param jobId identifier of the job - mandatory
+     * @throws IllegalArgumentException if the jobId is blank (null, empty or whitespace)
+     * @see RundeckClient#deleteJob(String)
+     */
+    public CompletableFuture<String> deleteJob(final String jobId) throws IllegalArgumentException {
+        AssertUtil.notBlank(jobId, "jobId is mandatory to delete a job !");
+        RundeckRequest request = new ApiCall(client).newRequest("DELETE", new ApiPathBuilder("/job/", jobId));
+        return execute(request, ApiCall.contentHandler((ResponseParser<InputStream>) response -> response))
+                .thenApply(response -> {
+                    if (null != response) {
+                        throw new RundeckApiException("Unexpected Rundeck response content, expected no content!");
+                    }
+                    return "Job " + jobId + " was deleted successfully";
+                });
+    }
+
+    /**
+     * Trigger the execution of a Rundeck job, and complete as soon as the execution is created
+     *
+     * @param jobRun the RunJob, see {@link RunJobBuilder}
+     * @throws IllegalArgumentException if the jobId is blank (null, empty or whitespace)
+     * @see RundeckClient#triggerJob(RunJob)
+     */
+    public CompletableFuture<RundeckExecution> triggerJob(final RunJob jobRun) throws IllegalArgumentException {
+        AssertUtil.notBlank(jobRun.getJobId(), "jobId is mandatory to trigger a job !");
+
+        ApiPathBuilder apiPath = new ApiPathBuilder("/job/", jobRun.getJobId(), "/run");
+        String options = ParametersUtil.generateArgString(jobRun.getOptions());
+        ExecutionParser parser = new ExecutionParser("/executions/execution");
+
+        if (client.getApiVersion() < RundeckClient.Version.V13.getVersionNumber()) {
+            apiPath.param("argString", options)
+                   .nodeFilters(jobRun.getNodeFilters());
+            if (null != jobRun.getAsUser()) {
+                apiPath.param("asUser", jobRun.getAsUser());
+            }
+            return get(apiPath, parser);
+        }
+        apiPath.field("argString", options)
+               .nodeFilters(jobRun.getNodeFilters());
+        if (null != jobRun.getAsUser()) {
+            apiPath.field("asUser", jobRun.getAsUser());
+        }
+        if ((options == null || options.isEmpty()) && (jobRun.getAsUser() == null || jobRun.getAsUser().isEmpty())) {
+            apiPath.emptyContent();
+        }
+        return post(apiPath, parser);
+    }
+
+    /**
+     * Trigger the execution of an ad-hoc command, and complete as soon as the execution is created
+     *
+     * @param command the RunAdhocCommand. Project and command are mandatory, see {@link RunAdhocCommandBuilder}
+     * @throws IllegalArgumentException if the project or command is blank (null, empty or whitespace)
+     * @see RundeckClient#triggerAdhocCommand(RunAdhocCommand)
+     */
+    public CompletableFuture<RundeckExecution> triggerAdhocCommand(final RunAdhocCommand command)
+            throws IllegalArgumentException {
+        AssertUtil.notBlank(command.getProject(), "project is mandatory to trigger an ad-hoc command !");
+        AssertUtil.notBlank(command.getCommand(), "command is mandatory to trigger an ad-hoc command !");
+        ApiPathBuilder apiPath;
+        if (client.isApiAtLeast(RundeckClient.Version.V14)) {
+            apiPath = new ApiPathBuilder("/project/", command.getProject(), "/run/command");
+        } else {
+            apiPath = new ApiPathBuilder("/run/command").param("project", command.getProject());
+        }
+        apiPath.param("exec", command.getCommand())
+               .param("nodeThreadcount", command.getNodeThreadcount())
+               .param("nodeKeepgoing", command.getNodeKeepgoing())
+               .nodeFilters(command.getNodeFilters());
+        if (null != command.getAsUser()) {
+            apiPath.param("asUser", command.getAsUser());
+        }
+        // the first call just returns the ID of the execution, so we need another call to get a "real" execution
+        return get(apiPath, new ExecutionParser("/execution"))
+                .thenCompose(execution -> getExecution(execution.getId()));
+    }
+
+    /*
+     * Executions
+     */
+
+    /**
+     * Get a single execution, identified by the given ID
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#getExecution(Long)
+     */
+    public CompletableFuture<RundeckExecution> getExecution(final Long executionId) throws IllegalArgumentException {
+        AssertUtil.notNull(executionId, "executionId is mandatory to get the details of an execution !");
+        return get(new ApiPathBuilder("/execution/", executionId.toString()),
+                   new ExecutionParser("/executions/execution"));
+    }
+
+    /**
+     * Get the running executions for the given project
+     *
+     * @param project name of the project - mandatory
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @see RundeckClient#getRunningExecutions(String)
+     */
+    public CompletableFuture<List<RundeckExecution>> getRunningExecutions(final String project)
+            throws IllegalArgumentException {
+        AssertUtil.notBlank(project, "project is mandatory get all running executions !");
+        ApiPathBuilder builder;
+        if (client.isApiAtLeast(RundeckClient.Version.V14)) {
+            builder = new ApiPathBuilder("/project/", project, "/executions/running");
+        } else {
+            builder = new ApiPathBuilder("/executions/running").param("project", project);
+        }
+        return get(builder, new ListParser<>(new ExecutionParser(), "/executions/execution"));
+    }
+
+    /**
+     * Abort an execution (identified by the given ID)
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#abortExecution(Long)
+     */
+    public CompletableFuture<RundeckAbort> abortExecution(final Long executionId) throws IllegalArgumentException {
+        return abortExecution(executionId, null);
+    }
+
+    /**
+     * Abort an execution (identified by the given ID)
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @param asUser      specify a user name to abort the job as, must have 'killAs' permission
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#abortExecution(Long, String)
+     */
+    public CompletableFuture<RundeckAbort> abortExecution(final Long executionId, final String asUser)
+            throws IllegalArgumentException {
+        AssertUtil.notNull(executionId, "executionId is mandatory to abort an execution !");
+        ApiPathBuilder apiPath = new ApiPathBuilder("/execution/", executionId.toString(), "/abort");
+        if (null != asUser) {
+            apiPath.param("asUser", asUser);
+        }
+        return get(apiPath, new AbortParser("/abort"));
+    }
+
+    /**
+     * Get the execution output of the given execution
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @param offset      byte offset to read from in the file. 0 indicates the beginning.
+     * @param lastmod     epoch datestamp in milliseconds, return results only if modification changed since the
+     *                    specified date OR if more data is available at the given offset
+     * @param maxlines    maximum number of lines to retrieve forward from the specified offset.
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#getExecutionOutput(Long, int, long, int)
+     */
+    public CompletableFuture<RundeckOutput> getExecutionOutput(final Long executionId, final int offset,
+            final long lastmod, final int maxlines) throws IllegalArgumentException {
+        return getExecutionOutput(executionId, offset, 0, lastmod, maxlines);
+    }
+
+    /**
+     * Get the execution output of the given execution
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @param offset      byte offset to read from in the file. 0 indicates the beginning.
+     * @param lastlines   number of lines to retrieve from the end of the available output, overrides the offset
+     * @param lastmod     epoch datestamp in milliseconds, return results only if modification changed since the
+     *                    specified date OR if more data is available at the given offset
+     * @param maxlines    maximum number of lines to retrieve forward from the specified offset.
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#getExecutionOutput(Long, int, int, long, int)
+     */
+    public CompletableFuture<RundeckOutput> getExecutionOutput(final Long executionId, final int offset,
+            final int lastlines, final long lastmod, final int maxlines) throws IllegalArgumentException {
+        AssertUtil.notNull(executionId, "executionId is mandatory to get the output of a job execution!");
+        ApiPathBuilder param = new ApiPathBuilder("/execution/", executionId.toString(), "/output")
+                .param("offset", offset);
+        if (lastlines > 0) {
+            param.param("lastlines", lastlines);
+        }
+        if (lastmod >= 0) {
+            param.param("lastmod", lastmod);
+        }
+        if (maxlines > 0) {
+            param.param("maxlines", maxlines);
+        }
+        return get(param, new OutputParser("/output", client.createOutputEntryParser()));
+    }
+
+    /**
+     * Get the execution state of the given execution
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @throws IllegalArgumentException if the executionId is null
+     * @see RundeckClient#getExecutionState(Long)
+     */
+    public CompletableFuture<RundeckExecutionState> getExecutionState(final Long executionId)
+            throws IllegalArgumentException {
+        AssertUtil.notNull(executionId, "executionId is mandatory to get the state of an execution!");
+        return get(new ApiPathBuilder("/execution/", executionId.toString(), "/state"),
+                   new ExecutionStateParser("/executionState"));
+    }
+
+    /*
+     * History
+     */
+
+    /**
+     * Get the (events) history for the given project
+     *
+     * @param project name of the project - mandatory
+     * @param max     number of results to return - optional (null for all)
+     * @param offset  the 0-indexed offset for the first result to return - optional
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @see RundeckClient#getHistory(String, Long, Long)
+     */
+    public CompletableFuture<RundeckHistory> getHistory(final String project, final Long max, final Long offset)
+            throws IllegalArgumentException {
+        AssertUtil.notBlank(project, "project is mandatory to get the history !");
+        return get(new ApiPathBuilder("/history").param("project", project)
+                                                 .param("max", max)
+                                                 .param("offset", offset),
+                   new HistoryParser("/events"));
+    }
+
+    /*
+     * Nodes
+     */
+
+    /**
+     * List nodes that belongs to the given project
+     *
+     * @param project     name of the project - mandatory
+     * @param nodeFilters for filtering the nodes - optional. See {@link NodeFiltersBuilder}
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @see RundeckClient#getNodes(String, Properties)
+     */
+    public CompletableFuture<List<RundeckNode>> getNodes(final String project, final Properties nodeFilters)
+            throws IllegalArgumentException {
+        AssertUtil.notBlank(project, "project is mandatory to get all nodes !");
+        ApiPathBuilder builder;
+        if (client.isApiAtLeast(RundeckClient.Version.V14)) {
+            builder = new ApiPathBuilder("/project/", project, "/resources");
+        } else {
+            builder = new ApiPathBuilder("/resources").param("project", project);
+        }
+        return get(builder.nodeFilters(nodeFilters), new ListParser<>(new NodeParser(), "project/node"));
+    }
+
+    /*
+     * System Info
+     */
+
+    /**
+     * Get system informations about the Rundeck server
+     *
+     * @see RundeckClient#getSystemInfo()
+     */
+    public CompletableFuture<RundeckSystemInfo> getSystemInfo() {
+        return get(new ApiPathBuilder("/system/info"), new SystemInfoParser("/system"));
+    }
+
+    /*
+     * Requests
+     */
+
+    private <T> CompletableFuture<T> get(final ApiPathBuilder apiPath, final XmlNodeParser<T> parser) {
+        ApiCall apiCall = new ApiCall(client);
+        return execute(apiCall.createGet(apiPath), apiCall.xmlHandler(parser));
+    }
+
+    private <T> CompletableFuture<T> post(final ApiPathBuilder apiPath, final XmlNodeParser<T> parser) {
+        ApiCall apiCall = new ApiCall(client);
+        RundeckRequest request = apiCall.newRequest("POST", apiPath);
+        ApiCall.Handler<RundeckResponse, T> handler = apiCall.prepareEntity(
+                apiPath,
+                apiCall.xmlHandler(parser),
+                request
+        );
+        bufferBody(request);
+        return execute(request, handler);
+    }
+
+    /**
+     * The content of the request is sent from the I/O threads, which can only stream entities providing their
+     * content as an input stream : other entities (multipart, XML documents, files...) are buffered in memory. The
+     * buffered content can also be sent again after a new login.
+     */
+    private static void bufferBody(final RundeckRequest request) {
+        RequestBody body = request.getBody();
+        if (null == body) {
+            return;
+        }
+        if (body instanceof EntityBody) {
+            HttpEntity entity = ((EntityBody) body).getEntity();
+            if (entity instanceof ByteArrayEntity || entity instanceof StringEntity) {
+                return;
+            }
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            body.writeTo(content);
+        } catch (IOException e) {
+            throw new RundeckApiException("Failed to read the content of the request", e);
+        }
+        ByteArrayEntity buffered = new ByteArrayEntity(content.toByteArray());
+        buffered.setContentType(body.getContentType());
+        request.setBody(new EntityBody(buffered));
+    }
+
+    /**
+     * Execute the request, with the authentication of the client. In case of login-based authentication, login first
+     * if needed, and login again once if the session has expired.
+     */
+    private <T> CompletableFuture<T> execute(final RundeckRequest request,
+            final ApiCall.Handler<RundeckResponse, T> handler) {
+        final ApiCall apiCall = new ApiCall(client);
+        if (client.getToken() != null || client.getSessionID() != null) {
+            return send(apiCall, request, null, handler, false);
+        }
+
+        final LoginSession session = client.getLoginSession();
+        final LoginSession.Authenticator authenticator = apiCall.authenticator();
+        long current = session.getGeneration();
+        CompletableFuture<Long> generation = current > 0
+                                             ? CompletableFuture.completedFuture(current)
+                                             : login(() -> session.acquire(authenticator));
+        return generation.thenCompose(
+                used -> send(apiCall, request, session.getSession(), handler, true)
+                        .handle((result, error) -> {
+                            Throwable cause = unwrap(error);
+                            if (cause instanceof ApiCall.LoginSessionExpiredException) {
+                                return login(() -> {
+                                    session.renew(used, authenticator);
+                                    return used;
+                                }).thenCompose(renewed -> send(apiCall, request, session.getSession(), handler,
+                                                               false));
+                            }
+                            return null != cause ? AsyncRundeckClient.<T>failed(cause)
+                                                 : CompletableFuture.completedFuture(result);
+                        })
+                        .thenCompose(Function.identity())
+        );
+    }
+
+    /**
+     * Run a blocking login on the login thread, rather than on the executor : a session expired for many requests in
+     * flight must not park as many threads of the executor (the common {@link ForkJoinPool} by default)
+     *
+     * @return the future completed with the result of the login
+     */
+    private <T> CompletableFuture<T> login(final Supplier<T> login) {
+        try {
+            return CompletableFuture.supplyAsync(login, loginExecutor);
+        } catch (RejectedExecutionException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Send the request, and complete the future on the executor with the result of the handler
+     *
+     * @param session cookies of the login session, or null
+     */
+    private <T> CompletableFuture<T> send(final ApiCall apiCall, final RundeckRequest request,
+            final RundeckTransport.Session session, final ApiCall.Handler<RundeckResponse, T> handler,
+            final boolean detectExpiredSession) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final HttpClientContext context = ConnectionPool.newContext(session);
+        final HttpRequestBase httpRequest = ConnectionPool.toHttpRequest(request);
+        final Future<HttpResponse> exchange = httpClient.execute(httpRequest, context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(final HttpResponse httpResponse) {
+                try {
+                    executor.execute(() -> {
+                        RundeckResponse response = new ConnectionPool.Response(httpResponse, context);
+                        try {
+                            result.complete(apiCall.handleResponse(request.getURI(), response, handler,
+                                                                   detectExpiredSession));
+                        } catch (RuntimeException e) {
+                            result.completeExceptionally(e);
+                        } finally {
+                            IOUtils.closeQuietly(response);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                result.completeExceptionally(new RundeckApiException(
+                        "Failed to execute an HTTP " + request.getMethod() + " on url : " + request.getURI(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        if (error instanceof CompletionException && null != error.getCause()) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private static <T> CompletableFuture<T> failed(final Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+}
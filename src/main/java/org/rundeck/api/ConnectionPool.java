@@ -0,0 +1,431 @@
+package org.rundeck.api;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContextBuilder;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.rundeck.api.transport.RequestBody;
+import org.rundeck.api.transport.RundeckRequest;
+import org.rundeck.api.transport.RundeckResponse;
+import org.rundeck.api.transport.RundeckTransport;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived pool of HTTP connections to the Rundeck instance, owned by a {@link RundeckClient}. The underlying
+ * {@link CloseableHttpClient} is thread-safe and is shared by all the API calls made through the client, so that
+ * TCP and TLS handshakes are only paid when a new connection has to be opened.
+ * <p>
+ * This is the default {@link RundeckTransport}, based on Apache HttpClient.
+ *
+ * @see RundeckClientBuilder#maxConnectionsTotal(int)
+ * @see RundeckClientBuilder#maxConnectionsPerRoute(int)
+ */
+class ConnectionPool implements RundeckTransport {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final IdleConnectionEvictor evictor;
+
+    /**
+     * Build the pool, configured from the given client
+     *
+     * @param client holding the Rundeck url, the credentials and the pool settings
+     */
+    ConnectionPool(final RundeckClient client) {
+        connectionManager = new PoolingHttpClientConnectionManager(createSocketFactoryRegistry(client));
+        connectionManager.setMaxTotal(client.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(client.getMaxConnectionsPerRoute());
+
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create().useSystemProperties();
+        httpClientBuilder.setConnectionManager(connectionManager);
+
+        // configure user-agent
+        httpClientBuilder.setUserAgent("Rundeck API Java Client " + client.getApiVersion());
+
+        httpClientBuilder.setKeepAliveStrategy(new BoundedKeepAliveStrategy(client.getConnectionKeepAlive()));
+
+        if (client.isSystemProxyEnabled()) {
+            // configure proxy (use system env : http.proxyHost / http.proxyPort)
+            httpClientBuilder.setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()));
+        }
+        httpClient = httpClientBuilder.build();
+
+        evictor = new IdleConnectionEvictor(connectionManager, client.getConnectionIdleTimeout());
+        VirtualThreads.factory("rundeck-client-connection-evictor-", client.isVirtualThreads())
+                      .newThread(evictor)
+                      .start();
+    }
+
+    /**
+     * @return the number of leased, available and pending connections, and the maximum number of connections
+     */
+    PoolStats getStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public Session newSession() {
+        return new CookieSession();
+    }
+
+    @Override
+    public RundeckResponse execute(final RundeckRequest request, final Session session) throws IOException {
+        HttpClientContext context = newContext(session);
+        return new Response(httpClient.execute(toHttpRequest(request), context), context);
+    }
+
+    /**
+     * Create a new execution context, using the cookies of the given session. Connections are shared between calls,
+     * but cookies are not : without a session, the cookies are only kept for a single call.
+     *
+     * @param session created by {@link #newSession()}, or null
+     */
+    static HttpClientContext newContext(final Session session) {
+        HttpClientContext context = HttpClientContext.create();
+        if (null == session) {
+            context.setCookieStore(new BasicCookieStore());
+        } else if (session instanceof CookieSession) {
+            context.setCookieStore(((CookieSession) session).cookieStore);
+        } else {
+            throw new IllegalArgumentException("The session was not created by this transport : " + session);
+        }
+        return context;
+    }
+
+    /**
+     * @return the Apache request matching the given request
+     */
+    static HttpRequestBase toHttpRequest(final RundeckRequest request) {
+        HttpRequestBase httpRequest;
+        String method = request.getMethod();
+        if (null != request.getBody() || "POST".equals(method) || "PUT".equals(method)) {
+            // requests which may have a content are always sent with a Content-Length (0 if empty)
+            EntityEnclosingMethod enclosing = new EntityEnclosingMethod(method);
+            if (null != request.getBody()) {
+                enclosing.setEntity(toEntity(request.getBody()));
+            }
+            httpRequest = enclosing;
+        } else {
+            httpRequest = new Method(method);
+        }
+        httpRequest.setURI(request.getURI());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+        return httpRequest;
+    }
+
+    private static HttpEntity toEntity(final RequestBody body) {
+        if (body instanceof EntityBody) {
+            return ((EntityBody) body).getEntity();
+        }
+        return new BodyEntity(body);
+    }
+
+    /**
+     * @return the connection manager backing the pool
+     */
+    PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Stop the eviction task and close all pooled connections
+     */
+    @Override
+    public void close() throws IOException {
+        evictor.shutdown();
+        try {
+            httpClient.close();
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    /**
+     * @return the hostname verifier to use, according to the SSL settings of the client
+     */
+    static X509HostnameVerifier createHostnameVerifier(final RundeckClient client) {
+        return client.isSslHostnameVerifyAllowAll()
+               ? SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER
+               : SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER;
+    }
+
+    /**
+     * @return an SSL context trusting self-signed certificates, or null if the client uses the default trust
+     */
+    static SSLContext createSelfSignedSslContext(final RundeckClient client) {
+        if (!client.isSslCertificateTrustAllowSelfSigned()) {
+            return null;
+        }
+        try {
+            return new SSLContextBuilder()
+                    .loadTrustMaterial(null, new TrustSelfSignedStrategy())
+                    .build();
+        } catch (KeyManagementException | KeyStoreException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Socket factories for http and https, honouring the SSL settings of the client. The connection manager ignores
+     * the SSL context of the {@link HttpClientBuilder}, so it has to be set up here.
+     */
+    private static Registry<ConnectionSocketFactory> createSocketFactoryRegistry(final RundeckClient client) {
+        X509HostnameVerifier hostnameVerifier = createHostnameVerifier(client);
+        SSLContext selfSigned = createSelfSignedSslContext(client);
+        SSLConnectionSocketFactory sslSocketFactory;
+        if (null != selfSigned) {
+            // configure SSL
+            sslSocketFactory = new SSLConnectionSocketFactory(selfSigned, hostnameVerifier);
+        } else {
+            sslSocketFactory = new SSLConnectionSocketFactory(
+                    (SSLSocketFactory) SSLSocketFactory.getDefault(),
+                    split(System.getProperty("https.protocols")),
+                    split(System.getProperty("https.cipherSuites")),
+                    hostnameVerifier);
+        }
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+                              .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                              .register("https", sslSocketFactory)
+                              .build();
+    }
+
+    /**
+     * @return the comma or space separated values, or null if blank
+     */
+    static String[] split(final String s) {
+        if (StringUtils.isBlank(s)) {
+            return null;
+        }
+        return StringUtils.split(s, " ,");
+    }
+
+    /**
+     * Cookies of a session, kept in an Apache cookie store
+     */
+    private static class CookieSession implements Session {
+        private final CookieStore cookieStore = new BasicCookieStore();
+
+        @Override
+        public void clear() {
+            cookieStore.clear();
+        }
+    }
+
+    /**
+     * Request with any method, without content
+     */
+    private static class Method extends HttpRequestBase {
+        private final String method;
+
+        private Method(final String method) {
+            this.method = method;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * Request with any method, with a content
+     */
+    private static class EntityEnclosingMethod extends HttpEntityEnclosingRequestBase {
+        private final String method;
+
+        private EntityEnclosingMethod(final String method) {
+            this.method = method;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * Entity writing the content of a {@link RequestBody}
+     */
+    private static class BodyEntity extends AbstractHttpEntity {
+        private final RequestBody body;
+
+        private BodyEntity(final RequestBody body) {
+            this.body = body;
+            setContentType(body.getContentType());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return body.isRepeatable();
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.getContentLength();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            body.writeTo(content);
+            return new ByteArrayInputStream(content.toByteArray());
+        }
+
+        @Override
+        public void writeTo(final OutputStream output) throws IOException {
+            body.writeTo(output);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * Response received by an Apache client. Closing it consumes the remaining content, so that the connection goes
+     * back to the pool.
+     */
+    static class Response implements RundeckResponse {
+        private final HttpResponse response;
+        private final HttpClientContext context;
+
+        Response(final HttpResponse response, final HttpClientContext context) {
+            this.response = response;
+            this.context = context;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getStatusLine() {
+            return response.getStatusLine().toString();
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            Header header = response.getFirstHeader(name);
+            return null != header ? header.getValue() : null;
+        }
+
+        @Override
+        public List<URI> getRedirectLocations() {
+            List<URI> redirects = context.getRedirectLocations();
+            return null != redirects ? redirects : Collections.<URI>emptyList();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return null != entity ? entity.getContent() : null;
+        }
+
+        @Override
+        public void close() {
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+    }
+
+    /**
+     * Honours the keep-alive duration sent by the server, but never keeps an idle connection longer than the
+     * configured duration (if any)
+     */
+    private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAlive;
+
+        private BoundedKeepAliveStrategy(final long maxKeepAlive) {
+            this.maxKeepAlive = maxKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (maxKeepAlive > 0 && (duration <= 0 || duration > maxKeepAlive)) {
+                return maxKeepAlive;
+            }
+            return duration;
+        }
+    }
+
+    /**
+     * Background task closing expired connections, and connections idle for longer than the configured timeout. It
+     * waits on a latch rather than on a monitor, so that it does not pin its carrier when run by a virtual thread.
+     */
+    private static class IdleConnectionEvictor implements Runnable {
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final long idleTimeout;
+        private final CountDownLatch shutdown = new CountDownLatch(1);
+
+        private IdleConnectionEvictor(final PoolingHttpClientConnectionManager connectionManager,
+                final long idleTimeout) {
+            this.connectionManager = connectionManager;
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public void run() {
+            long sleep = idleTimeout > 0 ? Math.max(idleTimeout / 2, 1000L) : 5000L;
+            try {
+                while (!shutdown.await(sleep, TimeUnit.MILLISECONDS)) {
+                    connectionManager.closeExpiredConnections();
+                    if (idleTimeout > 0) {
+                        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // terminate
+            }
+        }
+
+        private void shutdown() {
+            shutdown.countDown();
+        }
+    }
+}
@@ -11,6 +11,7 @@ class DefaultRunAdhoc implements RunAdhoc{
     private Integer nodeThreadcount;
     private Boolean nodeKeepgoing;
     private String asUser;
+    private PollingStrategy pollingStrategy;
 
     public String getProject() {
         return project;
@@ -51,4 +52,12 @@ class DefaultRunAdhoc implements RunAdhoc{
     public void setAsUser(String asUser) {
         this.asUser = asUser;
     }
+
+    public PollingStrategy getPollingStrategy() {
+        return pollingStrategy;
+    }
+
+    public void setPollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
 }
@@ -10,6 +10,7 @@ class DefaultRunJob implements RunJob {
     private Properties options;
     private Properties nodeFilters;
     private String asUser;
+    private PollingStrategy pollingStrategy;
 
 
     @Override
@@ -32,6 +33,11 @@ class DefaultRunJob implements RunJob {
         return asUser;
     }
 
+    @Override
+    public PollingStrategy getPollingStrategy() {
+        return pollingStrategy;
+    }
+
     public void setJobId(String jobId) {
         this.jobId = jobId;
     }
@@ -47,4 +53,8 @@ class DefaultRunJob implements RunJob {
     public void setAsUser(String asUser) {
         this.asUser = asUser;
     }
+
+    public void setPollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
 }
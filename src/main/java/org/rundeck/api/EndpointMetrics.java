@@ -0,0 +1,152 @@
+package org.rundeck.api;
+
+import org.rundeck.api.ApiCallEvent.Phase;
+import org.rundeck.api.util.LatencyHistogram;
+import org.rundeck.api.util.RateMeter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link RundeckClientMetrics}, keeping the statistics of the calls of each endpoint : counters and
+ * {@link LatencyHistogram}s of the whole calls and of each phase. Recording a call does not take any lock.
+ * <p>
+ * The endpoints are keyed by method and endpoint, such as "GET /execution/{id}/output".
+ */
+public class EndpointMetrics implements RundeckClientMetrics {
+
+    private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<String, EndpointStats>();
+
+    @Override
+    public void callCompleted(final ApiCallEvent event) {
+        String key = event.getMethod() + " " + event.getEndpoint();
+        EndpointStats stats = endpoints.get(key);
+        if (null == stats) {
+            EndpointStats created = new EndpointStats();
+            stats = endpoints.putIfAbsent(key, created);
+            if (null == stats) {
+                stats = created;
+            }
+        }
+        stats.record(event);
+    }
+
+    /**
+     * @return the statistics of the endpoint, or null if it was not called
+     */
+    public EndpointStats getStats(final String method, final String endpoint) {
+        return endpoints.get(method + " " + endpoint);
+    }
+
+    /**
+     * @return the statistics of the endpoints called, sorted by method and endpoint
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<String, EndpointStats>(endpoints));
+    }
+
+    /**
+     * Forget all the statistics
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointMetrics " + getEndpoints();
+    }
+
+    /**
+     * Statistics of the calls of an endpoint
+     */
+    public static class EndpointStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final RateMeter rate = new RateMeter();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+        private EndpointStats() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+
+        private void record(final ApiCallEvent event) {
+            calls.increment();
+            rate.mark();
+            if (!event.isSuccess()) {
+                failures.increment();
+            }
+            if (event.getBytesSent() > 0) {
+                bytesSent.add(event.getBytesSent());
+            }
+            bytesReceived.add(event.getBytesReceived());
+            latency.record(event.getTotalNanos());
+            for (Phase phase : Phase.values()) {
+                phases[phase.ordinal()].record(event.getNanos(phase));
+            }
+        }
+
+        /**
+         * @return the number of calls
+         */
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        /**
+         * @return the number of calls per second, averaged over the last minute
+         */
+        public double getRate() {
+            return rate.getRate();
+        }
+
+        /**
+         * @return the number of failed calls
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the number of bytes sent in the content of the requests
+         */
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        /**
+         * @return the number of bytes read from the content of the responses
+         */
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        /**
+         * @return the durations of the calls
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return the durations of the given phase of the calls
+         */
+        public LatencyHistogram getLatency(final Phase phase) {
+            return phases[phase.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointStats [calls=" + getCallCount() + ", failures=" + getFailureCount() + ", bytesSent="
+                   + getBytesSent() + ", bytesReceived=" + getBytesReceived() + ", latency=" + latency + "]";
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.rundeck.api;
+
+import org.rundeck.api.EndpointMetrics.EndpointStats;
+import org.rundeck.api.util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of an endpoint, exposed over JMX by a {@link RundeckClientMXBean}. The durations are in
+ * milliseconds.
+ */
+public class EndpointStatistics {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long callCount;
+    private final long failureCount;
+    private final double rate;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    EndpointStatistics(final EndpointStats stats) {
+        LatencyHistogram latency = stats.getLatency();
+        this.callCount = stats.getCallCount();
+        this.failureCount = stats.getFailureCount();
+        this.rate = stats.getRate();
+        this.bytesSent = stats.getBytesSent();
+        this.bytesReceived = stats.getBytesReceived();
+        this.meanMillis = latency.getMean() / NANOS_PER_MILLI;
+        this.p50Millis = latency.getValueAtPercentile(50) / NANOS_PER_MILLI;
+        this.p99Millis = latency.getValueAtPercentile(99) / NANOS_PER_MILLI;
+        this.maxMillis = latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the number of calls
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * @return the number of failed calls
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return the number of calls per second, averaged over the last minute
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the number of bytes sent in the content of the requests
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the number of bytes read from the content of the responses
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the mean duration of the calls
+     */
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    /**
+     * @return the median duration of the calls
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * @return the 99th percentile of the durations of the calls
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * @return the longest duration of the calls
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointStatistics [calls=" + callCount + ", failures=" + failureCount + ", rate=" + rate + ", p50="
+               + p50Millis + "ms, p99=" + p99Millis + "ms]";
+    }
+}
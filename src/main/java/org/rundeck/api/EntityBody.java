@@ -0,0 +1,46 @@
+package org.rundeck.api;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.rundeck.api.transport.RequestBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content of a request built with an {@link HttpEntity} (form, multipart, file...). The Apache transport sends the
+ * entity as is, other transports write it.
+ */
+class EntityBody extends RequestBody {
+
+    private final HttpEntity entity;
+
+    EntityBody(final HttpEntity entity) {
+        this.entity = entity;
+    }
+
+    HttpEntity getEntity() {
+        return entity;
+    }
+
+    @Override
+    public String getContentType() {
+        Header contentType = entity.getContentType();
+        return null != contentType ? contentType.getValue() : null;
+    }
+
+    @Override
+    public long getContentLength() {
+        return entity.getContentLength();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return entity.isRepeatable();
+    }
+
+    @Override
+    public void writeTo(final OutputStream output) throws IOException {
+        entity.writeTo(output);
+    }
+}
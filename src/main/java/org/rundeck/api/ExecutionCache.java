@@ -0,0 +1,176 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of the finished executions, keyed by execution ID : once an execution is not running anymore
+ * (succeeded, failed, aborted, timed out...), its fields do not change, so that {@link RundeckClient#getExecution(Long)}
+ * can answer it from memory. The running executions are never cached.
+ * <p>
+ * The cached executions are shared by all the callers of the client, and must not be modified.
+ *
+ * @see RundeckClientBuilder#executionCacheSize(int)
+ */
+public class ExecutionCache {
+
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    /** guards the executions, without pinning the carrier of a virtual thread */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, RundeckExecution> executions;
+
+    /**
+     * @param maxSize maximum number of executions cached. Must be &gt; 0.
+     */
+    ExecutionCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.executions = new LinkedHashMap<Long, RundeckExecution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, RundeckExecution> eldest) {
+                if (size() > ExecutionCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return true if the execution is finished, and will not change anymore
+     */
+    static boolean isFinished(final RundeckExecution execution) {
+        return null != execution && null != execution.getId() && null != execution.getStatus()
+               && ExecutionStatus.RUNNING != execution.getStatus();
+    }
+
+    /**
+     * @return the cached execution, or null (counted as a miss)
+     */
+    RundeckExecution get(final Long executionId) {
+        RundeckExecution execution;
+        lock.lock();
+        try {
+            execution = executions.get(executionId);
+        } finally {
+            lock.unlock();
+        }
+        (null != execution ? hits : misses).incrementAndGet();
+        return execution;
+    }
+
+    /**
+     * Cache the execution if it is finished
+     */
+    void put(final RundeckExecution execution) {
+        if (!isFinished(execution)) {
+            return;
+        }
+        lock.lock();
+        try {
+            executions.put(execution.getId(), execution);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove an execution from the cache, such as after its deletion
+     */
+    public void invalidate(final Long executionId) {
+        lock.lock();
+        try {
+            executions.remove(executionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the executions of a job from the cache, such as after their deletion
+     */
+    public void invalidateJob(final String jobId) {
+        lock.lock();
+        try {
+            Iterator<RundeckExecution> iterator = executions.values().iterator();
+            while (iterator.hasNext()) {
+                RundeckExecution execution = iterator.next();
+                if (null != execution.getJob() && jobId.equals(execution.getJob().getId())) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the executions from the cache
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            executions.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of executions cached
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return executions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the maximum number of executions cached
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of executions answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of executions not found in the cache
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of executions removed from the cache to respect its maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionCache [size=" + size() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+               + ", evictions=" + evictions + "]";
+    }
+}
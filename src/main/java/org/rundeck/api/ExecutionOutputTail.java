@@ -0,0 +1,241 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckOutput;
+import org.rundeck.api.domain.RundeckOutputEntry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Follows the output of an execution with {@link RundeckClient#getExecutionOutput(Long, int, long, int)}, on the
+ * scheduler of the client, only as fast as the entries are requested : the number of lines of each call is the
+ * outstanding demand (at most {@link #MAX_LINES}), so that at most one page of entries is held per follower. The calls
+ * continue from the offset and last modification of the previous one, and back off exponentially while the output is
+ * unmodified. The tail completes once the execution is completed and its output fully read.
+ * <p>
+ * The signals of the sink are serialized, following the rules of the reactive streams.
+ */
+class ExecutionOutputTail {
+    /** maximum number of lines fetched per call */
+    static final int MAX_LINES = 500;
+
+    /**
+     * Receives the entries of the output
+     */
+    interface Sink {
+        void onNext(RundeckOutputEntry entry);
+
+        void onError(Throwable failure);
+
+        void onComplete();
+    }
+
+    private final RundeckClient client;
+    private final Long executionId;
+    private final long minDelay;
+    private final long maxDelay;
+    private final Sink sink;
+
+    /** guards the demand and the scheduling of the fetch task */
+    private final ReentrantLock lock = new ReentrantLock();
+    private long demand;
+    /** true while a fetch task is scheduled or running */
+    private boolean active;
+    private volatile boolean cancelled;
+    /** invalid request, signaled by the fetch task */
+    private volatile Throwable failure;
+    private ScheduledFuture<?> task;
+
+    /* state of the fetch task, only accessed by the running task */
+    private final Deque<RundeckOutputEntry> buffer = new ArrayDeque<RundeckOutputEntry>();
+    private int offset;
+    private long lastmod = -1;
+    private long delay;
+    private boolean outputCompleted;
+
+    /**
+     * @param minDelay delay before the first retry while the output is unmodified, in milliseconds
+     * @param maxDelay maximum delay between two calls while the output is unmodified, in milliseconds
+     */
+    ExecutionOutputTail(final RundeckClient client, final Long executionId, final long minDelay, final long maxDelay,
+            final Sink sink) {
+        this.client = client;
+        this.executionId = executionId;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.sink = sink;
+    }
+
+    /**
+     * Request more entries
+     *
+     * @param n number of entries, must be &gt; 0 (otherwise the tail fails with an {@link IllegalArgumentException})
+     */
+    void request(final long n) {
+        if (cancelled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("the number of requested entries must be greater than 0");
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            if (active) {
+                return;
+            }
+            active = true;
+            try {
+                schedule(0);
+            } catch (IllegalStateException e) {
+                active = false;
+                terminate(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop following the output : no more signal is sent to the sink
+     */
+    void cancel() {
+        cancelled = true;
+        lock.lock();
+        try {
+            if (null != task) {
+                task.cancel(false);
+                task = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void schedule(final long delayMillis) {
+        task = client.getScheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                fetch();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long getDemand() {
+        lock.lock();
+        try {
+            return demand;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void emit(final RundeckOutputEntry entry) {
+        lock.lock();
+        try {
+            demand--;
+        } finally {
+            lock.unlock();
+        }
+        sink.onNext(entry);
+    }
+
+    /**
+     * Deliver the buffered entries, then fetch the next ones if requested
+     */
+    private void fetch() {
+        long nextDelay = 0;
+        try {
+            if (!drain()) {
+                return;
+            }
+            long wanted = getDemand();
+            if (wanted > 0 && buffer.isEmpty()) {
+                RundeckOutput output = client.getExecutionOutput(executionId, offset, lastmod,
+                                                                 (int) Math.min(wanted, MAX_LINES));
+                boolean progress;
+                try {
+                    List<RundeckOutputEntry> entries = output.getLogEntries();
+                    progress = null != entries && !entries.isEmpty();
+                    offset = output.getOffset();
+                    if (null != output.getLastModified()) {
+                        lastmod = output.getLastModified();
+                    }
+                    outputCompleted = Boolean.TRUE.equals(output.isExecCompleted())
+                                      && (Boolean.TRUE.equals(output.isCompleted()) || !progress);
+                    if (progress) {
+                        buffer.addAll(entries);
+                    }
+                } finally {
+                    // the entries are buffered : delete the temp files of a spilled page
+                    output.close();
+                }
+                if (progress) {
+                    delay = 0;
+                } else if (!outputCompleted) {
+                    delay = Math.min(maxDelay, Math.max(minDelay, delay * 2));
+                    nextDelay = delay;
+                }
+                if (!drain()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            terminate(e);
+            return;
+        }
+        lock.lock();
+        try {
+            task = null;
+            if (cancelled || (demand <= 0 && null == failure)) {
+                active = false;
+                return;
+            }
+            try {
+                schedule(nextDelay);
+            } catch (IllegalStateException e) {
+                active = false;
+                terminate(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deliver the buffered entries while requested, and signal the end of the tail
+     *
+     * @return false if the tail is terminated
+     */
+    private boolean drain() {
+        while (!cancelled && null == failure && !buffer.isEmpty() && getDemand() > 0) {
+            emit(buffer.poll());
+        }
+        if (cancelled) {
+            return false;
+        }
+        if (null != failure) {
+            terminate(failure);
+            return false;
+        }
+        if (buffer.isEmpty() && outputCompleted) {
+            cancelled = true;
+            sink.onComplete();
+            return false;
+        }
+        return true;
+    }
+
+    private void terminate(final Throwable error) {
+        if (!cancelled) {
+            cancelled = true;
+            buffer.clear();
+            sink.onError(error);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.query.ExecutionQuery;
+import org.rundeck.api.util.PagedResults;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the executions matching a query, fetching the pages with
+ * {@link RundeckClient#getExecutions(ExecutionQuery, Long, Long)} when needed, so that only one page (two with the
+ * prefetch) is held in memory. The iteration stops at the total of the query given by the first page, or at the first
+ * incomplete page if the total is unknown.
+ *
+ * @see RundeckClient#streamExecutions(ExecutionQuery, int, boolean)
+ */
+class ExecutionPageSpliterator extends Spliterators.AbstractSpliterator<RundeckExecution> {
+
+    private final RundeckClient client;
+    private final ExecutionQuery query;
+    private final int pageSize;
+    private final boolean prefetch;
+
+    /** offset of the next page to fetch */
+    private long offset;
+    /** total number of executions, or -1 until known */
+    private long total = -1;
+    /** number of executions returned by the spliterator */
+    private long consumed;
+    private Iterator<RundeckExecution> page = Collections.<RundeckExecution>emptyList().iterator();
+    private boolean lastPage;
+    /** next page fetched in the background, if any */
+    private Future<PagedResults<RundeckExecution>> nextPage;
+
+    /**
+     * @param pageSize number of executions fetched per API call
+     * @param prefetch true to fetch the next page in the background while the current page is consumed
+     */
+    ExecutionPageSpliterator(final RundeckClient client, final ExecutionQuery query, final int pageSize,
+            final boolean prefetch) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.client = client;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super RundeckExecution> action) {
+        if (total >= 0 && consumed >= total) {
+            return false;
+        }
+        while (!page.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            fetchNextPage();
+        }
+        consumed++;
+        action.accept(page.next());
+        return true;
+    }
+
+    @Override
+    public long estimateSize() {
+        return total >= 0 ? Math.max(0, total - consumed) : Long.MAX_VALUE;
+    }
+
+    private void fetchNextPage() {
+        PagedResults<RundeckExecution> results;
+        if (null != nextPage) {
+            results = await(nextPage);
+            nextPage = null;
+        } else {
+            results = fetch(offset);
+        }
+        List<RundeckExecution> executions = results.getResults();
+        offset += executions.size();
+        if (total < 0 && results.getTotal() >= 0) {
+            // pinned : the executions started while streaming would otherwise extend the stream endlessly
+            total = results.getTotal();
+        }
+        lastPage = executions.isEmpty() || (total >= 0 ? offset >= total : executions.size() < pageSize);
+        page = executions.iterator();
+
+        if (prefetch && !lastPage) {
+            final long next = offset;
+            nextPage = client.getScheduler().submit(new Callable<PagedResults<RundeckExecution>>() {
+                @Override
+                public PagedResults<RundeckExecution> call() {
+                    return fetch(next);
+                }
+            });
+        }
+    }
+
+    private PagedResults<RundeckExecution> fetch(final long pageOffset) {
+        return client.getExecutions(query, (long) pageSize, pageOffset);
+    }
+
+    private static PagedResults<RundeckExecution> await(final Future<PagedResults<RundeckExecution>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RundeckApiException("Interrupted while waiting for the next page of executions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RundeckApiException("Failed to get the next page of executions", e.getCause());
+        }
+    }
+
+    /**
+     * Cancel the page fetched in the background, if any
+     */
+    void close() {
+        Future<PagedResults<RundeckExecution>> pending = nextPage;
+        nextPage = null;
+        lastPage = true;
+        if (null != pending) {
+            pending.cancel(true);
+        }
+    }
+}
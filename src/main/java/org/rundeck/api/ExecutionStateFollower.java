@@ -0,0 +1,75 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.ExecutionStateChange;
+import org.rundeck.api.domain.RundeckExecutionState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the state of an execution with {@link RundeckClient#getExecutionState(Long)} on the scheduler of the
+ * client, until the execution is completed or the future is cancelled : each snapshot is compared with the previous
+ * one by an {@link ExecutionStateTracker}, and only the changes are sent to the listener.
+ */
+class ExecutionStateFollower {
+
+    private final RundeckClient client;
+    private final Long executionId;
+    private final ExecutionStateListener listener;
+    private final long interval;
+    private final ExecutionStateTracker tracker = new ExecutionStateTracker();
+    private final CompletableFuture<RundeckExecutionState> future = new CompletableFuture<RundeckExecutionState>();
+
+    /**
+     * @param interval between two snapshots, in milliseconds
+     */
+    ExecutionStateFollower(final RundeckClient client, final Long executionId, final ExecutionStateListener listener,
+            final long interval) {
+        this.client = client;
+        this.executionId = executionId;
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    /**
+     * Take the first snapshot now
+     *
+     * @return a future completed with the last snapshot once the execution is completed
+     * @throws IllegalStateException if the client has been closed
+     */
+    CompletableFuture<RundeckExecutionState> start() {
+        schedule(0);
+        return future;
+    }
+
+    private void schedule(final long delayMillis) {
+        client.getScheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            RundeckExecutionState state = client.getExecutionState(executionId);
+            for (ExecutionStateChange change : tracker.update(state)) {
+                if (future.isDone()) {
+                    return;
+                }
+                listener.stateChanged(change);
+            }
+            if (ExecutionStateTracker.isCompleted(state)) {
+                future.complete(state);
+                return;
+            }
+            schedule(interval);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
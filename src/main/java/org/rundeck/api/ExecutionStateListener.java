@@ -0,0 +1,20 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.ExecutionStateChange;
+
+/**
+ * Receives the changes of state of an execution, followed with
+ * {@link RundeckClient#followExecutionState(Long, ExecutionStateListener, long, java.util.concurrent.TimeUnit)}
+ *
+ * @see ExecutionStateTracker
+ */
+public interface ExecutionStateListener {
+
+    /**
+     * Called on the scheduler of the client for each change, in the order of
+     * {@link ExecutionStateTracker#update(org.rundeck.api.domain.RundeckExecutionState)}
+     *
+     * @param change of the state of the execution, of a step, or of a step on a node
+     */
+    void stateChanged(ExecutionStateChange change);
+}
@@ -0,0 +1,145 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.BaseState;
+import org.rundeck.api.domain.ExecutionStateChange;
+import org.rundeck.api.domain.RundeckExecutionState;
+import org.rundeck.api.domain.RundeckWFExecState;
+import org.rundeck.api.domain.WorkflowState;
+import org.rundeck.api.domain.WorkflowStepContextState;
+import org.rundeck.api.domain.WorkflowStepState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the states of the previous snapshot of an execution, and compares each new snapshot with it to find the
+ * changes : of the whole execution, of each step (including the steps of the sub workflows), and of each step on each
+ * node. Only the state of each (node, step) pair is kept between two snapshots, not the snapshot itself.
+ * <p>
+ * The changes are listed in this order : the execution, its steps in workflow order, then the steps of each node in
+ * node name order. A state which was not part of the previous snapshot is a change from null.
+ *
+ * @see RundeckClient#followExecutionState(Long, ExecutionStateListener, long, java.util.concurrent.TimeUnit)
+ */
+public class ExecutionStateTracker {
+
+    private Map<StateKey, RundeckWFExecState> states = new HashMap<StateKey, RundeckWFExecState>();
+    private RundeckExecutionState lastState;
+
+    /**
+     * Compare a new snapshot of the execution with the previous one, and keep its states for the next comparison
+     *
+     * @param state snapshot of the execution - mandatory
+     * @return the changes since the previous snapshot, or all the states for the first snapshot
+     */
+    public synchronized List<ExecutionStateChange> update(final RundeckExecutionState state) {
+        Map<StateKey, RundeckWFExecState> current = new HashMap<StateKey, RundeckWFExecState>(
+                Math.max(16, states.size() * 4 / 3 + 1));
+        List<ExecutionStateChange> changes = new ArrayList<ExecutionStateChange>();
+        long executionId = state.getExecutionId();
+
+        compare(executionId, null, null, state, current, changes);
+        compareSteps(executionId, state, current, changes);
+        if (null != state.getNodeStates()) {
+            for (Map.Entry<String, List<WorkflowStepContextState>> node : new TreeMap<String,
+                    List<WorkflowStepContextState>>(state.getNodeStates()).entrySet()) {
+                if (null == node.getValue()) {
+                    continue;
+                }
+                for (WorkflowStepContextState step : node.getValue()) {
+                    if (null != step) {
+                        compare(executionId, node.getKey(), step.getStepContextId(), step, current, changes);
+                    }
+                }
+            }
+        }
+        states = current;
+        lastState = state;
+        return changes;
+    }
+
+    /**
+     * @return the last snapshot given to {@link #update(RundeckExecutionState)}, or null
+     */
+    public synchronized RundeckExecutionState getLastState() {
+        return lastState;
+    }
+
+    /**
+     * @return the state of a step on a node in the last snapshot, or null. The node and step context are both null
+     *         for the whole execution, the node is null for a step on all its nodes.
+     */
+    public synchronized RundeckWFExecState getState(final String node, final String stepContextId) {
+        return states.get(new StateKey(node, stepContextId));
+    }
+
+    /**
+     * @return true if the execution is not waiting or running anymore
+     */
+    static boolean isCompleted(final RundeckExecutionState state) {
+        RundeckWFExecState executionState = state.getExecutionState();
+        return null != executionState
+               && RundeckWFExecState.WAITING != executionState
+               && RundeckWFExecState.RUNNING != executionState
+               && RundeckWFExecState.RUNNING_HANDLER != executionState;
+    }
+
+    private void compareSteps(final long executionId, final WorkflowState workflow,
+            final Map<StateKey, RundeckWFExecState> current, final List<ExecutionStateChange> changes) {
+        if (null == workflow.getSteps()) {
+            return;
+        }
+        for (WorkflowStepState step : workflow.getSteps()) {
+            compare(executionId, null, step.getStepContextId(), step, current, changes);
+            if (null != step.getSubWorkflow()) {
+                compareSteps(executionId, step.getSubWorkflow(), current, changes);
+            }
+        }
+    }
+
+    private void compare(final long executionId, final String node, final String stepContextId,
+            final BaseState state, final Map<StateKey, RundeckWFExecState> current,
+            final List<ExecutionStateChange> changes) {
+        StateKey key = new StateKey(node, stepContextId);
+        RundeckWFExecState previous = states.get(key);
+        current.put(key, state.getExecutionState());
+        if (previous != state.getExecutionState() || (null == previous && !states.containsKey(key))) {
+            changes.add(new ExecutionStateChange(executionId, node, stepContextId, previous, state));
+        }
+    }
+
+    /**
+     * A step on a node
+     */
+    private static final class StateKey {
+        private final String node;
+        private final String stepContextId;
+
+        private StateKey(final String node, final String stepContextId) {
+            this.node = node;
+            this.stepContextId = stepContextId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StateKey)) {
+                return false;
+            }
+            StateKey other = (StateKey) o;
+            return (null == node ? null == other.node : node.equals(other.node))
+                   && (null == stepContextId ? null == other.stepContextId : stepContextId.equals(
+                    other.stepContextId));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (null == node ? 0 : node.hashCode()) + (null == stepContextId ? 0 : stepContextId.hashCode());
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
+import org.rundeck.api.util.AssertUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Follows the running executions until they finish, for all the callers of a {@link RundeckClient}. The executions
+ * due for a check are refreshed together on the scheduler of the client : one call listing the running executions per
+ * project, then one {@link RundeckClient#getExecution(Long)} call for each execution which is not running anymore (or
+ * whose project is unknown).
+ * <p>
+ * A failed listing of the running executions of a project postpones the checks of its executions, with an exponential
+ * backoff, rather than checking each of them on its own : after {@link #MAX_LISTING_FAILURES} consecutive failures,
+ * their futures are completed with the last exception.
+ *
+ * @see RundeckClient#getExecutionWatcher()
+ */
+public class ExecutionWatcher {
+
+    /** consecutive failures of the listing of the running executions of a project failing its watches */
+    static final int MAX_LISTING_FAILURES = 5;
+    /** maximum delay between two checks after a failed listing */
+    static final long MAX_BACKOFF = TimeUnit.MINUTES.toNanos(1);
+
+    private final RundeckClient client;
+
+    /** consecutive failures of the listing of each project, only accessed by the refresh task */
+    private final Map<String, Integer> listingFailures = new HashMap<String, Integer>();
+
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+    /** guards the scheduling of the refresh task */
+    private final ReentrantLock lock = new ReentrantLock();
+    private ScheduledFuture<?> refreshTask;
+    private long refreshTime;
+    private boolean refreshing;
+    private boolean closed;
+
+    ExecutionWatcher(final RundeckClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Watch the given execution, checking its status at the default interval of the client
+     *
+     * @see #watch(RundeckExecution, long, TimeUnit)
+     */
+    public CompletableFuture<RundeckExecution> watch(final RundeckExecution execution)
+            throws IllegalArgumentException {
+        return watch(execution, RundeckClient.DEFAULT_POOLING_INTERVAL, RundeckClient.DEFAULT_POOLING_UNIT);
+    }
+
+    /**
+     * Watch the given execution until it is not running anymore. Cancel the returned future to stop watching.
+     *
+     * @param execution to watch, as returned when triggered - mandatory
+     * @param interval  between two checks of the status of the execution. Must be &gt; 0.
+     * @param unit      of the interval - mandatory
+     * @return a future completed with the finished (or aborted) execution, or with the exception of a failed check
+     * @throws IllegalArgumentException if the execution or unit is null, or the interval is not positive
+     * @throws IllegalStateException if the client has been closed
+     */
+    public CompletableFuture<RundeckExecution> watch(final RundeckExecution execution, final long interval,
+            final TimeUnit unit) throws IllegalArgumentException {
+        return watch(execution, new FixedPollingStrategy(interval, unit));
+    }
+
+    /**
+     * Watch the given execution until it is not running anymore. Cancel the returned future to stop watching.
+     *
+     * @param execution to watch, as returned when triggered - mandatory
+     * @param strategy  deciding when to check the status of the execution - mandatory
+     * @return a future completed with the finished (or aborted) execution, or with the exception of a failed check
+     * @throws IllegalArgumentException if the execution or strategy is null
+     * @throws IllegalStateException if the client has been closed
+     */
+    public CompletableFuture<RundeckExecution> watch(final RundeckExecution execution,
+            final PollingStrategy strategy) throws IllegalArgumentException {
+        return register(execution, strategy).future;
+    }
+
+    /**
+     * Wait until the given execution is not running anymore
+     *
+     * @return the last known state of the execution - still running if the calling thread was interrupted, in which
+     *         case the interrupt status is preserved
+     * @throws RundeckApiException if a check of the execution failed
+     */
+    RundeckExecution await(final RundeckExecution execution, final PollingStrategy strategy) {
+        Watch watch = register(execution, strategy);
+        try {
+            return watch.future.get();
+        } catch (InterruptedException e) {
+            watch.future.cancel(false);
+            Thread.currentThread().interrupt();
+            return watch.execution;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RundeckApiException("Failed to watch execution " + execution.getId(), e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of executions currently watched
+     */
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    private Watch register(final RundeckExecution execution, final PollingStrategy strategy) {
+        AssertUtil.notNull(execution, "execution is mandatory to watch an execution !");
+        AssertUtil.notNull(strategy, "strategy is mandatory to watch an execution !");
+        final Watch watch = new Watch(execution, strategy);
+        if (!ExecutionStatus.RUNNING.equals(execution.getStatus())) {
+            watch.future.complete(execution);
+            return watch;
+        }
+        watches.add(watch);
+        watch.future.whenComplete((result, failure) -> watches.remove(watch));
+        try {
+            schedule(watch.nextCheck);
+        } catch (IllegalStateException e) {
+            watch.future.completeExceptionally(e);
+            throw e;
+        }
+        return watch;
+    }
+
+    /**
+     * Make sure that the refresh task runs at the given time (or earlier)
+     *
+     * @param time in nanoseconds, see {@link System#nanoTime()}
+     */
+    private void schedule(final long time) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("This RundeckClient has been closed");
+            }
+            if (refreshing || (null != refreshTask && refreshTime - time <= 0)) {
+                // rescheduled at the end of the current refresh, or already scheduled earlier
+                return;
+            }
+            if (null != refreshTask) {
+                refreshTask.cancel(false);
+            }
+            refreshTime = time;
+            refreshTask = client.getScheduler().schedule(
+                    this::refresh,
+                    Math.max(0, time - System.nanoTime()),
+                    TimeUnit.NANOSECONDS
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refresh() {
+        lock.lock();
+        try {
+            refreshTask = null;
+            refreshing = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            refreshDue();
+        } finally {
+            lock.lock();
+            try {
+                refreshing = false;
+            } finally {
+                lock.unlock();
+            }
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        boolean pending = false;
+        long next = 0;
+        for (Watch watch : watches) {
+            if (!pending || watch.nextCheck - next < 0) {
+                next = watch.nextCheck;
+                pending = true;
+            }
+        }
+        if (pending) {
+            try {
+                schedule(next);
+            } catch (IllegalStateException e) {
+                failAll(e);
+            }
+        }
+    }
+
+    /**
+     * Check all the executions due for a check
+     */
+    private void refreshDue() {
+        long now = System.nanoTime();
+        Map<String, List<Watch>> byProject = new HashMap<String, List<Watch>>();
+        List<Watch> single = new ArrayList<Watch>();
+        for (Watch watch : watches) {
+            if (watch.future.isDone() || watch.nextCheck - now > 0) {
+                continue;
+            }
+            String project = watch.getProject();
+            if (null == project) {
+                single.add(watch);
+            } else {
+                List<Watch> projectWatches = byProject.get(project);
+                if (null == projectWatches) {
+                    projectWatches = new ArrayList<Watch>();
+                    byProject.put(project, projectWatches);
+                }
+                projectWatches.add(watch);
+            }
+        }
+
+        for (Map.Entry<String, List<Watch>> entry : byProject.entrySet()) {
+            Map<Long, RundeckExecution> running = new HashMap<Long, RundeckExecution>();
+            try {
+                for (RundeckExecution execution : client.getRunningExecutions(entry.getKey())) {
+                    running.put(execution.getId(), execution);
+                }
+                listingFailures.remove(entry.getKey());
+            } catch (RuntimeException e) {
+                // checking each execution on its own would multiply the calls to a failing server
+                Integer previous = listingFailures.get(entry.getKey());
+                int failures = null != previous ? previous + 1 : 1;
+                if (failures >= MAX_LISTING_FAILURES) {
+                    listingFailures.remove(entry.getKey());
+                } else {
+                    listingFailures.put(entry.getKey(), failures);
+                }
+                for (Watch watch : entry.getValue()) {
+                    if (failures >= MAX_LISTING_FAILURES) {
+                        watch.future.completeExceptionally(e);
+                    } else {
+                        watch.postpone(now, failures);
+                    }
+                }
+                continue;
+            }
+            for (Watch watch : entry.getValue()) {
+                RundeckExecution execution = running.get(watch.execution.getId());
+                if (null != execution) {
+                    watch.update(execution, now);
+                } else {
+                    single.add(watch);
+                }
+            }
+        }
+
+        Map<Long, RundeckExecution> checked = new HashMap<Long, RundeckExecution>();
+        for (Watch watch : single) {
+            if (watch.future.isDone()) {
+                continue;
+            }
+            Long id = watch.execution.getId();
+            RundeckExecution execution = checked.get(id);
+            if (null == execution) {
+                try {
+                    execution = client.getExecution(id);
+                } catch (RuntimeException e) {
+                    watch.future.completeExceptionally(e);
+                    continue;
+                }
+                checked.put(id, execution);
+            }
+            watch.update(execution, now);
+        }
+    }
+
+    private void failAll(final RuntimeException failure) {
+        for (Watch watch : watches) {
+            watch.future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Stop watching : the pending futures are completed with an {@link IllegalStateException}
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            if (null != refreshTask) {
+                refreshTask.cancel(false);
+                refreshTask = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        failAll(new IllegalStateException("This RundeckClient has been closed"));
+    }
+
+    /**
+     * An execution watched by a caller
+     */
+    private static class Watch {
+        private final CompletableFuture<RundeckExecution> future = new CompletableFuture<RundeckExecution>();
+        private final PollingStrategy strategy;
+        private final long start;
+        private volatile RundeckExecution execution;
+        private volatile long nextCheck;
+
+        private Watch(final RundeckExecution execution, final PollingStrategy strategy) {
+            this.execution = execution;
+            this.strategy = strategy;
+            this.start = System.nanoTime();
+            this.nextCheck = start + nextDelay(execution, start);
+        }
+
+        /**
+         * @return the delay before the next check, in nanoseconds
+         */
+        private long nextDelay(final RundeckExecution latest, final long now) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - start);
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(1, strategy.nextDelay(latest, elapsed)));
+        }
+
+        private String getProject() {
+            if (null != execution.getProject()) {
+                return execution.getProject();
+            }
+            return null != execution.getJob() ? execution.getJob().getProject() : null;
+        }
+
+        /**
+         * Postpone the next check after a failed listing, doubling the delay for each consecutive failure
+         *
+         * @param failures number of consecutive failures
+         */
+        private void postpone(final long now, final int failures) {
+            try {
+                long delay = nextDelay(execution, now);
+                nextCheck = now + (delay > MAX_BACKOFF >> failures ? MAX_BACKOFF : delay << failures);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * @param now time of the check
+         */
+        private void update(final RundeckExecution latest, final long now) {
+            execution = latest;
+            if (ExecutionStatus.RUNNING.equals(latest.getStatus())) {
+                try {
+                    nextCheck = now + nextDelay(latest, now);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            } else {
+                future.complete(latest);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the status of an execution at a fixed interval
+ */
+public class FixedPollingStrategy implements PollingStrategy {
+    private final long interval;
+
+    /**
+     * @param interval between two checks. Must be &gt; 0.
+     * @param unit     of the interval - mandatory
+     * @throws IllegalArgumentException if the interval is not positive, or the unit is null
+     */
+    public FixedPollingStrategy(final long interval, final TimeUnit unit) throws IllegalArgumentException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be greater than 0");
+        }
+        if (null == unit) {
+            throw new IllegalArgumentException("unit is mandatory for a polling strategy !");
+        }
+        this.interval = Math.max(1, unit.toMillis(interval));
+    }
+
+    @Override
+    public long nextDelay(final RundeckExecution execution, final long elapsed) {
+        return interval;
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPollingStrategy [interval=" + interval + "ms]";
+    }
+}
@@ -0,0 +1,264 @@
+package org.rundeck.api;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.domain.RundeckJob;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of the jobs of each project, keyed by group path and name, so that
+ * {@link RundeckClient#findJob(String, String, String)} is answered from memory, and of the job definitions, keyed by
+ * job ID, so that {@link RundeckClient#getJob(String)} is answered from memory. The jobs of a project are loaded in bulk
+ * with {@link RundeckClient#getJobs(String)} when first needed, and loaded again once older than the time-to-live, or on
+ * demand with {@link #refresh(String)}. The definitions are only the ones fetched by
+ * {@link RundeckClient#getJob(String)}, kept for the time-to-live : the listing of the jobs of a project does not carry
+ * all their fields. The jobs deleted or imported with the client are removed from the index.
+ * <p>
+ * Until it expires, the index does not see the jobs created, renamed or deleted by other clients. The cached jobs are
+ * shared by all the callers of the client, and must not be modified.
+ *
+ * @see RundeckClientBuilder#jobCacheTtl(long, TimeUnit)
+ */
+public class JobCache {
+
+    private final RundeckClient client;
+    private final long ttl;
+    private final ConcurrentHashMap<String, ProjectJobs> projects = new ConcurrentHashMap<String, ProjectJobs>();
+    /** definitions fetched on their own, by job ID */
+    private final ConcurrentHashMap<String, Definition> definitions = new ConcurrentHashMap<String, Definition>();
+    /** guards the loading of the projects, so that concurrent callers wait for a single load */
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * @param ttl time-to-live of the jobs of a project, in milliseconds. Must be &gt; 0.
+     */
+    JobCache(final RundeckClient client, final long ttl) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be greater than 0");
+        }
+        this.client = client;
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+    }
+
+    /**
+     * @return the key of a job in its project
+     */
+    private static String path(final String groupPath, final String name) {
+        return StringUtils.defaultString(StringUtils.trimToNull(groupPath)) + "/" + name;
+    }
+
+    /**
+     * @return the job of the project with exactly this group path (null or empty for no group) and name, or null
+     */
+    RundeckJob find(final String project, final String groupPath, final String name) {
+        return jobs(project).byPath.get(path(groupPath, name));
+    }
+
+    /**
+     * @return the definition of the job with this ID if fetched on its own and not expired, or null (counted as a miss)
+     */
+    RundeckJob get(final String jobId) {
+        Definition definition = definitions.get(jobId);
+        if (null != definition) {
+            if (!definition.isExpired(System.nanoTime())) {
+                hits.incrementAndGet();
+                return definition.job;
+            }
+            definitions.remove(jobId, definition);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Keep the definition of a job fetched on its own, for the time-to-live
+     */
+    void put(final RundeckJob job) {
+        if (null == job || null == job.getId()) {
+            return;
+        }
+        definitions.put(job.getId(), new Definition(job, System.nanoTime() + ttl));
+    }
+
+    /**
+     * @return the indexed jobs of the project, loaded if missing or expired
+     */
+    private ProjectJobs jobs(final String project) {
+        ProjectJobs jobs = projects.get(project);
+        if (null != jobs && !jobs.isExpired(System.nanoTime())) {
+            hits.incrementAndGet();
+            return jobs;
+        }
+        misses.incrementAndGet();
+        loadLock.lock();
+        try {
+            jobs = projects.get(project);
+            if (null != jobs && !jobs.isExpired(System.nanoTime())) {
+                return jobs;
+            }
+            return load(project);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private ProjectJobs load(final String project) {
+        ProjectJobs jobs = new ProjectJobs(System.nanoTime() + ttl);
+        for (RundeckJob job : client.getJobs(project)) {
+            jobs.add(job);
+        }
+        projects.put(project, jobs);
+        refreshes.incrementAndGet();
+        return jobs;
+    }
+
+    /**
+     * Load the jobs of the project now, replacing the indexed ones
+     *
+     * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
+     */
+    public void refresh(final String project) throws RundeckApiException {
+        loadLock.lock();
+        try {
+            removeDefinitions(project);
+            load(project);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a job from the index, such as after its deletion
+     */
+    public void invalidate(final String jobId) {
+        definitions.remove(jobId);
+        for (ProjectJobs jobs : projects.values()) {
+            jobs.remove(jobId);
+        }
+    }
+
+    /**
+     * Remove the jobs of a project from the index, loaded again when next needed
+     */
+    public void invalidateProject(final String project) {
+        projects.remove(project);
+        removeDefinitions(project);
+    }
+
+    private void removeDefinitions(final String project) {
+        for (Map.Entry<String, Definition> entry : definitions.entrySet()) {
+            if (project.equals(entry.getValue().job.getProject())) {
+                definitions.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Remove all the projects and all the definitions from the index
+     */
+    public void clear() {
+        projects.clear();
+        definitions.clear();
+    }
+
+    /**
+     * @return the number of jobs indexed from the listings of the projects
+     */
+    public int size() {
+        int size = 0;
+        for (ProjectJobs jobs : projects.values()) {
+            size += jobs.byId.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups answered from the index
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups of a job or a project missing or expired in the index
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of bulk loads of the jobs of a project
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JobCache [projects=" + projects.keySet() + ", size=" + size() + ", hits=" + hits + ", misses="
+               + misses + ", refreshes=" + refreshes + "]";
+    }
+
+    /**
+     * The definition of a job fetched on its own
+     */
+    private static class Definition {
+        private final RundeckJob job;
+        private final long expiry;
+
+        /**
+         * @param expiry time of the expiry, see {@link System#nanoTime()}
+         */
+        private Definition(final RundeckJob job, final long expiry) {
+            this.job = job;
+            this.expiry = expiry;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expiry >= 0;
+        }
+    }
+
+    /**
+     * The jobs of a project, by ID and by path
+     */
+    private static class ProjectJobs {
+        private final long expiry;
+        private final Map<String, RundeckJob> byId = new ConcurrentHashMap<String, RundeckJob>();
+        private final Map<String, RundeckJob> byPath = new ConcurrentHashMap<String, RundeckJob>();
+
+        /**
+         * @param expiry time of the expiry, see {@link System#nanoTime()}
+         */
+        private ProjectJobs(final long expiry) {
+            this.expiry = expiry;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expiry >= 0;
+        }
+
+        private void add(final RundeckJob job) {
+            if (null == job.getId() || null == job.getName()) {
+                return;
+            }
+            remove(job.getId());
+            byId.put(job.getId(), job);
+            byPath.put(path(job.getGroup(), job.getName()), job);
+        }
+
+        private void remove(final String jobId) {
+            RundeckJob job = byId.remove(jobId);
+            if (null != job) {
+                byPath.remove(path(job.getGroup(), job.getName()), job);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.rundeck.api;
+
+import org.rundeck.api.RundeckApiException.RundeckApiLoginException;
+import org.rundeck.api.transport.RundeckTransport;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Web session shared by all the API calls of a {@link RundeckClient} using login-based authentication. The session
+ * cookie is kept in a single {@link RundeckTransport.Session}, so that the client only has to login once, and again
+ * when the server reports that the session has expired.
+ * <p>
+ * Each successful login increments a generation number : a caller noticing an expired session passes the generation
+ * it used, so that when several threads notice the expiry at the same time, only the first one will login again and
+ * the others will reuse the new session.
+ * <p>
+ * The generation and the session ID of a login are held together in an immutable {@link Credential}, replaced
+ * atomically when the session is renewed : a thread never sees the generation of a login with the session ID of
+ * another.
+ */
+class LoginSession {
+
+    /**
+     * Performs the actual login requests
+     */
+    interface Authenticator {
+        /**
+         * Login, using the given transport session to hold the session cookie
+         *
+         * @return the session ID if available
+         * @throws RundeckApiLoginException if the login fails
+         */
+        String login(RundeckTransport.Session session) throws RundeckApiLoginException;
+    }
+
+    /**
+     * Credential obtained by a login, immutable
+     */
+    static final class Credential {
+        /** before the first login */
+        static final Credential NONE = new Credential(0, null);
+
+        private final long generation;
+        private final String sessionID;
+
+        Credential(final long generation, final String sessionID) {
+            this.generation = generation;
+            this.sessionID = sessionID;
+        }
+
+        /**
+         * @return the number of successful logins up to this one, 0 if not logged in yet
+         */
+        long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * @return the session ID returned by the login, may be null
+         */
+        String getSessionID() {
+            return sessionID;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final RundeckTransport.Session session;
+
+    /** credential of the last login, replaced when the session is renewed */
+    private final AtomicReference<Credential> credential = new AtomicReference<Credential>(Credential.NONE);
+
+    /**
+     * @param session holding the cookies, created by the transport of the client
+     */
+    LoginSession(final RundeckTransport.Session session) {
+        this.session = session;
+    }
+
+    /**
+     * @return the cookies of this session
+     */
+    RundeckTransport.Session getSession() {
+        return session;
+    }
+
+    /**
+     * Login if needed
+     *
+     * @return the generation of the current session
+     * @throws RundeckApiLoginException if the login fails
+     */
+    long acquire(final Authenticator authenticator) throws RundeckApiLoginException {
+        long current = credential.get().getGeneration();
+        if (current > 0) {
+            return current;
+        }
+        return renew(0, authenticator);
+    }
+
+    /**
+     * Login again, unless the session has already been renewed since the given generation
+     *
+     * @param expired generation of the session found to be expired
+     * @return the generation of the current session
+     * @throws RundeckApiLoginException if the login fails
+     */
+    long renew(final long expired, final Authenticator authenticator) throws RundeckApiLoginException {
+        lock.lock();
+        try {
+            Credential current = credential.get();
+            if (current.getGeneration() != expired) {
+                return current.getGeneration();
+            }
+            session.clear();
+            Credential renewed = new Credential(current.getGeneration() + 1, authenticator.login(session));
+            credential.set(renewed);
+            return renewed.getGeneration();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the generation of the current session, 0 if not logged in yet
+     */
+    long getGeneration() {
+        return credential.get().getGeneration();
+    }
+
+    /**
+     * @return the session ID returned by the last login, may be null
+     */
+    String getSessionID() {
+        return credential.get().getSessionID();
+    }
+
+    /**
+     * @return the credential of the last login, {@link Credential#NONE} if not logged in yet
+     */
+    Credential getCredential() {
+        return credential.get();
+    }
+}
@@ -0,0 +1,248 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckNode;
+import org.rundeck.api.util.NodeIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Snapshot of the nodes of a project, loaded once with {@link RundeckClient#getNodes(String)} and refreshed in the
+ * background on the scheduler of the client. Each refresh builds a new snapshot and swaps it in at once, so that the
+ * readers never wait for the network or for a parse, and all the readers of the project share a single call per
+ * interval.
+ * <p>
+ * A refresh keeps the nodes which did not change, and keeps the whole snapshot (and its version) if no node was
+ * added, removed or changed. A failed refresh keeps the previous snapshot : see {@link #getLastError()}. The nodes are
+ * shared by all the callers of the client, and must not be modified.
+ *
+ * @see RundeckClient#getNodeInventory(String)
+ * @see RundeckClientBuilder#nodeInventoryRefreshInterval(long, TimeUnit)
+ */
+public class NodeInventory {
+
+    private final RundeckClient client;
+    private final String project;
+    private final long interval;
+    /** guards the refreshes, so that concurrent callers of {@link #refresh()} wait for a single call */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile RuntimeException lastError;
+    private volatile ScheduledFuture<?> refreshTask;
+
+    /**
+     * @param interval between two refreshes, in milliseconds. Must be &gt; 0.
+     */
+    NodeInventory(final RundeckClient client, final String project, final long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be greater than 0");
+        }
+        this.client = client;
+        this.project = project;
+        this.interval = interval;
+    }
+
+    /**
+     * Load the nodes now, then refresh them in the background
+     *
+     * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
+     * @throws IllegalStateException if the client has been closed
+     */
+    void start() throws RundeckApiException {
+        refresh();
+        refreshTask = client.getScheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    // counted and kept as the last error, the previous snapshot is still served : an exception
+                    // thrown out of this task would cancel the next refreshes
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background refreshes
+     */
+    void close() {
+        ScheduledFuture<?> task = refreshTask;
+        if (null != task) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Load the nodes now, and swap them in if they changed
+     *
+     * @return true if some nodes were added, removed or changed
+     * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
+     */
+    public boolean refresh() throws RundeckApiException {
+        refreshLock.lock();
+        try {
+            Snapshot current = snapshot;
+            Snapshot next;
+            try {
+                next = Snapshot.merge(current, client.getNodes(project));
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                lastError = e;
+                throw e;
+            }
+            refreshes.incrementAndGet();
+            lastError = null;
+            if (next == current) {
+                return false;
+            }
+            snapshot = next;
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * @return the name of the project
+     */
+    public String getProject() {
+        return project;
+    }
+
+    /**
+     * @return the nodes of the project, in the order of the last refresh : won't be null
+     */
+    public List<RundeckNode> getNodes() {
+        return snapshot.nodes;
+    }
+
+    /**
+     * Return the nodes matching the given filters, evaluated locally with the same semantics as the API : see
+     * {@link NodeIndex}. The index of the nodes is built by the refresh which loaded them.
+     *
+     * @param nodeFilters for filtering the nodes - optional. See {@link NodeFiltersBuilder}
+     * @return a {@link List} of {@link RundeckNode} : might be empty, but won't be null
+     */
+    public List<RundeckNode> getNodes(final Properties nodeFilters) {
+        Snapshot current = snapshot;
+        if (null == nodeFilters || nodeFilters.isEmpty()) {
+            return current.nodes;
+        }
+        return current.index.filter(nodeFilters);
+    }
+
+    /**
+     * @return the node with the given name, or null
+     */
+    public RundeckNode getNode(final String name) {
+        return snapshot.byName.get(name);
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return snapshot.nodes.size();
+    }
+
+    /**
+     * @return the version of the nodes, incremented each time a refresh finds some changes
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return the time of the last successful refresh (see {@link System#currentTimeMillis()})
+     */
+    public long getLastRefreshTime() {
+        return snapshot.refreshed;
+    }
+
+    /**
+     * @return the interval between two refreshes, in milliseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the number of successful refreshes
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    /**
+     * @return the number of failed refreshes
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the error of the last refresh (usually a {@link RundeckApiException}), or null if it succeeded
+     */
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeInventory [project=" + project + ", size=" + size() + ", version=" + getVersion() + ", refreshes="
+               + refreshes + ", failures=" + failures + "]";
+    }
+
+    /**
+     * Immutable nodes of a project, swapped in by a refresh
+     */
+    private static class Snapshot {
+        private final List<RundeckNode> nodes;
+        private final Map<String, RundeckNode> byName;
+        private final long version;
+        private volatile long refreshed = System.currentTimeMillis();
+        private final NodeIndex index;
+
+        private Snapshot(final List<RundeckNode> nodes, final Map<String, RundeckNode> byName, final long version) {
+            this.nodes = Collections.unmodifiableList(nodes);
+            this.byName = byName;
+            this.version = version;
+            this.index = new NodeIndex(nodes);
+        }
+
+        /**
+         * @return the previous snapshot if the nodes did not change, or a new one reusing the unchanged nodes
+         */
+        private static Snapshot merge(final Snapshot previous, final List<RundeckNode> loaded) {
+            List<RundeckNode> nodes = new ArrayList<RundeckNode>(loaded.size());
+            Map<String, RundeckNode> byName = new HashMap<String, RundeckNode>(loaded.size() * 4 / 3 + 1);
+            boolean changed = null == previous || previous.nodes.size() != loaded.size();
+            for (RundeckNode node : loaded) {
+                RundeckNode known = null != previous ? previous.byName.get(node.getName()) : null;
+                if (null != known && known.equals(node)) {
+                    node = known;
+                } else {
+                    changed = true;
+                }
+                nodes.add(node);
+                byName.put(node.getName(), node);
+            }
+            if (!changed && byName.size() == previous.byName.size()) {
+                previous.refreshed = System.currentTimeMillis();
+                return previous;
+            }
+            return new Snapshot(nodes, byName, null != previous ? previous.version + 1 : 1);
+        }
+    }
+}
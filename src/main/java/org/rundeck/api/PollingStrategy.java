@@ -0,0 +1,20 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckExecution;
+
+/**
+ * Decides when to check again the status of a running execution, while waiting for its end.
+ *
+ * @see FixedPollingStrategy
+ * @see AdaptivePollingStrategy
+ * @see RunJobBuilder#setPollingStrategy(PollingStrategy)
+ */
+public interface PollingStrategy {
+
+    /**
+     * @param execution the last known state of the running execution
+     * @param elapsed   time since the execution has been triggered, in milliseconds
+     * @return the delay before the next check of the execution, in milliseconds. Must be &gt; 0.
+     */
+    long nextDelay(RundeckExecution execution, long elapsed);
+}
@@ -35,4 +35,13 @@ public interface RunAdhoc {
      * @return
      */
     String getAsUser();
+
+    /**
+     * Strategy for checking the status of the execution, when waiting for its end - optional. Overrides the polling
+     * interval given when running it.
+     * @return
+     */
+    default PollingStrategy getPollingStrategy() {
+        return null;
+    }
 }
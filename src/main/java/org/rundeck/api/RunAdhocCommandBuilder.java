@@ -47,6 +47,14 @@ public class RunAdhocCommandBuilder {
         return this;
     }
 
+    /**
+     * Strategy for checking the status of the execution when running the command, see {@link AdaptivePollingStrategy}
+     */
+    public RunAdhocCommandBuilder setPollingStrategy(PollingStrategy pollingStrategy) {
+        command.setPollingStrategy(pollingStrategy);
+        return this;
+    }
+
     public RunAdhocCommand build() {
         DefaultRunAdhocCommand built = command;
         command = new DefaultRunAdhocCommand();
@@ -25,6 +25,7 @@ public class RunAdhocScriptBuilder {
         setNodeThreadcount(oldScript.getNodeThreadcount());
         setScriptInterpreter(oldScript.getScriptInterpreter());
         setInterpreterArgsQuoted(oldScript.getInterpreterArgsQuoted());
+        setPollingStrategy(oldScript.getPollingStrategy());
     }
 
     /**
@@ -92,6 +93,14 @@ public class RunAdhocScriptBuilder {
         return this;
     }
 
+    /**
+     * Strategy for checking the status of the execution when running the script, see {@link AdaptivePollingStrategy}
+     */
+    public RunAdhocScriptBuilder setPollingStrategy(final PollingStrategy pollingStrategy) {
+        script.setPollingStrategy(pollingStrategy);
+        return this;
+    }
+
     public RunAdhocScript build() {
         final DefaultRunAdhocScript built = script;
         script = new DefaultRunAdhocScript();
@@ -31,4 +31,13 @@ public interface RunJob {
      * @return
      */
     String getAsUser();
+
+    /**
+     * Strategy for checking the status of the execution, when waiting for its end - optional. Overrides the polling
+     * interval given when running it.
+     * @return
+     */
+    default PollingStrategy getPollingStrategy() {
+        return null;
+    }
 }
@@ -36,6 +36,14 @@ public class RunJobBuilder {
         return this;
     }
 
+    /**
+     * Strategy for checking the status of the execution when running the job, see {@link AdaptivePollingStrategy}
+     */
+    public RunJobBuilder setPollingStrategy(PollingStrategy pollingStrategy) {
+        jobRun.setPollingStrategy(pollingStrategy);
+        return this;
+    }
+
     public RunJob build() {
         RunJob built = jobRun;
         jobRun = new DefaultRunJob();
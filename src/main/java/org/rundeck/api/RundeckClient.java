@@ -29,13 +29,21 @@ import org.rundeck.api.generator.ProjectConfigPropertyGenerator;
 import org.rundeck.api.generator.ProjectGenerator;
 import org.rundeck.api.parser.*;
 import org.rundeck.api.query.ExecutionQuery;
+import org.rundeck.api.transport.RundeckTransport;
 import org.rundeck.api.util.AssertUtil;
 import org.rundeck.api.util.PagedResults;
 import org.rundeck.api.util.ParametersUtil;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Rundeck API client.
@@ -72,10 +80,16 @@ import java.util.concurrent.TimeUnit;
  * rundeck.importJobs("/tmp/jobs.xml", FileType.XML);
  * </pre>
  * </code>
+ * <p>
+ * A RundeckClient is thread-safe, and meant to be shared : its settings are immutable once built (held in final
+ * fields, so visible to any thread however the client is published), the credential of a login session is replaced
+ * atomically when the session is renewed, and the connections, caches and background tasks created on first use are
+ * guarded by the client.
+ * </p>
  *
  * @author Vincent Behar
  */
-public class RundeckClient implements Serializable {
+public class RundeckClient implements Serializable, Closeable {
 
     private static final long serialVersionUID = 1L;
     public static final String JOBS_IMPORT = "/jobs/import";
@@ -126,99 +140,393 @@ public class RundeckClient implements Serializable {
     /** Default value for the "pooling interval" used when running jobs/commands/scripts */
     public static final transient long DEFAULT_POOLING_INTERVAL = 5;
 
+    /** Default interval between two refreshes of a {@link NodeInventory}, in milliseconds (1 minute) */
+    public static final transient long DEFAULT_NODE_INVENTORY_REFRESH_INTERVAL = 60000;
+
     /** Default unit of the "pooling interval" used when running jobs/commands/scripts */
     public static final TimeUnit DEFAULT_POOLING_UNIT = TimeUnit.SECONDS;
 
-    /** URL of the Rundeck instance ("http://localhost:4440", "http://rundeck.your-compagny.com/", etc) */
-    private final String url;
+    /** Default maximum number of pooled HTTP connections */
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 20;
+
+    /** Default maximum number of pooled HTTP connections per route (host) */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    /** Default time (in milliseconds) after which an idle pooled connection is closed */
+    public static final long DEFAULT_CONNECTION_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /** Number of threads running the background tasks of the client (prefetch of pages...) */
+    static final int SCHEDULER_THREADS = 2;
+
+    /** settings of the client, immutable */
+    private final RundeckClientConfig config;
+    /** listener of the API calls : the statistics exposed over JMX if registered, else the one of the config */
+    private final transient RundeckClientMetrics metrics;
+    /** statistics exposed over JMX, or null if not enabled */
+    private final transient RundeckClientJmx jmx;
+
+    /** HTTP transport (pooled connections), created on first use */
+    private transient volatile RundeckTransport transport;
+    /** login session, created with the transport */
+    private transient volatile LoginSession loginSession;
+    private transient volatile boolean closed;
+    /** runs the background tasks of the client, created on first use */
+    private transient volatile ScheduledExecutorService scheduler;
+    /** follows the running executions, created on first use */
+    private transient volatile ExecutionWatcher executionWatcher;
+    /** finished executions, created on first use if enabled */
+    private transient volatile ExecutionCache executionCache;
+    /** jobs of the projects, created on first use if enabled */
+    private transient volatile JobCache jobCache;
+    /** snapshots of the nodes, by project, created on first use */
+    private transient volatile Map<String, NodeInventory> nodeInventories;
+    /** guards the first load of the node inventories, outside of the transport lock */
+    private final ReentrantLock nodeInventoryLock = new ReentrantLock();
+    /** guards the creation and the release of the transport, without pinning the carrier of a virtual thread */
+    private final ReentrantLock transportLock = new ReentrantLock();
 
-    private int apiVersion = API_VERSION;
+    boolean isUseIntermediateStreamFile() {
+        return config.isUseIntermediateStreamFile();
+    }
 
-    private String token;
+    int getApiVersion() {
+        return config.getApiVersion();
+    }
 
-    private String login;
+    boolean isApiAtLeast(Version version){
+        return getApiVersion()>=version.getVersionNumber();
+    }
 
-    private String password;
+    String getApiEndpoint() {
+        return API + getApiVersion();
+    }
 
-    private String sessionID;
-    private boolean sslHostnameVerifyAllowAll = false;
-    private boolean sslCertificateTrustAllowSelfSigned = false;
-    private boolean systemProxyEnabled = false;
-    private boolean useIntermediateStreamFile = false;
+    boolean isSslHostnameVerifyAllowAll() {
+        return config.isSslHostnameVerifyAllowAll();
+    }
 
-    boolean isUseIntermediateStreamFile() {
-        return useIntermediateStreamFile;
+    boolean isSslCertificateTrustAllowSelfSigned() {
+        return config.isSslCertificateTrustAllowSelfSigned();
     }
 
-    void setUseIntermediateStreamFile(boolean useIntermediateStreamFile) {
-        this.useIntermediateStreamFile = useIntermediateStreamFile;
+    boolean isSystemProxyEnabled() {
+        return config.isSystemProxyEnabled();
     }
 
-    void setToken(String token) {
-        this.token = token;
+    int getMaxConnectionsTotal() {
+        return config.getMaxConnectionsTotal();
     }
 
-    void setLogin(String login) {
-        this.login = login;
+    int getMaxConnectionsPerRoute() {
+        return config.getMaxConnectionsPerRoute();
     }
 
-    void setPassword(String password) {
-        this.password = password;
+    long getConnectionIdleTimeout() {
+        return config.getConnectionIdleTimeout();
     }
 
-    void setSessionID(String sessionID) {
-        this.sessionID = sessionID;
+    long getConnectionKeepAlive() {
+        return config.getConnectionKeepAlive();
     }
 
-    int getApiVersion() {
-        return (apiVersion > 0 ? apiVersion : API_VERSION);
+    boolean isVirtualThreads() {
+        return config.isVirtualThreads();
     }
-    boolean isApiAtLeast(Version version){
-        return getApiVersion()>=version.getVersionNumber();
+
+    boolean isJdkHttpClient() {
+        return config.isJdkHttpClient();
     }
 
-    void setApiVersion(int apiVersion) {
-        this.apiVersion = (apiVersion > 0 ? apiVersion : API_VERSION);
+    boolean isStreamingResponses() {
+        return config.isStreamingResponses();
     }
 
-    void setApiVersion(Version apiVersion) {
-        setApiVersion(apiVersion.getVersionNumber());
+    boolean isStaxParsers() {
+        return config.isStaxParsers();
     }
 
-    String getApiEndpoint() {
-        return API + getApiVersion();
+    long getOutputSpillThreshold() {
+        return config.getOutputSpillThreshold();
     }
 
-    boolean isSslHostnameVerifyAllowAll() {
-        return sslHostnameVerifyAllowAll;
+    boolean isCompactOutputEntries() {
+        return config.isCompactOutputEntries();
     }
 
-    void setSslHostnameVerifyAllowAll(boolean sslHostnameVerifyAllowAll) {
-        this.sslHostnameVerifyAllowAll = sslHostnameVerifyAllowAll;
+    int getExecutionCacheSize() {
+        return config.getExecutionCacheSize();
     }
 
-    boolean isSslCertificateTrustAllowSelfSigned() {
-        return sslCertificateTrustAllowSelfSigned;
+    long getJobCacheTtl() {
+        return config.getJobCacheTtl();
     }
 
-    void setSslCertificateTrustAllowSelfSigned(boolean sslCertificateTrustAllowSelfSigned) {
-        this.sslCertificateTrustAllowSelfSigned = sslCertificateTrustAllowSelfSigned;
+    long getNodeInventoryRefreshInterval() {
+        return config.getNodeInventoryRefreshInterval();
     }
-    boolean isSystemProxyEnabled() {
-        return systemProxyEnabled;
+
+    /**
+     * @return the listener of the API calls, or null if none (see
+     * {@link RundeckClientBuilder#metrics(RundeckClientMetrics)})
+     */
+    public RundeckClientMetrics getMetrics() {
+        return metrics;
     }
 
-    void setSystemProxyEnabled(boolean systemProxyEnabled) {
-        this.systemProxyEnabled = systemProxyEnabled;
+    /**
+     * Register the statistics of this client over JMX, with the name given to the builder
+     *
+     * @throws IllegalArgumentException if the name is already used by another client
+     */
+    void registerMBean() {
+        jmx.register();
+    }
+
+    /**
+     * @return the transport shared by all API calls, or null if not created yet (or closed)
+     */
+    RundeckTransport getCurrentTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the web session shared by the API calls, or null if none yet (token-based authentication, or no call
+     * made)
+     */
+    LoginSession getCurrentLoginSession() {
+        return loginSession;
+    }
+
+    /**
+     * Return the transport shared by all API calls, creating it on first use : the pooled connections of Apache
+     * HttpClient, or the JDK HTTP client if enabled
+     *
+     * @throws IllegalStateException if this client has been closed
+     */
+    RundeckTransport getTransport() {
+        RundeckTransport current = transport;
+        if (null != current && !closed) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("This RundeckClient has been closed");
+            }
+            if (null == transport) {
+                RundeckTransport created = isJdkHttpClient() ? Transports.newJdkHttpTransport(this)
+                                                         : new ConnectionPool(this);
+                loginSession = new LoginSession(created.newSession());
+                transport = created;
+            }
+            return transport;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * @return the web session shared by the API calls, in case of login-based authentication
+     * @throws IllegalStateException if this client has been closed
+     */
+    LoginSession getLoginSession() {
+        getTransport();
+        return loginSession;
+    }
+
+    /**
+     * Return the executor of the background tasks of this client, creating it on first use. Its threads are daemon
+     * threads (or virtual threads if enabled), stopped when the client is closed.
+     *
+     * @throws IllegalStateException if this client has been closed
+     */
+    ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService current = scheduler;
+        if (null != current && !closed) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("This RundeckClient has been closed");
+            }
+            if (null == scheduler) {
+                scheduler = Executors.newScheduledThreadPool(
+                        SCHEDULER_THREADS,
+                        VirtualThreads.factory("rundeck-client-scheduler-", isVirtualThreads())
+                );
+            }
+            return scheduler;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * Return the watcher following the running executions for all the callers of this client, creating it on first
+     * use. The watched executions are refreshed in bulk, with one call per project.
+     *
+     * @throws IllegalStateException if this client has been closed
+     */
+    public ExecutionWatcher getExecutionWatcher() {
+        ExecutionWatcher current = executionWatcher;
+        if (null != current && !closed) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("This RundeckClient has been closed");
+            }
+            if (null == executionWatcher) {
+                executionWatcher = new ExecutionWatcher(this);
+            }
+            return executionWatcher;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * Return the cache of the finished executions, creating it on first use
+     *
+     * @return the cache, or null if disabled (see {@link RundeckClientBuilder#executionCacheSize(int)})
+     */
+    public ExecutionCache getExecutionCache() {
+        if (getExecutionCacheSize() <= 0) {
+            return null;
+        }
+        ExecutionCache current = executionCache;
+        if (null != current) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (null == executionCache) {
+                executionCache = new ExecutionCache(getExecutionCacheSize());
+            }
+            return executionCache;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * Return the index of the jobs of the projects, creating it on first use
+     *
+     * @return the index, or null if disabled (see {@link RundeckClientBuilder#jobCacheTtl(long, TimeUnit)})
+     */
+    public JobCache getJobCache() {
+        if (getJobCacheTtl() <= 0) {
+            return null;
+        }
+        JobCache current = jobCache;
+        if (null != current) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (null == jobCache) {
+                jobCache = new JobCache(this, getJobCacheTtl());
+            }
+            return jobCache;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * @return the snapshots of the nodes, by project, creating the map on first use (also after deserialization)
+     */
+    private Map<String, NodeInventory> getNodeInventories() {
+        Map<String, NodeInventory> current = nodeInventories;
+        if (null != current) {
+            return current;
+        }
+        transportLock.lock();
+        try {
+            if (null == nodeInventories) {
+                nodeInventories = new ConcurrentHashMap<String, NodeInventory>();
+            }
+            return nodeInventories;
+        } finally {
+            transportLock.unlock();
+        }
+    }
+
+    /**
+     * Cache the finished executions, if the cache is enabled
+     *
+     * @return the given executions
+     */
+    private <T extends Iterable<RundeckExecution>> T cacheExecutions(final T executions) {
+        ExecutionCache cache = getExecutionCache();
+        if (null != cache) {
+            for (RundeckExecution execution : executions) {
+                cache.put(execution);
+            }
+        }
+        return executions;
+    }
+
+    /**
+     * Release the pooled HTTP connections held by this client, and stop its background tasks. The client cannot be
+     * used anymore after this call.
+     *
+     * @throws IOException if the connections could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        RundeckTransport current;
+        ScheduledExecutorService currentScheduler;
+        ExecutionWatcher currentWatcher;
+        List<NodeInventory> inventories;
+        transportLock.lock();
+        try {
+            closed = true;
+            current = transport;
+            transport = null;
+            currentScheduler = scheduler;
+            scheduler = null;
+            currentWatcher = executionWatcher;
+            executionWatcher = null;
+            inventories = null != nodeInventories ? new ArrayList<NodeInventory>(nodeInventories.values())
+                                                  : Collections.<NodeInventory>emptyList();
+            nodeInventories = null;
+        } finally {
+            transportLock.unlock();
+        }
+        if (null != jmx) {
+            jmx.unregister();
+        }
+        if (null != currentWatcher) {
+            currentWatcher.close();
+        }
+        for (NodeInventory inventory : inventories) {
+            inventory.close();
+        }
+        if (null != currentScheduler) {
+            currentScheduler.shutdownNow();
+        }
+        if (null != current) {
+            current.close();
+        }
     }
 
 
     /**
      * Used by RundeckClientBuilder
      */
-    RundeckClient(final String url) throws IllegalArgumentException {
-        AssertUtil.notBlank(url, "The Rundeck URL is mandatory !");
-        this.url=url;
+    RundeckClient(final RundeckClientConfig config) throws IllegalArgumentException {
+        AssertUtil.notBlank(config.getUrl(), "The Rundeck URL is mandatory !");
+        this.config = config;
+        if (null != config.getJmxName()) {
+            this.jmx = new RundeckClientJmx(this, config.getJmxName(), config.getMetrics());
+            this.metrics = jmx;
+        } else {
+            this.jmx = null;
+            this.metrics = config.getMetrics();
+        }
     }
 
     /**
@@ -257,7 +565,7 @@ public class RundeckClient implements Serializable {
         return createProjectParser(null);
     }
 
-    private ProjectParser createProjectParser(final String xpath) {
+    ProjectParser createProjectParser(final String xpath) {
         return new ProjectParserV11(xpath);
     }
 
@@ -675,11 +983,14 @@ public class RundeckClient implements Serializable {
         }else{
             builder=new ApiPathBuilder("/jobs").param("project", project);
         }
+        builder.param("jobFilter", jobFilter)
+               .param("groupPath", groupPath)
+               .param("idlist", StringUtils.join(jobIds, ","));
+        if (isStaxParsers()) {
+            return new ApiCall(this).get(builder, new StaxListParser<>(new JobStaxParser(), "/jobs/job"));
+        }
         return new ApiCall(this).get(
-                builder
-                        .param("jobFilter", jobFilter)
-                        .param("groupPath", groupPath)
-                        .param("idlist", StringUtils.join(jobIds, ",")),
+                builder,
                 new ListParser<>(new JobParser(), "/jobs/job")
         );
     }
@@ -1040,12 +1351,24 @@ public class RundeckClient implements Serializable {
             //API v8
             request.param("project", rundeckJobsImport.getProject());
         }
-        return new ApiCall(this).post(request, new JobsImportResultParser("result"));
+        JobCache cache = getJobCache();
+        try {
+            return new ApiCall(this).post(request, new JobsImportResultParser("result"));
+        } finally {
+            if (null != cache) {
+                if (null != rundeckJobsImport.getProject()) {
+                    cache.invalidateProject(rundeckJobsImport.getProject());
+                } else {
+                    cache.clear();
+                }
+            }
+        }
     }
 
     /**
      * Find a job, identified by its project, group and name. Note that the groupPath is optional, as a job does not
-     * need to belong to a group (either pass null, or an empty string).
+     * need to belong to a group (either pass null, or an empty string). If the {@link #getJobCache() job cache} is
+     * enabled, the job is found in the indexed jobs of the project, with exactly this group path and name.
      *
      * @param project name of the project - mandatory
      * @param groupPath group to which the job belongs (if it belongs to a group) - optional
@@ -1061,12 +1384,18 @@ public class RundeckClient implements Serializable {
             RundeckApiLoginException, RundeckApiTokenException, IllegalArgumentException {
         AssertUtil.notBlank(project, "project is mandatory to find a job !");
         AssertUtil.notBlank(name, "job name is mandatory to find a job !");
+        JobCache cache = getJobCache();
+        if (null != cache) {
+            return cache.find(project, groupPath, name);
+        }
         List<RundeckJob> jobs = getJobs(project, name, groupPath, new String[0]);
         return jobs.isEmpty() ? null : jobs.get(0);
     }
 
     /**
-     * Get the definition of a single job, identified by the given ID
+     * Get the definition of a single job, identified by the given ID. If the {@link #getJobCache() job cache} is
+     * enabled, the definition previously returned by this method is answered until it expires : never a job from the
+     * listing of its project, which does not carry the same fields.
      *
      * @param jobId identifier of the job - mandatory
      * @return a {@link RundeckJob} instance - won't be null
@@ -1080,15 +1409,26 @@ public class RundeckClient implements Serializable {
     public RundeckJob getJob(String jobId) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException, IllegalArgumentException {
         AssertUtil.notBlank(jobId, "jobId is mandatory to get the details of a job !");
+        JobCache cache = getJobCache();
+        if (null != cache) {
+            RundeckJob cached = cache.get(jobId);
+            if (null != cached) {
+                return cached;
+            }
+        }
 
         String path= getApiVersion() < Version.V18.getVersionNumber()
                 ? "/job/"+jobId
                 : "/job/"+jobId+"/info";
 
-        return new ApiCall(this).get(new ApiPathBuilder(path), new JobParser(getApiVersion() < Version.V18.getVersionNumber()
+        RundeckJob job = new ApiCall(this).get(new ApiPathBuilder(path), new JobParser(getApiVersion() < Version.V18.getVersionNumber()
                                                                                             ? "joblist/job"
                                                                                             : "job"
                                                                         ));
+        if (null != cache) {
+            cache.put(job);
+        }
+        return job;
     }
 
     /**
@@ -1104,7 +1444,15 @@ public class RundeckClient implements Serializable {
     public String deleteJob(String jobId) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException, IllegalArgumentException {
         AssertUtil.notBlank(jobId, "jobId is mandatory to delete a job !");
-        new ApiCall(this).delete(new ApiPathBuilder("/job/", jobId));
+        JobCache cache = getJobCache();
+        try {
+            new ApiCall(this).delete(new ApiPathBuilder("/job/", jobId));
+        } finally {
+            // after the call : a concurrent lookup would otherwise load the job again before its deletion
+            if (null != cache) {
+                cache.invalidate(jobId);
+            }
+        }
         return "Job " + jobId + " was deleted successfully";
     }
     /**
@@ -1122,8 +1470,17 @@ public class RundeckClient implements Serializable {
         if (null == jobIds || 0 == jobIds.size()) {
             throw new IllegalArgumentException("jobIds are mandatory to delete a job");
         }
-        return new ApiCall(this).post(new ApiPathBuilder("/jobs/delete").field("ids",jobIds),
-                                        new BulkDeleteParser("/deleteJobs"));
+        JobCache cache = getJobCache();
+        try {
+            return new ApiCall(this).post(new ApiPathBuilder("/jobs/delete").field("ids",jobIds),
+                                            new BulkDeleteParser("/deleteJobs"));
+        } finally {
+            if (null != cache) {
+                for (String jobId : jobIds) {
+                    cache.invalidate(jobId);
+                }
+            }
+        }
     }
 
     /**
@@ -1211,7 +1568,8 @@ public class RundeckClient implements Serializable {
      * know if the execution is finished (or aborted) or is still running.
      *
      * @param jobRun the RunJob, see {@link RunJobBuilder}
-     * @param poolingInterval for checking the status of the execution. Must be > 0.
+     * @param poolingInterval for checking the status of the execution. Must be > 0. Ignored if the request has a
+     *                        {@link PollingStrategy}.
      * @param poolingUnit     unit (seconds, milli-seconds, ...) of the interval. Default to seconds.
      *
      * @return a {@link RundeckExecution} instance for the (finished/aborted) execution - won't be null
@@ -1235,15 +1593,25 @@ public class RundeckClient implements Serializable {
         }
 
         RundeckExecution execution = triggerJob(jobRun);
-        while (ExecutionStatus.RUNNING.equals(execution.getStatus())) {
-            try {
-                Thread.sleep(poolingUnit.toMillis(poolingInterval));
-            } catch (InterruptedException e) {
-                break;
-            }
-            execution = getExecution(execution.getId());
+        return waitForExecution(execution, null != jobRun.getPollingStrategy() ? jobRun.getPollingStrategy()
+                : new FixedPollingStrategy(poolingInterval, poolingUnit));
+    }
+
+    /**
+     * Wait until the given execution is not running anymore. The execution is followed by the shared
+     * {@link #getExecutionWatcher() execution watcher}, so that the executions waited by concurrent callers are
+     * refreshed together.
+     *
+     * @param strategy deciding when to check the status of the execution
+     * @return the last known state of the execution - still running if the calling thread was interrupted, in which
+     *         case the interrupt status is preserved
+     */
+    private RundeckExecution waitForExecution(RundeckExecution execution, final PollingStrategy strategy)
+            throws RundeckApiException, RundeckApiLoginException, RundeckApiTokenException {
+        if (!ExecutionStatus.RUNNING.equals(execution.getStatus())) {
+            return execution;
         }
-        return execution;
+        return getExecutionWatcher().await(execution, strategy);
     }
 
     /*
@@ -1314,7 +1682,8 @@ public class RundeckClient implements Serializable {
      * nodeFilters parameter.
      *
      * @param command the RunAdhocCommand, see {@link RunAdhocCommandBuilder}
-     * @param poolingInterval for checking the status of the execution. Must be > 0.
+     * @param poolingInterval for checking the status of the execution. Must be > 0. Ignored if the request has a
+     *                        {@link PollingStrategy}.
      * @param poolingUnit unit (seconds, milli-seconds, ...) of the interval. Default to seconds.
      * @return a {@link RundeckExecution} instance for the (finished/aborted) execution - won't be null
      * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
@@ -1334,15 +1703,8 @@ public class RundeckClient implements Serializable {
         }
 
         RundeckExecution execution = triggerAdhocCommand(command);
-        while (ExecutionStatus.RUNNING.equals(execution.getStatus())) {
-            try {
-                Thread.sleep(poolingUnit.toMillis(poolingInterval));
-            } catch (InterruptedException e) {
-                break;
-            }
-            execution = getExecution(execution.getId());
-        }
-        return execution;
+        return waitForExecution(execution, null != command.getPollingStrategy() ? command.getPollingStrategy()
+                : new FixedPollingStrategy(poolingInterval, poolingUnit));
     }
 
     /*
@@ -1450,7 +1812,8 @@ public class RundeckClient implements Serializable {
      *
      * @param script          the RunAdhocScript, see {@link RunAdhocScriptBuilder}
      * @param scriptFilename  filename of a script to read
-     * @param poolingInterval for checking the status of the execution. Must be > 0.
+     * @param poolingInterval for checking the status of the execution. Must be > 0. Ignored if the request has a
+     *                        {@link PollingStrategy}.
      * @param poolingUnit     unit (seconds, milli-seconds, ...) of the interval. Default to seconds.
      *
      * @return a {@link RundeckExecution} instance for the (finished/aborted) execution - won't be null
@@ -1484,7 +1847,8 @@ public class RundeckClient implements Serializable {
      * parameter.
      *
      * @param script the RunAdhocScript, see {@link RunAdhocScriptBuilder}
-     * @param poolingInterval for checking the status of the execution. Must be > 0.
+     * @param poolingInterval for checking the status of the execution. Must be > 0. Ignored if the request has a
+     *                        {@link PollingStrategy}.
      * @param poolingUnit unit (seconds, milli-seconds, ...) of the interval. Default to seconds.
      * @return a {@link RundeckExecution} instance for the (finished/aborted) execution - won't be null
      * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
@@ -1507,15 +1871,8 @@ public class RundeckClient implements Serializable {
         }
 
         RundeckExecution execution = triggerAdhocScript(script);
-        while (ExecutionStatus.RUNNING.equals(execution.getStatus())) {
-            try {
-                Thread.sleep(poolingUnit.toMillis(poolingInterval));
-            } catch (InterruptedException e) {
-                break;
-            }
-            execution = getExecution(execution.getId());
-        }
-        return execution;
+        return waitForExecution(execution, null != script.getPollingStrategy() ? script.getPollingStrategy()
+                : new FixedPollingStrategy(poolingInterval, poolingUnit));
     }
 
     /*
@@ -1565,6 +1922,10 @@ public class RundeckClient implements Serializable {
         } else {
             builder = new ApiPathBuilder("/executions/running").param("project", project);
         }
+        if (isStaxParsers()) {
+            return new ApiCall(this).get(builder,
+                                         new StaxListParser<>(new ExecutionStaxParser(), "/executions/execution"));
+        }
         return new ApiCall(this).get(builder, new ListParser<>(new ExecutionParser(), "/executions/execution"));
     }
 
@@ -1659,11 +2020,18 @@ public class RundeckClient implements Serializable {
     public List<RundeckExecution> getJobExecutions(String jobId, ExecutionStatus status, Long max, Long offset)
             throws RundeckApiException, RundeckApiLoginException, RundeckApiTokenException, IllegalArgumentException {
         AssertUtil.notBlank(jobId, "jobId is mandatory to get the executions of a job !");
-        return new ApiCall(this).get(new ApiPathBuilder("/job/", jobId, "/executions").param("status", status)
-                                         .param("max", max)
-                                         .param("offset", offset),
-                                     new ListParser<RundeckExecution>(new ExecutionParser(),
-                                                                      "/executions/execution"));
+        ApiPathBuilder builder = new ApiPathBuilder("/job/", jobId, "/executions").param("status", status)
+                                                                                 .param("max", max)
+                                                                                 .param("offset", offset);
+        if (isStaxParsers()) {
+            return cacheExecutions(new ApiCall(this).get(
+                    builder,
+                    new StaxListParser<>(new ExecutionStaxParser(), "/executions/execution")
+            ));
+        }
+        return cacheExecutions(new ApiCall(this).get(builder,
+                                                     new ListParser<RundeckExecution>(new ExecutionParser(),
+                                                                                      "/executions/execution")));
     }
 
     /**
@@ -1692,16 +2060,67 @@ public class RundeckClient implements Serializable {
             builder = new ApiPathBuilder("/executions");
         }
 
-        return new ApiCall(this).get(
-                builder.param(new ExecutionQueryParameters(query))
-                       .param("max", max)
-                       .param("offset", offset),
+        builder.param(new ExecutionQueryParameters(query))
+               .param("max", max)
+               .param("offset", offset);
+        if (isStaxParsers()) {
+            return cacheExecutions(new ApiCall(this).get(
+                    builder,
+                    new StaxPagedResultParser<>(new ExecutionStaxParser(), "execution", "/executions")
+            ));
+        }
+        return cacheExecutions(new ApiCall(this).get(
+                builder,
                 new PagedResultParser<>(new ListParser<>(new ExecutionParser(), "execution"), "/executions")
-        );
+        ));
+    }
+
+    /**
+     * Stream the executions matching the query, fetching them page by page when the stream is consumed
+     *
+     * @param query    query parameters for the request
+     * @param pageSize number of executions fetched per API call
+     * @return a sequential {@link Stream} of {@link RundeckExecution}, to be closed if not fully consumed
+     * @throws IllegalArgumentException if the pageSize is not positive, or the project of the query is blank
+     * @see #streamExecutions(ExecutionQuery, int, boolean)
+     */
+    public Stream<RundeckExecution> streamExecutions(ExecutionQuery query, int pageSize)
+            throws IllegalArgumentException {
+        return streamExecutions(query, pageSize, false);
     }
 
     /**
-     * Get a single execution, identified by the given ID
+     * Stream the executions matching the query, fetching them page by page when the stream is consumed, so that at
+     * most one page (two with the prefetch) is held in memory. The stream ends after the total number of executions
+     * of the first page. Executions started while the stream is consumed may shift the pages, and then appear
+     * twice : use the "end" date of the query for a stable result. Errors when calling the API are thrown when the
+     * stream is consumed (see {@link #getExecutions(ExecutionQuery, Long, Long)}).
+     *
+     * @param query    query parameters for the request
+     * @param pageSize number of executions fetched per API call
+     * @param prefetch true to fetch the next page in the background while the current page is consumed
+     * @return a sequential {@link Stream} of {@link RundeckExecution}, to be closed if not fully consumed
+     * @throws IllegalArgumentException if the pageSize is not positive, or the project of the query is blank
+     */
+    public Stream<RundeckExecution> streamExecutions(ExecutionQuery query, int pageSize, boolean prefetch)
+            throws IllegalArgumentException {
+        AssertUtil.notNull(query, "query is mandatory to stream executions !");
+        AssertUtil.notBlank(query.getProject(), "project is required for execution query");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be greater than 0");
+        }
+        final ExecutionPageSpliterator spliterator = new ExecutionPageSpliterator(this, query, pageSize, prefetch);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                spliterator.close();
+            }
+        });
+    }
+
+    /**
+     * Get a single execution, identified by the given ID. A finished execution is answered from the
+     * {@link #getExecutionCache() execution cache} if enabled.
      *
      * @param executionId identifier of the execution - mandatory
      * @return a {@link RundeckExecution} instance - won't be null
@@ -1713,10 +2132,21 @@ public class RundeckClient implements Serializable {
     public RundeckExecution getExecution(Long executionId) throws RundeckApiException, RundeckApiLoginException,
             RundeckApiTokenException, IllegalArgumentException {
         AssertUtil.notNull(executionId, "executionId is mandatory to get the details of an execution !");
-        return new ApiCall(this).get(
+        ExecutionCache cache = getExecutionCache();
+        if (null != cache) {
+            RundeckExecution cached = cache.get(executionId);
+            if (null != cached) {
+                return cached;
+            }
+        }
+        RundeckExecution execution = new ApiCall(this).get(
                 new ApiPathBuilder("/execution/", executionId.toString()),
                 new ExecutionParser("/executions/execution")
         );
+        if (null != cache) {
+            cache.put(execution);
+        }
+        return execution;
     }
 
     /**
@@ -1773,10 +2203,18 @@ public class RundeckClient implements Serializable {
                    RundeckApiTokenException, IllegalArgumentException
     {
         AssertUtil.notNull(jobId, "jobId is mandatory to delete executions!");
-        return new ApiCall(this).delete(
-                new ApiPathBuilder("/job/",jobId,"/executions"),
-                new DeleteExecutionsResponseParser( "/deleteExecutions")
-        );
+        ExecutionCache cache = getExecutionCache();
+        try {
+            return new ApiCall(this).delete(
+                    new ApiPathBuilder("/job/",jobId,"/executions"),
+                    new DeleteExecutionsResponseParser( "/deleteExecutions")
+            );
+        } finally {
+            // after the call : a concurrent lookup would otherwise cache an execution again before its deletion
+            if (null != cache) {
+                cache.invalidateJob(jobId);
+            }
+        }
     }
 
     /**
@@ -1797,13 +2235,23 @@ public class RundeckClient implements Serializable {
         if (executionIds.size() < 1) {
             throw new IllegalArgumentException("executionIds cannot be empty");
         }
+        ExecutionCache cache = getExecutionCache();
         final ApiPathBuilder apiPath = new ApiPathBuilder("/executions/delete").xml(
                 new DeleteExecutionsGenerator(executionIds)
         );
-        return new ApiCall(this).post(
-                apiPath,
-                new DeleteExecutionsResponseParser(  "/deleteExecutions")
-        );
+        try {
+            return new ApiCall(this).post(
+                    apiPath,
+                    new DeleteExecutionsResponseParser(  "/deleteExecutions")
+            );
+        } finally {
+            // even after a failed or partial delete : some of the executions may be gone
+            if (null != cache) {
+                for (Long executionId : executionIds) {
+                    cache.invalidate(executionId);
+                }
+            }
+        }
     }
 
     /**
@@ -1820,7 +2268,14 @@ public class RundeckClient implements Serializable {
                    RundeckApiTokenException, IllegalArgumentException
     {
         AssertUtil.notNull(executionId, "executionId is mandatory to delete an execution!");
-        new ApiCall(this).delete(new ApiPathBuilder("/execution/", executionId.toString()));
+        ExecutionCache cache = getExecutionCache();
+        try {
+            new ApiCall(this).delete(new ApiPathBuilder("/execution/", executionId.toString()));
+        } finally {
+            if (null != cache) {
+                cache.invalidate(executionId);
+            }
+        }
     }
 
     /*
@@ -2009,15 +2464,19 @@ public class RundeckClient implements Serializable {
         }else {
             builder = new ApiPathBuilder("/history").param("project", project);
         }
+        builder.param("jobIdFilter", jobId)
+               .param("reportIdFilter", reportId)
+               .param("userFilter", user)
+               .param("recentFilter", recent)
+               .param("begin", begin)
+               .param("end", end)
+               .param("max", max)
+               .param("offset", offset);
+        if (isStaxParsers()) {
+            return new ApiCall(this).get(builder, new StaxHistoryParser("/events"));
+        }
         return new ApiCall(this).get(
-                builder.param("jobIdFilter", jobId)
-                       .param("reportIdFilter", reportId)
-                       .param("userFilter", user)
-                       .param("recentFilter", recent)
-                       .param("begin", begin)
-                       .param("end", end)
-                       .param("max", max)
-                       .param("offset", offset),
+                builder,
                 new HistoryParser("/events")
         );
     }
@@ -2066,6 +2525,9 @@ public class RundeckClient implements Serializable {
             .param("max", max)
             .param("offset", offset);
 
+        if (isStaxParsers()) {
+            return new ApiCall(this).postOrGet(builder, new StaxHistoryParser("/events"));
+        }
         return new ApiCall(this).postOrGet(builder, new HistoryParser("/events"));
     }
 
@@ -2125,12 +2587,60 @@ public class RundeckClient implements Serializable {
         }else{
             builder = new ApiPathBuilder("/resources").param("project", project);
         }
+        builder.nodeFilters(nodeFilters);
+        if (isStaxParsers()) {
+            return new ApiCall(this).get(builder, new StaxListParser<>(new NodeStaxParser(), "project/node"));
+        }
         return new ApiCall(this).get(
-                builder.nodeFilters(nodeFilters),
+                builder,
                 new ListParser<>(new NodeParser(), "project/node")
         );
     }
 
+    /**
+     * Return the snapshot of the nodes of the given project, loading it on first use. It is then refreshed in the
+     * background, so that the nodes are read from memory without any call : see
+     * {@link RundeckClientBuilder#nodeInventoryRefreshInterval(long, TimeUnit)}.
+     *
+     * @param project name of the project - mandatory
+     * @return a {@link NodeInventory} instance - won't be null
+     * @throws RundeckApiException in case of error when calling the API (non-existent project with this name)
+     * @throws RundeckApiLoginException if the login fails (in case of login-based authentication)
+     * @throws RundeckApiTokenException if the token is invalid (in case of token-based authentication)
+     * @throws IllegalArgumentException if the project is blank (null, empty or whitespace)
+     * @throws IllegalStateException if this client has been closed
+     */
+    public NodeInventory getNodeInventory(String project) throws RundeckApiException, RundeckApiLoginException,
+            RundeckApiTokenException, IllegalArgumentException {
+        AssertUtil.notBlank(project, "project is mandatory to get the node inventory !");
+        Map<String, NodeInventory> inventories = getNodeInventories();
+        NodeInventory inventory = inventories.get(project);
+        if (null != inventory) {
+            return inventory;
+        }
+        nodeInventoryLock.lock();
+        try {
+            inventory = inventories.get(project);
+            if (null == inventory) {
+                inventory = new NodeInventory(this, project, getNodeInventoryRefreshInterval());
+                inventory.start();
+                transportLock.lock();
+                try {
+                    if (closed) {
+                        inventory.close();
+                        throw new IllegalStateException("This RundeckClient has been closed");
+                    }
+                    inventories.put(project, inventory);
+                } finally {
+                    transportLock.unlock();
+                }
+            }
+            return inventory;
+        } finally {
+            nodeInventoryLock.unlock();
+        }
+    }
+
     /**
      * Get the definition of a single node
      *
@@ -2236,8 +2746,7 @@ public class RundeckClient implements Serializable {
         if (maxlines > 0) {
             param.param("maxlines", maxlines);
         }
-        return new ApiCall(this).get(param,
-                new OutputParser("/output", createOutputEntryParser()));
+        return getExecutionOutput(param);
     }
     /**
      * Get the execution state of the given execution
@@ -2259,6 +2768,42 @@ public class RundeckClient implements Serializable {
         return new ApiCall(this).get(param, new ExecutionStateParser("/executionState"));
     }
 
+    /**
+     * Follow the state of the given execution, checking it at the default interval of the client
+     *
+     * @see #followExecutionState(Long, ExecutionStateListener, long, TimeUnit)
+     */
+    public CompletableFuture<RundeckExecutionState> followExecutionState(Long executionId,
+            ExecutionStateListener listener) throws IllegalArgumentException {
+        return followExecutionState(executionId, listener, DEFAULT_POOLING_INTERVAL, DEFAULT_POOLING_UNIT);
+    }
+
+    /**
+     * Follow the state of the given execution until it is completed, sending only the changes between two snapshots
+     * to the listener (such as the step 2/1 moving from RUNNING to SUCCEEDED on a node), see
+     * {@link ExecutionStateTracker}. The first snapshot sends all the states. The snapshots are taken on the scheduler
+     * of the client. Cancel the returned future to stop following.
+     *
+     * @param executionId identifier of the execution - mandatory
+     * @param listener    receiving the changes - mandatory
+     * @param interval    between two snapshots of the state. Must be &gt; 0.
+     * @param unit        of the interval - mandatory
+     * @return a future completed with the last snapshot once the execution is completed, or with the exception of a
+     *         failed snapshot or listener
+     * @throws IllegalArgumentException if a parameter is null, or the interval is not positive
+     * @throws IllegalStateException if this client has been closed
+     */
+    public CompletableFuture<RundeckExecutionState> followExecutionState(Long executionId,
+            ExecutionStateListener listener, long interval, TimeUnit unit) throws IllegalArgumentException {
+        AssertUtil.notNull(executionId, "executionId is mandatory to follow the state of an execution!");
+        AssertUtil.notNull(listener, "listener is mandatory to follow the state of an execution!");
+        AssertUtil.notNull(unit, "unit is mandatory to follow the state of an execution!");
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be greater than 0");
+        }
+        return new ExecutionStateFollower(this, executionId, listener, Math.max(1, unit.toMillis(interval))).start();
+    }
+
     /**
      * Get the execution output of the given execution on the specified node
      *
@@ -2297,8 +2842,7 @@ public class RundeckClient implements Serializable {
         if(maxlines>0) {
             param.param("maxlines", maxlines);
         }
-        return new ApiCall(this).get(param,
-                new OutputParser("/output", createOutputEntryParser()));
+        return getExecutionOutput(param);
     }
     /**
      * Get the execution output of the given execution for the specified step
@@ -2338,8 +2882,7 @@ public class RundeckClient implements Serializable {
         if (maxlines > 0) {
             param.param("maxlines", maxlines);
         }
-        return new ApiCall(this).get(param,
-                new OutputParser("/output", createOutputEntryParser()));
+        return getExecutionOutput(param);
     }
     /**
      * Get the execution output of the given execution for the specified step
@@ -2382,8 +2925,7 @@ public class RundeckClient implements Serializable {
         if (maxlines > 0) {
             param.param("maxlines", maxlines);
         }
-        return new ApiCall(this).get(param,
-                new OutputParser("/output", createOutputEntryParser()));
+        return getExecutionOutput(param);
     }
 
 
@@ -2411,7 +2953,7 @@ public class RundeckClient implements Serializable {
         if (maxlines > 0) {
             param.param("maxlines", maxlines);
         }
-        return new ApiCall(this).get(param, new OutputParser("/output", createOutputEntryParser()));
+        return getExecutionOutput(param);
     }
     /**
      * Get the execution state output sequence of the given job
@@ -2442,10 +2984,31 @@ public class RundeckClient implements Serializable {
         if(stateOnly) {
             param.param("stateOnly", true);
         }
+        return getExecutionOutput(param);
+    }
+
+    /**
+     * Get an execution output, parsed in a spilling list of entries while received if the client has an output spill
+     * threshold, or in a batch of entries stored by columns if the client has compact output entries
+     */
+    private RundeckOutput getExecutionOutput(final ApiPathBuilder param) {
+        if (getOutputSpillThreshold() >= 0) {
+            return new ApiCall(this).getStreamed(param, new OutputStaxParser(
+                    "/output",
+                    new OutputEntryStaxParser(getApiVersion() <= Version.V5.versionNumber),
+                    getOutputSpillThreshold()
+            ));
+        }
+        if (isCompactOutputEntries()) {
+            return new ApiCall(this).get(param, new OutputStaxParser(
+                    "/output",
+                    new OutputEntryStaxParser(getApiVersion() <= Version.V5.versionNumber)
+            ));
+        }
         return new ApiCall(this).get(param, new OutputParser("/output", createOutputEntryParser()));
     }
 
-    private OutputEntryParser createOutputEntryParser() {
+    OutputEntryParser createOutputEntryParser() {
         if (getApiVersion() <= Version.V5.versionNumber) {
             return new OutputEntryParserV5();
         }else{
@@ -2672,46 +3235,46 @@ public class RundeckClient implements Serializable {
      * @return the URL of the Rundeck instance ("http://localhost:4440", "http://rundeck.your-compagny.com/", etc)
      */
     public String getUrl() {
-        return url;
+        return config.getUrl();
     }
 
     /**
      * @return the auth-token used for authentication on the Rundeck instance (null if using login-based or session-based auth)
      */
     public String getToken() {
-        return token;
+        return config.getToken();
     }
 
     /**
      * @return the login used for authentication on the Rundeck instance (null if using token-based or session-based auth)
      */
     public String getLogin() {
-        return login;
+        return config.getLogin();
     }
 
     /**
      * @return the password used for authentication on the Rundeck instance (null if using token-based or session-based auth)
      */
     public String getPassword() {
-        return password;
+        return config.getPassword();
     }
 
     /**
      * @return the sessionID used for authentication on the Rundeck instance (null if using login-based or token-based auth)
      */
     public String getSessionID() {
-        return sessionID;
+        return config.getSessionID();
     }
 
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
         str.append("RundeckClient ").append(API_VERSION);
-        str.append(" [").append(url).append("] ");
-        if (token != null) {
-            str.append("(token=").append(token).append(")");
+        str.append(" [").append(getUrl()).append("] ");
+        if (getToken() != null) {
+            str.append("(token=").append(getToken()).append(")");
         } else {
-            str.append("(credentials=").append(login).append("|").append(password).append(")");
+            str.append("(credentials=").append(getLogin()).append("|").append(getPassword()).append(")");
         }
         return str.toString();
     }
@@ -2720,10 +3283,10 @@ public class RundeckClient implements Serializable {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((login == null) ? 0 : login.hashCode());
-        result = prime * result + ((password == null) ? 0 : password.hashCode());
-        result = prime * result + ((token == null) ? 0 : token.hashCode());
-        result = prime * result + ((url == null) ? 0 : url.hashCode());
+        result = prime * result + ((getLogin() == null) ? 0 : getLogin().hashCode());
+        result = prime * result + ((getPassword() == null) ? 0 : getPassword().hashCode());
+        result = prime * result + ((getToken() == null) ? 0 : getToken().hashCode());
+        result = prime * result + ((getUrl() == null) ? 0 : getUrl().hashCode());
         return result;
     }
 
@@ -2736,25 +3299,25 @@ public class RundeckClient implements Serializable {
         if (getClass() != obj.getClass())
             return false;
         RundeckClient other = (RundeckClient) obj;
-        if (login == null) {
-            if (other.login != null)
+        if (getLogin() == null) {
+            if (other.getLogin() != null)
                 return false;
-        } else if (!login.equals(other.login))
+        } else if (!getLogin().equals(other.getLogin()))
             return false;
-        if (password == null) {
-            if (other.password != null)
+        if (getPassword() == null) {
+            if (other.getPassword() != null)
                 return false;
-        } else if (!password.equals(other.password))
+        } else if (!getPassword().equals(other.getPassword()))
             return false;
-        if (token == null) {
-            if (other.token != null)
+        if (getToken() == null) {
+            if (other.getToken() != null)
                 return false;
-        } else if (!token.equals(other.token))
+        } else if (!getToken().equals(other.getToken()))
             return false;
-        if (url == null) {
-            if (other.url != null)
+        if (getUrl() == null) {
+            if (other.getUrl() != null)
                 return false;
-        } else if (!url.equals(other.url))
+        } else if (!getUrl().equals(other.getUrl()))
             return false;
         return true;
     }
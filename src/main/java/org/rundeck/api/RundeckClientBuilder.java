@@ -2,42 +2,99 @@ package org.rundeck.api;
 
 import org.rundeck.api.util.AssertUtil;
 
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Builder to build a {@link RundeckClient}, you must specify a url, and at least one of (login, password), token, or
  * sessionId.
  */
 public class RundeckClientBuilder {
-    private String url;
-    private String login;
-    private String password;
-    private String token = null;
-    private String id = null;
-    private int version = -1;
-    private boolean sslHostnameVerifyAllowAll = "true".equals(
+    // read by RundeckClientConfig when the client is built
+    String url;
+    String login;
+    String password;
+    String token = null;
+    String id = null;
+    int version = -1;
+    boolean sslHostnameVerifyAllowAll = "true".equals(
             System.getProperty(
                     "rundeck.api.client.ssl.hostnameVerifyAllowAll",
                     "false"
             )
     );
-    private boolean sslCertificateTrustAllowSelfSigned = "true".equals(
+    boolean sslCertificateTrustAllowSelfSigned = "true".equals(
             System.getProperty(
                     "rundeck.api.client.ssl.sslCertificateTrustAllowSelfSigned",
                     "false"
             )
     );
-    private boolean systemProxyEnabled = "true".equals(
+    boolean systemProxyEnabled = "true".equals(
             System.getProperty(
                     "rundeck.api.client.systemProxyEnabled",
                     "false"
             )
     );
-    private boolean useIntermediateStreamFile = "true".equals(
+    boolean useIntermediateStreamFile = "true".equals(
             System.getProperty(
                     "rundeck.api.client.useIntermediateStreamFile",
                     "false"
             )
     );
+    boolean virtualThreads = "true".equals(
+            System.getProperty(
+                    "rundeck.api.client.virtualThreads",
+                    "false"
+            )
+    );
+
+    boolean jdkHttpClient = "true".equals(
+            System.getProperty(
+                    "rundeck.api.client.jdkHttpClient",
+                    "false"
+            )
+    );
+
+    boolean streamingResponses = "true".equals(
+            System.getProperty(
+                    "rundeck.api.client.streamingResponses",
+                    "false"
+            )
+    );
+
+    boolean staxParsers = "true".equals(
+            System.getProperty(
+                    "rundeck.api.client.staxParsers",
+                    "false"
+            )
+    );
+
+    long outputSpillThreshold = Long.getLong("rundeck.api.client.outputSpillThreshold", -1L);
+
+    boolean compactOutputEntries = "true".equals(
+            System.getProperty(
+                    "rundeck.api.client.compactOutputEntries",
+                    "false"
+            )
+    );
+
+    int executionCacheSize = Integer.getInteger("rundeck.api.client.executionCacheSize", 0);
+
+    long jobCacheTtl = Long.getLong("rundeck.api.client.jobCacheTtl", 0L);
+
+    long nodeInventoryRefreshInterval = Long.getLong(
+            "rundeck.api.client.nodeInventoryRefreshInterval",
+            RundeckClient.DEFAULT_NODE_INVENTORY_REFRESH_INTERVAL
+    );
+
+    RundeckClientMetrics metrics;
+
+    String jmxName;
+
+    int maxConnectionsTotal = RundeckClient.DEFAULT_MAX_CONNECTIONS_TOTAL;
+    int maxConnectionsPerRoute = RundeckClient.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    long connectionIdleTimeout = RundeckClient.DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    long connectionKeepAlive = -1;
 
     RundeckClientBuilder(){
 
@@ -130,6 +187,185 @@ public class RundeckClientBuilder {
         return this;
     }
 
+    /**
+     * Specify the maximum number of pooled HTTP connections, default 20
+     */
+    public RundeckClientBuilder maxConnectionsTotal(final int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        return this;
+    }
+
+    /**
+     * Specify the maximum number of pooled HTTP connections to a single route (host), default 20
+     */
+    public RundeckClientBuilder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Specify how long a pooled connection may stay idle before it is closed, default 30 seconds. A value of 0 or
+     * less disables idle eviction (expired connections are still evicted).
+     */
+    public RundeckClientBuilder connectionIdleTimeout(final long timeout, final TimeUnit unit) {
+        this.connectionIdleTimeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Specify the maximum time a connection is kept alive for reuse. By default the keep-alive duration sent by the
+     * server is used, without limit.
+     */
+    public RundeckClientBuilder connectionKeepAlive(final long keepAlive, final TimeUnit unit) {
+        this.connectionKeepAlive = unit.toMillis(keepAlive);
+        return this;
+    }
+
+    /**
+     * Specify whether the background tasks of the client (connection eviction, asynchronous calls) should run on
+     * virtual threads. Blocking calls such as {@link RundeckClient#runJob(org.rundeck.api.RunJob)} can then be made
+     * from thousands of virtual threads, each one waiting on a pooled connection or sleeping between two polls
+     * without holding a platform thread. Requires Java 21 or later.
+     *
+     * @param virtualThreads true to use virtual threads, false for platform threads (default)
+     */
+    public RundeckClientBuilder virtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Specify whether the requests should be sent with the HTTP client of the JDK (java.net.http) rather than with
+     * Apache HttpClient (default). The JDK client negotiates HTTP/2 when the server (or a proxy in front of it)
+     * supports it, so that all the concurrent calls are multiplexed on a single connection : the connection pool
+     * settings are then not used. Requires Java 11 or later, and cannot be combined with
+     * {@link #sslHostnameVerifyAllowAll(boolean)}.
+     *
+     * @param jdkHttpClient true to use the JDK HTTP client, false for Apache HttpClient (default)
+     */
+    public RundeckClientBuilder jdkHttpClient(final boolean jdkHttpClient) {
+        this.jdkHttpClient = jdkHttpClient;
+        return this;
+    }
+
+    /**
+     * Specify whether the XML responses should be parsed straight from the network stream, instead of being read in
+     * memory first. This avoids a copy in memory of large responses (executions, nodes...) and starts parsing with the
+     * first bytes received, but the connection is then held until the whole document has been parsed.
+     *
+     * @param streamingResponses true to parse the responses while reading them, false to read them first (default)
+     */
+    public RundeckClientBuilder streamingResponses(final boolean streamingResponses) {
+        this.streamingResponses = streamingResponses;
+        return this;
+    }
+
+    /**
+     * Specify whether the lists of nodes, jobs, executions and history events should be parsed with StAX, building
+     * each object while the XML is read, instead of loading a whole XML document and querying it with XPath. Combined
+     * with {@link #streamingResponses(boolean)}, the responses are parsed while received.
+     *
+     * @param staxParsers true to use the StAX parsers, false for the XPath parsers (default)
+     */
+    public RundeckClientBuilder staxParsers(final boolean staxParsers) {
+        this.staxParsers = staxParsers;
+        return this;
+    }
+
+    /**
+     * Specify the size above which the outputs of the executions are spilled to temp files instead of being held on
+     * the heap. The entries of {@link RundeckClient#getExecutionOutput(Long, int, long, int)} (and the other
+     * execution output calls) are then parsed while received, and spilled to memory-mapped files once their encoded
+     * size crosses the threshold : close the {@link org.rundeck.api.domain.RundeckOutput} to delete the files. The log
+     * downloaded by {@link RundeckClient#getOutput(String)} is written to a temp file once larger than the threshold,
+     * deleted when the stream is closed.
+     *
+     * @param outputSpillThreshold in bytes, or -1 to hold the outputs on the heap (default)
+     */
+    public RundeckClientBuilder outputSpillThreshold(final long outputSpillThreshold) {
+        this.outputSpillThreshold = outputSpillThreshold;
+        return this;
+    }
+
+    /**
+     * Specify whether the entries of the execution outputs should be stored by columns in an
+     * {@link org.rundeck.api.util.OutputEntryBatch}, the values repeated on most lines (node, user, step context...)
+     * being interned, instead of as one {@link org.rundeck.api.domain.RundeckOutputEntry} (with its metadata map and
+     * date) per line. The entries are then read-only views. Not used if an
+     * {@link #outputSpillThreshold(long) output spill threshold} is set.
+     *
+     * @param compactOutputEntries true to store the entries by columns, false for one object per entry (default)
+     */
+    public RundeckClientBuilder compactOutputEntries(final boolean compactOutputEntries) {
+        this.compactOutputEntries = compactOutputEntries;
+        return this;
+    }
+
+    /**
+     * Specify the maximum number of finished executions kept in memory (least recently used first out), so that
+     * {@link RundeckClient#getExecution(Long)} answers them without calling the API. The finished executions returned
+     * by {@link RundeckClient#getJobExecutions(String)} and {@link RundeckClient#getExecutions} are cached too. See
+     * {@link RundeckClient#getExecutionCache()} for the hit, miss and eviction counters.
+     *
+     * @param executionCacheSize maximum number of executions, or 0 to disable the cache (default)
+     */
+    public RundeckClientBuilder executionCacheSize(final int executionCacheSize) {
+        this.executionCacheSize = executionCacheSize;
+        return this;
+    }
+
+    /**
+     * Specify how long the jobs of a project are indexed, so that {@link RundeckClient#findJob(String, String, String)}
+     * and {@link RundeckClient#getJob(String)} are answered from memory. The jobs of a project are loaded in bulk
+     * when first needed, and loaded again once older than this time-to-live, or on demand : see
+     * {@link RundeckClient#getJobCache()}. Jobs created, renamed or deleted by other clients are only seen after the
+     * next load.
+     *
+     * @param jobCacheTtl time-to-live of the jobs of a project, or 0 to disable the index (default)
+     * @param unit        of the time-to-live - mandatory
+     */
+    public RundeckClientBuilder jobCacheTtl(final long jobCacheTtl, final TimeUnit unit) {
+        this.jobCacheTtl = unit.toMillis(jobCacheTtl);
+        return this;
+    }
+
+    /**
+     * Specify the interval between two background refreshes of the nodes of a project, once loaded with
+     * {@link RundeckClient#getNodeInventory(String)}. Defaults to 1 minute.
+     *
+     * @param nodeInventoryRefreshInterval interval between two refreshes - must be greater than 0
+     * @param unit                         of the interval - mandatory
+     */
+    public RundeckClientBuilder nodeInventoryRefreshInterval(final long nodeInventoryRefreshInterval,
+            final TimeUnit unit) {
+        this.nodeInventoryRefreshInterval = unit.toMillis(nodeInventoryRefreshInterval);
+        return this;
+    }
+
+    /**
+     * Specify a listener of the API calls, receiving the endpoint, status, bytes and the time spent in each phase of
+     * each call. Use an {@link EndpointMetrics} to keep the statistics of each endpoint. None by default.
+     *
+     * @param metrics listener of the API calls, or null for none
+     */
+    public RundeckClientBuilder metrics(final RundeckClientMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Register the client in the platform MBean server, as "org.rundeck.api:type=RundeckClient,name=&lt;name&gt;", to
+     * expose the calls in flight, the rate, latency and bytes of each endpoint, the logins, the errors by type, the
+     * connection pool and the caches : see {@link RundeckClientMXBean}. The MBean is unregistered when the client is
+     * closed. Not registered by default.
+     *
+     * @param jmxName name of the client, unique in the JVM - or null to not register it
+     */
+    public RundeckClientBuilder jmxName(final String jmxName) {
+        this.jmxName = jmxName;
+        return this;
+    }
+
     /**
      * Create the RundeckClient instance
      */
@@ -137,28 +373,42 @@ public class RundeckClientBuilder {
         if (null == url) {
             AssertUtil.notBlank(url, "The Rundeck URL is required");
         }
-        final RundeckClient client = new RundeckClient(url);
         if (null != login && null != password) {
             AssertUtil.notBlank(login, "login cannot be blank");
             AssertUtil.notBlank(password, "password cannot be blank");
-            client.setLogin(login);
-            client.setPassword(password);
         } else if (null != token) {
             AssertUtil.notBlank(token, "token cannot be blank");
-            client.setToken(token);
         } else if (null != id) {
             AssertUtil.notBlank(token, "sessionId cannot be blank");
-            client.setSessionID(id);
         } else {
             throw new IllegalStateException("login/password, token, or sessionID must be specified");
         }
-        client.setSslCertificateTrustAllowSelfSigned(sslCertificateTrustAllowSelfSigned);
-        client.setSslHostnameVerifyAllowAll(sslHostnameVerifyAllowAll);
-        client.setSystemProxyEnabled(systemProxyEnabled);
-        client.setUseIntermediateStreamFile(useIntermediateStreamFile);
-
-        if (version > 0) {
-            client.setApiVersion(version);
+        if (maxConnectionsTotal <= 0 || maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("maxConnectionsTotal and maxConnectionsPerRoute must be greater than 0");
+        }
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later");
+        }
+        if (jdkHttpClient) {
+            if (!Transports.isJdkHttpClientAvailable()) {
+                throw new IllegalStateException("The JDK HTTP client requires Java 11 or later");
+            }
+            if (sslHostnameVerifyAllowAll) {
+                throw new IllegalStateException("The JDK HTTP client does not support sslHostnameVerifyAllowAll");
+            }
+        }
+        if (executionCacheSize < 0) {
+            throw new IllegalArgumentException("executionCacheSize must be greater than or equal to 0");
+        }
+        if (jobCacheTtl < 0) {
+            throw new IllegalArgumentException("jobCacheTtl must be greater than or equal to 0");
+        }
+        if (nodeInventoryRefreshInterval <= 0) {
+            throw new IllegalArgumentException("nodeInventoryRefreshInterval must be greater than 0");
+        }
+        final RundeckClient client = new RundeckClient(new RundeckClientConfig(this));
+        if (null != jmxName) {
+            client.registerMBean();
         }
         return client;
     }
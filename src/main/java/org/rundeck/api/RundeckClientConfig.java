@@ -0,0 +1,177 @@
+package org.rundeck.api;
+
+import java.io.Serializable;
+
+/**
+ * Immutable settings of a {@link RundeckClient}, copied from the {@link RundeckClientBuilder} when the client is built.
+ * All the fields are final : once the client is constructed, any thread sees the same settings, without
+ * synchronization, however the client is shared.
+ */
+final class RundeckClientConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** URL of the Rundeck instance ("http://localhost:4440", "http://rundeck.your-compagny.com/", etc) */
+    private final String url;
+    private final int apiVersion;
+    private final String token;
+    private final String login;
+    private final String password;
+    private final String sessionID;
+    private final boolean sslHostnameVerifyAllowAll;
+    private final boolean sslCertificateTrustAllowSelfSigned;
+    private final boolean systemProxyEnabled;
+    private final boolean useIntermediateStreamFile;
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerRoute;
+    private final long connectionIdleTimeout;
+    private final long connectionKeepAlive;
+    private final boolean virtualThreads;
+    private final boolean jdkHttpClient;
+    private final boolean streamingResponses;
+    private final boolean staxParsers;
+    private final long outputSpillThreshold;
+    private final boolean compactOutputEntries;
+    private final int executionCacheSize;
+    private final long jobCacheTtl;
+    private final long nodeInventoryRefreshInterval;
+    /** listener of the API calls set on the builder, or null */
+    private final transient RundeckClientMetrics metrics;
+    private final String jmxName;
+
+    /**
+     * Copy the settings of a builder, already validated. Only the credentials of the authentication used are kept :
+     * login and password, else token, else session ID.
+     */
+    RundeckClientConfig(final RundeckClientBuilder builder) {
+        boolean loginBased = null != builder.login && null != builder.password;
+        this.url = builder.url;
+        this.apiVersion = builder.version > 0 ? builder.version : RundeckClient.API_VERSION;
+        this.login = loginBased ? builder.login : null;
+        this.password = loginBased ? builder.password : null;
+        this.token = loginBased ? null : builder.token;
+        this.sessionID = loginBased || null != builder.token ? null : builder.id;
+        this.sslHostnameVerifyAllowAll = builder.sslHostnameVerifyAllowAll;
+        this.sslCertificateTrustAllowSelfSigned = builder.sslCertificateTrustAllowSelfSigned;
+        this.systemProxyEnabled = builder.systemProxyEnabled;
+        this.useIntermediateStreamFile = builder.useIntermediateStreamFile;
+        this.maxConnectionsTotal = builder.maxConnectionsTotal;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.connectionIdleTimeout = builder.connectionIdleTimeout;
+        this.connectionKeepAlive = builder.connectionKeepAlive;
+        this.virtualThreads = builder.virtualThreads;
+        this.jdkHttpClient = builder.jdkHttpClient;
+        this.streamingResponses = builder.streamingResponses;
+        this.staxParsers = builder.staxParsers;
+        this.outputSpillThreshold = builder.outputSpillThreshold;
+        this.compactOutputEntries = builder.compactOutputEntries;
+        this.executionCacheSize = builder.executionCacheSize;
+        this.jobCacheTtl = builder.jobCacheTtl;
+        this.nodeInventoryRefreshInterval = builder.nodeInventoryRefreshInterval;
+        this.metrics = builder.metrics;
+        this.jmxName = builder.jmxName;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    int getApiVersion() {
+        return apiVersion;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    String getLogin() {
+        return login;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    String getSessionID() {
+        return sessionID;
+    }
+
+    boolean isSslHostnameVerifyAllowAll() {
+        return sslHostnameVerifyAllowAll;
+    }
+
+    boolean isSslCertificateTrustAllowSelfSigned() {
+        return sslCertificateTrustAllowSelfSigned;
+    }
+
+    boolean isSystemProxyEnabled() {
+        return systemProxyEnabled;
+    }
+
+    boolean isUseIntermediateStreamFile() {
+        return useIntermediateStreamFile;
+    }
+
+    int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    long getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    long getConnectionKeepAlive() {
+        return connectionKeepAlive;
+    }
+
+    boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    boolean isJdkHttpClient() {
+        return jdkHttpClient;
+    }
+
+    boolean isStreamingResponses() {
+        return streamingResponses;
+    }
+
+    boolean isStaxParsers() {
+        return staxParsers;
+    }
+
+    long getOutputSpillThreshold() {
+        return outputSpillThreshold;
+    }
+
+    boolean isCompactOutputEntries() {
+        return compactOutputEntries;
+    }
+
+    int getExecutionCacheSize() {
+        return executionCacheSize;
+    }
+
+    long getJobCacheTtl() {
+        return jobCacheTtl;
+    }
+
+    long getNodeInventoryRefreshInterval() {
+        return nodeInventoryRefreshInterval;
+    }
+
+    RundeckClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the name of the client in JMX, or null if not registered
+     */
+    String getJmxName() {
+        return jmxName;
+    }
+}
@@ -0,0 +1,270 @@
+package org.rundeck.api;
+
+import org.apache.http.pool.PoolStats;
+import org.rundeck.api.EndpointMetrics.EndpointStats;
+import org.rundeck.api.transport.RundeckTransport;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of the API calls of a client as its {@link RundeckClientMetrics}, forwarding the events to
+ * the listener set on the builder (if any), and exposes them over JMX with the statistics of the connection pool and
+ * the caches.
+ */
+class RundeckClientJmx implements RundeckClientMXBean, RundeckClientMetrics {
+
+    /** Domain of the names of the MBeans */
+    static final String DOMAIN = "org.rundeck.api";
+
+    private final RundeckClient client;
+    private final RundeckClientMetrics delegate;
+    private final ObjectName name;
+    private final EndpointMetrics endpoints = new EndpointMetrics();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<String, LongAdder>();
+
+    /**
+     * @param name     of the client, unique in the JVM
+     * @param delegate listener of the API calls set on the builder, or null
+     * @throws IllegalArgumentException if the name is not valid in an ObjectName
+     */
+    RundeckClientJmx(final RundeckClient client, final String name, final RundeckClientMetrics delegate) {
+        this.client = client;
+        this.delegate = delegate;
+        try {
+            this.name = new ObjectName(DOMAIN + ":type=RundeckClient,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid JMX name : " + name, e);
+        }
+    }
+
+    /**
+     * @return the name of the MBean
+     */
+    ObjectName getName() {
+        return name;
+    }
+
+    /**
+     * Register the MBean in the platform MBean server
+     *
+     * @throws IllegalArgumentException if a client is already registered with the same name
+     */
+    void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("A RundeckClient is already registered in JMX as " + name, e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register the RundeckClient in JMX as " + name, e);
+        }
+    }
+
+    /**
+     * Unregister the MBean, if registered
+     */
+    void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // already unregistered
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister the RundeckClient " + name + " from JMX", e);
+        }
+    }
+
+    @Override
+    public void callStarted(final String method, final String endpoint) {
+        inFlight.incrementAndGet();
+        if (null != delegate) {
+            delegate.callStarted(method, endpoint);
+        }
+    }
+
+    @Override
+    public void callCompleted(final ApiCallEvent event) {
+        inFlight.decrementAndGet();
+        endpoints.callCompleted(event);
+        if (null != event.getFailure()) {
+            String type = event.getFailure().getClass().getSimpleName();
+            LongAdder count = errors.get(type);
+            if (null == count) {
+                LongAdder created = new LongAdder();
+                count = errors.putIfAbsent(type, created);
+                if (null == count) {
+                    count = created;
+                }
+            }
+            count.increment();
+        }
+        if (null != delegate) {
+            delegate.callCompleted(event);
+        }
+    }
+
+    @Override
+    public String getUrl() {
+        return client.getUrl();
+    }
+
+    @Override
+    public int getApiVersion() {
+        return client.getApiVersion();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getRequestCount() {
+        long count = 0;
+        for (EndpointStats stats : endpoints.getEndpoints().values()) {
+            count += stats.getCallCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFailureCount() {
+        long count = 0;
+        for (EndpointStats stats : endpoints.getEndpoints().values()) {
+            count += stats.getFailureCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getBytesSent() {
+        long count = 0;
+        for (EndpointStats stats : endpoints.getEndpoints().values()) {
+            count += stats.getBytesSent();
+        }
+        return count;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        long count = 0;
+        for (EndpointStats stats : endpoints.getEndpoints().values()) {
+            count += stats.getBytesReceived();
+        }
+        return count;
+    }
+
+    @Override
+    public long getLoginCount() {
+        LoginSession session = client.getCurrentLoginSession();
+        return null != session ? session.getGeneration() : 0;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, EndpointStatistics> getEndpoints() {
+        Map<String, EndpointStatistics> statistics = new TreeMap<String, EndpointStatistics>();
+        for (Map.Entry<String, EndpointStats> entry : endpoints.getEndpoints().entrySet()) {
+            statistics.put(entry.getKey(), new EndpointStatistics(entry.getValue()));
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the connection pool, or null if the transport is not a connection pool
+     */
+    private PoolStats poolStats() {
+        RundeckTransport transport = client.getCurrentTransport();
+        return transport instanceof ConnectionPool ? ((ConnectionPool) transport).getStats() : null;
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        PoolStats stats = poolStats();
+        return null != stats ? stats.getLeased() : -1;
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        PoolStats stats = poolStats();
+        return null != stats ? stats.getAvailable() : -1;
+    }
+
+    @Override
+    public int getPendingConnections() {
+        PoolStats stats = poolStats();
+        return null != stats ? stats.getPending() : -1;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        PoolStats stats = poolStats();
+        return null != stats ? stats.getMax() : -1;
+    }
+
+    @Override
+    public int getExecutionCacheSize() {
+        ExecutionCache cache = client.getExecutionCache();
+        return null != cache ? cache.size() : -1;
+    }
+
+    @Override
+    public long getExecutionCacheHits() {
+        ExecutionCache cache = client.getExecutionCache();
+        return null != cache ? cache.getHitCount() : 0;
+    }
+
+    @Override
+    public long getExecutionCacheMisses() {
+        ExecutionCache cache = client.getExecutionCache();
+        return null != cache ? cache.getMissCount() : 0;
+    }
+
+    @Override
+    public int getJobCacheSize() {
+        JobCache cache = client.getJobCache();
+        return null != cache ? cache.size() : -1;
+    }
+
+    @Override
+    public long getJobCacheHits() {
+        JobCache cache = client.getJobCache();
+        return null != cache ? cache.getHitCount() : 0;
+    }
+
+    @Override
+    public long getJobCacheMisses() {
+        JobCache cache = client.getJobCache();
+        return null != cache ? cache.getMissCount() : 0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        endpoints.reset();
+        errors.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "RundeckClientJmx [name=" + name + ", inFlight=" + inFlight + ", errors=" + getErrorCounts() + "]";
+    }
+}
@@ -0,0 +1,117 @@
+package org.rundeck.api;
+
+import java.util.Map;
+
+/**
+ * Statistics of a client exposed over JMX, once registered with {@link RundeckClientBuilder#jmxName(String)} : the
+ * calls in flight, the rate, latency and bytes of each endpoint, the logins, the errors by type, the connection pool
+ * and the caches. Only open types are used, so that any JMX console or scraper can read them.
+ */
+public interface RundeckClientMXBean {
+
+    /**
+     * @return the URL of the Rundeck instance
+     */
+    String getUrl();
+
+    /**
+     * @return the version of the API used
+     */
+    int getApiVersion();
+
+    /**
+     * @return the number of API calls in progress
+     */
+    int getInFlightRequests();
+
+    /**
+     * @return the number of API calls completed, successfully or not
+     */
+    long getRequestCount();
+
+    /**
+     * @return the number of API calls failed
+     */
+    long getFailureCount();
+
+    /**
+     * @return the number of bytes sent in the content of the requests
+     */
+    long getBytesSent();
+
+    /**
+     * @return the number of bytes read from the content of the responses
+     */
+    long getBytesReceived();
+
+    /**
+     * @return the number of logins, in case of login-based authentication
+     */
+    long getLoginCount();
+
+    /**
+     * @return the number of failed calls by type of exception, such as RundeckApiHttpStatusException
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * @return the statistics of each endpoint called, keyed by method and endpoint, such as
+     * "GET /execution/{id}/output"
+     */
+    Map<String, EndpointStatistics> getEndpoints();
+
+    /**
+     * @return the number of connections in use, or -1 if the transport is not a connection pool
+     */
+    int getLeasedConnections();
+
+    /**
+     * @return the number of idle connections kept open, or -1 if the transport is not a connection pool
+     */
+    int getAvailableConnections();
+
+    /**
+     * @return the number of calls waiting for a connection, or -1 if the transport is not a connection pool
+     */
+    int getPendingConnections();
+
+    /**
+     * @return the maximum number of connections, or -1 if the transport is not a connection pool
+     */
+    int getMaxConnections();
+
+    /**
+     * @return the number of executions in the cache, or -1 if disabled
+     */
+    int getExecutionCacheSize();
+
+    /**
+     * @return the number of executions answered from the cache
+     */
+    long getExecutionCacheHits();
+
+    /**
+     * @return the number of executions not found in the cache
+     */
+    long getExecutionCacheMisses();
+
+    /**
+     * @return the number of jobs indexed, or -1 if disabled
+     */
+    int getJobCacheSize();
+
+    /**
+     * @return the number of jobs found in the index
+     */
+    long getJobCacheHits();
+
+    /**
+     * @return the number of lookups of a job or a project missing or expired in the index
+     */
+    long getJobCacheMisses();
+
+    /**
+     * Forget the statistics of the calls
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,31 @@
+package org.rundeck.api;
+
+/**
+ * Listener of the API calls of a client, registered with {@link RundeckClientBuilder#metrics(RundeckClientMetrics)} :
+ * it receives an {@link ApiCallEvent} for each call, with its endpoint, its status, the bytes sent and received and
+ * the time spent in each phase.
+ * <p>
+ * The events are sent from the thread making the call, once the response has been handled (or the call has failed) :
+ * the listener must be thread-safe and return quickly. An exception thrown by the listener is ignored. Each call
+ * started is completed, even if it fails.
+ *
+ * @see EndpointMetrics
+ */
+public interface RundeckClientMetrics {
+
+    /**
+     * Called before an API call is sent
+     *
+     * @param method   HTTP method, such as GET or POST
+     * @param endpoint called, such as "/execution/{id}/output"
+     */
+    default void callStarted(String method, String endpoint) {
+    }
+
+    /**
+     * Called once an API call is completed, or has failed
+     *
+     * @param event describing the call - won't be null
+     */
+    void callCompleted(ApiCallEvent event);
+}
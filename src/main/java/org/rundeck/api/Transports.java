@@ -0,0 +1,58 @@
+package org.rundeck.api;
+
+import org.rundeck.api.transport.RundeckTransport;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates the JDK HTTP transport. It is compiled for Java 11 and later (when the library itself is built with Java 11
+ * or later), separately from the rest of the library, so it is only loaded by reflection.
+ *
+ * @see RundeckClientBuilder#jdkHttpClient(boolean)
+ */
+final class Transports {
+
+    private static final String JDK_HTTP_TRANSPORT = "org.rundeck.api.JdkHttpTransport";
+
+    private Transports() {
+    }
+
+    /**
+     * @return true if the JDK HTTP transport can be used with the current runtime
+     */
+    static boolean isJdkHttpClientAvailable() {
+        try {
+            Class.forName("java.net.http.HttpClient");
+            Class.forName(JDK_HTTP_TRANSPORT);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            // compiled for a newer runtime
+            return false;
+        }
+    }
+
+    /**
+     * Create a JDK HTTP transport, configured from the given client
+     *
+     * @throws IllegalStateException if not available with the current runtime
+     */
+    static RundeckTransport newJdkHttpTransport(final RundeckClient client) {
+        if (!isJdkHttpClientAvailable()) {
+            throw new IllegalStateException("The JDK HTTP client requires Java 11 or later");
+        }
+        try {
+            return (RundeckTransport) Class.forName(JDK_HTTP_TRANSPORT)
+                                           .getDeclaredConstructor(RundeckClient.class)
+                                           .newInstance(client);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to create the JDK HTTP transport", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create the JDK HTTP transport", e);
+        }
+    }
+}
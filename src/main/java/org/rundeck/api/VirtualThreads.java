@@ -0,0 +1,120 @@
+package org.rundeck.api;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access to the virtual threads of Java 21 and later. The library is built for older runtimes, so the
+ * {@code Thread.ofVirtual()} API is reached by reflection, and the platform threads are used as fallback.
+ *
+ * @see RundeckClientBuilder#virtualThreads(boolean)
+ */
+final class VirtualThreads {
+
+    /** Thread.ofVirtual(), null if not available */
+    private static final Method OF_VIRTUAL;
+
+    /** Thread.Builder.name(String, long) */
+    private static final Method NAME;
+
+    /** Thread.Builder.factory() */
+    private static final Method FACTORY;
+
+    /** Executors.newThreadPerTaskExecutor(ThreadFactory) */
+    private static final Method PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method perTaskExecutor = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            perTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+        } catch (ReflectiveOperationException e) {
+            // no virtual threads in this runtime
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        PER_TASK_EXECUTOR = perTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the current runtime provides virtual threads
+     */
+    static boolean isSupported() {
+        return null != OF_VIRTUAL;
+    }
+
+    /**
+     * Create a factory of threads named with the given prefix followed by a counter
+     *
+     * @param prefix of the thread names
+     * @param virtual true for virtual threads, false for daemon platform threads
+     * @throws IllegalStateException if virtual threads are requested but not supported by the runtime
+     */
+    static ThreadFactory factory(final String prefix, final boolean virtual) {
+        if (!virtual) {
+            return new DaemonThreadFactory(prefix);
+        }
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads are not accessible", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual threads", e.getCause());
+        }
+    }
+
+    /**
+     * Create an executor starting a new virtual thread for each task
+     *
+     * @param prefix of the thread names
+     * @throws IllegalStateException if virtual threads are not supported by the runtime
+     */
+    static ExecutorService newExecutor(final String prefix) {
+        ThreadFactory factory = factory(prefix, true);
+        try {
+            return (ExecutorService) PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads are not accessible", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual threads executor", e.getCause());
+        }
+    }
+
+    /**
+     * Daemon platform threads, so that a client which is not closed does not prevent the JVM from exiting
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicLong counter = new AtomicLong();
+
+        private DaemonThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.rundeck.api.domain;
+
+/**
+ * A change of state between two snapshots of a {@link RundeckExecutionState} : of the whole execution, of a step, or
+ * of a step on a node
+ */
+public class ExecutionStateChange {
+    private final long executionId;
+    private final String node;
+    private final String stepContextId;
+    private final RundeckWFExecState previousState;
+    private final BaseState state;
+
+    public ExecutionStateChange(final long executionId, final String node, final String stepContextId,
+            final RundeckWFExecState previousState, final BaseState state) {
+        this.executionId = executionId;
+        this.node = node;
+        this.stepContextId = stepContextId;
+        this.previousState = previousState;
+        this.state = state;
+    }
+
+    /**
+     * Return the ID of the execution
+     */
+    public long getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * Return the name of the node, or null for the state of the whole execution or of a step on all its nodes
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Return the context id of the step in the form "#[/#[/#[...]]]", or null for the state of the whole execution
+     */
+    public String getStepContextId() {
+        return stepContextId;
+    }
+
+    /**
+     * Return the previous state, or null if it was not part of the previous snapshot
+     */
+    public RundeckWFExecState getPreviousState() {
+        return previousState;
+    }
+
+    /**
+     * Return the new state
+     */
+    public RundeckWFExecState getExecutionState() {
+        return state.getExecutionState();
+    }
+
+    /**
+     * Return the new state with its times : a {@link RundeckExecutionState}, a {@link WorkflowStepState}, or the
+     * {@link WorkflowStepContextState} of a step on a node
+     */
+    public BaseState getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionStateChange [executionId=" + executionId + ", node=" + node + ", stepContextId="
+               + stepContextId + ", previousState=" + previousState + ", state=" + getExecutionState() + "]";
+    }
+}
@@ -0,0 +1,192 @@
+package org.rundeck.api.domain;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the states of an execution, built once from its workflow : each step context and each node gets a dense
+ * ID, the state of each step on each node is stored in a table, and the nodes of each step are grouped by state in
+ * bitsets. Finding the state of a step on a node, or the nodes of a step in a given state (such as the failed nodes of
+ * step 3/2), does not scan the steps or the nodes.
+ * <p>
+ * The index reflects the workflow when it was built : it is not updated by the setters of the states.
+ */
+public class ExecutionStateIndex {
+    private static final RundeckWFExecState[] STATES = RundeckWFExecState.values();
+
+    private final Map<String, Integer> stepIds = new HashMap<String, Integer>();
+    private final List<String> stepContextIds = new ArrayList<String>();
+    private final List<WorkflowStepState> steps = new ArrayList<WorkflowStepState>();
+    private final Map<String, Integer> nodeIds = new HashMap<String, Integer>();
+    private final List<String> nodeNames = new ArrayList<String>();
+    /** state of each step on each node, at [step * node count + node] */
+    private final WorkflowStepContextState[] nodeStepStates;
+    /** nodes of each step in each state, at [step * state count + state ordinal], null if none */
+    private final BitSet[] stateNodes;
+
+    /**
+     * @param workflow to index, with its sub workflows
+     * @param nodes    to index in this order, before the other nodes found in the steps - optional
+     */
+    public ExecutionStateIndex(final WorkflowState workflow, final Iterable<? extends RundeckNodeIdentity> nodes) {
+        if (null != nodes) {
+            for (RundeckNodeIdentity node : nodes) {
+                nodeId(node.getName());
+            }
+        }
+        indexSteps(workflow);
+        nodeStepStates = new WorkflowStepContextState[steps.size() * nodeNames.size()];
+        stateNodes = new BitSet[steps.size() * STATES.length];
+        for (int step = 0; step < steps.size(); step++) {
+            Map<String, WorkflowStepContextState> states = steps.get(step).getNodeStates();
+            if (null == states) {
+                continue;
+            }
+            for (Map.Entry<String, WorkflowStepContextState> entry : states.entrySet()) {
+                if (null == entry.getValue()) {
+                    continue;
+                }
+                int node = nodeIds.get(entry.getKey());
+                nodeStepStates[step * nodeNames.size() + node] = entry.getValue();
+                RundeckWFExecState state = entry.getValue().getExecutionState();
+                if (null != state) {
+                    int slot = step * STATES.length + state.ordinal();
+                    if (null == stateNodes[slot]) {
+                        stateNodes[slot] = new BitSet(nodeNames.size());
+                    }
+                    stateNodes[slot].set(node);
+                }
+            }
+        }
+    }
+
+    private void indexSteps(final WorkflowState workflow) {
+        if (null == workflow || null == workflow.getSteps()) {
+            return;
+        }
+        for (WorkflowStepState step : workflow.getSteps()) {
+            if (null == step) {
+                continue;
+            }
+            if (null != step.getStepContextId() && !stepIds.containsKey(step.getStepContextId())) {
+                stepIds.put(step.getStepContextId(), steps.size());
+                stepContextIds.add(step.getStepContextId());
+                steps.add(step);
+                if (null != step.getNodeStates()) {
+                    for (String node : step.getNodeStates().keySet()) {
+                        nodeId(node);
+                    }
+                }
+            }
+            indexSteps(step.getSubWorkflow());
+        }
+    }
+
+    private int nodeId(final String node) {
+        Integer id = nodeIds.get(node);
+        if (null == id) {
+            id = nodeNames.size();
+            nodeIds.put(node, id);
+            nodeNames.add(node);
+        }
+        return id;
+    }
+
+    /**
+     * Return the context ids of the steps, in workflow order (a step before the steps of its sub workflow)
+     */
+    public List<String> getStepContextIds() {
+        return Collections.unmodifiableList(stepContextIds);
+    }
+
+    /**
+     * Return the names of the nodes
+     */
+    public List<String> getNodeNames() {
+        return Collections.unmodifiableList(nodeNames);
+    }
+
+    /**
+     * Return the step with the given context id, such as "3/2", or null
+     */
+    public WorkflowStepState getStep(final String stepContextId) {
+        Integer step = stepIds.get(stepContextId);
+        return null != step ? steps.get(step) : null;
+    }
+
+    /**
+     * Return the state of the given step on the given node, or null
+     */
+    public WorkflowStepContextState getNodeStepState(final String node, final String stepContextId) {
+        Integer step = stepIds.get(stepContextId);
+        Integer nodeId = nodeIds.get(node);
+        if (null == step || null == nodeId) {
+            return null;
+        }
+        return nodeStepStates[step * nodeNames.size() + nodeId];
+    }
+
+    /**
+     * Return the execution state of the given step on the given node, or null
+     */
+    public RundeckWFExecState getState(final String node, final String stepContextId) {
+        WorkflowStepContextState state = getNodeStepState(node, stepContextId);
+        return null != state ? state.getExecutionState() : null;
+    }
+
+    /**
+     * Return the names of the nodes on which the given step is in the given state
+     */
+    public List<String> getNodes(final String stepContextId, final RundeckWFExecState state) {
+        BitSet nodes = stateNodes(stepContextId, state);
+        if (null == nodes) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<String>(nodes.cardinality());
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            names.add(nodeNames.get(node));
+        }
+        return names;
+    }
+
+    /**
+     * Return the number of nodes on which the given step is in the given state
+     */
+    public int countNodes(final String stepContextId, final RundeckWFExecState state) {
+        BitSet nodes = stateNodes(stepContextId, state);
+        return null != nodes ? nodes.cardinality() : 0;
+    }
+
+    /**
+     * Return the names of the nodes in the given state for each step having some, such as the failed nodes per step,
+     * in workflow order
+     */
+    public Map<String, List<String>> getNodesPerStep(final RundeckWFExecState state) {
+        Map<String, List<String>> nodesPerStep = new LinkedHashMap<String, List<String>>();
+        for (String stepContextId : stepContextIds) {
+            List<String> nodes = getNodes(stepContextId, state);
+            if (!nodes.isEmpty()) {
+                nodesPerStep.put(stepContextId, nodes);
+            }
+        }
+        return nodesPerStep;
+    }
+
+    private BitSet stateNodes(final String stepContextId, final RundeckWFExecState state) {
+        Integer step = stepIds.get(stepContextId);
+        if (null == step || null == state) {
+            return null;
+        }
+        return stateNodes[step * STATES.length + state.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionStateIndex [steps=" + stepContextIds + ", nodes=" + nodeNames + "]";
+    }
+}
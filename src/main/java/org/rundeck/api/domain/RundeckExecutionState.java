@@ -11,6 +11,7 @@ public class RundeckExecutionState extends WorkflowState{
     private long executionId;
     private Set<RundeckNodeIdentity> allNodes;
     private Map<String, List<WorkflowStepContextState>> nodeStates;
+    private ExecutionStateIndex index;
 
     /**
      * Return the set of all rundeck nodes targeted in this execution
@@ -47,4 +48,19 @@ public class RundeckExecutionState extends WorkflowState{
     public void setExecutionId(long executionId) {
         this.executionId = executionId;
     }
+
+    /**
+     * Return the index of the states of the steps on each node, built when parsed (or on the first call)
+     * @return
+     */
+    public ExecutionStateIndex getIndex() {
+        if (null == index) {
+            index = new ExecutionStateIndex(this, allNodes);
+        }
+        return index;
+    }
+
+    public void setIndex(ExecutionStateIndex index) {
+        this.index = index;
+    }
 }
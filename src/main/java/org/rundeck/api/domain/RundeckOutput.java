@@ -1,16 +1,22 @@
 package org.rundeck.api.domain;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Serializable;
 
 
 /**
- * Represents a Rundeck output
+ * Represents a Rundeck output. The log entries may be spilled to temp files (see
+ * {@link org.rundeck.api.RundeckClientBuilder#outputSpillThreshold(long)}) : iterate over the output to read them
+ * sequentially, and close it to delete the files.
  * 
  */
-public class RundeckOutput implements Serializable {
+public class RundeckOutput implements Serializable, Iterable<RundeckOutputEntry>, Closeable {
 
 	private static final long serialVersionUID = 1L;
 
@@ -174,6 +180,31 @@ public class RundeckOutput implements Serializable {
 		logEntries.add(entry);
 	}
 
+    /**
+     * Iterate over the log entries
+     */
+    @Override
+    public Iterator<RundeckOutputEntry> iterator() {
+        if (logEntries == null) {
+            return Collections.<RundeckOutputEntry>emptyList().iterator();
+        }
+        return logEntries.iterator();
+    }
+
+    /**
+     * Delete the temp files of the log entries, if they have been spilled. They cannot be read anymore.
+     */
+    @Override
+    public void close() {
+        if (logEntries instanceof Closeable) {
+            try {
+                ((Closeable) logEntries).close();
+            } catch (IOException e) {
+                // the files are deleted on exit
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "RundeckOutput [executionId=" + executionId + /*", message=" + message + 
@@ -81,78 +81,82 @@ public class RundeckOutputEntry implements Serializable {
 
     @Override
     public String toString() {
-        return "RundeckOutputEntry [time=" + time + ", level=" + level + 
-        	", message=" + message + ", user=" + user
-                + ", command=" + command
-                + ", type=" + type
-                + ", metadata=" + metadata
-                + ", node=" + node + "]";
+        return "RundeckOutputEntry [time=" + getTime() + ", level=" + getLevel() + 
+        	", message=" + getMessage() + ", user=" + getUser()
+                + ", command=" + getCommand()
+                + ", type=" + getType()
+                + ", metadata=" + getMetadata()
+                + ", node=" + getNode() + "]";
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((time == null) ? 0 : time.hashCode());
-        result = prime * result + ((level == null) ? 0 : level.hashCode());
-        result = prime * result + ((message == null) ? 0 : message.hashCode());
-        result = prime * result + ((user == null) ? 0 : user.hashCode());
-        result = prime * result + ((command == null) ? 0 : command.hashCode());
-        result = prime * result + ((node == null) ? 0 : node.hashCode());
-        result = prime * result + ((type == null) ? 0 : type.hashCode());
-        result = prime * result + ((metadata == null) ? 0 : metadata.hashCode());
+        result = prime * result + ((getTime() == null) ? 0 : getTime().hashCode());
+        result = prime * result + ((getLevel() == null) ? 0 : getLevel().hashCode());
+        result = prime * result + ((getMessage() == null) ? 0 : getMessage().hashCode());
+        result = prime * result + ((getUser() == null) ? 0 : getUser().hashCode());
+        result = prime * result + ((getCommand() == null) ? 0 : getCommand().hashCode());
+        result = prime * result + ((getNode() == null) ? 0 : getNode().hashCode());
+        result = prime * result + ((getType() == null) ? 0 : getType().hashCode());
+        result = prime * result + ((getMetadata() == null) ? 0 : getMetadata().hashCode());
         return result;
     }
 
 
+    /**
+     * Compares the values of the getters, so that an entry equals an entry of an
+     * {@link org.rundeck.api.util.OutputEntryBatch} with the same values
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
             return true;
         if (obj == null)
             return false;
-        if (getClass() != obj.getClass())
+        if (!(obj instanceof RundeckOutputEntry))
             return false;
         RundeckOutputEntry other = (RundeckOutputEntry) obj;
-        if (time == null) {
-            if (other.time != null)
+        if (getTime() == null) {
+            if (other.getTime() != null)
                 return false;
-        } else if (!time.equals(other.time))
+        } else if (!getTime().equals(other.getTime()))
             return false;
-        if (level == null) {
-            if (other.level != null)
+        if (getLevel() == null) {
+            if (other.getLevel() != null)
                 return false;
-        } else if (!level.equals(other.level))
+        } else if (!getLevel().equals(other.getLevel()))
             return false;
-        if (message == null) {
-            if (other.message != null)
+        if (getMessage() == null) {
+            if (other.getMessage() != null)
                 return false;
-        } else if (!message.equals(other.message))
+        } else if (!getMessage().equals(other.getMessage()))
             return false;
-        if (user == null) {
-            if (other.user != null)
+        if (getUser() == null) {
+            if (other.getUser() != null)
                 return false;
-        } else if (!user.equals(other.user))
+        } else if (!getUser().equals(other.getUser()))
             return false;
-        if (command == null) {
-            if (other.command != null)
+        if (getCommand() == null) {
+            if (other.getCommand() != null)
                 return false;
-        } else if (!command.equals(other.command))
+        } else if (!getCommand().equals(other.getCommand()))
             return false;
-        if (node == null) {
-            if (other.node != null)
+        if (getNode() == null) {
+            if (other.getNode() != null)
                 return false;
-        } else if (!node.equals(other.node))
+        } else if (!getNode().equals(other.getNode()))
             return false;
-        if (type == null) {
-            if (other.type != null)
+        if (getType() == null) {
+            if (other.getType() != null)
                 return false;
-        } else if (!type.equals(other.type))
+        } else if (!getType().equals(other.getType()))
             return false;
-        if (metadata == null) {
-            if (other.metadata != null)
+        if (getMetadata() == null) {
+            if (other.getMetadata() != null)
                 return false;
-        } else if (!metadata.equals(other.metadata))
+        } else if (!getMetadata().equals(other.getMetadata()))
             return false;
         return true;
     }
@@ -1,7 +1,14 @@
 package org.rundeck.api.parser;
 
 import org.apache.commons.lang.StringUtils;
+import org.dom4j.DocumentHelper;
 import org.dom4j.Node;
+import org.dom4j.XPath;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * BaseXpathParser is ...
@@ -10,6 +17,19 @@ import org.dom4j.Node;
  * @since 2014-04-04
  */
 public abstract class BaseXpathParser<T> implements XmlNodeParser<T> {
+    /**
+     * Compiled expressions, by expression
+     */
+    private static final ConcurrentMap<String, XPath> XPATHS = new ConcurrentHashMap<String, XPath>();
+    /**
+     * Compiled expressions, by xpath given to a parser, for documents with a "result" root element
+     */
+    private static final ConcurrentMap<String, XPath> ROOTED_XPATHS = new ConcurrentHashMap<String, XPath>();
+    /**
+     * Compiled expressions, by xpath given to a parser, for documents without a "result" root element
+     */
+    private static final ConcurrentMap<String, XPath> UNROOTED_XPATHS = new ConcurrentHashMap<String, XPath>();
+
     private String xpath;
 
     public BaseXpathParser() {
@@ -47,22 +67,90 @@ public abstract class BaseXpathParser<T> implements XmlNodeParser<T> {
      * @return
      */
     public static Node selectNodeAndUnwrap(final Node node, final String xpath) {
-        String useXpath = unwrapXpath(node, xpath);
+        XPath useXpath = compileAndUnwrap(node, xpath);
 
-        if (StringUtils.isNotEmpty(useXpath)) {
-            return node.selectSingleNode(useXpath);
+        if (null != useXpath) {
+            return useXpath.selectSingleNode(node);
         } else {
             return node;
         }
     }
 
+    /**
+     * Select the nodes matching the xpath, will automatically look for "result" top-level element and alter xpath if
+     * necessary
+     * @param node
+     * @param xpath
+     * @return the selected nodes
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Node> selectNodesAndUnwrap(final Node node, final String xpath) {
+        XPath useXpath = compileAndUnwrap(node, xpath);
+
+        if (null != useXpath) {
+            return useXpath.selectNodes(node);
+        } else {
+            return Collections.singletonList(node);
+        }
+    }
+
+    /**
+     * @param node
+     * @param xpath
+     * @return the compiled xpath to use based on whether node has a 'result' root element, or null if the node itself
+     * should be used
+     */
+    static XPath compileAndUnwrap(final Node node, final String xpath) {
+        String key = StringUtils.defaultString(xpath);
+        boolean rootResult = isRootResult(node);
+        ConcurrentMap<String, XPath> xpaths = rootResult ? ROOTED_XPATHS : UNROOTED_XPATHS;
+        XPath compiled = xpaths.get(key);
+        if (null == compiled) {
+            String useXpath = unwrapXpath(rootResult, key);
+            if (StringUtils.isEmpty(useXpath)) {
+                return null;
+            }
+            compiled = xpath(useXpath);
+            xpaths.putIfAbsent(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Return the compiled XPath for the given expression. It is compiled on first use, and then shared by all the
+     * parsers : it is compiled without namespaces, so that it can be evaluated by concurrent threads.
+     *
+     * @param expression XPath expression
+     * @return the compiled expression
+     */
+    public static XPath xpath(final String expression) {
+        XPath compiled = XPATHS.get(expression);
+        if (null == compiled) {
+            compiled = DocumentHelper.createXPath(expression);
+            // a fixed namespace context, otherwise one is created and set for each evaluation
+            compiled.setNamespaceURIs(Collections.emptyMap());
+            XPath previous = XPATHS.putIfAbsent(expression, compiled);
+            if (null != previous) {
+                compiled = previous;
+            }
+        }
+        return compiled;
+    }
+
+    private static boolean isRootResult(final Node node) {
+        return node.getName() == null && "result".equals(node.getDocument().getRootElement().getName());
+    }
+
     /**
      * @param node
      * @param xpath
      * @return appropriate xpath to use based on whether node has a 'result' root element
      */
     public static String unwrapXpath(final Node node, final String xpath) {
-        boolean rootResult = node.getName() == null && "result".equals(node.getDocument().getRootElement().getName());
+        return unwrapXpath(isRootResult(node), xpath);
+    }
+
+    private static String unwrapXpath(final boolean rootResult, final String xpath) {
         boolean isEmpty = StringUtils.isEmpty(xpath);
         String useXpath = xpath;
         if (isEmpty) {
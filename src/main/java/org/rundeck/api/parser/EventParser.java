@@ -19,6 +19,7 @@ import java.util.Date;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 import org.rundeck.api.domain.RundeckEvent;
 import org.rundeck.api.domain.RundeckEvent.EventStatus;
 import org.rundeck.api.domain.RundeckEvent.NodeSummary;
@@ -30,6 +31,20 @@ import org.rundeck.api.domain.RundeckEvent.NodeSummary;
  */
 public class EventParser extends BaseXpathParser<RundeckEvent> {
 
+    private static final XPath TITLE = xpath("title");
+    private static final XPath STATUS = xpath("status");
+    private static final XPath SUMMARY = xpath("summary");
+    private static final XPath NODES_SUCCEEDED = xpath("node-summary/@succeeded");
+    private static final XPath NODES_FAILED = xpath("node-summary/@failed");
+    private static final XPath NODES_TOTAL = xpath("node-summary/@total");
+    private static final XPath USER = xpath("user");
+    private static final XPath PROJECT = xpath("project");
+    private static final XPath START_TIME = xpath("@starttime");
+    private static final XPath END_TIME = xpath("@endtime");
+    private static final XPath ABORTED_BY = xpath("abortedby");
+    private static final XPath EXECUTION_ID = xpath("execution/@id");
+    private static final XPath JOB_ID = xpath("job/@id");
+
 
     public EventParser(final String xpath) {
         super(xpath);
@@ -44,37 +59,37 @@ public class EventParser extends BaseXpathParser<RundeckEvent> {
 
         RundeckEvent event = new RundeckEvent();
 
-        event.setTitle(StringUtils.trimToNull(eventNode.valueOf("title")));
+        event.setTitle(StringUtils.trimToNull(TITLE.valueOf(eventNode)));
         try {
-            event.setStatus(EventStatus.valueOf(StringUtils.upperCase(eventNode.valueOf("status"))));
+            event.setStatus(EventStatus.valueOf(StringUtils.upperCase(STATUS.valueOf(eventNode))));
         } catch (IllegalArgumentException e) {
             event.setStatus(null);
         }
-        event.setSummary(StringUtils.trimToNull(eventNode.valueOf("summary")));
+        event.setSummary(StringUtils.trimToNull(SUMMARY.valueOf(eventNode)));
 
         NodeSummary nodeSummary = new NodeSummary();
-        nodeSummary.setSucceeded(Integer.valueOf(eventNode.valueOf("node-summary/@succeeded")));
-        nodeSummary.setFailed(Integer.valueOf(eventNode.valueOf("node-summary/@failed")));
-        nodeSummary.setTotal(Integer.valueOf(eventNode.valueOf("node-summary/@total")));
+        nodeSummary.setSucceeded(Integer.valueOf(NODES_SUCCEEDED.valueOf(eventNode)));
+        nodeSummary.setFailed(Integer.valueOf(NODES_FAILED.valueOf(eventNode)));
+        nodeSummary.setTotal(Integer.valueOf(NODES_TOTAL.valueOf(eventNode)));
         event.setNodeSummary(nodeSummary);
 
-        event.setUser(StringUtils.trimToNull(eventNode.valueOf("user")));
-        event.setProject(StringUtils.trimToNull(eventNode.valueOf("project")));
-        String startedAt = StringUtils.trimToNull(eventNode.valueOf("@starttime"));
+        event.setUser(StringUtils.trimToNull(USER.valueOf(eventNode)));
+        event.setProject(StringUtils.trimToNull(PROJECT.valueOf(eventNode)));
+        String startedAt = StringUtils.trimToNull(START_TIME.valueOf(eventNode));
         if (startedAt != null) {
             event.setStartedAt(new Date(Long.valueOf(startedAt)));
         }
-        String endedAt = StringUtils.trimToNull(eventNode.valueOf("@endtime"));
+        String endedAt = StringUtils.trimToNull(END_TIME.valueOf(eventNode));
         if (endedAt != null) {
             event.setEndedAt(new Date(Long.valueOf(endedAt)));
         }
-        event.setAbortedBy(StringUtils.trimToNull(eventNode.valueOf("abortedby")));
+        event.setAbortedBy(StringUtils.trimToNull(ABORTED_BY.valueOf(eventNode)));
         try {
-            event.setExecutionId(Long.valueOf(eventNode.valueOf("execution/@id")));
+            event.setExecutionId(Long.valueOf(EXECUTION_ID.valueOf(eventNode)));
         } catch (NumberFormatException e) {
             event.setExecutionId(null);
         }
-        event.setJobId(StringUtils.trimToNull(eventNode.valueOf("job/@id")));
+        event.setJobId(StringUtils.trimToNull(JOB_ID.valueOf(eventNode)));
 
         return event;
     }
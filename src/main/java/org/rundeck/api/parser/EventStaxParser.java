@@ -0,0 +1,95 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.RundeckApiException;
+import org.rundeck.api.domain.RundeckEvent;
+import org.rundeck.api.domain.RundeckEvent.EventStatus;
+import org.rundeck.api.domain.RundeckEvent.NodeSummary;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Date;
+
+/**
+ * StAX parser for a single {@link RundeckEvent}, same as {@link EventParser}
+ */
+public class EventStaxParser implements StaxElementParser<RundeckEvent> {
+
+    @Override
+    public RundeckEvent parseElement(XMLStreamReader reader) throws XMLStreamException {
+        RundeckEvent event = new RundeckEvent();
+
+        String startedAt = StringUtils.trimToNull(StaxParser.attribute(reader, "starttime"));
+        if (startedAt != null) {
+            event.setStartedAt(new Date(Long.valueOf(startedAt)));
+        }
+        String endedAt = StringUtils.trimToNull(StaxParser.attribute(reader, "endtime"));
+        if (endedAt != null) {
+            event.setEndedAt(new Date(Long.valueOf(endedAt)));
+        }
+
+        String title = null;
+        String status = null;
+        String summary = null;
+        NodeSummary nodeSummary = null;
+        String user = null;
+        String project = null;
+        String abortedBy = null;
+        String executionId = null;
+        String jobId = null;
+        while (StaxParser.nextChild(reader)) {
+            String element = reader.getLocalName();
+            if ("title".equals(element) && null == title) {
+                title = StaxParser.readText(reader);
+            } else if ("status".equals(element) && null == status) {
+                status = StaxParser.readText(reader);
+            } else if ("summary".equals(element) && null == summary) {
+                summary = StaxParser.readText(reader);
+            } else if ("node-summary".equals(element) && null == nodeSummary) {
+                nodeSummary = new NodeSummary();
+                nodeSummary.setSucceeded(Integer.valueOf(StaxParser.attribute(reader, "succeeded")));
+                nodeSummary.setFailed(Integer.valueOf(StaxParser.attribute(reader, "failed")));
+                nodeSummary.setTotal(Integer.valueOf(StaxParser.attribute(reader, "total")));
+                StaxParser.skipElement(reader);
+            } else if ("user".equals(element) && null == user) {
+                user = StaxParser.readText(reader);
+            } else if ("project".equals(element) && null == project) {
+                project = StaxParser.readText(reader);
+            } else if ("abortedby".equals(element) && null == abortedBy) {
+                abortedBy = StaxParser.readText(reader);
+            } else if ("execution".equals(element) && null == executionId) {
+                executionId = StringUtils.defaultString(StaxParser.attribute(reader, "id"));
+                StaxParser.skipElement(reader);
+            } else if ("job".equals(element) && null == jobId) {
+                jobId = StringUtils.defaultString(StaxParser.attribute(reader, "id"));
+                StaxParser.skipElement(reader);
+            } else {
+                StaxParser.skipElement(reader);
+            }
+        }
+        if (null == nodeSummary) {
+            throw new RundeckApiException("Missing node-summary for event : " + title);
+        }
+
+        event.setTitle(StringUtils.trimToNull(title));
+        try {
+            event.setStatus(EventStatus.valueOf(StringUtils.upperCase(StringUtils.defaultString(status))));
+        } catch (IllegalArgumentException e) {
+            event.setStatus(null);
+        }
+        event.setSummary(StringUtils.trimToNull(summary));
+        event.setNodeSummary(nodeSummary);
+        event.setUser(StringUtils.trimToNull(user));
+        event.setProject(StringUtils.trimToNull(project));
+        event.setAbortedBy(StringUtils.trimToNull(abortedBy));
+        try {
+            event.setExecutionId(Long.valueOf(executionId));
+        } catch (NumberFormatException e) {
+            event.setExecutionId(null);
+        }
+        event.setJobId(StringUtils.trimToNull(jobId));
+
+        return event;
+    }
+
+}
@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 import org.rundeck.api.domain.RundeckExecution;
 import org.rundeck.api.domain.RundeckJob;
 import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
@@ -35,6 +36,20 @@ import org.rundeck.api.domain.RundeckNodeIdentity;
  */
 public class ExecutionParser extends BaseXpathParser<RundeckExecution> {
 
+    private static final XPath ID = xpath("@id");
+    private static final XPath HREF = xpath("@href");
+    private static final XPath STATUS = xpath("@status");
+    private static final XPath DESCRIPTION = xpath("description");
+    private static final XPath ARGSTRING = xpath("argstring");
+    private static final XPath USER = xpath("user");
+    private static final XPath ABORTED_BY = xpath("abortedby");
+    private static final XPath PROJECT = xpath("@project");
+    private static final XPath DATE_STARTED = xpath("date-started/@unixtime");
+    private static final XPath DATE_ENDED = xpath("date-ended/@unixtime");
+    private static final XPath JOB = xpath("job");
+    private static final XPath SUCCESSFUL_NODES = xpath("successfulNodes");
+    private static final XPath FAILED_NODES = xpath("failedNodes");
+
 
     public ExecutionParser(final String xpath) {
         super(xpath);
@@ -48,34 +63,34 @@ public class ExecutionParser extends BaseXpathParser<RundeckExecution> {
     public RundeckExecution parse(Node execNode) {
         RundeckExecution execution = new RundeckExecution();
 
-        execution.setId(Long.valueOf(execNode.valueOf("@id")));
-        execution.setUrl(StringUtils.trimToNull(execNode.valueOf("@href")));
+        execution.setId(Long.valueOf(ID.valueOf(execNode)));
+        execution.setUrl(StringUtils.trimToNull(HREF.valueOf(execNode)));
         try {
-            execution.setStatus(ExecutionStatus.valueOf(StringUtils.replace(StringUtils.upperCase(execNode.valueOf("@status")),"-","_")));
+            execution.setStatus(ExecutionStatus.valueOf(StringUtils.replace(StringUtils.upperCase(STATUS.valueOf(execNode)),"-","_")));
         } catch (IllegalArgumentException e) {
             execution.setStatus(null);
         }
-        execution.setDescription(StringUtils.trimToNull(execNode.valueOf("description")));
-        execution.setArgstring(StringUtils.trimToNull(execNode.valueOf("argstring")));
-        execution.setStartedBy(StringUtils.trimToNull(execNode.valueOf("user")));
-        execution.setAbortedBy(StringUtils.trimToNull(execNode.valueOf("abortedby")));
-        execution.setProject(StringUtils.trimToNull(execNode.valueOf("@project")));
-        String startedAt = StringUtils.trimToNull(execNode.valueOf("date-started/@unixtime"));
+        execution.setDescription(StringUtils.trimToNull(DESCRIPTION.valueOf(execNode)));
+        execution.setArgstring(StringUtils.trimToNull(ARGSTRING.valueOf(execNode)));
+        execution.setStartedBy(StringUtils.trimToNull(USER.valueOf(execNode)));
+        execution.setAbortedBy(StringUtils.trimToNull(ABORTED_BY.valueOf(execNode)));
+        execution.setProject(StringUtils.trimToNull(PROJECT.valueOf(execNode)));
+        String startedAt = StringUtils.trimToNull(DATE_STARTED.valueOf(execNode));
         if (startedAt != null) {
             execution.setStartedAt(new Date(Long.valueOf(startedAt)));
         }
-        String endedAt = StringUtils.trimToNull(execNode.valueOf("date-ended/@unixtime"));
+        String endedAt = StringUtils.trimToNull(DATE_ENDED.valueOf(execNode));
         if (endedAt != null) {
             execution.setEndedAt(new Date(Long.valueOf(endedAt)));
         }
 
-        Node jobNode = execNode.selectSingleNode("job");
+        Node jobNode = JOB.selectSingleNode(execNode);
         if (jobNode != null) {
             RundeckJob job = new JobParser().parseXmlNode(jobNode);
             execution.setJob(job);
         }
 
-        final Node successfulNodes = execNode.selectSingleNode("successfulNodes");
+        final Node successfulNodes = SUCCESSFUL_NODES.selectSingleNode(execNode);
         if (successfulNodes != null) {
             final List<RundeckNode> rundeckNodes =
                     new ListParser<RundeckNode>(new NodeParser(), "successfulNodes/node")
@@ -85,7 +100,7 @@ public class ExecutionParser extends BaseXpathParser<RundeckExecution> {
             execution.setSuccessfulNodes(Collections.<RundeckNodeIdentity>emptySet());
         }
 
-        final Node failedNodes = execNode.selectSingleNode("failedNodes");
+        final Node failedNodes = FAILED_NODES.selectSingleNode(execNode);
         if (failedNodes != null) {
             final List<RundeckNode> rundeckNodes =
                     new ListParser<RundeckNode>(new NodeParser(), "failedNodes/node")
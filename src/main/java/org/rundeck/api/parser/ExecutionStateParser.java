@@ -30,6 +30,10 @@ public class ExecutionStateParser extends BaseXpathParser<RundeckExecutionState>
                 new ListParser<RundeckNode>(new NodeParser(), "allNodes/nodes/node").parseXmlNode(targetNode);
         rundeckExecutionState.setAllNodes(new HashSet<RundeckNodeIdentity>(rundeckNodes));
 
+        //index the steps and their node states once, for the node states lookups
+        final ExecutionStateIndex index = new ExecutionStateIndex(rundeckExecutionState, rundeckNodes);
+        rundeckExecutionState.setIndex(index);
+
 
         //node states
         HashMap<String, List<WorkflowStepContextState>> nodeStates = new HashMap<String, List<WorkflowStepContextState>>();
@@ -39,7 +43,7 @@ public class ExecutionStateParser extends BaseXpathParser<RundeckExecutionState>
             final String nodeName = StringUtils.trimToNull(nodeStateNode.valueOf("@name"));
             if (null != nodeName) {
                 ListParser<WorkflowStepContextState> workflowStepStateListParser
-                        = new ListParser<WorkflowStepContextState>(new IndexedWorkflowStepStateParser(rundeckExecutionState, nodeName)
+                        = new ListParser<WorkflowStepContextState>(new IndexedWorkflowStepStateParser(index, nodeName)
                         , "steps/step");
                 nodeStates.put(nodeName, workflowStepStateListParser.parseXmlNode(nodeStateNode));
             }
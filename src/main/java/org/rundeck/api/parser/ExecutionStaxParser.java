@@ -0,0 +1,110 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
+import org.rundeck.api.domain.RundeckNodeIdentity;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * StAX parser for a single {@link RundeckExecution}, same as {@link ExecutionParser}
+ */
+public class ExecutionStaxParser implements StaxElementParser<RundeckExecution> {
+
+    private final JobStaxParser jobParser = new JobStaxParser();
+
+    private final NodeStaxParser nodeParser = new NodeStaxParser();
+
+    @Override
+    public RundeckExecution parseElement(XMLStreamReader reader) throws XMLStreamException {
+        RundeckExecution execution = new RundeckExecution();
+
+        execution.setId(Long.valueOf(StaxParser.attribute(reader, "id")));
+        execution.setUrl(StringUtils.trimToNull(StaxParser.attribute(reader, "href")));
+        try {
+            execution.setStatus(ExecutionStatus.valueOf(StringUtils.replace(StringUtils.upperCase(
+                    StringUtils.defaultString(StaxParser.attribute(reader, "status"))), "-", "_")));
+        } catch (IllegalArgumentException e) {
+            execution.setStatus(null);
+        }
+        execution.setProject(StringUtils.trimToNull(StaxParser.attribute(reader, "project")));
+
+        String description = null;
+        String argstring = null;
+        String user = null;
+        String abortedBy = null;
+        String startedAt = null;
+        String endedAt = null;
+        Set<RundeckNodeIdentity> successfulNodes = null;
+        Set<RundeckNodeIdentity> failedNodes = null;
+        while (StaxParser.nextChild(reader)) {
+            String element = reader.getLocalName();
+            if ("description".equals(element) && null == description) {
+                description = StaxParser.readText(reader);
+            } else if ("argstring".equals(element) && null == argstring) {
+                argstring = StaxParser.readText(reader);
+            } else if ("user".equals(element) && null == user) {
+                user = StaxParser.readText(reader);
+            } else if ("abortedby".equals(element) && null == abortedBy) {
+                abortedBy = StaxParser.readText(reader);
+            } else if ("date-started".equals(element) && null == startedAt) {
+                startedAt = StringUtils.defaultString(StaxParser.attribute(reader, "unixtime"));
+                StaxParser.skipElement(reader);
+            } else if ("date-ended".equals(element) && null == endedAt) {
+                endedAt = StringUtils.defaultString(StaxParser.attribute(reader, "unixtime"));
+                StaxParser.skipElement(reader);
+            } else if ("job".equals(element) && null == execution.getJob()) {
+                execution.setJob(jobParser.parseElement(reader));
+            } else if ("successfulNodes".equals(element)) {
+                successfulNodes = readNodes(reader, successfulNodes);
+            } else if ("failedNodes".equals(element)) {
+                failedNodes = readNodes(reader, failedNodes);
+            } else {
+                StaxParser.skipElement(reader);
+            }
+        }
+
+        execution.setDescription(StringUtils.trimToNull(description));
+        execution.setArgstring(StringUtils.trimToNull(argstring));
+        execution.setStartedBy(StringUtils.trimToNull(user));
+        execution.setAbortedBy(StringUtils.trimToNull(abortedBy));
+        startedAt = StringUtils.trimToNull(startedAt);
+        if (startedAt != null) {
+            execution.setStartedAt(new Date(Long.valueOf(startedAt)));
+        }
+        endedAt = StringUtils.trimToNull(endedAt);
+        if (endedAt != null) {
+            execution.setEndedAt(new Date(Long.valueOf(endedAt)));
+        }
+        execution.setSuccessfulNodes(null != successfulNodes ? successfulNodes
+                                                             : Collections.<RundeckNodeIdentity>emptySet());
+        execution.setFailedNodes(null != failedNodes ? failedNodes : Collections.<RundeckNodeIdentity>emptySet());
+
+        return execution;
+    }
+
+    /**
+     * Read the "node" children of a list of nodes
+     *
+     * @param nodes read from a previous list of nodes, or null
+     */
+    private Set<RundeckNodeIdentity> readNodes(XMLStreamReader reader, Set<RundeckNodeIdentity> nodes)
+            throws XMLStreamException {
+        Set<RundeckNodeIdentity> result = null != nodes ? nodes : new HashSet<RundeckNodeIdentity>();
+        while (StaxParser.nextChild(reader)) {
+            if ("node".equals(reader.getLocalName())) {
+                result.add(nodeParser.parseElement(reader));
+            } else {
+                StaxParser.skipElement(reader);
+            }
+        }
+        return result;
+    }
+
+}
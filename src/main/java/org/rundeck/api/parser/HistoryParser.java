@@ -17,6 +17,7 @@ package org.rundeck.api.parser;
 
 import java.util.List;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 import org.rundeck.api.domain.RundeckEvent;
 import org.rundeck.api.domain.RundeckHistory;
 
@@ -27,6 +28,12 @@ import org.rundeck.api.domain.RundeckHistory;
  */
 public class HistoryParser extends BaseXpathParser<RundeckHistory> {
 
+    private static final XPath COUNT = xpath("@count");
+    private static final XPath TOTAL = xpath("@total");
+    private static final XPath MAX = xpath("@max");
+    private static final XPath OFFSET = xpath("@offset");
+    private static final XPath EVENT = xpath("event");
+
 
     public HistoryParser(final String xpath) {
         super(xpath);
@@ -37,13 +44,13 @@ public class HistoryParser extends BaseXpathParser<RundeckHistory> {
 
         RundeckHistory history = new RundeckHistory();
 
-        history.setCount(Integer.valueOf(eventsNode.valueOf("@count")));
-        history.setTotal(Integer.valueOf(eventsNode.valueOf("@total")));
-        history.setMax(Integer.valueOf(eventsNode.valueOf("@max")));
-        history.setOffset(Integer.valueOf(eventsNode.valueOf("@offset")));
+        history.setCount(Integer.valueOf(COUNT.valueOf(eventsNode)));
+        history.setTotal(Integer.valueOf(TOTAL.valueOf(eventsNode)));
+        history.setMax(Integer.valueOf(MAX.valueOf(eventsNode)));
+        history.setOffset(Integer.valueOf(OFFSET.valueOf(eventsNode)));
 
         @SuppressWarnings("unchecked")
-        List<Node> eventNodes = eventsNode.selectNodes("event");
+        List<Node> eventNodes = EVENT.selectNodes(eventsNode);
         EventParser eventParser = new EventParser();
 
         for (Node eventNode : eventNodes) {
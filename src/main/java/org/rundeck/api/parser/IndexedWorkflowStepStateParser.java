@@ -2,22 +2,28 @@ package org.rundeck.api.parser;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.rundeck.api.domain.ExecutionStateIndex;
 import org.rundeck.api.domain.WorkflowState;
 import org.rundeck.api.domain.WorkflowStepContextState;
 import org.rundeck.api.domain.WorkflowStepState;
 
 /**
  * Returns a WorkflowStepContextState by looking up the given Rundeck node's state in the workflow, using the step
- * context path of the "stepctx" element of the selected DOM node.
+ * context path of the "stepctx" element of the selected DOM node. With an {@link ExecutionStateIndex}, the state is
+ * found in the index instead of walking the workflow steps.
  */
 public class IndexedWorkflowStepStateParser implements XmlNodeParser<WorkflowStepContextState> {
     private final WorkflowState workflowState;
+    private final ExecutionStateIndex index;
     private String rundeckNodeName;
 
     @Override
     public WorkflowStepContextState parseXmlNode(final Node node) {
         //look for workflow step state based on node name and stepctx found on the node
         final String stepctx = StringUtils.trimToNull(node.valueOf("stepctx"));
+        if (null != index) {
+            return index.getNodeStepState(rundeckNodeName, stepctx);
+        }
         final WorkflowStepState foundStep = lookupContext(stepctx, workflowState);
         //look up node state for this node
         if (null != foundStep
@@ -56,6 +62,13 @@ public class IndexedWorkflowStepStateParser implements XmlNodeParser<WorkflowSte
 
     public IndexedWorkflowStepStateParser(final WorkflowState workflowState, final String rundeckNodeName) {
         this.workflowState = workflowState;
+        this.index = null;
+        this.rundeckNodeName = rundeckNodeName;
+    }
+
+    public IndexedWorkflowStepStateParser(final ExecutionStateIndex index, final String rundeckNodeName) {
+        this.workflowState = null;
+        this.index = index;
         this.rundeckNodeName = rundeckNodeName;
     }
 }
@@ -17,6 +17,7 @@ package org.rundeck.api.parser;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 import org.rundeck.api.domain.RundeckJob;
 
 /**
@@ -26,6 +27,15 @@ import org.rundeck.api.domain.RundeckJob;
  */
 public class JobParser extends BaseXpathParser<RundeckJob> {
 
+    private static final XPath NAME = xpath("name");
+    private static final XPath DESCRIPTION = xpath("description");
+    private static final XPath GROUP = xpath("group");
+    private static final XPath ID = xpath("id");
+    private static final XPath ID_ATTRIBUTE = xpath("@id");
+    private static final XPath AVERAGE_DURATION = xpath("@averageDuration");
+    private static final XPath CONTEXT = xpath("context");
+    private static final XPath PROJECT = xpath("project");
+
 
     public JobParser(final String xpath) {
         super(xpath);
@@ -40,29 +50,29 @@ public class JobParser extends BaseXpathParser<RundeckJob> {
 
         RundeckJob job = new RundeckJob();
 
-        job.setName(StringUtils.trimToNull(jobNode.valueOf("name")));
-        job.setDescription(StringUtils.trimToNull(jobNode.valueOf("description")));
-        job.setGroup(StringUtils.trimToNull(jobNode.valueOf("group")));
+        job.setName(StringUtils.trimToNull(NAME.valueOf(jobNode)));
+        job.setDescription(StringUtils.trimToNull(DESCRIPTION.valueOf(jobNode)));
+        job.setGroup(StringUtils.trimToNull(GROUP.valueOf(jobNode)));
 
         // ID is either an attribute or an child element...
         String jobId = null;
-        jobId = jobNode.valueOf("id");
+        jobId = ID.valueOf(jobNode);
         if (StringUtils.isBlank(jobId)) {
-            jobId = jobNode.valueOf("@id");
+            jobId = ID_ATTRIBUTE.valueOf(jobNode);
         }
         job.setId(jobId);
 
-        String averageDuration = StringUtils.trimToNull(jobNode.valueOf("@averageDuration"));
+        String averageDuration = StringUtils.trimToNull(AVERAGE_DURATION.valueOf(jobNode));
         if (averageDuration != null) {
             job.setAverageDuration(Long.valueOf(averageDuration));
         }
 
         // project is either a nested element of context, or just a child element
-        Node contextNode = jobNode.selectSingleNode("context");
+        Node contextNode = CONTEXT.selectSingleNode(jobNode);
         if (contextNode != null) {
-            job.setProject(StringUtils.trimToNull(contextNode.valueOf("project")));
+            job.setProject(StringUtils.trimToNull(PROJECT.valueOf(contextNode)));
         } else {
-            job.setProject(StringUtils.trimToNull(jobNode.valueOf("project")));
+            job.setProject(StringUtils.trimToNull(PROJECT.valueOf(jobNode)));
         }
 
         return job;
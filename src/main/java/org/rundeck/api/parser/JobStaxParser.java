@@ -0,0 +1,70 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.domain.RundeckJob;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * StAX parser for a single {@link RundeckJob}, same as {@link JobParser}
+ */
+public class JobStaxParser implements StaxElementParser<RundeckJob> {
+
+    @Override
+    public RundeckJob parseElement(XMLStreamReader reader) throws XMLStreamException {
+        RundeckJob job = new RundeckJob();
+
+        String idAttribute = StaxParser.attribute(reader, "id");
+        String averageDuration = StringUtils.trimToNull(StaxParser.attribute(reader, "averageDuration"));
+        if (averageDuration != null) {
+            job.setAverageDuration(Long.valueOf(averageDuration));
+        }
+
+        String name = null;
+        String description = null;
+        String group = null;
+        String id = null;
+        String project = null;
+        String contextProject = null;
+        boolean context = false;
+        while (StaxParser.nextChild(reader)) {
+            String element = reader.getLocalName();
+            if ("name".equals(element) && null == name) {
+                name = StaxParser.readText(reader);
+            } else if ("description".equals(element) && null == description) {
+                description = StaxParser.readText(reader);
+            } else if ("group".equals(element) && null == group) {
+                group = StaxParser.readText(reader);
+            } else if ("id".equals(element) && null == id) {
+                id = StaxParser.readText(reader);
+            } else if ("project".equals(element) && null == project) {
+                project = StaxParser.readText(reader);
+            } else if ("context".equals(element) && !context) {
+                context = true;
+                while (StaxParser.nextChild(reader)) {
+                    if ("project".equals(reader.getLocalName()) && null == contextProject) {
+                        contextProject = StaxParser.readText(reader);
+                    } else {
+                        StaxParser.skipElement(reader);
+                    }
+                }
+            } else {
+                StaxParser.skipElement(reader);
+            }
+        }
+
+        job.setName(StringUtils.trimToNull(name));
+        job.setDescription(StringUtils.trimToNull(description));
+        job.setGroup(StringUtils.trimToNull(group));
+
+        // ID is either an attribute or an child element...
+        job.setId(StringUtils.isBlank(id) ? StringUtils.defaultString(idAttribute) : id);
+
+        // project is either a nested element of context, or just a child element
+        job.setProject(StringUtils.trimToNull(context ? contextProject : project));
+
+        return job;
+    }
+
+}
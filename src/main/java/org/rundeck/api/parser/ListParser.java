@@ -44,8 +44,7 @@ public class ListParser<T> implements XmlNodeParser<List<T>> {
     public List<T> parseXmlNode(Node node) {
         List<T> elements = new ArrayList<T>();
 
-        @SuppressWarnings("unchecked")
-        List<Node> elementNodes = node.selectNodes(BaseXpathParser.unwrapXpath(node, xpath));
+        List<Node> elementNodes = BaseXpathParser.selectNodesAndUnwrap(node, xpath);
 
         for (Node elementNode : elementNodes) {
             T element = parser.parseXmlNode(elementNode);
@@ -19,6 +19,7 @@ import java.util.Arrays;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 import org.rundeck.api.domain.RundeckNode;
 
 /**
@@ -28,6 +29,19 @@ import org.rundeck.api.domain.RundeckNode;
  */
 public class NodeParser extends BaseXpathParser<RundeckNode> {
 
+    private static final XPath NAME = xpath("@name");
+    private static final XPath TYPE = xpath("@type");
+    private static final XPath DESCRIPTION = xpath("@description");
+    private static final XPath HOSTNAME = xpath("@hostname");
+    private static final XPath OS_ARCH = xpath("@osArch");
+    private static final XPath OS_FAMILY = xpath("@osFamily");
+    private static final XPath OS_NAME = xpath("@osName");
+    private static final XPath OS_VERSION = xpath("@osVersion");
+    private static final XPath USERNAME = xpath("@username");
+    private static final XPath EDIT_URL = xpath("@editUrl");
+    private static final XPath REMOTE_URL = xpath("@remoteUrl");
+    private static final XPath TAGS = xpath("@tags");
+
 
     public NodeParser(final String xpath) {
         super(xpath);
@@ -42,19 +56,19 @@ public class NodeParser extends BaseXpathParser<RundeckNode> {
 
         RundeckNode rundeckNode = new RundeckNode();
 
-        rundeckNode.setName(StringUtils.trimToNull(rundeckNodeNode.valueOf("@name")));
-        rundeckNode.setType(StringUtils.trimToNull(rundeckNodeNode.valueOf("@type")));
-        rundeckNode.setDescription(StringUtils.trimToNull(rundeckNodeNode.valueOf("@description")));
-        rundeckNode.setHostname(StringUtils.trimToNull(rundeckNodeNode.valueOf("@hostname")));
-        rundeckNode.setOsArch(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osArch")));
-        rundeckNode.setOsFamily(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osFamily")));
-        rundeckNode.setOsName(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osName")));
-        rundeckNode.setOsVersion(StringUtils.trimToNull(rundeckNodeNode.valueOf("@osVersion")));
-        rundeckNode.setUsername(StringUtils.trimToNull(rundeckNodeNode.valueOf("@username")));
-        rundeckNode.setEditUrl(StringUtils.trimToNull(rundeckNodeNode.valueOf("@editUrl")));
-        rundeckNode.setRemoteUrl(StringUtils.trimToNull(rundeckNodeNode.valueOf("@remoteUrl")));
-
-        String tags = StringUtils.trimToEmpty(rundeckNodeNode.valueOf("@tags"));
+        rundeckNode.setName(StringUtils.trimToNull(NAME.valueOf(rundeckNodeNode)));
+        rundeckNode.setType(StringUtils.trimToNull(TYPE.valueOf(rundeckNodeNode)));
+        rundeckNode.setDescription(StringUtils.trimToNull(DESCRIPTION.valueOf(rundeckNodeNode)));
+        rundeckNode.setHostname(StringUtils.trimToNull(HOSTNAME.valueOf(rundeckNodeNode)));
+        rundeckNode.setOsArch(StringUtils.trimToNull(OS_ARCH.valueOf(rundeckNodeNode)));
+        rundeckNode.setOsFamily(StringUtils.trimToNull(OS_FAMILY.valueOf(rundeckNodeNode)));
+        rundeckNode.setOsName(StringUtils.trimToNull(OS_NAME.valueOf(rundeckNodeNode)));
+        rundeckNode.setOsVersion(StringUtils.trimToNull(OS_VERSION.valueOf(rundeckNodeNode)));
+        rundeckNode.setUsername(StringUtils.trimToNull(USERNAME.valueOf(rundeckNodeNode)));
+        rundeckNode.setEditUrl(StringUtils.trimToNull(EDIT_URL.valueOf(rundeckNodeNode)));
+        rundeckNode.setRemoteUrl(StringUtils.trimToNull(REMOTE_URL.valueOf(rundeckNodeNode)));
+
+        String tags = StringUtils.trimToEmpty(TAGS.valueOf(rundeckNodeNode));
         rundeckNode.setTags(Arrays.asList(StringUtils.split(tags, ",")));
 
         return rundeckNode;
@@ -0,0 +1,38 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.domain.RundeckNode;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Arrays;
+
+/**
+ * StAX parser for a single {@link RundeckNode}, same as {@link NodeParser}
+ */
+public class NodeStaxParser implements StaxElementParser<RundeckNode> {
+
+    @Override
+    public RundeckNode parseElement(XMLStreamReader reader) throws XMLStreamException {
+        RundeckNode rundeckNode = new RundeckNode();
+
+        rundeckNode.setName(StringUtils.trimToNull(StaxParser.attribute(reader, "name")));
+        rundeckNode.setType(StringUtils.trimToNull(StaxParser.attribute(reader, "type")));
+        rundeckNode.setDescription(StringUtils.trimToNull(StaxParser.attribute(reader, "description")));
+        rundeckNode.setHostname(StringUtils.trimToNull(StaxParser.attribute(reader, "hostname")));
+        rundeckNode.setOsArch(StringUtils.trimToNull(StaxParser.attribute(reader, "osArch")));
+        rundeckNode.setOsFamily(StringUtils.trimToNull(StaxParser.attribute(reader, "osFamily")));
+        rundeckNode.setOsName(StringUtils.trimToNull(StaxParser.attribute(reader, "osName")));
+        rundeckNode.setOsVersion(StringUtils.trimToNull(StaxParser.attribute(reader, "osVersion")));
+        rundeckNode.setUsername(StringUtils.trimToNull(StaxParser.attribute(reader, "username")));
+        rundeckNode.setEditUrl(StringUtils.trimToNull(StaxParser.attribute(reader, "editUrl")));
+        rundeckNode.setRemoteUrl(StringUtils.trimToNull(StaxParser.attribute(reader, "remoteUrl")));
+
+        String tags = StringUtils.trimToEmpty(StaxParser.attribute(reader, "tags"));
+        rundeckNode.setTags(Arrays.asList(StringUtils.split(tags, ",")));
+
+        StaxParser.skipElement(reader);
+        return rundeckNode;
+    }
+
+}
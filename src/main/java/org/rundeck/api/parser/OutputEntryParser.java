@@ -2,6 +2,7 @@ package org.rundeck.api.parser;
 
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Node;
+import org.dom4j.XPath;
 
 import org.rundeck.api.domain.RundeckOutputEntry;
 import org.rundeck.api.domain.RundeckOutputEntry.RundeckLogLevel;
@@ -15,6 +16,15 @@ import java.util.*;
  */
 public class OutputEntryParser extends BaseXpathParser<RundeckOutputEntry> {
 
+    private static final XPath TIME = xpath("@time");
+    private static final XPath LEVEL = xpath("@level");
+    private static final XPath ABSOLUTE_TIME = xpath("@absolute_time");
+    private static final XPath USER = xpath("@user");
+    private static final XPath NODE = xpath("@node");
+    private static final XPath TYPE = xpath("@type");
+    private static final XPath ATTRIBUTES = xpath("@*");
+    private static final XPath LOG = xpath("@log");
+
 
 
     public OutputEntryParser() {
@@ -48,22 +58,22 @@ public class OutputEntryParser extends BaseXpathParser<RundeckOutputEntry> {
 
         RundeckOutputEntry outputEntry = new RundeckOutputEntry();
         
-        outputEntry.setTime(StringUtils.trimToNull(entryNode.valueOf("@time")));
+        outputEntry.setTime(StringUtils.trimToNull(TIME.valueOf(entryNode)));
         try {
-    		outputEntry.setLevel(RundeckLogLevel.valueOf(StringUtils.upperCase(entryNode.valueOf("@level"))));
+    		outputEntry.setLevel(RundeckLogLevel.valueOf(StringUtils.upperCase(LEVEL.valueOf(entryNode))));
         } catch (IllegalArgumentException e) {
             outputEntry.setLevel(null);
         }
-        if(null!=entryNode.valueOf("@absolute_time")) {
-            outputEntry.setAbsoluteTime(parseDate(StringUtils.trimToNull(entryNode.valueOf("@absolute_time"))));
+        if(null!=ABSOLUTE_TIME.valueOf(entryNode)) {
+            outputEntry.setAbsoluteTime(parseDate(StringUtils.trimToNull(ABSOLUTE_TIME.valueOf(entryNode))));
         }
 
-        outputEntry.setUser(StringUtils.trimToNull(entryNode.valueOf("@user")));
-        outputEntry.setNode(StringUtils.trimToNull(entryNode.valueOf("@node")));
-        outputEntry.setType(StringUtils.trimToNull(entryNode.valueOf("@type")));
+        outputEntry.setUser(StringUtils.trimToNull(USER.valueOf(entryNode)));
+        outputEntry.setNode(StringUtils.trimToNull(NODE.valueOf(entryNode)));
+        outputEntry.setType(StringUtils.trimToNull(TYPE.valueOf(entryNode)));
 
         HashMap<String, String> meta = new HashMap<String, String>();
-        List list = entryNode.selectNodes("@*");
+        List list = ATTRIBUTES.selectNodes(entryNode);
         for (Object node1 : list) {
             if(node1 instanceof Node) {
                 Node child = (Node) node1;
@@ -96,7 +106,7 @@ public class OutputEntryParser extends BaseXpathParser<RundeckOutputEntry> {
      * Parse the message content
      */
     protected String parseMessage(Node entryNode) {
-        return StringUtils.trimToNull(entryNode.valueOf("@log"));
+        return StringUtils.trimToNull(LOG.valueOf(entryNode));
     }
 
 }
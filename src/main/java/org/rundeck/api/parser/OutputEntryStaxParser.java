@@ -0,0 +1,117 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.domain.RundeckOutputEntry;
+import org.rundeck.api.domain.RundeckOutputEntry.RundeckLogLevel;
+import org.rundeck.api.util.OutputEntryBatch;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * StAX parser for a single {@link RundeckOutputEntry}, same as {@link OutputEntryParser} (or
+ * {@link OutputEntryParserV5} for the messages given as text). Not thread-safe.
+ */
+public class OutputEntryStaxParser implements StaxElementParser<RundeckOutputEntry> {
+
+    private final boolean textMessage;
+    private final SimpleDateFormat dateFormat;
+
+    public OutputEntryStaxParser() {
+        this(false);
+    }
+
+    /**
+     * @param textMessage true if the message is the text of the element (API v5), false for the "log" attribute
+     */
+    public OutputEntryStaxParser(boolean textMessage) {
+        this.textMessage = textMessage;
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+    }
+
+    @Override
+    public RundeckOutputEntry parseElement(XMLStreamReader reader) throws XMLStreamException {
+        RundeckOutputEntry outputEntry = new RundeckOutputEntry();
+
+        outputEntry.setTime(StringUtils.trimToNull(StaxParser.attribute(reader, "time")));
+        try {
+            outputEntry.setLevel(RundeckLogLevel.valueOf(StringUtils.upperCase(StringUtils.defaultString(
+                    StaxParser.attribute(reader, "level")))));
+        } catch (IllegalArgumentException e) {
+            outputEntry.setLevel(null);
+        }
+        outputEntry.setAbsoluteTime(parseDate(StringUtils.trimToNull(StaxParser.attribute(reader, "absolute_time"))));
+        outputEntry.setUser(StringUtils.trimToNull(StaxParser.attribute(reader, "user")));
+        outputEntry.setNode(StringUtils.trimToNull(StaxParser.attribute(reader, "node")));
+        outputEntry.setType(StringUtils.trimToNull(StaxParser.attribute(reader, "type")));
+
+        HashMap<String, String> meta = new HashMap<String, String>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (!OutputEntryParser.nonMetaAttributes.contains(name)) {
+                meta.put(name, reader.getAttributeValue(i));
+            }
+        }
+        if (meta.size() > 0) {
+            outputEntry.setMetadata(meta);
+        }
+        if (textMessage) {
+            outputEntry.setMessage(StringUtils.trimToNull(StaxParser.readText(reader)));
+        } else {
+            outputEntry.setMessage(StringUtils.trimToNull(StaxParser.attribute(reader, "log")));
+            StaxParser.skipElement(reader);
+        }
+        return outputEntry;
+    }
+
+    /**
+     * Parse an entry and append it to a batch, without creating a {@link RundeckOutputEntry} and its metadata map
+     */
+    public void parseElement(XMLStreamReader reader, OutputEntryBatch batch) throws XMLStreamException {
+        RundeckLogLevel level;
+        try {
+            level = RundeckLogLevel.valueOf(StringUtils.upperCase(StringUtils.defaultString(
+                    StaxParser.attribute(reader, "level"))));
+        } catch (IllegalArgumentException e) {
+            level = null;
+        }
+        Date absoluteTime = parseDate(StringUtils.trimToNull(StaxParser.attribute(reader, "absolute_time")));
+        String time = StringUtils.trimToNull(StaxParser.attribute(reader, "time"));
+        String user = StringUtils.trimToNull(StaxParser.attribute(reader, "user"));
+        String node = StringUtils.trimToNull(StaxParser.attribute(reader, "node"));
+        String type = StringUtils.trimToNull(StaxParser.attribute(reader, "type"));
+        String message = textMessage ? null : StringUtils.trimToNull(StaxParser.attribute(reader, "log"));
+
+        batch.append(time, null != absoluteTime ? absoluteTime.getTime() : OutputEntryBatch.NO_TIME, level, message,
+                     user, null, node, type);
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (!OutputEntryParser.nonMetaAttributes.contains(name)) {
+                batch.appendMetadata(name, reader.getAttributeValue(i));
+            }
+        }
+        if (textMessage) {
+            batch.setMessage(batch.size() - 1, StringUtils.trimToNull(StaxParser.readText(reader)));
+        } else {
+            StaxParser.skipElement(reader);
+        }
+    }
+
+    private Date parseDate(String s) {
+        if (null == s) {
+            return null;
+        }
+        try {
+            return dateFormat.parse(s);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.RundeckApiException;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckOutput;
+import org.rundeck.api.domain.RundeckOutputEntry;
+import org.rundeck.api.util.OutputEntryBatch;
+import org.rundeck.api.util.SpillingOutputEntryList;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StAX parser for a single {@link RundeckOutput}, same as {@link OutputParser}. The entries are added while they are
+ * read either to a {@link SpillingOutputEntryList}, so that the entries of a large output are spilled to temp files
+ * instead of being held on the heap, or to an {@link OutputEntryBatch} storing them by columns.
+ */
+public class OutputStaxParser extends StaxParser<RundeckOutput> {
+
+    private final String path;
+    private final StaxElementParser<RundeckOutputEntry> entryParser;
+    private final long spillThreshold;
+    private final OutputEntryStaxParser batchParser;
+
+    /**
+     * @param path           of the output element, such as "/output"
+     * @param entryParser    for the entries
+     * @param spillThreshold encoded size of the entries (in bytes) kept on the heap before spilling them
+     */
+    public OutputStaxParser(String path, StaxElementParser<RundeckOutputEntry> entryParser,
+            long spillThreshold) {
+        this.path = path;
+        this.entryParser = entryParser;
+        this.spillThreshold = spillThreshold;
+        this.batchParser = null;
+    }
+
+    /**
+     * @param path        of the output element, such as "/output"
+     * @param entryParser for the entries, appending them to an {@link OutputEntryBatch}
+     */
+    public OutputStaxParser(String path, OutputEntryStaxParser entryParser) {
+        this.path = path;
+        this.entryParser = entryParser;
+        this.spillThreshold = -1;
+        this.batchParser = entryParser;
+    }
+
+    @Override
+    protected RundeckOutput parse(XMLStreamReader reader) throws XMLStreamException {
+        final List<RundeckOutput> outputs = new ArrayList<RundeckOutput>(1);
+        try {
+            forEachElement(reader, path, new ElementCallback() {
+                @Override
+                public void element(XMLStreamReader reader) throws XMLStreamException {
+                    if (!outputs.isEmpty()) {
+                        skipElement(reader);
+                        return;
+                    }
+                    RundeckOutput output = newOutput();
+                    outputs.add(output);
+                    while (nextChild(reader)) {
+                        parseChild(reader, output);
+                    }
+                }
+            });
+        } catch (XMLStreamException | RuntimeException e) {
+            for (RundeckOutput output : outputs) {
+                output.close();
+            }
+            throw e;
+        }
+        if (outputs.isEmpty()) {
+            throw new RundeckApiException("XML content did not match XPATH expression: " + path);
+        }
+        return outputs.get(0);
+    }
+
+    /**
+     * @return an output with the values of the missing elements, as parsed by {@link OutputParser}
+     */
+    private static RundeckOutput newOutput() {
+        RundeckOutput output = new RundeckOutput();
+        output.setOffset(-1);
+        output.setTotalSize(-1);
+        return output;
+    }
+
+    private void parseChild(XMLStreamReader reader, RundeckOutput output) throws XMLStreamException {
+        String name = reader.getLocalName();
+        if ("entries".equals(name)) {
+            while (nextChild(reader)) {
+                if ("entry".equals(reader.getLocalName()) && null != batchParser) {
+                    if (null == output.getLogEntries()) {
+                        output.setLogEntries(new OutputEntryBatch());
+                    }
+                    batchParser.parseElement(reader, (OutputEntryBatch) output.getLogEntries());
+                } else if ("entry".equals(reader.getLocalName())) {
+                    if (null == output.getLogEntries()) {
+                        output.setLogEntries(new SpillingOutputEntryList(spillThreshold));
+                    }
+                    output.addLogEntry(entryParser.parseElement(reader));
+                } else {
+                    skipElement(reader);
+                }
+            }
+        } else if ("filter".equals(name)) {
+            output.setFilterNode(StringUtils.trimToNull(attribute(reader, "nodename")));
+            output.setFilterStep(StringUtils.trimToNull(attribute(reader, "stepctx")));
+            skipElement(reader);
+        } else {
+            String value = readText(reader);
+            if ("id".equals(name)) {
+                try {
+                    output.setExecutionId(Long.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setExecutionId(null);
+                }
+            } else if ("offset".equals(name)) {
+                try {
+                    output.setOffset(Integer.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setOffset(-1);
+                }
+            } else if ("completed".equals(name)) {
+                output.setCompleted(Boolean.valueOf(value));
+            } else if ("execCompleted".equals(name)) {
+                output.setExecCompleted(Boolean.valueOf(value));
+            } else if ("hasFailedNodes".equals(name)) {
+                output.setHasFailedNodes(Boolean.valueOf(value));
+            } else if ("unmodified".equals(name)) {
+                output.setUnmodified(Boolean.valueOf(value));
+            } else if ("execState".equals(name)) {
+                try {
+                    output.setStatus(RundeckExecution.ExecutionStatus.valueOf(StringUtils.upperCase(value)));
+                } catch (IllegalArgumentException e) {
+                    output.setStatus(null);
+                }
+            } else if ("lastModified".equals(name)) {
+                try {
+                    output.setLastModified(Long.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setLastModified(null);
+                }
+            } else if ("execDuration".equals(name)) {
+                try {
+                    output.setExecDuration(Long.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setExecDuration(null);
+                }
+            } else if ("percentLoaded".equals(name)) {
+                try {
+                    output.setPercentLoaded(Float.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setPercentLoaded(null);
+                }
+            } else if ("totalSize".equals(name)) {
+                try {
+                    output.setTotalSize(Integer.valueOf(value));
+                } catch (NumberFormatException e) {
+                    output.setTotalSize(-1);
+                }
+            }
+        }
+    }
+}
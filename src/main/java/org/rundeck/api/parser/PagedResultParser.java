@@ -67,6 +67,14 @@ public class PagedResultParser<T> implements XmlNodeParser<PagedResults<T>> {
         final List<T> ts = itemParser.parseXmlNode(pagedNodeContainer);
 
 
+        return pagedResults(max, offset, total, count, ts);
+    }
+
+    /**
+     * @return paged results with the given paging data and list of results
+     */
+    static <T> PagedResults<T> pagedResults(final int max, final int offset, final int total, final int count,
+            final List<T> ts) {
         return new PagedResults<T>() {
             @Override
             public int getMax() {
@@ -15,12 +15,19 @@
  */
 package org.rundeck.api.parser;
 
+import java.io.IOException;
 import java.io.InputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Node;
 import org.dom4j.io.SAXReader;
 import org.rundeck.api.RundeckApiException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Helper for parsing Rundeck responses
@@ -59,4 +66,73 @@ public class ParserHelper {
         return document;
     }
 
+    /**
+     * Check that the given {@link InputStream} is a valid XML document, and not an error result. Same checks as
+     * {@link #loadDocument(InputStream)}, but in a single SAX pass, without building the document in memory.
+     *
+     * @param inputStream from an API call to Rundeck
+     * @throws RundeckApiException if we failed to read the response, or if the response is an error
+     */
+    public static void checkDocument(InputStream inputStream) throws RundeckApiException {
+        InputSource source = new InputSource(inputStream);
+        source.setEncoding("UTF-8");
+        ErrorResultHandler handler = new ErrorResultHandler();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.newSAXParser().parse(source, handler);
+        } catch (SAXException e) {
+            throw new RundeckApiException("Failed to read Rundeck response", e);
+        } catch (IOException e) {
+            throw new RundeckApiException("Failed to read Rundeck response", e);
+        } catch (ParserConfigurationException e) {
+            throw new RundeckApiException("Failed to read Rundeck response", e);
+        }
+        if (handler.failure) {
+            throw new RundeckApiException(handler.message.toString());
+        }
+    }
+
+    /**
+     * Collects the message of a "result" root element with an "error" attribute set to true
+     */
+    private static class ErrorResultHandler extends DefaultHandler {
+        private int depth;
+        private boolean failure;
+        private boolean inMessage;
+        private boolean messageRead;
+        private boolean inError;
+        private final StringBuilder message = new StringBuilder();
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            depth++;
+            if (depth == 1) {
+                failure = "result".equals(localName) && Boolean.valueOf(attributes.getValue("error"));
+            } else if (failure && depth == 2 && "error".equals(localName)) {
+                inError = true;
+            } else if (inError && depth == 3 && "message".equals(localName) && !messageRead) {
+                inMessage = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (inMessage && depth == 3) {
+                inMessage = false;
+                messageRead = true;
+            } else if (inError && depth == 2) {
+                inError = false;
+            }
+            depth--;
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inMessage) {
+                message.append(ch, start, length);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,21 @@
+package org.rundeck.api.parser;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Interface to be implemented for parsers that build an object from an XML element read with StAX
+ *
+ * @see StaxParser
+ */
+public interface StaxElementParser<T> {
+
+    /**
+     * Parse the current element
+     *
+     * @param reader positioned on the start of the element, to be read until the end of the element
+     * @return any object holding the converted value
+     */
+    T parseElement(XMLStreamReader reader) throws XMLStreamException;
+
+}
@@ -0,0 +1,57 @@
+package org.rundeck.api.parser;
+
+import org.rundeck.api.RundeckApiException;
+import org.rundeck.api.domain.RundeckHistory;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StAX parser for a single {@link RundeckHistory}, same as {@link HistoryParser}
+ */
+public class StaxHistoryParser extends StaxParser<RundeckHistory> {
+
+    private final String path;
+
+    /**
+     * @param path of the events container, such as "/events"
+     */
+    public StaxHistoryParser(String path) {
+        this.path = path;
+    }
+
+    @Override
+    protected RundeckHistory parse(XMLStreamReader reader) throws XMLStreamException {
+        final List<RundeckHistory> histories = new ArrayList<RundeckHistory>(1);
+        final EventStaxParser eventParser = new EventStaxParser();
+        forEachElement(reader, path, new ElementCallback() {
+            @Override
+            public void element(XMLStreamReader reader) throws XMLStreamException {
+                if (!histories.isEmpty()) {
+                    skipElement(reader);
+                    return;
+                }
+                RundeckHistory history = new RundeckHistory();
+                history.setCount(Integer.valueOf(attribute(reader, "count")));
+                history.setTotal(Integer.valueOf(attribute(reader, "total")));
+                history.setMax(Integer.valueOf(attribute(reader, "max")));
+                history.setOffset(Integer.valueOf(attribute(reader, "offset")));
+                while (nextChild(reader)) {
+                    if ("event".equals(reader.getLocalName())) {
+                        history.addEvent(eventParser.parseElement(reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                histories.add(history);
+            }
+        });
+        if (histories.isEmpty()) {
+            throw new RundeckApiException("XML content did not match XPATH expression: " + path);
+        }
+        return histories.get(0);
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.rundeck.api.parser;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StAX parser for a {@link List} of elements, same as {@link ListParser}
+ */
+public class StaxListParser<T> extends StaxParser<List<T>> {
+
+    private final StaxElementParser<T> parser;
+
+    private final String path;
+
+    /**
+     * @param parser for an individual element
+     * @param path   of the elements, such as "/executions/execution"
+     */
+    public StaxListParser(StaxElementParser<T> parser, String path) {
+        this.parser = parser;
+        this.path = path;
+    }
+
+    @Override
+    protected List<T> parse(XMLStreamReader reader) throws XMLStreamException {
+        final List<T> elements = new ArrayList<T>();
+        forEachElement(reader, path, new ElementCallback() {
+            @Override
+            public void element(XMLStreamReader reader) throws XMLStreamException {
+                elements.add(parser.parseElement(reader));
+            }
+        });
+        return elements;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.rundeck.api.parser;
+
+import org.rundeck.api.RundeckApiException;
+import org.rundeck.api.util.PagedResults;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StAX parser extracting paging data from a list container, with the list of its elements, same as
+ * {@link PagedResultParser}
+ */
+public class StaxPagedResultParser<T> extends StaxParser<PagedResults<T>> {
+
+    private final StaxElementParser<T> itemParser;
+
+    private final String itemName;
+
+    private final String path;
+
+    /**
+     * @param itemParser for an individual element
+     * @param itemName   name of the elements within the list container, such as "execution"
+     * @param path       of the list container containing paging attributes, such as "/executions"
+     */
+    public StaxPagedResultParser(StaxElementParser<T> itemParser, String itemName, String path) {
+        this.itemParser = itemParser;
+        this.itemName = itemName;
+        this.path = path;
+    }
+
+    @Override
+    protected PagedResults<T> parse(XMLStreamReader reader) throws XMLStreamException {
+        final List<PagedResults<T>> results = new ArrayList<PagedResults<T>>(1);
+        forEachElement(reader, path, new ElementCallback() {
+            @Override
+            public void element(XMLStreamReader reader) throws XMLStreamException {
+                if (!results.isEmpty()) {
+                    skipElement(reader);
+                    return;
+                }
+                int max = integerAttribute(reader, "max", -1);
+                int offset = integerAttribute(reader, "offset", -1);
+                int total = integerAttribute(reader, "total", -1);
+                int count = integerAttribute(reader, "count", -1);
+                List<T> items = new ArrayList<T>();
+                while (nextChild(reader)) {
+                    if (itemName.equals(reader.getLocalName())) {
+                        items.add(itemParser.parseElement(reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                results.add(PagedResultParser.pagedResults(max, offset, total, count, items));
+            }
+        });
+        if (results.isEmpty()) {
+            throw new RundeckApiException("XML content did not match XPATH expression: " + path);
+        }
+        return results.get(0);
+    }
+
+    /**
+     * Return an integer value of an attribute of the current element, or a default value if it is not found or not
+     * an integer.
+     */
+    private static int integerAttribute(XMLStreamReader reader, String attribute, int defValue) {
+        String value = attribute(reader, attribute);
+        try {
+            return null != value ? Integer.parseInt(value) : defValue;
+        } catch (NumberFormatException e) {
+            return defValue;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.rundeck.api.parser;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.RundeckApiException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Base class for the parsers reading a Rundeck response with StAX, building the result while the XML events are read
+ * instead of loading a dom4j document first. Like {@link BaseXpathParser}, a "result" root element is unwrapped
+ * automatically, and an error result throws an exception (see {@link ParserHelper#loadDocument(InputStream)}).
+ */
+public abstract class StaxParser<T> implements ResponseParser<T> {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Callback for the elements selected by {@link #forEachElement(XMLStreamReader, String, ElementCallback)}
+     */
+    protected interface ElementCallback {
+        /**
+         * @param reader positioned on the start of the element, to be read until the end of the element
+         */
+        void element(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    @Override
+    public final T parseResponse(InputStream response) throws RundeckApiException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(response, "UTF-8");
+            reader.nextTag();
+            if ("result".equals(reader.getLocalName()) && Boolean.valueOf(attribute(reader, "error"))) {
+                throw new RundeckApiException(readErrorMessage(reader));
+            }
+            return parse(reader);
+        } catch (XMLStreamException e) {
+            throw new RundeckApiException("Failed to read Rundeck response", e);
+        } finally {
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // nothing more to read
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse the response
+     *
+     * @param reader positioned on the start of the root element
+     */
+    protected abstract T parse(XMLStreamReader reader) throws XMLStreamException;
+
+    /**
+     * Call the callback for each element matching the given path of element names, such as "/executions/execution".
+     * The path is relative to the root element, or to the "result" root element if any (like
+     * {@link BaseXpathParser#unwrapXpath(org.dom4j.Node, String)}).
+     *
+     * @param reader positioned on the start of the root element
+     */
+    protected static void forEachElement(XMLStreamReader reader, String path, ElementCallback callback)
+            throws XMLStreamException {
+        String[] names = StringUtils.split(StringUtils.removeStart(StringUtils.removeStart(path, "/"), "result/"), "/");
+        if ("result".equals(reader.getLocalName()) && !"result".equals(names[0])) {
+            while (nextChild(reader)) {
+                forEachElement(reader, names, 0, callback);
+            }
+        } else {
+            forEachElement(reader, names, 0, callback);
+        }
+    }
+
+    private static void forEachElement(XMLStreamReader reader, String[] names, int index, ElementCallback callback)
+            throws XMLStreamException {
+        if (!names[index].equals(reader.getLocalName())) {
+            skipElement(reader);
+        } else if (index == names.length - 1) {
+            callback.element(reader);
+        } else {
+            while (nextChild(reader)) {
+                forEachElement(reader, names, index + 1, callback);
+            }
+        }
+    }
+
+    /**
+     * Move to the start of the next child element
+     *
+     * @param reader positioned on the start of the parent element, or the end of a previous child element
+     * @return true if positioned on a child element, false if positioned on the end of the parent element
+     */
+    protected static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skip the current element, with its children
+     *
+     * @param reader positioned on the start of the element, then on its end
+     */
+    protected static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Read the text of the current element, with the text of its children (like the string-value of an XPath)
+     *
+     * @param reader positioned on the start of the element, then on its end
+     */
+    protected static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                       || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the value of an attribute of the current element, or null if not set
+     */
+    protected static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * @return the message of an error result
+     */
+    private static String readErrorMessage(XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if ("error".equals(reader.getLocalName())) {
+                while (nextChild(reader)) {
+                    if ("message".equals(reader.getLocalName())) {
+                        return readText(reader);
+                    }
+                    skipElement(reader);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,33 @@
+package org.rundeck.api.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content of a {@link RundeckRequest}, written by the transport when the request is sent
+ */
+public abstract class RequestBody {
+
+    /**
+     * @return the value of the Content-Type header, or null if not known
+     */
+    public abstract String getContentType();
+
+    /**
+     * @return the length of the content in bytes, or a negative number if not known
+     */
+    public abstract long getContentLength();
+
+    /**
+     * @return true if the content can be written more than once, so that the request can be sent again
+     */
+    public abstract boolean isRepeatable();
+
+    /**
+     * Write the content to the given stream
+     *
+     * @param output stream of the request, not to be closed
+     * @throws IOException if the content cannot be written
+     */
+    public abstract void writeTo(OutputStream output) throws IOException;
+}
@@ -0,0 +1,119 @@
+package org.rundeck.api.transport;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP request to a Rundeck instance, independent of the HTTP library used to send it
+ */
+public class RundeckRequest {
+
+    private final String method;
+
+    private final URI uri;
+
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+
+    private RequestBody body;
+
+    private String endpoint;
+
+    /**
+     * @param method HTTP method, such as GET or POST
+     * @param uri    absolute URI of the request
+     */
+    public RundeckRequest(final String method, final URI uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    /**
+     * @param method HTTP method, such as GET or POST
+     * @param uri    absolute URI of the request
+     * @throws IllegalArgumentException if the URI is not valid
+     */
+    public RundeckRequest(final String method, final String uri) throws IllegalArgumentException {
+        this(method, URI.create(uri));
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    /**
+     * Set a header, replacing any previous value
+     */
+    public void setHeader(final String name, final String value) {
+        for (String header : headers.keySet()) {
+            if (header.equalsIgnoreCase(name)) {
+                headers.remove(header);
+                break;
+            }
+        }
+        headers.put(name, value);
+    }
+
+    /**
+     * @param name of the header (case insensitive)
+     * @return the value of the header, or null if not set
+     */
+    public String getHeader(final String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the headers of the request, in the order they were set
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * @return the content of the request, or null if none
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    public void setBody(final RequestBody body) {
+        this.body = body;
+    }
+
+    /**
+     * @return the endpoint of the API called, such as "/execution/{id}/output", or null if unknown
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param endpoint of the API called, with a placeholder instead of each variable element of the path : reported
+     *                 to the metrics of the client, without the ids and names of the actual path
+     */
+    public void setEndpoint(final String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return true if the request can be sent again (it has no content, or a repeatable one)
+     */
+    public boolean isRepeatable() {
+        return null == body || body.isRepeatable();
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
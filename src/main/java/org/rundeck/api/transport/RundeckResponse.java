@@ -0,0 +1,41 @@
+package org.rundeck.api.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * HTTP response received by a {@link RundeckTransport}. Closing the response releases the underlying connection, even
+ * if the content has not been read.
+ */
+public interface RundeckResponse extends Closeable {
+
+    /**
+     * @return the HTTP status code
+     */
+    int getStatusCode();
+
+    /**
+     * @return the status line, such as "HTTP/1.1 404 Not Found", for error messages
+     */
+    String getStatusLine();
+
+    /**
+     * @param name of the header (case insensitive)
+     * @return the first value of the header, or null if not present
+     */
+    String getHeader(String name);
+
+    /**
+     * @return the locations of the redirects followed to get this response, empty if none
+     */
+    List<URI> getRedirectLocations();
+
+    /**
+     * @return the content of the response, or null if the response has no content (such as a 204 response)
+     * @throws IOException if the content cannot be read
+     */
+    InputStream getContent() throws IOException;
+}
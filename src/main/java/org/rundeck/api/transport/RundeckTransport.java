@@ -0,0 +1,41 @@
+package org.rundeck.api.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Executes the HTTP requests built by the client. The client builds each request (URL, authentication headers,
+ * content) as a {@link RundeckRequest}, and checks and parses the {@link RundeckResponse} : a transport only has to
+ * send the request, keep the cookies of a {@link Session}, and follow the redirects of GET requests.
+ * <p>
+ * Implementations must be thread-safe : a single transport is shared by all the API calls of a client, and is closed
+ * with it.
+ */
+public interface RundeckTransport extends Closeable {
+
+    /**
+     * Cookies shared by a sequence of requests, such as the web session of a login-based authentication. A session
+     * may only be used with the transport which created it.
+     */
+    interface Session {
+        /**
+         * Forget all the cookies of this session
+         */
+        void clear();
+    }
+
+    /**
+     * @return a new session, without any cookie
+     */
+    Session newSession();
+
+    /**
+     * Send the request, and follow the redirects in case of a GET or HEAD request. The caller must close the response.
+     *
+     * @param request to send
+     * @param session cookies to send and update, or null to only keep the cookies for the duration of the request
+     * @return the final response, with a status which may not be 2xx
+     * @throws IOException in case of failure to send the request or to receive the response
+     */
+    RundeckResponse execute(RundeckRequest request, Session session) throws IOException;
+}
@@ -0,0 +1,4 @@
+/**
+ * HTTP transport used by the client to execute the API requests.
+ */
+package org.rundeck.api.transport;
@@ -0,0 +1,144 @@
+package org.rundeck.api.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, with buckets of exponentially growing widths as in an HDR
+ * histogram : the values below 64 have their own bucket, and each power of two above is split in 32 buckets, so that
+ * a percentile is reported within 3% of the recorded value. The values up to 2^44 ns (about 4.9 hours) are tracked,
+ * the larger ones are counted in the last bucket.
+ * <p>
+ * Recording a value is a few atomic increments, without any allocation or lock : the histogram can be updated by many
+ * threads at once. The values read while it is updated may not be consistent with each other.
+ */
+public class LatencyHistogram {
+    /** number of bits of the linear buckets */
+    private static final int SUB_BITS = 6;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR >> 1;
+    /** highest power of two tracked */
+    private static final int MAX_MAGNITUDE = 43;
+    private static final int BUCKETS = LINEAR + (MAX_MAGNITUDE - SUB_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @return the bucket of a value
+     */
+    static int bucket(final long value) {
+        if (value < LINEAR) {
+            return (int) Math.max(value, 0);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - SUB_BITS + 1;
+        return LINEAR + (magnitude - SUB_BITS) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * @return the highest value counted in a bucket
+     */
+    static long highestValue(final int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int magnitude = (bucket - LINEAR) / HALF + SUB_BITS;
+        int shift = magnitude - SUB_BITS + 1;
+        long lowest = (long) ((bucket - LINEAR) % HALF + HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Record a duration
+     *
+     * @param nanos duration in nanoseconds, counted as 0 if negative
+     */
+    public void record(final long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+            // retry until the minimum is not greater
+        }
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry until the maximum is not lower
+        }
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of the values recorded, in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the lowest value recorded, or 0 if none
+     */
+    public long getMin() {
+        long value = min.get();
+        return value == Long.MAX_VALUE ? 0 : value;
+    }
+
+    /**
+     * @return the highest value recorded, or 0 if none
+     */
+    public long getMax() {
+        long value = max.get();
+        return value == Long.MIN_VALUE ? 0 : value;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if none
+     */
+    public double getMean() {
+        long values = count.sum();
+        return values > 0 ? (double) sum.sum() / values : 0;
+    }
+
+    /**
+     * @param percentile between 0 and 100, such as 99.9
+     * @return the value below or equal to which this percentage of the values were recorded, or 0 if none
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram [count=" + getCount() + ", min=" + getMin() + ", mean=" + (long) getMean() + ", p50="
+               + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax() + "]";
+    }
+}
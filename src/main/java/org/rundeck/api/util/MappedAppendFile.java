@@ -0,0 +1,125 @@
+package org.rundeck.api.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file accessed through memory-mapped regions of a fixed size, mapped when first written. The content is
+ * held by the page cache of the system, not by the java heap.
+ */
+class MappedAppendFile implements Closeable {
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private long length;
+
+    /**
+     * @param file       to create, deleted when closed, or at the latest when the JVM exits
+     * @param regionSize size of the mapped regions, in bytes
+     */
+    MappedAppendFile(final File file, final int regionSize) throws IOException {
+        this.file = file;
+        this.regionSize = regionSize;
+        // in case the file is never closed : its descriptor and its regions are then released by the garbage collector
+        file.deleteOnExit();
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    long length() {
+        return length;
+    }
+
+    private MappedByteBuffer region(final int index) throws IOException {
+        while (regions.size() <= index) {
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * regionSize, regionSize));
+        }
+        return regions.get(index);
+    }
+
+    /**
+     * Write bytes at the end of the file
+     *
+     * @return the position of the first byte written
+     */
+    long append(final byte[] bytes, final int offset, final int count) throws IOException {
+        long position = length;
+        int written = 0;
+        while (written < count) {
+            long current = position + written;
+            MappedByteBuffer region = region((int) (current / regionSize));
+            int regionOffset = (int) (current % regionSize);
+            int chunk = Math.min(count - written, regionSize - regionOffset);
+            // as a ByteBuffer : MappedByteBuffer.duplicate() only exists since java 13
+            ByteBuffer view = ((ByteBuffer) region).duplicate();
+            view.position(regionOffset);
+            view.put(bytes, offset + written, chunk);
+            written += chunk;
+        }
+        length += count;
+        return position;
+    }
+
+    /**
+     * Read bytes previously written
+     */
+    void read(final long position, final byte[] bytes, final int offset, final int count) throws IOException {
+        if (position < 0 || position + count > length) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", length: " + length);
+        }
+        int read = 0;
+        while (read < count) {
+            long current = position + read;
+            MappedByteBuffer region = region((int) (current / regionSize));
+            int regionOffset = (int) (current % regionSize);
+            int chunk = Math.min(count - read, regionSize - regionOffset);
+            // as a ByteBuffer : MappedByteBuffer.duplicate() only exists since java 13
+            ByteBuffer view = ((ByteBuffer) region).duplicate();
+            view.position(regionOffset);
+            view.get(bytes, offset + read, chunk);
+            read += chunk;
+        }
+    }
+
+    /**
+     * Read a big-endian int previously written
+     */
+    int readInt(final long position) throws IOException {
+        byte[] bytes = new byte[4];
+        read(position, bytes, 0, 4);
+        return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+    }
+
+    /**
+     * Read a big-endian long previously written
+     */
+    long readLong(final long position) throws IOException {
+        return ((long) readInt(position) << 32) | (readInt(position + 4) & 0xffffffffL);
+    }
+
+    /**
+     * Release the mapped regions and delete the file. The regions are unmapped by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        regions.clear();
+        try {
+            channel.close();
+            randomAccessFile.close();
+        } finally {
+            file.delete();
+        }
+    }
+}
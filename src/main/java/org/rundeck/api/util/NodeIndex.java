@@ -0,0 +1,223 @@
+package org.rundeck.api.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.rundeck.api.NodeFiltersBuilder;
+import org.rundeck.api.domain.RundeckNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Inverted indexes of a list of nodes, from each value of the filtered attributes (hostname, type, tags, name, and
+ * the os name, family, arch and version) to the bitset of the nodes having it, so that the filters of a
+ * {@link NodeFiltersBuilder} are evaluated locally, without scanning the nodes.
+ * <p>
+ * The filters have the semantics of the API :
+ * <ul>
+ * <li>the value of a filter is a comma-separated list of values, matching the nodes matching any of them</li>
+ * <li>a value matches an attribute equal to it, or matching it as a regular expression</li>
+ * <li>a value of the tags filter may join several tags with "+", matching the nodes having all of them</li>
+ * <li>the include filters match the nodes matching all of them, and so do the exclude filters</li>
+ * <li>when a node matches both, it is excluded, unless the exclude precedence is false. When only exclude filters are
+ * given, the nodes not matching them are included.</li>
+ * </ul>
+ * The index reflects the nodes when it was built, and is not modified afterwards : it can be shared by several
+ * threads.
+ */
+public class NodeIndex {
+    private static final String EXCLUDE = "exclude-";
+    private static final String TAGS = "tags";
+    private static final String[] ATTRIBUTES = {
+            "hostname", "type", TAGS, "name", "os-name", "os-family", "os-arch", "os-version"
+    };
+    /** characters of a value which may be a regular expression, matched against all the values of the attribute */
+    private static final String REGEX_CHARS = ".*+?[](){}|^$\\";
+
+    private final List<RundeckNode> nodes;
+    /** nodes having each value, by attribute */
+    private final Map<String, Map<String, BitSet>> indexes = new HashMap<String, Map<String, BitSet>>();
+
+    /**
+     * @param nodes to index, in this order
+     */
+    public NodeIndex(final List<RundeckNode> nodes) {
+        this.nodes = new ArrayList<RundeckNode>(nodes);
+        for (String attribute : ATTRIBUTES) {
+            indexes.put(attribute, new HashMap<String, BitSet>());
+        }
+        for (int i = 0; i < this.nodes.size(); i++) {
+            RundeckNode node = this.nodes.get(i);
+            index("hostname", node.getHostname(), i);
+            index("type", node.getType(), i);
+            index("name", node.getName(), i);
+            index("os-name", node.getOsName(), i);
+            index("os-family", node.getOsFamily(), i);
+            index("os-arch", node.getOsArch(), i);
+            index("os-version", node.getOsVersion(), i);
+            if (null != node.getTags()) {
+                for (String tag : node.getTags()) {
+                    index(TAGS, StringUtils.trimToNull(tag), i);
+                }
+            }
+        }
+    }
+
+    private void index(final String attribute, final String value, final int node) {
+        if (null == value) {
+            return;
+        }
+        Map<String, BitSet> index = indexes.get(attribute);
+        BitSet bits = index.get(value);
+        if (null == bits) {
+            bits = new BitSet();
+            index.put(value, bits);
+        }
+        bits.set(node);
+    }
+
+    /**
+     * @return the number of nodes indexed
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Return the nodes matching the given filters, in the order of the index
+     *
+     * @param nodeFilters for filtering the nodes - optional. See {@link NodeFiltersBuilder}
+     * @return a {@link List} of {@link RundeckNode} : might be empty, but won't be null
+     */
+    public List<RundeckNode> filter(final Properties nodeFilters) {
+        BitSet selected = select(nodeFilters);
+        if (selected.cardinality() == nodes.size()) {
+            return Collections.unmodifiableList(nodes);
+        }
+        List<RundeckNode> matching = new ArrayList<RundeckNode>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            matching.add(nodes.get(i));
+        }
+        return matching;
+    }
+
+    /**
+     * Return the positions of the nodes matching the given filters
+     *
+     * @param nodeFilters for filtering the nodes - optional. See {@link NodeFiltersBuilder}
+     * @return a new {@link BitSet}, with a bit set for each matching node
+     */
+    public BitSet select(final Properties nodeFilters) {
+        BitSet include = null != nodeFilters ? matchAll(nodeFilters, "") : null;
+        BitSet exclude = null != nodeFilters ? matchAll(nodeFilters, EXCLUDE) : null;
+        BitSet selected;
+        if (null != include) {
+            selected = include;
+        } else {
+            selected = new BitSet(nodes.size());
+            selected.set(0, nodes.size());
+        }
+        String precedence = null != nodeFilters ? nodeFilters.getProperty("exclude-precedence") : null;
+        boolean excludePrecedence = !"false".equalsIgnoreCase(StringUtils.trim(precedence));
+        if (null != exclude && (excludePrecedence || null == include)) {
+            selected.andNot(exclude);
+        }
+        return selected;
+    }
+
+    /**
+     * @return the nodes matching all the filters with the given prefix, or null if there is none
+     */
+    private BitSet matchAll(final Properties nodeFilters, final String prefix) {
+        BitSet matching = null;
+        for (String attribute : ATTRIBUTES) {
+            String filter = StringUtils.trimToNull(nodeFilters.getProperty(prefix + attribute));
+            if (null == filter) {
+                continue;
+            }
+            BitSet bits = match(attribute, filter);
+            if (null == matching) {
+                matching = bits;
+            } else {
+                matching.and(bits);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return the nodes matching any value of the filter
+     */
+    private BitSet match(final String attribute, final String filter) {
+        BitSet matching = new BitSet(nodes.size());
+        for (String value : StringUtils.split(filter, ',')) {
+            value = value.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (TAGS.equals(attribute) && value.indexOf('+') > 0) {
+                matching.or(matchTags(value));
+            } else {
+                matching.or(matchValue(attribute, value));
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return the nodes having all the tags joined with "+"
+     */
+    private BitSet matchTags(final String value) {
+        BitSet matching = null;
+        for (String tag : StringUtils.split(value, '+')) {
+            tag = tag.trim();
+            if (tag.isEmpty()) {
+                continue;
+            }
+            BitSet bits = matchValue(TAGS, tag);
+            if (null == matching) {
+                matching = bits;
+            } else {
+                matching.and(bits);
+            }
+        }
+        return null != matching ? matching : new BitSet();
+    }
+
+    /**
+     * @return the nodes with an attribute equal to the value, or matching it as a regular expression
+     */
+    private BitSet matchValue(final String attribute, final String value) {
+        Map<String, BitSet> index = indexes.get(attribute);
+        BitSet matching = new BitSet(nodes.size());
+        BitSet equal = index.get(value);
+        if (null != equal) {
+            matching.or(equal);
+        }
+        if (StringUtils.containsAny(value, REGEX_CHARS)) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(value);
+            } catch (PatternSyntaxException e) {
+                return matching;
+            }
+            for (Map.Entry<String, BitSet> entry : index.entrySet()) {
+                if (pattern.matcher(entry.getKey()).matches()) {
+                    matching.or(entry.getValue());
+                }
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeIndex [nodes=" + nodes.size() + ", tags=" + indexes.get(TAGS).size() + "]";
+    }
+}
@@ -0,0 +1,443 @@
+package org.rundeck.api.util;
+
+import org.rundeck.api.domain.RundeckOutputEntry;
+import org.rundeck.api.domain.RundeckOutputEntry.RundeckLogLevel;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * List of output entries stored by columns : the values repeated on most lines (time, user, command, node, type and
+ * the metadata values such as the step context) are interned in dictionaries and stored as ids, the levels as
+ * ordinals, the absolute times as a {@code long[]}, and the metadata keys as shared schemas. A page of entries then
+ * costs a few arrays instead of several objects per entry.
+ * <p>
+ * The entries returned by {@link #get(int)} are read-only views on the columns : their setters throw an
+ * {@link UnsupportedOperationException}, and {@link RundeckOutputEntry#getAbsoluteTime()} and
+ * {@link RundeckOutputEntry#getMetadata()} create their values when called. A serialized view is a plain
+ * {@link RundeckOutputEntry}.
+ * <p>
+ * The list is append-only, either with {@link #add(RundeckOutputEntry)} or with
+ * {@link #append(String, long, RundeckLogLevel, String, String, String, String, String)} followed by
+ * {@link #appendMetadata(String, String)}, and not thread-safe.
+ */
+public class OutputEntryBatch extends AbstractList<RundeckOutputEntry> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Absolute time of the entries without one */
+    public static final long NO_TIME = Long.MIN_VALUE;
+    private static final RundeckLogLevel[] LEVELS = RundeckLogLevel.values();
+
+    private final Dictionary times = new Dictionary();
+    private final Dictionary users = new Dictionary();
+    private final Dictionary commands = new Dictionary();
+    private final Dictionary nodes = new Dictionary();
+    private final Dictionary types = new Dictionary();
+    private final Dictionary metadataValues = new Dictionary();
+    private final List<Schema> schemas = new ArrayList<Schema>();
+
+    private int size;
+    private int[] timeIds;
+    private long[] absoluteTimes;
+    private byte[] levels;
+    private String[] messages;
+    private int[] userIds;
+    private int[] commandIds;
+    private int[] nodeIds;
+    private int[] typeIds;
+    private int[] schemaIds;
+    private int[] metadataOffsets;
+    private int[] metadataValueIds;
+    private int metadataSize;
+
+    public OutputEntryBatch() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial number of entries
+     */
+    public OutputEntryBatch(final int capacity) {
+        int initial = Math.max(1, capacity);
+        timeIds = new int[initial];
+        absoluteTimes = new long[initial];
+        levels = new byte[initial];
+        messages = new String[initial];
+        userIds = new int[initial];
+        commandIds = new int[initial];
+        nodeIds = new int[initial];
+        typeIds = new int[initial];
+        schemaIds = new int[initial];
+        metadataOffsets = new int[initial];
+        metadataValueIds = new int[initial];
+        schemas.add(new Schema(new String[0]));
+    }
+
+    /**
+     * Append an entry without metadata : call {@link #appendMetadata(String, String)} to add its metadata
+     *
+     * @param absoluteTime in milliseconds, or {@link #NO_TIME}
+     * @return the index of the entry
+     */
+    public int append(final String time, final long absoluteTime, final RundeckLogLevel level, final String message,
+            final String user, final String command, final String node, final String type) {
+        if (size == timeIds.length) {
+            grow();
+        }
+        int i = size;
+        timeIds[i] = times.id(time);
+        absoluteTimes[i] = absoluteTime;
+        levels[i] = (byte) (null != level ? level.ordinal() : -1);
+        messages[i] = message;
+        userIds[i] = users.id(user);
+        commandIds[i] = commands.id(command);
+        nodeIds[i] = nodes.id(node);
+        typeIds[i] = types.id(type);
+        schemaIds[i] = 0;
+        metadataOffsets[i] = metadataSize;
+        size++;
+        return i;
+    }
+
+    /**
+     * Add a metadata value to the last entry appended
+     */
+    public void appendMetadata(final String key, final String value) {
+        if (size == 0) {
+            throw new IllegalStateException("No entry to add the metadata to");
+        }
+        int last = size - 1;
+        schemaIds[last] = child(schemaIds[last], key);
+        if (metadataSize == metadataValueIds.length) {
+            metadataValueIds = Arrays.copyOf(metadataValueIds, metadataSize * 2);
+        }
+        metadataValueIds[metadataSize++] = metadataValues.id(value);
+    }
+
+    /**
+     * Set the message of an entry, when it is only known after its metadata
+     */
+    public void setMessage(final int i, final String message) {
+        checkIndex(i);
+        messages[i] = message;
+    }
+
+    @Override
+    public boolean add(final RundeckOutputEntry entry) {
+        append(entry.getTime(), null != entry.getAbsoluteTime() ? entry.getAbsoluteTime().getTime() : NO_TIME,
+               entry.getLevel(), entry.getMessage(), entry.getUser(), entry.getCommand(), entry.getNode(),
+               entry.getType());
+        if (null != entry.getMetadata()) {
+            for (Map.Entry<String, String> meta : entry.getMetadata().entrySet()) {
+                appendMetadata(meta.getKey(), meta.getValue());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public RundeckOutputEntry get(final int i) {
+        checkIndex(i);
+        return new EntryView(i);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the absolute time of the entry in milliseconds, or {@link #NO_TIME}
+     */
+    public long getAbsoluteTime(final int i) {
+        checkIndex(i);
+        return absoluteTimes[i];
+    }
+
+    /**
+     * @return the level of the entry, or null
+     */
+    public RundeckLogLevel getLevel(final int i) {
+        checkIndex(i);
+        return levels[i] >= 0 ? LEVELS[levels[i]] : null;
+    }
+
+    /**
+     * @return the node of the entry, or null
+     */
+    public String getNode(final int i) {
+        checkIndex(i);
+        return nodes.value(nodeIds[i]);
+    }
+
+    /**
+     * @return a metadata value of the entry (such as its "stepctx"), or null
+     */
+    public String getMetadata(final int i, final String key) {
+        checkIndex(i);
+        String[] keys = schemas.get(schemaIds[i]).keys;
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k].equals(key)) {
+                return metadataValues.value(metadataValueIds[metadataOffsets[i] + k]);
+            }
+        }
+        return null;
+    }
+
+    private void checkIndex(final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+
+    private void grow() {
+        int capacity = timeIds.length * 2;
+        timeIds = Arrays.copyOf(timeIds, capacity);
+        absoluteTimes = Arrays.copyOf(absoluteTimes, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        messages = Arrays.copyOf(messages, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        commandIds = Arrays.copyOf(commandIds, capacity);
+        nodeIds = Arrays.copyOf(nodeIds, capacity);
+        typeIds = Arrays.copyOf(typeIds, capacity);
+        schemaIds = Arrays.copyOf(schemaIds, capacity);
+        metadataOffsets = Arrays.copyOf(metadataOffsets, capacity);
+    }
+
+    /**
+     * @return the id of the schema made of the keys of the given schema followed by the given key
+     */
+    private int child(final int schemaId, final String key) {
+        Schema schema = schemas.get(schemaId);
+        Integer child = schema.children.get(key);
+        if (null == child) {
+            String[] keys = Arrays.copyOf(schema.keys, schema.keys.length + 1);
+            keys[schema.keys.length] = key;
+            child = schemas.size();
+            schemas.add(new Schema(keys));
+            schema.children.put(key, child);
+        }
+        return child;
+    }
+
+    /**
+     * Values interned as ids, in the order they were first seen. The id of null is -1.
+     */
+    private static final class Dictionary implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        int id(final String value) {
+            if (null == value) {
+                return -1;
+            }
+            Integer id = ids.get(value);
+            if (null == id) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        String value(final int id) {
+            return id >= 0 ? values.get(id) : null;
+        }
+    }
+
+    /**
+     * Ordered metadata keys shared by the entries, with the schemas extending them by one key
+     */
+    private static final class Schema implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String[] keys;
+        private final Map<String, Integer> children = new HashMap<String, Integer>(4);
+
+        private Schema(final String[] keys) {
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Read-only entry reading the columns of the batch
+     */
+    private final class EntryView extends RundeckOutputEntry {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        private EntryView(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getTime() {
+            return times.value(timeIds[index]);
+        }
+
+        @Override
+        public Date getAbsoluteTime() {
+            return absoluteTimes[index] != NO_TIME ? new Date(absoluteTimes[index]) : null;
+        }
+
+        @Override
+        public RundeckLogLevel getLevel() {
+            return levels[index] >= 0 ? LEVELS[levels[index]] : null;
+        }
+
+        @Override
+        public String getMessage() {
+            return messages[index];
+        }
+
+        @Override
+        public String getUser() {
+            return users.value(userIds[index]);
+        }
+
+        @Override
+        public String getCommand() {
+            return commands.value(commandIds[index]);
+        }
+
+        @Override
+        public String getNode() {
+            return nodes.value(nodeIds[index]);
+        }
+
+        @Override
+        public String getType() {
+            return types.value(typeIds[index]);
+        }
+
+        @Override
+        public Map<String, String> getMetadata() {
+            if (schemaIds[index] == 0) {
+                return null;
+            }
+            return new MetadataView(schemas.get(schemaIds[index]).keys, metadataOffsets[index]);
+        }
+
+        @Override
+        public void setTime(final String time) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setAbsoluteTime(final Date absoluteTime) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLevel(final RundeckLogLevel level) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMessage(final String message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setUser(final String user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setCommand(final String command) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setNode(final String node) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setType(final String type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMetadata(final Map<String, String> metadata) {
+            throw new UnsupportedOperationException();
+        }
+
+        private Object writeReplace() throws ObjectStreamException {
+            RundeckOutputEntry entry = new RundeckOutputEntry();
+            entry.setTime(getTime());
+            entry.setAbsoluteTime(getAbsoluteTime());
+            entry.setLevel(getLevel());
+            entry.setMessage(getMessage());
+            entry.setUser(getUser());
+            entry.setCommand(getCommand());
+            entry.setNode(getNode());
+            entry.setType(getType());
+            Map<String, String> metadata = getMetadata();
+            entry.setMetadata(null != metadata ? new LinkedHashMap<String, String>(metadata) : null);
+            return entry;
+        }
+    }
+
+    /**
+     * Read-only metadata of an entry, reading the metadata values of the batch
+     */
+    private final class MetadataView extends AbstractMap<String, String> {
+        private final String[] keys;
+        private final int offset;
+
+        private MetadataView(final String[] keys, final int offset) {
+            this.keys = keys;
+            this.offset = offset;
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<Map.Entry<String, String>>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<Map.Entry<String, String>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (next >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int k = next++;
+                            return new SimpleImmutableEntry<String, String>(
+                                    keys[k], metadataValues.value(metadataValueIds[offset + k]));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.rundeck.api.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free rate of events, as an exponentially weighted moving average over the last minute (like the load average
+ * of a system) : the events are counted, and folded into the average every 5 seconds by the thread marking or reading
+ * the rate once the interval has elapsed.
+ */
+public class RateMeter {
+    private static final long TICK = TimeUnit.SECONDS.toNanos(5);
+    private static final double ALPHA = 1 - Math.exp(-5 / 60.0);
+    /** ticks after which the events before are negligible in the average */
+    private static final long MAX_TICKS = 120;
+
+    private final LongAdder uncounted = new LongAdder();
+    private final AtomicLong lastTick = new AtomicLong(System.nanoTime());
+    /** events per nanosecond, only updated by the thread winning a tick */
+    private volatile double rate;
+    private volatile boolean initialized;
+
+    /**
+     * Count an event
+     */
+    public void mark() {
+        tickIfNeeded();
+        uncounted.increment();
+    }
+
+    /**
+     * @return the number of events per second, averaged over the last minute
+     */
+    public double getRate() {
+        tickIfNeeded();
+        return rate * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private void tickIfNeeded() {
+        long previous = lastTick.get();
+        long age = System.nanoTime() - previous;
+        if (age < TICK) {
+            return;
+        }
+        long next = previous + age - age % TICK;
+        if (!lastTick.compareAndSet(previous, next)) {
+            // another thread is ticking
+            return;
+        }
+        long ticks = age / TICK;
+        if (ticks > MAX_TICKS) {
+            uncounted.reset();
+            rate = 0;
+            return;
+        }
+        for (long i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    private void tick() {
+        double instant = (double) uncounted.sumThenReset() / TICK;
+        if (initialized) {
+            rate += ALPHA * (instant - rate);
+        } else {
+            rate = instant;
+            initialized = true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RateMeter [rate=" + getRate() + "/s]";
+    }
+}
@@ -0,0 +1,297 @@
+package org.rundeck.api.util;
+
+import org.rundeck.api.domain.RundeckOutputEntry;
+import org.rundeck.api.domain.RundeckOutputEntry.RundeckLogLevel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * List of output entries kept on the heap until their encoded size crosses a threshold, then spilled to memory-mapped
+ * append-only temp files : one for the encoded entries, one for the position of each entry. Once spilled, the heap use
+ * does not depend on the number of entries, each entry being decoded when read.
+ * <p>
+ * The list is append-only ({@link #add(RundeckOutputEntry)}), and not thread-safe. Close it to delete its files : a list
+ * never closed keeps them until the JVM exits. A serialized list is a plain {@link ArrayList} holding all the entries.
+ */
+public class SpillingOutputEntryList extends AbstractList<RundeckOutputEntry> implements Closeable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /** Default size of the mapped regions of the files : 64 MB */
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final long threshold;
+    private final File directory;
+    private final int regionSize;
+
+    private transient List<RundeckOutputEntry> heapEntries = new ArrayList<RundeckOutputEntry>();
+    private transient long heapBytes;
+    private transient MappedAppendFile data;
+    private transient MappedAppendFile index;
+    private transient int size;
+    private transient boolean closed;
+
+    private final transient ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final transient DataOutputStream output = new DataOutputStream(buffer);
+
+    /**
+     * @param threshold encoded size of the entries (in bytes) kept on the heap before spilling them to temp files
+     */
+    public SpillingOutputEntryList(final long threshold) {
+        this(threshold, null);
+    }
+
+    /**
+     * @param threshold encoded size of the entries (in bytes) kept on the heap before spilling them to temp files
+     * @param directory of the temp files, or null for the default temp directory
+     */
+    public SpillingOutputEntryList(final long threshold, final File directory) {
+        this(threshold, directory, DEFAULT_REGION_SIZE);
+    }
+
+    SpillingOutputEntryList(final long threshold, final File directory, final int regionSize) {
+        this.threshold = threshold;
+        this.directory = directory;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @return true if the entries have been spilled to temp files
+     */
+    public boolean isSpilled() {
+        return null != data;
+    }
+
+    @Override
+    public boolean add(final RundeckOutputEntry entry) {
+        if (closed) {
+            throw new IllegalStateException("This list of output entries has been closed");
+        }
+        try {
+            byte[] encoded = encode(entry);
+            if (null == data) {
+                heapEntries.add(entry);
+                heapBytes += encoded.length;
+                if (heapBytes > threshold) {
+                    spill();
+                }
+            } else {
+                append(encoded);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to spill the output entries to a temp file", e);
+        }
+        size++;
+        return true;
+    }
+
+    private void spill() throws IOException {
+        data = new MappedAppendFile(File.createTempFile("rundeck-output-", ".entries", directory), regionSize);
+        index = new MappedAppendFile(File.createTempFile("rundeck-output-", ".index", directory), regionSize);
+        for (RundeckOutputEntry entry : heapEntries) {
+            append(encode(entry));
+        }
+        heapEntries = null;
+        heapBytes = 0;
+    }
+
+    private void append(final byte[] encoded) throws IOException {
+        long position = data.append(encoded, 0, encoded.length);
+        byte[] positionBytes = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            positionBytes[i] = (byte) (position >>> (56 - 8 * i));
+        }
+        index.append(positionBytes, 0, 8);
+    }
+
+    @Override
+    public RundeckOutputEntry get(final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        if (null == data) {
+            return heapEntries.get(i);
+        }
+        checkOpen();
+        try {
+            return read(index.readLong(i * 8L));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the output entries from a temp file", e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Iterate over the entries, reading the spilled entries sequentially
+     */
+    @Override
+    public Iterator<RundeckOutputEntry> iterator() {
+        if (null == data) {
+            return super.iterator();
+        }
+        return new Iterator<RundeckOutputEntry>() {
+            private final int count = size;
+            private int next;
+            private long position;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public RundeckOutputEntry next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                checkOpen();
+                try {
+                    int length = data.readInt(position);
+                    RundeckOutputEntry entry = read(position);
+                    position += 4 + length;
+                    next++;
+                    return entry;
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read the output entries from a temp file", e);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("This list of output entries has been closed");
+        }
+    }
+
+    /**
+     * Delete the temp files, if any. The spilled entries cannot be read anymore.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (null != data) {
+                data.close();
+            }
+        } finally {
+            if (null != index) {
+                index.close();
+            }
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return new ArrayList<RundeckOutputEntry>(this);
+    }
+
+    /**
+     * @return the entry encoded as its length followed by its fields
+     */
+    private byte[] encode(final RundeckOutputEntry entry) throws IOException {
+        buffer.reset();
+        output.writeInt(0);
+        writeString(entry.getTime());
+        output.writeBoolean(null != entry.getAbsoluteTime());
+        if (null != entry.getAbsoluteTime()) {
+            output.writeLong(entry.getAbsoluteTime().getTime());
+        }
+        output.writeByte(null != entry.getLevel() ? entry.getLevel().ordinal() : -1);
+        writeString(entry.getMessage());
+        writeString(entry.getUser());
+        writeString(entry.getCommand());
+        writeString(entry.getNode());
+        writeString(entry.getType());
+        Map<String, String> metadata = entry.getMetadata();
+        output.writeInt(null != metadata ? metadata.size() : -1);
+        if (null != metadata) {
+            for (Map.Entry<String, String> meta : metadata.entrySet()) {
+                writeString(meta.getKey());
+                writeString(meta.getValue());
+            }
+        }
+        output.flush();
+        byte[] encoded = buffer.toByteArray();
+        int length = encoded.length - 4;
+        encoded[0] = (byte) (length >>> 24);
+        encoded[1] = (byte) (length >>> 16);
+        encoded[2] = (byte) (length >>> 8);
+        encoded[3] = (byte) length;
+        return encoded;
+    }
+
+    private void writeString(final String value) throws IOException {
+        if (null == value) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private RundeckOutputEntry read(final long position) throws IOException {
+        byte[] encoded = new byte[data.readInt(position)];
+        data.read(position + 4, encoded, 0, encoded.length);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded));
+        RundeckOutputEntry entry = new RundeckOutputEntry();
+        entry.setTime(readString(input));
+        if (input.readBoolean()) {
+            entry.setAbsoluteTime(new Date(input.readLong()));
+        }
+        byte level = input.readByte();
+        entry.setLevel(level >= 0 ? RundeckLogLevel.values()[level] : null);
+        entry.setMessage(readString(input));
+        entry.setUser(readString(input));
+        entry.setCommand(readString(input));
+        entry.setNode(readString(input));
+        entry.setType(readString(input));
+        int metadataSize = input.readInt();
+        if (metadataSize >= 0) {
+            Map<String, String> metadata = new LinkedHashMap<String, String>();
+            for (int i = 0; i < metadataSize; i++) {
+                metadata.put(readString(input), readString(input));
+            }
+            entry.setMetadata(metadata);
+        }
+        return entry;
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,94 @@
+package org.rundeck.api;
+
+import org.rundeck.api.domain.RundeckOutputEntry;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the output of an execution, from its beginning until the execution is completed. Each subscriber follows
+ * the output on its own, only as fast as it requests the entries : the number of lines fetched per call is its
+ * outstanding demand (up to 500 lines), and the calls back off exponentially while the output is unmodified.
+ * <p>
+ * Only available in the builds made with Java 11 or later, like the JDK HTTP transport.
+ */
+public class ExecutionOutputPublisher implements Flow.Publisher<RundeckOutputEntry> {
+    /** Default delay before the first retry while the output is unmodified : 250 milliseconds */
+    public static final long DEFAULT_MIN_DELAY = 250;
+    /** Default maximum delay between two calls while the output is unmodified : 10 seconds */
+    public static final long DEFAULT_MAX_DELAY = 10000;
+
+    private final RundeckClient client;
+    private final Long executionId;
+    private final long minDelay;
+    private final long maxDelay;
+
+    /**
+     * @param client      used to get the output
+     * @param executionId identifier of the execution - mandatory
+     */
+    public ExecutionOutputPublisher(final RundeckClient client, final Long executionId) {
+        this(client, executionId, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param client      used to get the output
+     * @param executionId identifier of the execution - mandatory
+     * @param minDelay    before the first retry while the output is unmodified. Must be &gt; 0.
+     * @param maxDelay    maximum delay between two calls while the output is unmodified. Must be &gt;= minDelay.
+     * @param unit        of the delays - mandatory
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public ExecutionOutputPublisher(final RundeckClient client, final Long executionId, final long minDelay,
+            final long maxDelay, final TimeUnit unit) throws IllegalArgumentException {
+        if (null == client || null == executionId || null == unit) {
+            throw new IllegalArgumentException("client, executionId and unit are mandatory to follow an output !");
+        }
+        if (minDelay <= 0 || maxDelay < minDelay) {
+            throw new IllegalArgumentException("delays must be greater than 0, with minDelay <= maxDelay");
+        }
+        this.client = client;
+        this.executionId = executionId;
+        this.minDelay = Math.max(1, unit.toMillis(minDelay));
+        this.maxDelay = Math.max(this.minDelay, unit.toMillis(maxDelay));
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super RundeckOutputEntry> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        final ExecutionOutputTail tail = new ExecutionOutputTail(
+                client,
+                executionId,
+                minDelay,
+                maxDelay,
+                new ExecutionOutputTail.Sink() {
+                    @Override
+                    public void onNext(final RundeckOutputEntry entry) {
+                        subscriber.onNext(entry);
+                    }
+
+                    @Override
+                    public void onError(final Throwable failure) {
+                        subscriber.onError(failure);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        subscriber.onComplete();
+                    }
+                }
+        );
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                tail.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                tail.cancel();
+            }
+        });
+    }
+}
@@ -0,0 +1,240 @@
+package org.rundeck.api;
+
+import org.rundeck.api.transport.RequestBody;
+import org.rundeck.api.transport.RundeckRequest;
+import org.rundeck.api.transport.RundeckResponse;
+import org.rundeck.api.transport.RundeckTransport;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link RundeckTransport} based on the HTTP client of the JDK (java.net.http). HTTP/2 is negotiated with the server
+ * (or the proxy in front of it) when supported, in which case all the concurrent requests are multiplexed on a single
+ * connection.
+ * <p>
+ * Redirects are only followed for GET and HEAD requests, like Apache HttpClient does, so that the client gets the
+ * same responses with both transports. The content of a request is buffered in memory before being sent.
+ *
+ * @see RundeckClientBuilder#jdkHttpClient(boolean)
+ */
+class JdkHttpTransport implements RundeckTransport {
+
+    /** same limit as Apache HttpClient */
+    private static final int MAX_REDIRECTS = 50;
+
+    private final HttpClient httpClient;
+
+    private final String userAgent;
+
+    /** executor of the HTTP client, if created for this transport */
+    private final ExecutorService executor;
+
+    /**
+     * Build the transport, configured from the given client
+     *
+     * @param client holding the Rundeck url, the SSL and proxy settings
+     */
+    JdkHttpTransport(final RundeckClient client) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                                               .version(HttpClient.Version.HTTP_2)
+                                               .followRedirects(HttpClient.Redirect.NEVER);
+        SSLContext selfSigned = ConnectionPool.createSelfSignedSslContext(client);
+        if (null != selfSigned) {
+            builder.sslContext(selfSigned);
+        }
+        if (client.isSystemProxyEnabled()) {
+            builder.proxy(ProxySelector.getDefault());
+        }
+        if (client.isVirtualThreads()) {
+            executor = VirtualThreads.newExecutor("rundeck-client-http-");
+            builder.executor(executor);
+        } else {
+            executor = null;
+        }
+        httpClient = builder.build();
+        userAgent = "Rundeck API Java Client " + client.getApiVersion();
+    }
+
+    @Override
+    public Session newSession() {
+        return new CookieSession();
+    }
+
+    @Override
+    public RundeckResponse execute(final RundeckRequest request, final Session session) throws IOException {
+        CookieManager cookies = cookies(session);
+        String method = request.getMethod();
+        boolean followRedirects = "GET".equals(method) || "HEAD".equals(method);
+        List<URI> redirects = new ArrayList<>();
+        URI uri = request.getURI();
+        while (true) {
+            HttpResponse<InputStream> response = send(request, uri, cookies);
+            cookies.put(uri, response.headers().map());
+            String location = response.headers().firstValue("Location").orElse(null);
+            if (!followRedirects || null == location || !isRedirect(response.statusCode())) {
+                return new Response(response, redirects);
+            }
+            close(response.body());
+            if (redirects.size() >= MAX_REDIRECTS) {
+                throw new IOException("Maximum redirects (" + MAX_REDIRECTS + ") exceeded for " + request);
+            }
+            uri = uri.resolve(location);
+            redirects.add(uri);
+        }
+    }
+
+    private HttpResponse<InputStream> send(final RundeckRequest request, final URI uri, final CookieManager cookies)
+            throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).setHeader("User-Agent", userAgent);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+        List<String> sessionCookies = cookies.get(uri, Collections.emptyMap()).get("Cookie");
+        if (null != sessionCookies && !sessionCookies.isEmpty()) {
+            String cookie = String.join("; ", sessionCookies);
+            String requestCookie = request.getHeader("Cookie");
+            builder.setHeader("Cookie", null != requestCookie ? requestCookie + "; " + cookie : cookie);
+        }
+        RequestBody body = request.getBody();
+        if (null == body) {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            if (null == request.getHeader("Content-Type") && null != body.getContentType()) {
+                builder.setHeader("Content-Type", body.getContentType());
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            body.writeTo(content);
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(content.toByteArray()));
+        }
+        try {
+            return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response of " + request);
+        }
+    }
+
+    /**
+     * @return true for the status codes of the redirects followed by Apache HttpClient
+     */
+    private static boolean isRedirect(final int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303 || statusCode == 307;
+    }
+
+    private static CookieManager cookies(final Session session) {
+        if (null == session) {
+            return new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+        }
+        if (session instanceof CookieSession) {
+            return ((CookieSession) session).cookies;
+        }
+        throw new IllegalArgumentException("The session was not created by this transport : " + session);
+    }
+
+    /**
+     * Read the remaining content, so that an HTTP/1.1 connection can be reused
+     */
+    private static void close(final InputStream content) {
+        try (InputStream input = content) {
+            input.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            // the connection will not be reused
+        }
+    }
+
+    /**
+     * Shut down the executor of the HTTP client, if created for this transport. The connections of the client are
+     * closed on Java 21 and later, otherwise when the client is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (httpClient instanceof AutoCloseable) {
+                ((AutoCloseable) httpClient).close();
+            }
+        } catch (Exception e) {
+            throw new IOException("Failed to close the HTTP client", e);
+        } finally {
+            if (null != executor) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Cookies of a session, kept in a cookie manager accepting all the cookies
+     */
+    private static class CookieSession implements Session {
+        private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+        @Override
+        public void clear() {
+            cookies.getCookieStore().removeAll();
+        }
+    }
+
+    /**
+     * Response received by the JDK client
+     */
+    private static class Response implements RundeckResponse {
+        private final HttpResponse<InputStream> response;
+        private final List<URI> redirects;
+
+        private Response(final HttpResponse<InputStream> response, final List<URI> redirects) {
+            this.response = response;
+            this.redirects = Collections.unmodifiableList(redirects);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusLine() {
+            String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+            return version + " " + response.statusCode();
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public List<URI> getRedirectLocations() {
+            return redirects;
+        }
+
+        @Override
+        public InputStream getContent() {
+            int statusCode = response.statusCode();
+            if (statusCode == 204 || statusCode == 304 || "HEAD".equals(response.request().method())) {
+                return null;
+            }
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            JdkHttpTransport.close(response.body());
+        }
+    }
+}
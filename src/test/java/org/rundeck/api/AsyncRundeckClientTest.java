@@ -0,0 +1,180 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckProject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the {@link AsyncRundeckClient}
+ */
+public class AsyncRundeckClientTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    private AsyncRundeckClient async;
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != async) {
+            async.close();
+        }
+        if (null != client) {
+            client.close();
+        }
+        if (null != executor) {
+            executor.shutdown();
+        }
+        server.stop();
+    }
+
+    private void start(final RundeckClientBuilder builder) {
+        server.start();
+        client = builder.url(server.getUrl()).version(14).build();
+        executor = Executors.newFixedThreadPool(2);
+        async = new AsyncRundeckClient(client, executor);
+    }
+
+    @Test
+    public void getExecution() throws Exception {
+        server = new RundeckStubServer().resource("/api/14/execution/1", "parser/execution-running.xml");
+        start(RundeckClient.builder().token("abc"));
+
+        RundeckExecution execution = async.getExecution(1L).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(Long.valueOf(1), execution.getId());
+        Assert.assertEquals(RundeckExecution.ExecutionStatus.RUNNING, execution.getStatus());
+    }
+
+    @Test
+    public void errorStatus() throws Exception {
+        server = new RundeckStubServer().handle("/api/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                RundeckStubServer.respond(exchange, 404, "text/html", "not found");
+            }
+        });
+        start(RundeckClient.builder().token("abc"));
+
+        try {
+            async.getExecution(1L).get(10, TimeUnit.SECONDS);
+            Assert.fail("expected failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RundeckApiException.RundeckApiHttpStatusException);
+            Assert.assertEquals(404,
+                                ((RundeckApiException.RundeckApiHttpStatusException) e.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    public void invalidToken() throws Exception {
+        server = new RundeckStubServer().handle("/api/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                RundeckStubServer.respond(exchange, 403, "text/html", "forbidden");
+            }
+        });
+        start(RundeckClient.builder().token("abc"));
+
+        try {
+            async.getProjects().get(10, TimeUnit.SECONDS);
+            Assert.fail("expected failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RundeckApiException.RundeckApiTokenException);
+        }
+    }
+
+    @Test
+    public void manyRequestsInFlight() throws Exception {
+        server = new RundeckStubServer(64).handle("/api/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          "<projects count='1'><project><name>test</name></project></projects>");
+            }
+        });
+        start(RundeckClient.builder().token("abc").maxConnectionsPerRoute(50).maxConnectionsTotal(50));
+
+        List<CompletableFuture<List<RundeckProject>>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            results.add(async.getProjects());
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).get(60, TimeUnit.SECONDS);
+        for (CompletableFuture<List<RundeckProject>> result : results) {
+            Assert.assertEquals("test", result.get().get(0).getName());
+        }
+        Assert.assertEquals(1000, server.getRequestCount());
+        Assert.assertTrue(server.getConnectionCount() <= 50);
+    }
+
+    @Test
+    public void loginSessionExpired() throws Exception {
+        server = new RundeckStubServer().formLogin().resource("/api/14/execution/1", "parser/execution-running.xml");
+        start(RundeckClient.builder().login("admin", "admin"));
+
+        Assert.assertEquals(Long.valueOf(1), async.getExecution(1L).get(10, TimeUnit.SECONDS).getId());
+        Assert.assertEquals(Long.valueOf(1), async.getExecution(1L).get(10, TimeUnit.SECONDS).getId());
+        Assert.assertEquals(1, server.getLoginCount());
+
+        server.expireSessions();
+        Assert.assertEquals(Long.valueOf(1), async.getExecution(1L).get(10, TimeUnit.SECONDS).getId());
+        Assert.assertEquals(2, server.getLoginCount());
+
+        // the session is shared with the blocking client
+        Assert.assertEquals(Long.valueOf(1), client.getExecution(1L).getId());
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+
+    @Test
+    public void loginDoesNotBlockExecutor() throws Exception {
+        final CountDownLatch loginStarted = new CountDownLatch(1);
+        final CountDownLatch loginReleased = new CountDownLatch(1);
+        server = new RundeckStubServer().formLogin().resource("/api/14/execution/1", "parser/execution-running.xml");
+        start(RundeckClient.builder().login("admin", "admin"));
+        Assert.assertEquals(Long.valueOf(1), async.getExecution(1L).get(10, TimeUnit.SECONDS).getId());
+
+        server.onLogin(new Runnable() {
+            @Override
+            public void run() {
+                loginStarted.countDown();
+                try {
+                    loginReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        server.expireSessions();
+        List<CompletableFuture<RundeckExecution>> results = new ArrayList<CompletableFuture<RundeckExecution>>();
+        for (int i = 0; i < 10; i++) {
+            results.add(async.getExecution(1L));
+        }
+        Assert.assertTrue(loginStarted.await(10, TimeUnit.SECONDS));
+        // the threads of the executor are free while the login is held
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(executor.submit(() -> true).get(1, TimeUnit.SECONDS));
+        }
+        loginReleased.countDown();
+        for (CompletableFuture<RundeckExecution> result : results) {
+            Assert.assertEquals(Long.valueOf(1), result.get(10, TimeUnit.SECONDS).getId());
+        }
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+}
@@ -0,0 +1,126 @@
+package org.rundeck.api;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckSystemInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the pooled connections owned by {@link RundeckClient}
+ */
+public class ConnectionPoolTest {
+    private static final String SYSTEM_INFO =
+            "<system><timestamp epoch='1310051857605' unit='ms'/><rundeck><version>2.6.0</version></rundeck>"
+            + "<stats><uptime duration='19344031' unit='ms'/><memory unit='byte'><max>954466304</max>"
+            + "<free>159576592</free><total>271384576</total></memory><scheduler><running>0</running></scheduler>"
+            + "<threads><active>25</active></threads></stats></system>";
+
+    private RundeckStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().xml("/api/", SYSTEM_INFO).start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private RundeckClient createClient(final int maxConnections) {
+        return RundeckClient.builder()
+                            .url(server.getUrl())
+                            .token("abc")
+                            .version(14)
+                            .maxConnectionsTotal(maxConnections)
+                            .maxConnectionsPerRoute(maxConnections)
+                            .connectionIdleTimeout(10, TimeUnit.SECONDS)
+                            .build();
+    }
+
+    @Test
+    public void builderSettings() throws Exception {
+        RundeckClient client = RundeckClient.builder()
+                                            .url(server.getUrl())
+                                            .token("abc")
+                                            .maxConnectionsTotal(7)
+                                            .maxConnectionsPerRoute(3)
+                                            .connectionIdleTimeout(2, TimeUnit.SECONDS)
+                                            .connectionKeepAlive(1, TimeUnit.MINUTES)
+                                            .build();
+        Assert.assertEquals(7, client.getMaxConnectionsTotal());
+        Assert.assertEquals(3, client.getMaxConnectionsPerRoute());
+        Assert.assertEquals(2000L, client.getConnectionIdleTimeout());
+        Assert.assertEquals(60000L, client.getConnectionKeepAlive());
+        Assert.assertEquals(7, ((ConnectionPool) client.getTransport()).getConnectionManager().getMaxTotal());
+        Assert.assertEquals(3, ((ConnectionPool) client.getTransport()).getConnectionManager().getDefaultMaxPerRoute());
+        client.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builderInvalidPoolSize() {
+        RundeckClient.builder().url(server.getUrl()).token("abc").maxConnectionsTotal(0).build();
+    }
+
+    @Test
+    public void sequentialCallsReuseConnection() throws Exception {
+        RundeckClient client = createClient(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                RundeckSystemInfo info = client.getSystemInfo();
+                Assert.assertEquals("2.6.0", info.getVersion());
+            }
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(20, server.getRequestCount());
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void concurrentCallsBoundedByPool() throws Exception {
+        final RundeckClient client = createClient(4);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<RundeckSystemInfo>> results = new ArrayList<Future<RundeckSystemInfo>>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(new Callable<RundeckSystemInfo>() {
+                    @Override
+                    public RundeckSystemInfo call() throws Exception {
+                        return client.getSystemInfo();
+                    }
+                }));
+            }
+            for (Future<RundeckSystemInfo> result : results) {
+                Assert.assertEquals("2.6.0", result.get().getVersion());
+            }
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+        Assert.assertEquals(200, server.getRequestCount());
+        Assert.assertTrue("opened " + server.getConnectionCount(), server.getConnectionCount() <= 4);
+    }
+
+    @Test
+    public void closedClientRejectsCalls() throws Exception {
+        RundeckClient client = createClient(2);
+        client.getSystemInfo();
+        client.close();
+        try {
+            client.getSystemInfo();
+            Assert.fail("expected failure");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("This RundeckClient has been closed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.ApiCallEvent.Phase;
+import org.rundeck.api.EndpointMetrics.EndpointStats;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test the events sent to the {@link RundeckClientMetrics} of a client, and the statistics of {@link EndpointMetrics}
+ */
+public class EndpointMetricsTest {
+    private static final String EXECUTION = "<executions><execution id='42' status='succeeded' project='test'>"
+                                            + "<user>admin</user></execution></executions>";
+    private RundeckStubServer server;
+    private RundeckClient client;
+    private final EndpointMetrics metrics = new EndpointMetrics();
+    private final List<ApiCallEvent> events = new CopyOnWriteArrayList<ApiCallEvent>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().xml("/api/14/execution/", EXECUTION)
+                                        .handle("/api/14/project/broken/jobs", new HttpHandler() {
+                                            @Override
+                                            public void handle(final HttpExchange exchange) throws IOException {
+                                                RundeckStubServer.respond(exchange, 500, "text/xml", "<error/>");
+                                            }
+                                        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).metrics(
+                new RundeckClientMetrics() {
+                    @Override
+                    public void callCompleted(final ApiCallEvent event) {
+                        events.add(event);
+                        metrics.callCompleted(event);
+                    }
+                }).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void template() {
+        Assert.assertEquals("/execution/{id}/output",
+                            new ApiPathBuilder("/execution/", "42", "/output").param("offset", "10").getTemplate());
+        Assert.assertEquals("/project/{project}/jobs", new ApiPathBuilder("/project/", "test", "/jobs").getTemplate());
+        Assert.assertEquals("/job/{id}", new ApiPathBuilder("/job/f81d4fae-7dec-11d0-a765-00a0c91e6bf6")
+                                                  .getTemplate());
+        Assert.assertEquals("/user/profile", new ApiPathBuilder("/user/profile?login=", "admin").getTemplate());
+    }
+
+    @Test
+    public void callMeasured() throws Exception {
+        client.getExecution(42L);
+        client.getExecution(43L);
+
+        Assert.assertEquals(2, events.size());
+        ApiCallEvent event = events.get(0);
+        Assert.assertEquals("/execution/{id}", event.getEndpoint());
+        Assert.assertEquals("GET", event.getMethod());
+        Assert.assertEquals(200, event.getStatusCode());
+        Assert.assertEquals(0, event.getBytesSent());
+        Assert.assertEquals(EXECUTION.length(), event.getBytesReceived());
+        Assert.assertTrue(event.isSuccess());
+        Assert.assertTrue(event.getNanos(Phase.REQUEST) > 0);
+        Assert.assertEquals(0, event.getNanos(Phase.LOGIN));
+        Assert.assertTrue(event.getTotalNanos() >= event.getNanos(Phase.REQUEST) + event.getNanos(Phase.READ));
+
+        EndpointStats stats = metrics.getStats("GET", "/execution/{id}");
+        Assert.assertEquals(2, stats.getCallCount());
+        Assert.assertEquals(0, stats.getFailureCount());
+        Assert.assertEquals(2L * EXECUTION.length(), stats.getBytesReceived());
+        Assert.assertEquals(2, stats.getLatency().getCount());
+        Assert.assertEquals(2, stats.getLatency(Phase.PARSE).getCount());
+    }
+
+    @Test
+    public void failureMeasured() throws Exception {
+        try {
+            client.getJobs("broken");
+            Assert.fail("the call should have failed");
+        } catch (RundeckApiException e) {
+            Assert.assertSame(e, events.get(0).getFailure());
+        }
+        Assert.assertEquals(500, events.get(0).getStatusCode());
+        EndpointStats stats = metrics.getStats("GET", "/project/{project}/jobs");
+        Assert.assertEquals(1, stats.getFailureCount());
+        Assert.assertEquals(1, metrics.getEndpoints().size());
+    }
+
+    @Test
+    public void failingListenerIgnored() throws Exception {
+        client.close();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).metrics(
+                new RundeckClientMetrics() {
+                    @Override
+                    public void callCompleted(final ApiCallEvent event) {
+                        throw new IllegalStateException("broken listener");
+                    }
+                }).build();
+        Assert.assertEquals(Long.valueOf(42), client.getExecution(42L).getId());
+    }
+}
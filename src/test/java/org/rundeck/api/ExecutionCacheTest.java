@@ -0,0 +1,195 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the finished executions answered by the {@link ExecutionCache} of a client
+ */
+public class ExecutionCacheTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** status of the executions, by id */
+    private final Map<Long, String> statuses = new ConcurrentHashMap<Long, String>();
+    private final AtomicInteger executionCalls = new AtomicInteger();
+    /** run by the server while it deletes an execution */
+    private volatile Runnable onDelete;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/execution/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                long id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+                if ("DELETE".equals(exchange.getRequestMethod())) {
+                    Runnable hook = onDelete;
+                    if (null != hook) {
+                        hook.run();
+                    }
+                    statuses.remove(id);
+                    RundeckStubServer.respond(exchange, 204, "text/xml", "");
+                    return;
+                }
+                executionCalls.incrementAndGet();
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          "<executions>" + execution(id, statuses.get(id)) + "</executions>");
+            }
+        }).handle("/api/14/job/job1/executions", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                StringBuilder xml = new StringBuilder("<executions>");
+                for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+                    xml.append(execution(entry.getKey(), entry.getValue()));
+                }
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.append("</executions>").toString());
+            }
+        }).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    private RundeckClient client(final int executionCacheSize) {
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14)
+                              .executionCacheSize(executionCacheSize).build();
+        return client;
+    }
+
+    private static String execution(final long id, final String status) {
+        return "<execution id='" + id + "' status='" + status + "' project='test'><user>admin</user>"
+               + "<job id='job1'><name>job</name><project>test</project></job></execution>";
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        statuses.put(1L, "succeeded");
+        client(0);
+        Assert.assertNull(client.getExecutionCache());
+        client.getExecution(1L);
+        client.getExecution(1L);
+        Assert.assertEquals(2, executionCalls.get());
+    }
+
+    @Test
+    public void finishedExecutionsCached() throws Exception {
+        statuses.put(1L, "succeeded");
+        statuses.put(2L, "running");
+        client(10);
+
+        RundeckExecution first = client.getExecution(1L);
+        Assert.assertSame(first, client.getExecution(1L));
+        client.getExecution(2L);
+        client.getExecution(2L);
+
+        Assert.assertEquals(3, executionCalls.get());
+        ExecutionCache cache = client.getExecutionCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            statuses.put(id, "failed");
+        }
+        client(2);
+        client.getExecution(1L);
+        client.getExecution(2L);
+        client.getExecution(1L);
+        client.getExecution(3L);
+
+        ExecutionCache cache = client.getExecutionCache();
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        int calls = executionCalls.get();
+        client.getExecution(1L);
+        client.getExecution(3L);
+        Assert.assertEquals(calls, executionCalls.get());
+        client.getExecution(2L);
+        Assert.assertEquals(calls + 1, executionCalls.get());
+    }
+
+    @Test
+    public void jobExecutionsCached() throws Exception {
+        statuses.put(1L, "aborted");
+        statuses.put(2L, "running");
+        client(10);
+        List<RundeckExecution> executions = client.getJobExecutions("job1");
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(1, client.getExecutionCache().size());
+
+        client.getExecution(1L);
+        Assert.assertEquals(0, executionCalls.get());
+    }
+
+    @Test
+    public void deleteInvalidates() throws Exception {
+        statuses.put(1L, "timedout");
+        client(10);
+        client.getExecution(1L);
+        Assert.assertEquals(1, client.getExecutionCache().size());
+
+        client.deleteExecution(1L);
+        Assert.assertEquals(0, client.getExecutionCache().size());
+
+        client.getJobExecutions("job1");
+        statuses.put(2L, "succeeded");
+        client.getExecution(2L);
+        Assert.assertEquals(1, client.getExecutionCache().size());
+        client.getExecutionCache().invalidateJob("job1");
+        Assert.assertEquals(0, client.getExecutionCache().size());
+    }
+
+    @Test
+    public void deleteInvalidatesAfterTheCall() throws Exception {
+        statuses.put(1L, "succeeded");
+        client(10);
+        // a lookup while the deletion is in progress caches the execution again
+        onDelete = new Runnable() {
+            @Override
+            public void run() {
+                Assert.assertNotNull(client.getExecution(1L));
+            }
+        };
+        client.deleteExecution(1L);
+        Assert.assertEquals(1, executionCalls.get());
+        Assert.assertEquals(0, client.getExecutionCache().size());
+    }
+
+    @Test
+    public void failedDeleteInvalidates() throws Exception {
+        statuses.put(1L, "succeeded");
+        statuses.put(2L, "failed");
+        client(10);
+        client.getExecution(1L);
+        client.getExecution(2L);
+        Assert.assertEquals(2, client.getExecutionCache().size());
+
+        // no bulk delete on the server : the call fails, but some executions may have been deleted
+        try {
+            client.deleteExecutions(new HashSet<Long>(Arrays.asList(1L, 2L)));
+            Assert.fail("the bulk delete should fail");
+        } catch (RundeckApiException e) {
+            // expected
+        }
+        Assert.assertEquals(0, client.getExecutionCache().size());
+    }
+}
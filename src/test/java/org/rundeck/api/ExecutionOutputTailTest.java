@@ -0,0 +1,266 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckOutputEntry;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the output of an execution followed by {@link ExecutionOutputTail}
+ */
+public class ExecutionOutputTailTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** lines of the log, the offset of a line is its index */
+    private final List<String> lines = new CopyOnWriteArrayList<String>();
+    private volatile boolean execCompleted;
+    /** maxlines parameter of each call */
+    private final List<Integer> calls = new CopyOnWriteArrayList<Integer>();
+    private final List<Long> callTimes = new CopyOnWriteArrayList<Long>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/execution/7/output", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                int offset = intParam(exchange, "offset", 0);
+                int maxlines = intParam(exchange, "maxlines", Integer.MAX_VALUE);
+                calls.add(maxlines);
+                callTimes.add(System.nanoTime());
+                boolean completed = execCompleted;
+                int available = lines.size();
+                int end = (int) Math.min(available, (long) offset + maxlines);
+                StringBuilder xml = new StringBuilder("<output><id>7</id><offset>").append(end).append("</offset>")
+                        .append("<completed>").append(completed && end == available).append("</completed>")
+                        .append("<unmodified>").append(end == offset).append("</unmodified>")
+                        .append("<execCompleted>").append(completed).append("</execCompleted>")
+                        .append("<lastModified>").append(1000 + available).append("</lastModified>")
+                        .append("<totalSize>").append(available).append("</totalSize><entries>");
+                for (int i = offset; i < end; i++) {
+                    xml.append("<entry time='09:48:23' log='").append(lines.get(i))
+                       .append("' level='NORMAL' node='node1'/>");
+                }
+                xml.append("</entries></output>");
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.toString());
+            }
+        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    private static int intParam(final HttpExchange exchange, final String name, final int defaultValue) {
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            if (param.startsWith(name + "=")) {
+                return Integer.parseInt(param.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+
+    private void addLines(final int count) {
+        for (int i = 0; i < count; i++) {
+            lines.add("line" + lines.size());
+        }
+    }
+
+    private static void awaitSize(final List<?> list, final int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(size, list.size());
+    }
+
+    /**
+     * Collects the signals of a tail
+     */
+    private static class TestSink implements ExecutionOutputTail.Sink {
+        private final List<RundeckOutputEntry> entries = new CopyOnWriteArrayList<RundeckOutputEntry>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable failure;
+        private volatile boolean completed;
+
+        @Override
+        public void onNext(final RundeckOutputEntry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public void onError(final Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private ExecutionOutputTail tail(final TestSink sink) {
+        return new ExecutionOutputTail(client, 7L, 10, 40, sink);
+    }
+
+    @Test
+    public void tailCompletedExecution() throws Exception {
+        addLines(1200);
+        execCompleted = true;
+        TestSink sink = new TestSink();
+        tail(sink).request(Long.MAX_VALUE);
+        sink.await();
+
+        Assert.assertTrue(sink.completed);
+        Assert.assertEquals(1200, sink.entries.size());
+        Assert.assertEquals("line0", sink.entries.get(0).getMessage());
+        Assert.assertEquals("line1199", sink.entries.get(1199).getMessage());
+        Assert.assertEquals(3, calls.size());
+        for (Integer maxlines : calls) {
+            Assert.assertEquals(Integer.valueOf(ExecutionOutputTail.MAX_LINES), maxlines);
+        }
+    }
+
+    @Test
+    public void spilledPagesDeleted() throws Exception {
+        client.close();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).outputSpillThreshold(100)
+                              .build();
+        addLines(1200);
+        execCompleted = true;
+        int filesBefore = spilledFiles();
+        TestSink sink = new TestSink();
+        tail(sink).request(Long.MAX_VALUE);
+        sink.await();
+
+        Assert.assertTrue(sink.completed);
+        Assert.assertEquals(1200, sink.entries.size());
+        Assert.assertEquals("line1199", sink.entries.get(1199).getMessage());
+        Assert.assertEquals(filesBefore, spilledFiles());
+    }
+
+    private static int spilledFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith("rundeck-output-");
+            }
+        });
+        return null != names ? names.length : 0;
+    }
+
+    @Test
+    public void maxlinesFromDemand() throws Exception {
+        addLines(20);
+        execCompleted = true;
+        TestSink sink = new TestSink();
+        ExecutionOutputTail tail = tail(sink);
+        tail.request(3);
+        awaitSize(sink.entries, 3);
+        Thread.sleep(50);
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(Integer.valueOf(3), calls.get(0));
+
+        tail.request(5);
+        awaitSize(sink.entries, 8);
+        Assert.assertEquals(Integer.valueOf(5), calls.get(1));
+        Assert.assertEquals("line7", sink.entries.get(7).getMessage());
+
+        tail.request(100);
+        sink.await();
+        Assert.assertTrue(sink.completed);
+        Assert.assertEquals(20, sink.entries.size());
+        Assert.assertEquals(Integer.valueOf(100), calls.get(2));
+    }
+
+    @Test
+    public void backoffWhileUnmodified() throws Exception {
+        addLines(2);
+        TestSink sink = new TestSink();
+        tail(sink).request(10);
+        awaitSize(sink.entries, 2);
+        awaitSize(calls, 6);
+        // 10, 20, 40, 40 ms between the calls without new entries
+        long last = callTimes.get(5) - callTimes.get(4);
+        long first = callTimes.get(2) - callTimes.get(1);
+        Assert.assertTrue(last >= TimeUnit.MILLISECONDS.toNanos(40));
+        Assert.assertTrue(first < last);
+
+        addLines(3);
+        execCompleted = true;
+        sink.await();
+        Assert.assertTrue(sink.completed);
+        Assert.assertEquals(5, sink.entries.size());
+    }
+
+    @Test
+    public void completedWithoutDemand() throws Exception {
+        execCompleted = true;
+        TestSink sink = new TestSink();
+        tail(sink).request(1);
+        sink.await();
+        Assert.assertTrue(sink.completed);
+        Assert.assertTrue(sink.entries.isEmpty());
+    }
+
+    @Test
+    public void invalidRequest() throws Exception {
+        TestSink sink = new TestSink();
+        tail(sink).request(0);
+        sink.await();
+        Assert.assertTrue(sink.failure instanceof IllegalArgumentException);
+        Assert.assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        addLines(2);
+        TestSink sink = new TestSink();
+        ExecutionOutputTail tail = tail(sink);
+        tail.request(10);
+        awaitSize(sink.entries, 2);
+        tail.cancel();
+        Thread.sleep(50);
+        int count = calls.size();
+        Thread.sleep(100);
+        Assert.assertEquals(count, calls.size());
+        Assert.assertFalse(sink.completed);
+        Assert.assertNull(sink.failure);
+    }
+
+    @Test
+    public void failedCall() throws Exception {
+        TestSink sink = new TestSink();
+        new ExecutionOutputTail(client, 8L, 10, 40, sink).request(10);
+        sink.await();
+        Assert.assertTrue(sink.failure instanceof RundeckApiException);
+    }
+
+    @Test
+    public void closedClient() throws Exception {
+        client.close();
+        TestSink sink = new TestSink();
+        tail(sink).request(10);
+        sink.await();
+        Assert.assertTrue(sink.failure instanceof IllegalStateException);
+    }
+}
@@ -0,0 +1,167 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.ExecutionStateChange;
+import org.rundeck.api.domain.RundeckExecutionState;
+import org.rundeck.api.domain.RundeckWFExecState;
+import org.rundeck.api.parser.ExecutionStateParser;
+import org.rundeck.api.parser.ParserHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the {@link ExecutionStateTracker}, and the states followed with
+ * {@link RundeckClient#followExecutionState(Long, ExecutionStateListener, long, TimeUnit)}
+ */
+public class ExecutionStateTrackerTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** snapshots returned by the state calls, the last one being repeated */
+    private final List<String> snapshots = new CopyOnWriteArrayList<String>();
+    private final AtomicInteger stateCalls = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/execution/7/state", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                int call = stateCalls.getAndIncrement();
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          snapshots.get(Math.min(call, snapshots.size() - 1)));
+            }
+        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    /**
+     * @return the state of an execution with one node step, run on node1 and node2
+     */
+    private static String snapshot(final String execution, final String node1, final String node2) {
+        return "<executionState id='7'><executionState>" + execution + "</executionState>"
+               + "<allNodes><nodes><node name='node1'/><node name='node2'/></nodes></allNodes>"
+               + "<stepCount>1</stepCount><steps><step stepctx='1' id='1'><nodeStep>true</nodeStep>"
+               + "<executionState>" + execution + "</executionState><nodeStates>"
+               + "<nodeState name='node1'><executionState>" + node1 + "</executionState></nodeState>"
+               + "<nodeState name='node2'><executionState>" + node2 + "</executionState></nodeState>"
+               + "</nodeStates></step></steps><nodes>"
+               + "<node name='node1'><steps><step><stepctx>1</stepctx></step></steps></node>"
+               + "<node name='node2'><steps><step><stepctx>1</stepctx></step></steps></node>"
+               + "</nodes></executionState>";
+    }
+
+    private static RundeckExecutionState parse(final String xml) throws Exception {
+        return new ExecutionStateParser("/executionState").parseXmlNode(
+                ParserHelper.loadDocument(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+    }
+
+    private static void assertChange(final ExecutionStateChange change, final String node, final String stepctx,
+            final RundeckWFExecState previous, final RundeckWFExecState state) {
+        Assert.assertEquals(7L, change.getExecutionId());
+        Assert.assertEquals(node, change.getNode());
+        Assert.assertEquals(stepctx, change.getStepContextId());
+        Assert.assertEquals(previous, change.getPreviousState());
+        Assert.assertEquals(state, change.getExecutionState());
+    }
+
+    @Test
+    public void update() throws Exception {
+        ExecutionStateTracker tracker = new ExecutionStateTracker();
+
+        List<ExecutionStateChange> changes = tracker.update(parse(snapshot("RUNNING", "RUNNING", "WAITING")));
+        Assert.assertEquals(4, changes.size());
+        assertChange(changes.get(0), null, null, null, RundeckWFExecState.RUNNING);
+        assertChange(changes.get(1), null, "1", null, RundeckWFExecState.RUNNING);
+        assertChange(changes.get(2), "node1", "1", null, RundeckWFExecState.RUNNING);
+        assertChange(changes.get(3), "node2", "1", null, RundeckWFExecState.WAITING);
+
+        Assert.assertTrue(tracker.update(parse(snapshot("RUNNING", "RUNNING", "WAITING"))).isEmpty());
+
+        changes = tracker.update(parse(snapshot("RUNNING", "SUCCEEDED", "RUNNING")));
+        Assert.assertEquals(2, changes.size());
+        assertChange(changes.get(0), "node1", "1", RundeckWFExecState.RUNNING, RundeckWFExecState.SUCCEEDED);
+        assertChange(changes.get(1), "node2", "1", RundeckWFExecState.WAITING, RundeckWFExecState.RUNNING);
+        Assert.assertEquals(RundeckWFExecState.SUCCEEDED, tracker.getState("node1", "1"));
+        Assert.assertEquals(RundeckWFExecState.RUNNING, tracker.getState(null, null));
+        Assert.assertNull(tracker.getState("node3", "1"));
+        Assert.assertFalse(ExecutionStateTracker.isCompleted(tracker.getLastState()));
+    }
+
+    @Test
+    public void follow() throws Exception {
+        snapshots.add(snapshot("RUNNING", "RUNNING", "RUNNING"));
+        snapshots.add(snapshot("RUNNING", "RUNNING", "RUNNING"));
+        snapshots.add(snapshot("RUNNING", "SUCCEEDED", "RUNNING"));
+        snapshots.add(snapshot("FAILED", "SUCCEEDED", "FAILED"));
+        final List<ExecutionStateChange> changes = new CopyOnWriteArrayList<ExecutionStateChange>();
+
+        CompletableFuture<RundeckExecutionState> future = client.followExecutionState(
+                7L,
+                new ExecutionStateListener() {
+                    @Override
+                    public void stateChanged(final ExecutionStateChange change) {
+                        changes.add(change);
+                    }
+                },
+                10,
+                TimeUnit.MILLISECONDS
+        );
+
+        RundeckExecutionState last = future.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(RundeckWFExecState.FAILED, last.getExecutionState());
+        Assert.assertEquals(4, stateCalls.get());
+        Assert.assertEquals(8, changes.size());
+        assertChange(changes.get(4), "node1", "1", RundeckWFExecState.RUNNING, RundeckWFExecState.SUCCEEDED);
+        assertChange(changes.get(5), null, null, RundeckWFExecState.RUNNING, RundeckWFExecState.FAILED);
+        assertChange(changes.get(6), null, "1", RundeckWFExecState.RUNNING, RundeckWFExecState.FAILED);
+        assertChange(changes.get(7), "node2", "1", RundeckWFExecState.RUNNING, RundeckWFExecState.FAILED);
+    }
+
+    @Test
+    public void cancelStopsFollowing() throws Exception {
+        snapshots.add(snapshot("RUNNING", "RUNNING", "RUNNING"));
+        final CompletableFuture<Void> first = new CompletableFuture<Void>();
+        CompletableFuture<RundeckExecutionState> future = client.followExecutionState(
+                7L,
+                new ExecutionStateListener() {
+                    @Override
+                    public void stateChanged(final ExecutionStateChange change) {
+                        first.complete(null);
+                    }
+                },
+                10,
+                TimeUnit.MILLISECONDS
+        );
+        first.get(10, TimeUnit.SECONDS);
+        future.cancel(false);
+        Thread.sleep(100);
+        int calls = stateCalls.get();
+        Thread.sleep(100);
+        Assert.assertEquals(calls, stateCalls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInterval() throws Exception {
+        client.followExecutionState(7L, new ExecutionStateListener() {
+            @Override
+            public void stateChanged(final ExecutionStateChange change) {
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+}
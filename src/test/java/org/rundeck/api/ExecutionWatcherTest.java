@@ -0,0 +1,258 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckExecution.ExecutionStatus;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the executions followed by the {@link ExecutionWatcher} of a client
+ */
+public class ExecutionWatcherTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** status of the executions, by id : the running ones are listed by the running query */
+    private final Map<Long, String> statuses = new ConcurrentHashMap<Long, String>();
+    private final Map<Long, AtomicInteger> executionCalls = new ConcurrentHashMap<Long, AtomicInteger>();
+    private final AtomicInteger runningQueries = new AtomicInteger();
+    /** status of the responses to the running query */
+    private volatile int runningStatus = 200;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/project/test/executions/running", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                runningQueries.incrementAndGet();
+                if (200 != runningStatus) {
+                    RundeckStubServer.respond(exchange, runningStatus, "text/xml", "<result error='true'/>");
+                    return;
+                }
+                StringBuilder xml = new StringBuilder("<executions>");
+                for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+                    if ("running".equals(entry.getValue())) {
+                        xml.append(execution(entry.getKey(), "running"));
+                    }
+                }
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.append("</executions>").toString());
+            }
+        }).handle("/api/14/execution/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                long id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+                calls(id).incrementAndGet();
+                String status = statuses.get(id);
+                if (null == status) {
+                    RundeckStubServer.respond(exchange, 404, "text/xml",
+                                              "<result error='true'><error><message>not found</message></error>"
+                                              + "</result>");
+                } else {
+                    RundeckStubServer.respond(exchange, 200, "text/xml",
+                                              "<executions>" + execution(id, status) + "</executions>");
+                }
+            }
+        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    private static String execution(final long id, final String status) {
+        return "<execution id='" + id + "' status='" + status + "' project='test'><user>admin</user></execution>";
+    }
+
+    private AtomicInteger calls(final long id) {
+        AtomicInteger calls = executionCalls.get(id);
+        if (null == calls) {
+            executionCalls.putIfAbsent(id, new AtomicInteger());
+            calls = executionCalls.get(id);
+        }
+        return calls;
+    }
+
+    private static RundeckExecution running(final long id, final String project) {
+        RundeckExecution execution = new RundeckExecution();
+        execution.setId(id);
+        execution.setStatus(ExecutionStatus.RUNNING);
+        execution.setProject(project);
+        return execution;
+    }
+
+    private CompletableFuture<RundeckExecution> watch(final long id, final String project) {
+        statuses.put(id, "running");
+        return client.getExecutionWatcher().watch(running(id, project), 20, TimeUnit.MILLISECONDS);
+    }
+
+    private void awaitRunningQueries(final int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (runningQueries.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertTrue(runningQueries.get() >= count);
+    }
+
+    @Test
+    public void refreshInBulk() throws Exception {
+        CompletableFuture<RundeckExecution> first = watch(1, "test");
+        CompletableFuture<RundeckExecution> second = watch(2, "test");
+        CompletableFuture<RundeckExecution> third = watch(3, "test");
+        Assert.assertEquals(3, client.getExecutionWatcher().getWatchCount());
+        awaitRunningQueries(3);
+        Assert.assertFalse(first.isDone());
+        // still running : no call for each execution
+        Assert.assertTrue(executionCalls.isEmpty());
+
+        statuses.put(2L, "succeeded");
+        Assert.assertEquals(ExecutionStatus.SUCCEEDED, second.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(1, calls(2).get());
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(third.isDone());
+
+        statuses.put(1L, "failed");
+        statuses.put(3L, "aborted");
+        Assert.assertEquals(ExecutionStatus.FAILED, first.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(ExecutionStatus.ABORTED, third.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(1, calls(1).get());
+        Assert.assertEquals(1, calls(3).get());
+        Assert.assertEquals(0, client.getExecutionWatcher().getWatchCount());
+    }
+
+    @Test
+    public void sameExecutionWatchedTwice() throws Exception {
+        CompletableFuture<RundeckExecution> first = watch(1, "test");
+        CompletableFuture<RundeckExecution> second = watch(1, "test");
+        statuses.put(1L, "succeeded");
+        Assert.assertEquals(ExecutionStatus.SUCCEEDED, first.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(ExecutionStatus.SUCCEEDED, second.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertTrue(calls(1).get() <= 2);
+    }
+
+    @Test
+    public void unknownProject() throws Exception {
+        CompletableFuture<RundeckExecution> future = watch(4, null);
+        // checked on its own the first time, then with its project
+        awaitRunningQueries(2);
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(1, calls(4).get());
+        statuses.put(4L, "succeeded");
+        Assert.assertEquals(ExecutionStatus.SUCCEEDED, future.get(10, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    public void failedListingBacksOff() throws Exception {
+        CompletableFuture<RundeckExecution> first = watch(1, "test");
+        CompletableFuture<RundeckExecution> second = watch(2, "test");
+        awaitRunningQueries(1);
+        runningStatus = 503;
+        int queries = runningQueries.get();
+        awaitRunningQueries(queries + 3);
+        // no call for each execution of the project
+        Assert.assertTrue(executionCalls.isEmpty());
+        Assert.assertFalse(first.isDone());
+
+        runningStatus = 200;
+        statuses.put(1L, "succeeded");
+        Assert.assertEquals(ExecutionStatus.SUCCEEDED, first.get(10, TimeUnit.SECONDS).getStatus());
+        Assert.assertFalse(second.isDone());
+
+        runningStatus = 503;
+        try {
+            second.get(10, TimeUnit.SECONDS);
+            Assert.fail("should have thrown an exception !");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RundeckApiException);
+        }
+        Assert.assertNull(executionCalls.get(2L));
+        Assert.assertEquals(0, client.getExecutionWatcher().getWatchCount());
+    }
+
+    @Test
+    public void failedCheck() throws Exception {
+        CompletableFuture<RundeckExecution> future = watch(5, "test");
+        statuses.remove(5L);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("should have thrown an exception !");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RundeckApiException);
+        }
+        Assert.assertEquals(0, client.getExecutionWatcher().getWatchCount());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        CompletableFuture<RundeckExecution> future = watch(6, "test");
+        future.cancel(false);
+        Assert.assertEquals(0, client.getExecutionWatcher().getWatchCount());
+    }
+
+    @Test
+    public void notRunning() throws Exception {
+        RundeckExecution execution = running(7, "test");
+        execution.setStatus(ExecutionStatus.SUCCEEDED);
+        Assert.assertSame(execution, client.getExecutionWatcher().watch(execution).getNow(null));
+        Assert.assertEquals(0, client.getExecutionWatcher().getWatchCount());
+    }
+
+    @Test
+    public void closedClient() throws Exception {
+        CompletableFuture<RundeckExecution> future = client.getExecutionWatcher().watch(running(8, "test"));
+        client.close();
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("should have thrown an exception !");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            client.getExecutionWatcher();
+            Assert.fail("should have thrown an exception !");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("This RundeckClient has been closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void pollingStrategy() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        statuses.put(10L, "running");
+        CompletableFuture<RundeckExecution> future = client.getExecutionWatcher().watch(
+                running(10, "test"),
+                new PollingStrategy() {
+                    @Override
+                    public long nextDelay(final RundeckExecution execution, final long elapsed) {
+                        return checks.incrementAndGet() < 3 ? 10 : 3600000;
+                    }
+                }
+        );
+        awaitRunningQueries(2);
+        statuses.put(10L, "succeeded");
+        Thread.sleep(100);
+        // first delay, then one after each check
+        Assert.assertEquals(3, checks.get());
+        Assert.assertEquals(2, runningQueries.get());
+        Assert.assertFalse(future.isDone());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInterval() {
+        client.getExecutionWatcher().watch(running(9, "test"), 0, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,150 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckProject;
+import org.rundeck.api.transport.RundeckTransport;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Test the API calls sent with the JDK HTTP client
+ */
+public class JdkHttpTransportTest {
+    private static final String PROJECTS = "<projects count='1'><project><name>test</name></project></projects>";
+
+    private RundeckStubServer server;
+    private RundeckClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        if (null != server) {
+            server.stop();
+        }
+    }
+
+    private RundeckClientBuilder builder() {
+        return RundeckClient.builder().url(server.getUrl()).version(14).jdkHttpClient(true);
+    }
+
+    @Test
+    public void builderRejectsUnsupportedRuntime() {
+        Assume.assumeFalse(Transports.isJdkHttpClientAvailable());
+        try {
+            RundeckClient.builder().url("http://localhost:4440").token("abc").jdkHttpClient(true).build();
+            Assert.fail("expected failure");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("The JDK HTTP client requires Java 11 or later", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderRejectsHostnameVerifyAllowAll() {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        RundeckClient.builder()
+                     .url("https://localhost:4443")
+                     .token("abc")
+                     .jdkHttpClient(true)
+                     .sslHostnameVerifyAllowAll(true)
+                     .build();
+    }
+
+    @Test
+    public void tokenAuthentication() throws Exception {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        final Queue<String> tokens = new ConcurrentLinkedQueue<String>();
+        server = new RundeckStubServer().handle("/api/14/execution/1", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                tokens.add(exchange.getRequestHeaders().getFirst("X-Rundeck-Auth-Token"));
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          "<executions count='1'><execution id='1' status='running'/></executions>");
+            }
+        }).start();
+        client = builder().token("abc").build();
+
+        Assert.assertEquals("org.rundeck.api.JdkHttpTransport", client.getTransport().getClass().getName());
+        RundeckExecution execution = client.getExecution(1L);
+        Assert.assertEquals(Long.valueOf(1), execution.getId());
+        Assert.assertEquals(RundeckExecution.ExecutionStatus.RUNNING, execution.getStatus());
+        Assert.assertEquals("abc", tokens.poll());
+    }
+
+    @Test
+    public void errorStatus() throws Exception {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        server = new RundeckStubServer().handle("/api/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                RundeckStubServer.respond(exchange, 404, "text/html", "not found");
+            }
+        }).start();
+        client = builder().token("abc").build();
+
+        try {
+            client.getExecution(1L);
+            Assert.fail("expected failure");
+        } catch (RundeckApiException.RundeckApiHttpStatusException e) {
+            Assert.assertEquals(404, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void deleteWithoutContent() throws Exception {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        final Queue<String> methods = new ConcurrentLinkedQueue<String>();
+        server = new RundeckStubServer().handle("/api/14/job/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                methods.add(exchange.getRequestMethod());
+                RundeckStubServer.respond(exchange, 204, null, null);
+            }
+        }).start();
+        client = builder().token("abc").build();
+
+        client.deleteJob("job1");
+        Assert.assertEquals("DELETE", methods.poll());
+    }
+
+    @Test
+    public void loginSession() throws Exception {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        server = new RundeckStubServer().formLogin().xml("/api/", PROJECTS).start();
+        client = builder().login("admin", "admin").build();
+
+        List<RundeckProject> projects = client.getProjects();
+        Assert.assertEquals("test", projects.get(0).getName());
+        Assert.assertEquals(1, client.getProjects().size());
+        Assert.assertEquals(1, server.getLoginCount());
+
+        // the login page is reached through a redirect of the GET request, and the session is renewed once
+        server.expireSessions();
+        Assert.assertEquals(1, client.getProjects().size());
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sessionOfAnotherTransport() throws Exception {
+        Assume.assumeTrue(Transports.isJdkHttpClientAvailable());
+        server = new RundeckStubServer().start();
+        client = builder().token("abc").build();
+        RundeckClient apache = RundeckClient.builder().url(server.getUrl()).token("abc").build();
+        try {
+            RundeckTransport.Session session = apache.getTransport().newSession();
+            client.getTransport().execute(new ApiCall(client).newRequest("GET", server.getUrl()), session);
+        } finally {
+            apache.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckJob;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the jobs answered by the {@link JobCache} of a client
+ */
+public class JobCacheTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    private final AtomicInteger jobsCalls = new AtomicInteger();
+    private final AtomicInteger jobCalls = new AtomicInteger();
+    /** run by the server while deleting a job, or null */
+    private volatile Runnable onDelete;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/project/test/jobs", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                jobsCalls.incrementAndGet();
+                RundeckStubServer.respond(exchange, 200, "text/xml", "<jobs count='3'>"
+                                                                     + job("job1", null, "backup")
+                                                                     + job("job2", "ops/db", "backup")
+                                                                     + job("job3", "ops", "restart")
+                                                                     + "</jobs>");
+            }
+        }).handle("/api/14/job/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                if ("DELETE".equals(exchange.getRequestMethod())) {
+                    Runnable hook = onDelete;
+                    if (null != hook) {
+                        hook.run();
+                    }
+                    RundeckStubServer.respond(exchange, 204, "text/xml", "");
+                    return;
+                }
+                jobCalls.incrementAndGet();
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          "<joblist>" + job(id, null, "other") + "</joblist>");
+            }
+        }).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        server.stop();
+    }
+
+    private RundeckClient client(final long jobCacheTtl) {
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14)
+                              .jobCacheTtl(jobCacheTtl, TimeUnit.MILLISECONDS).build();
+        return client;
+    }
+
+    private static String job(final String id, final String group, final String name) {
+        return "<job id='" + id + "'><name>" + name + "</name>" + (null != group ? "<group>" + group + "</group>" : "")
+               + "<project>test</project></job>";
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        client(0);
+        Assert.assertNull(client.getJobCache());
+        client.findJob("test", null, "backup");
+        client.findJob("test", null, "backup");
+        Assert.assertEquals(2, jobsCalls.get());
+    }
+
+    @Test
+    public void findJob() throws Exception {
+        client(60000);
+        Assert.assertEquals("job1", client.findJob("test", null, "backup").getId());
+        Assert.assertEquals("job1", client.findJob("test", "", "backup").getId());
+        Assert.assertEquals("job2", client.findJob("test", "ops/db", "backup").getId());
+        Assert.assertEquals("job3", client.findJob("test", "ops", "restart").getId());
+        Assert.assertNull(client.findJob("test", "ops", "backup"));
+
+        Assert.assertEquals(1, jobsCalls.get());
+        JobCache cache = client.getJobCache();
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(1, cache.getRefreshCount());
+        Assert.assertEquals(4, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void getJob() throws Exception {
+        client(60000);
+        RundeckJob other = client.getJob("job4");
+        Assert.assertEquals("other", other.getName());
+        Assert.assertEquals(1, jobCalls.get());
+
+        Assert.assertSame(other, client.getJob("job4"));
+        Assert.assertEquals(1, jobCalls.get());
+
+        // the listing of the project does not answer the definition of a job
+        Assert.assertEquals("ops/db", client.findJob("test", "ops/db", "backup").getGroup());
+        RundeckJob job = client.getJob("job2");
+        Assert.assertEquals("other", job.getName());
+        Assert.assertSame(job, client.getJob("job2"));
+        Assert.assertEquals(2, jobCalls.get());
+        Assert.assertNull(client.findJob("test", null, "other"));
+
+        client.deleteJob("job2");
+        client.getJob("job2");
+        Assert.assertEquals(3, jobCalls.get());
+    }
+
+    @Test
+    public void expiredAndRefreshed() throws Exception {
+        client(50);
+        client.findJob("test", null, "backup");
+        Thread.sleep(100);
+        Assert.assertNull(client.getJobCache().get("job1"));
+        client.findJob("test", null, "backup");
+        Assert.assertEquals(2, jobsCalls.get());
+
+        client.getJobCache().refresh("test");
+        Assert.assertEquals(3, jobsCalls.get());
+        Assert.assertEquals(3, client.getJobCache().getRefreshCount());
+    }
+
+    @Test
+    public void deleteInvalidates() throws Exception {
+        client(60000);
+        client.findJob("test", null, "backup");
+        Assert.assertEquals(3, client.getJobCache().size());
+
+        client.deleteJob("job1");
+        Assert.assertEquals(2, client.getJobCache().size());
+        Assert.assertNull(client.findJob("test", null, "backup"));
+        Assert.assertEquals(1, jobsCalls.get());
+
+        client.getJobCache().invalidateProject("test");
+        Assert.assertEquals(0, client.getJobCache().size());
+        Assert.assertNotNull(client.findJob("test", null, "backup"));
+        Assert.assertEquals(2, jobsCalls.get());
+    }
+
+    @Test
+    public void deleteInvalidatesAfterTheCall() throws Exception {
+        client(200);
+        client.findJob("test", null, "backup");
+        Thread.sleep(300);
+        // the expired project is loaded again while the job is being deleted
+        onDelete = new Runnable() {
+            @Override
+            public void run() {
+                Assert.assertNotNull(client.findJob("test", null, "backup"));
+            }
+        };
+        client.deleteJob("job1");
+        Assert.assertEquals(2, jobsCalls.get());
+        Assert.assertNull(client.findJob("test", null, "backup"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTtl() throws Exception {
+        client(-1);
+    }
+}
@@ -0,0 +1,362 @@
+package org.rundeck.api;
+
+import org.rundeck.api.util.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load driver measuring a {@link RundeckClient} end to end against a {@link RundeckStubServer} : a fixed number of
+ * threads make the registered calls in turn, as fast as possible, and the driver reports the throughput, the latency
+ * percentiles of each call, the sockets opened to the server and the garbage allocated by the calling threads.
+ * <p>
+ * Run with : mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.rundeck.api.LoadDriver
+ * -Dexec.args="threads=200 duration=30 size=100 latency=5"
+ */
+public class LoadDriver {
+
+    /**
+     * A call made by the driver
+     */
+    public interface Call {
+        /**
+         * @param client    to call
+         * @param iteration number of the call, to vary the arguments
+         */
+        void call(RundeckClient client, long iteration) throws Exception;
+    }
+
+    private final RundeckStubServer server;
+    private final RundeckClient client;
+    private final int threads;
+    private final Map<String, Call> calls = new LinkedHashMap<String, Call>();
+
+    /**
+     * @param server  called by the client, to count the sockets opened
+     * @param client  to measure
+     * @param threads number of threads making the calls
+     */
+    public LoadDriver(final RundeckStubServer server, final RundeckClient client, final int threads) {
+        this.server = server;
+        this.client = client;
+        this.threads = threads;
+    }
+
+    /**
+     * Add a call, made in turn with the others
+     */
+    public LoadDriver call(final String name, final Call call) {
+        calls.put(name, call);
+        return this;
+    }
+
+    /**
+     * Add the calls of a typical monitoring client : executions, output, nodes and jobs
+     */
+    public LoadDriver defaultCalls() {
+        return call("execution", new Call() {
+            @Override
+            public void call(final RundeckClient client, final long iteration) {
+                client.getExecution(iteration % 1000 + 1);
+            }
+        }).call("running", new Call() {
+            @Override
+            public void call(final RundeckClient client, final long iteration) {
+                client.getRunningExecutions("test");
+            }
+        }).call("output", new Call() {
+            @Override
+            public void call(final RundeckClient client, final long iteration) {
+                client.getExecutionOutput(iteration % 1000 + 1, 0, 0L, 0);
+            }
+        }).call("nodes", new Call() {
+            @Override
+            public void call(final RundeckClient client, final long iteration) {
+                client.getNodes("test");
+            }
+        }).call("jobs", new Call() {
+            @Override
+            public void call(final RundeckClient client, final long iteration) {
+                client.getJobs("test");
+            }
+        });
+    }
+
+    /**
+     * Make the calls until the number of calls or the duration is reached
+     *
+     * @param maxCalls maximum number of calls, or {@link Long#MAX_VALUE}
+     * @param duration maximum duration
+     * @param unit     of the duration
+     * @return the measures
+     */
+    public Report run(final long maxCalls, final long duration, final TimeUnit unit) throws InterruptedException {
+        final List<String> names = new ArrayList<String>(calls.keySet());
+        final List<Call> callList = new ArrayList<Call>(calls.values());
+        final Map<String, LatencyHistogram> latencies = new LinkedHashMap<String, LatencyHistogram>();
+        for (String name : names) {
+            latencies.put(name, new LatencyHistogram());
+        }
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong iterations = new AtomicLong();
+        final LongAdder failures = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        final Map<String, String> errors = new HashMap<String, String>();
+        final CountDownLatch done = new CountDownLatch(threads);
+        final int connectionsBefore = server.getConnectionCount();
+        final long[] gcBefore = gcCountAndTime();
+        final long start = System.nanoTime();
+        final long deadline = start + unit.toNanos(duration);
+
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long allocatedBefore = allocatedBytes();
+                    try {
+                        long i;
+                        while ((i = iterations.getAndIncrement()) < maxCalls && System.nanoTime() < deadline) {
+                            int index = (int) (i % callList.size());
+                            long callStart = System.nanoTime();
+                            try {
+                                callList.get(index).call(client, i);
+                            } catch (Exception e) {
+                                failures.increment();
+                                synchronized (errors) {
+                                    errors.put(names.get(index), e.toString());
+                                }
+                            }
+                            long nanos = System.nanoTime() - callStart;
+                            latency.record(nanos);
+                            latencies.get(names.get(index)).record(nanos);
+                        }
+                    } finally {
+                        long allocatedAfter = allocatedBytes();
+                        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                            allocated.add(allocatedAfter - allocatedBefore);
+                        }
+                        done.countDown();
+                    }
+                }
+            }, "load-driver-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long[] gcAfter = gcCountAndTime();
+        return new Report(latency, latencies, failures.sum(), errors, elapsed,
+                          server.getConnectionCount() - connectionsBefore, allocated.sum(),
+                          gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * @return the bytes allocated by the current thread, or -1 if not supported by the JVM
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of collections and the time spent collecting, in ms, since the start of the JVM
+     */
+    private static long[] gcCountAndTime() {
+        long[] gc = new long[2];
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc[0] += Math.max(0, bean.getCollectionCount());
+            gc[1] += Math.max(0, bean.getCollectionTime());
+        }
+        return gc;
+    }
+
+    /**
+     * Measures of a run
+     */
+    public static class Report {
+        private final LatencyHistogram latency;
+        private final Map<String, LatencyHistogram> latencies;
+        private final long failures;
+        private final Map<String, String> errors;
+        private final long elapsedNanos;
+        private final int connections;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        private Report(final LatencyHistogram latency, final Map<String, LatencyHistogram> latencies,
+                final long failures, final Map<String, String> errors, final long elapsedNanos, final int connections,
+                final long allocatedBytes, final long gcCount, final long gcMillis) {
+            this.latency = latency;
+            this.latencies = latencies;
+            this.failures = failures;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.connections = connections;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * @return the number of calls made
+         */
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        /**
+         * @return the number of calls failed
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the last error of each call which failed
+         */
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return the number of calls per second
+         */
+        public double getThroughput() {
+            return getCalls() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return the durations of all the calls, in nanoseconds
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return the durations of the given call, in nanoseconds
+         */
+        public LatencyHistogram getLatency(final String call) {
+            return latencies.get(call);
+        }
+
+        /**
+         * @return the number of sockets opened to the server during the run
+         */
+        public int getConnections() {
+            return connections;
+        }
+
+        /**
+         * @return the bytes allocated by the threads making the calls, or 0 if not supported by the JVM
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return the number of garbage collections during the run
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * @return the time spent collecting garbage during the run, in ms
+         */
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%d calls in %.1f s : %.0f calls/s, %d failed%n", getCalls(),
+                                        elapsedNanos / 1e9, getThroughput(), failures));
+            report.append(String.format("%d sockets opened, %d KB allocated (%d B/call), %d GC (%d ms)%n",
+                                        connections, allocatedBytes / 1024,
+                                        allocatedBytes / Math.max(1, getCalls()), gcCount, gcMillis));
+            report.append(String.format("%-12s %10s %10s %10s %10s %10s%n", "call", "count", "p50 ms", "p90 ms",
+                                        "p99 ms", "max ms"));
+            Map<String, LatencyHistogram> rows = new LinkedHashMap<String, LatencyHistogram>(latencies);
+            rows.put("all", latency);
+            for (Map.Entry<String, LatencyHistogram> row : rows.entrySet()) {
+                LatencyHistogram histogram = row.getValue();
+                report.append(String.format("%-12s %10d %10.2f %10.2f %10.2f %10.2f%n", row.getKey(),
+                                            histogram.getCount(), histogram.getValueAtPercentile(50) / 1e6,
+                                            histogram.getValueAtPercentile(90) / 1e6,
+                                            histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6));
+            }
+            for (Map.Entry<String, String> error : errors.entrySet()) {
+                report.append("last error of ").append(error.getKey()).append(" : ").append(error.getValue())
+                      .append(String.format("%n"));
+            }
+            return report.toString();
+        }
+    }
+
+    /**
+     * Run the default calls against a stub server, with the options given as "name=value" arguments : threads (200),
+     * duration in seconds (30), warmup in seconds (5), size of the lists (100), latency of the server in ms (0),
+     * connections of the client (200), stax (false) to use the StAX parsers
+     */
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected name=value : " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        int threads = Integer.parseInt(option(options, "threads", "200"));
+        int duration = Integer.parseInt(option(options, "duration", "30"));
+        int warmup = Integer.parseInt(option(options, "warmup", "5"));
+        int size = Integer.parseInt(option(options, "size", "100"));
+        int latency = Integer.parseInt(option(options, "latency", "0"));
+        int connections = Integer.parseInt(option(options, "connections", "200"));
+        boolean stax = Boolean.parseBoolean(option(options, "stax", "false"));
+
+        RundeckStubServer server = new RundeckStubServer(threads).synthetic(14, size)
+                                                                 .latency(latency, TimeUnit.MILLISECONDS)
+                                                                 .start();
+        RundeckClient client = RundeckClient.builder()
+                                            .url(server.getUrl())
+                                            .token("abc")
+                                            .version(14)
+                                            .maxConnectionsTotal(connections)
+                                            .maxConnectionsPerRoute(connections)
+                                            .staxParsers(stax)
+                                            .build();
+        try {
+            LoadDriver driver = new LoadDriver(server, client, threads).defaultCalls();
+            System.out.printf("%d threads, %d elements per list, %d ms of latency, %d connections, stax=%s%n",
+                              threads, size, latency, connections, stax);
+            if (warmup > 0) {
+                driver.run(Long.MAX_VALUE, warmup, TimeUnit.SECONDS);
+            }
+            System.out.print(driver.run(Long.MAX_VALUE, duration, TimeUnit.SECONDS));
+        } finally {
+            client.close();
+            server.stop();
+        }
+    }
+
+    private static String option(final Map<String, String> options, final String name, final String defaultValue) {
+        String value = options.get(name);
+        return null != value ? value : defaultValue;
+    }
+}
@@ -0,0 +1,62 @@
+package org.rundeck.api;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the synthetic responses of {@link RundeckStubServer}, and a short run of the {@link LoadDriver}
+ */
+public class LoadDriverTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().synthetic(14, 25).latency(1, TimeUnit.MILLISECONDS).start();
+        client = RundeckClient.builder()
+                              .url(server.getUrl())
+                              .token("abc")
+                              .version(14)
+                              .maxConnectionsTotal(4)
+                              .maxConnectionsPerRoute(4)
+                              .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void syntheticResponses() {
+        Assert.assertEquals(Long.valueOf(42), client.getExecution(42L).getId());
+        Assert.assertEquals(25, client.getRunningExecutions("test").size());
+        Assert.assertEquals(25, client.getExecutionOutput(42L, 0, 0L, 0).getLogEntries().size());
+        Assert.assertEquals(25, client.getNodes("test").size());
+        Assert.assertEquals(25, client.getJobs("test").size());
+        try {
+            client.getProject("test");
+            Assert.fail("should have failed");
+        } catch (RundeckApiException e) {
+            // not served
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        LoadDriver.Report report = new LoadDriver(server, client, 8).defaultCalls().run(400, 1, TimeUnit.MINUTES);
+
+        Assert.assertEquals(report.getErrors().toString(), 0, report.getFailures());
+        Assert.assertEquals(400, report.getCalls());
+        Assert.assertEquals(400, server.getRequestCount());
+        Assert.assertEquals(80, report.getLatency("nodes").getCount());
+        Assert.assertTrue(report.getLatency().getValueAtPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertTrue(report.getThroughput() > 0);
+        Assert.assertTrue(report.getConnections() <= 4);
+    }
+}
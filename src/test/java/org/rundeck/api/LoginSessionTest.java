@@ -0,0 +1,127 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckProject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the login session shared by the API calls in case of login-based authentication
+ */
+public class LoginSessionTest {
+    private static final String PROJECTS = "<projects count='1'><project><name>test</name></project></projects>";
+
+    private RundeckStubServer server;
+    private volatile boolean forbidden;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer(32).formLogin();
+        server.handle("/api/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (forbidden) {
+                    RundeckStubServer.respond(exchange, 403, "text/html", "forbidden");
+                } else {
+                    RundeckStubServer.respond(exchange, 200, "text/xml", PROJECTS);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private RundeckClient createClient() {
+        return RundeckClient.builder().url(server.getUrl()).login("admin", "admin").version(14).build();
+    }
+
+    @Test
+    public void loginOnce() throws Exception {
+        RundeckClient client = createClient();
+        try {
+            for (int i = 0; i < 10; i++) {
+                List<RundeckProject> projects = client.getProjects();
+                Assert.assertEquals(1, projects.size());
+            }
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(1, server.getLoginCount());
+    }
+
+    @Test
+    public void loginAgainWhenExpired() throws Exception {
+        RundeckClient client = createClient();
+        try {
+            client.getProjects();
+            server.expireSessions();
+            Assert.assertEquals(1, client.getProjects().size());
+            Assert.assertEquals(1, client.getProjects().size());
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+
+    @Test
+    public void forbiddenRetriedOnce() throws Exception {
+        RundeckClient client = createClient();
+        try {
+            client.getProjects();
+            forbidden = true;
+            client.getProjects();
+            Assert.fail("expected failure");
+        } catch (RundeckApiException.RundeckApiHttpStatusException e) {
+            Assert.assertEquals(403, e.getStatusCode());
+        } finally {
+            client.close();
+        }
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+
+    @Test
+    public void concurrentExpiryLoginOnce() throws Exception {
+        final RundeckClient client = createClient();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            client.getProjects();
+            server.expireSessions();
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<RundeckProject>>> results = new ArrayList<Future<List<RundeckProject>>>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<List<RundeckProject>>() {
+                    @Override
+                    public List<RundeckProject> call() throws Exception {
+                        start.await();
+                        return client.getProjects();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<List<RundeckProject>> result : results) {
+                Assert.assertEquals(1, result.get(30, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+        Assert.assertEquals(2, server.getLoginCount());
+    }
+}
@@ -0,0 +1,200 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the nodes answered by the {@link NodeInventory} of a client
+ */
+public class NodeInventoryTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** hostname of the nodes, by name */
+    private final Map<String, String> hostnames = new ConcurrentSkipListMap<String, String>();
+    private final AtomicInteger resourcesCalls = new AtomicInteger();
+    private volatile int status = 200;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/project/test/resources", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                resourcesCalls.incrementAndGet();
+                StringBuilder xml = new StringBuilder("<project>");
+                for (Map.Entry<String, String> entry : hostnames.entrySet()) {
+                    xml.append("<node name='").append(entry.getKey()).append("' hostname='")
+                       .append(entry.getValue()).append("' tags='web,prod'/>");
+                }
+                RundeckStubServer.respond(exchange, status, "text/xml", xml.append("</project>").toString());
+            }
+        }).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        server.stop();
+    }
+
+    private RundeckClient client(final long interval) {
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14)
+                              .nodeInventoryRefreshInterval(interval, TimeUnit.MILLISECONDS).build();
+        return client;
+    }
+
+    @Test
+    public void loadedOnce() throws Exception {
+        hostnames.put("node1", "host1");
+        hostnames.put("node2", "host2");
+        client(60000);
+
+        NodeInventory inventory = client.getNodeInventory("test");
+        Assert.assertSame(inventory, client.getNodeInventory("test"));
+        Assert.assertEquals(2, inventory.size());
+        Assert.assertEquals("host2", inventory.getNode("node2").getHostname());
+        Assert.assertNull(inventory.getNode("node3"));
+        Assert.assertEquals(1, inventory.getVersion());
+        Assert.assertEquals(1, resourcesCalls.get());
+
+        List<RundeckNode> nodes = inventory.getNodes(new NodeFiltersBuilder().tags("web").excludeName("node1")
+                                                                              .toProperties());
+        Assert.assertEquals(1, nodes.size());
+        Assert.assertEquals("node2", nodes.get(0).getName());
+        Assert.assertEquals(1, resourcesCalls.get());
+    }
+
+    @Test
+    public void refreshKeepsUnchangedNodes() throws Exception {
+        hostnames.put("node1", "host1");
+        hostnames.put("node2", "host2");
+        client(60000);
+        NodeInventory inventory = client.getNodeInventory("test");
+        RundeckNode node1 = inventory.getNode("node1");
+
+        Assert.assertFalse(inventory.refresh());
+        Assert.assertEquals(1, inventory.getVersion());
+
+        hostnames.put("node2", "host2b");
+        hostnames.put("node3", "host3");
+        Assert.assertTrue(inventory.refresh());
+        Assert.assertEquals(2, inventory.getVersion());
+        Assert.assertEquals(3, inventory.size());
+        Assert.assertSame(node1, inventory.getNode("node1"));
+        Assert.assertEquals("host2b", inventory.getNode("node2").getHostname());
+
+        hostnames.remove("node1");
+        Assert.assertTrue(inventory.refresh());
+        Assert.assertNull(inventory.getNode("node1"));
+        Assert.assertEquals(4, inventory.getRefreshCount());
+    }
+
+    @Test
+    public void refreshedInBackground() throws Exception {
+        hostnames.put("node1", "host1");
+        client(20);
+        NodeInventory inventory = client.getNodeInventory("test");
+        hostnames.put("node2", "host2");
+        long deadline = System.currentTimeMillis() + 10000;
+        while (null == inventory.getNode("node2") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(inventory.getNode("node2"));
+    }
+
+    @Test
+    public void failedRefreshKeepsSnapshot() throws Exception {
+        hostnames.put("node1", "host1");
+        client(60000);
+        NodeInventory inventory = client.getNodeInventory("test");
+        status = 500;
+        try {
+            inventory.refresh();
+            Assert.fail("refresh should have failed");
+        } catch (RundeckApiException e) {
+            Assert.assertSame(e, inventory.getLastError());
+        }
+        Assert.assertEquals(1, inventory.getFailureCount());
+        Assert.assertEquals("host1", inventory.getNode("node1").getHostname());
+    }
+
+    @Test
+    public void unexpectedErrorKeepsRefreshing() throws Exception {
+        hostnames.put("node1", "host1");
+        final AtomicInteger calls = new AtomicInteger();
+        RundeckClientBuilder builder = RundeckClient.builder().url(server.getUrl()).token("abc").version(14)
+                                                    .nodeInventoryRefreshInterval(20, TimeUnit.MILLISECONDS);
+        client = new RundeckClient(new RundeckClientConfig(builder)) {
+            @Override
+            public List<RundeckNode> getNodes(final String project) {
+                if (calls.incrementAndGet() == 2) {
+                    throw new NullPointerException("unexpected");
+                }
+                return super.getNodes(project);
+            }
+        };
+        NodeInventory inventory = client.getNodeInventory("test");
+        hostnames.put("node2", "host2");
+        long deadline = System.currentTimeMillis() + 10000;
+        while (null == inventory.getNode("node2") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(inventory.getNode("node2"));
+        Assert.assertTrue(calls.get() >= 3);
+        Assert.assertEquals(1, inventory.getFailureCount());
+    }
+
+    @Test
+    public void afterDeserialization() throws Exception {
+        hostnames.put("node1", "host1");
+        client(60000).getNodeInventory("test");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(client);
+        out.close();
+        RundeckClient copy = (RundeckClient) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+        try {
+            NodeInventory inventory = copy.getNodeInventory("test");
+            Assert.assertEquals("host1", inventory.getNode("node1").getHostname());
+            Assert.assertSame(inventory, copy.getNodeInventory("test"));
+            Assert.assertEquals(2, resourcesCalls.get());
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void closedAfterDeserialization() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(client(60000));
+        out.close();
+        RundeckClient copy = (RundeckClient) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+        copy.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInterval() throws Exception {
+        client(0);
+    }
+}
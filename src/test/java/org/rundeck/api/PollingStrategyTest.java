@@ -0,0 +1,96 @@
+package org.rundeck.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckJob;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the delays of the {@link PollingStrategy} implementations
+ */
+public class PollingStrategyTest {
+
+    private static RundeckExecution execution(final long averageDuration) {
+        RundeckJob job = new RundeckJob();
+        job.setAverageDuration(averageDuration);
+        RundeckExecution execution = new RundeckExecution();
+        execution.setJob(job);
+        return execution;
+    }
+
+    @Test
+    public void fixed() {
+        PollingStrategy strategy = new FixedPollingStrategy(5, TimeUnit.SECONDS);
+        Assert.assertEquals(5000, strategy.nextDelay(execution(200), 0));
+        Assert.assertEquals(5000, strategy.nextDelay(new RundeckExecution(), 60000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fixedInvalidInterval() {
+        new FixedPollingStrategy(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void adaptiveDenserNearExpectedEnd() {
+        PollingStrategy strategy = new AdaptivePollingStrategy(100, 600000, TimeUnit.MILLISECONDS);
+        RundeckExecution execution = execution(7200000);
+        Assert.assertEquals(3600000 / 6, strategy.nextDelay(execution, 0));
+        Assert.assertEquals(600000, strategy.nextDelay(execution, 1200000));
+        Assert.assertEquals(30000, strategy.nextDelay(execution, 7140000));
+        Assert.assertEquals(100, strategy.nextDelay(execution, 7199900));
+    }
+
+    @Test
+    public void adaptiveBackoffAfterExpectedEnd() {
+        PollingStrategy strategy = new AdaptivePollingStrategy(100, 60000, TimeUnit.MILLISECONDS);
+        RundeckExecution execution = execution(200);
+        Assert.assertEquals(100, strategy.nextDelay(execution, 0));
+        Assert.assertEquals(100, strategy.nextDelay(execution, 200));
+        Assert.assertEquals(200, strategy.nextDelay(execution, 400));
+        Assert.assertEquals(400, strategy.nextDelay(execution, 600));
+        Assert.assertEquals(800, strategy.nextDelay(execution, 1000));
+        Assert.assertEquals(60000, strategy.nextDelay(execution, 3600000));
+    }
+
+    @Test
+    public void adaptiveUnknownDuration() {
+        PollingStrategy strategy = new AdaptivePollingStrategy();
+        Assert.assertEquals(100, strategy.nextDelay(new RundeckExecution(), 0));
+        Assert.assertEquals(1000, strategy.nextDelay(new RundeckExecution(), 1000));
+        Assert.assertEquals(2000, strategy.nextDelay(execution(-1), 2000));
+        Assert.assertEquals(60000, strategy.nextDelay(execution(-1), 120000));
+    }
+
+    /**
+     * Checks for a job of 2 hours, finished on time
+     */
+    @Test
+    public void adaptiveLongJobChecks() {
+        PollingStrategy strategy = new AdaptivePollingStrategy();
+        RundeckExecution execution = execution(7200000);
+        int checks = 0;
+        for (long elapsed = 0; elapsed < 7200000; elapsed += strategy.nextDelay(execution, elapsed)) {
+            checks++;
+        }
+        Assert.assertTrue("checks : " + checks, checks < 140);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveInvalidIntervals() {
+        new AdaptivePollingStrategy(1000, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void builders() {
+        PollingStrategy strategy = new AdaptivePollingStrategy();
+        Assert.assertSame(strategy, RunJobBuilder.builder().setJobId("1").setPollingStrategy(strategy).build()
+                                                 .getPollingStrategy());
+        Assert.assertNull(RunJobBuilder.builder().setJobId("1").build().getPollingStrategy());
+        Assert.assertSame(strategy, RunAdhocCommandBuilder.builder().setPollingStrategy(strategy).build()
+                                                          .getPollingStrategy());
+        RunAdhocScript script = RunAdhocScriptBuilder.builder().setPollingStrategy(strategy).build();
+        Assert.assertSame(strategy, RunAdhocScriptBuilder.builder(script).build().getPollingStrategy());
+    }
+}
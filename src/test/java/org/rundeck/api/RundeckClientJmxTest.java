@@ -0,0 +1,121 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.util.RateMeter;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Test the statistics of a client exposed over JMX by {@link RundeckClientJmx}
+ */
+public class RundeckClientJmxTest {
+    private static final String EXECUTION = "<executions><execution id='42' status='succeeded' project='test'>"
+                                            + "<user>admin</user></execution></executions>";
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private RundeckStubServer rundeck;
+    private RundeckClient client;
+    private ObjectName name;
+
+    @Before
+    public void setUp() throws Exception {
+        rundeck = new RundeckStubServer().xml("/api/14/execution/", EXECUTION)
+                                         .handle("/api/14/project/broken/jobs", new HttpHandler() {
+                                             @Override
+                                             public void handle(final HttpExchange exchange) throws IOException {
+                                                 RundeckStubServer.respond(exchange, 500, "text/xml", "<error/>");
+                                             }
+                                         }).start();
+        client = RundeckClient.builder().url(rundeck.getUrl()).token("abc").version(14).jmxName("test").build();
+        name = new ObjectName(RundeckClientJmx.DOMAIN + ":type=RundeckClient,name=\"test\"");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        rundeck.stop();
+    }
+
+    @Test
+    public void statistics() throws Exception {
+        client.getExecution(42L);
+        client.getExecution(43L);
+        try {
+            client.getJobs("broken");
+            Assert.fail("should have failed");
+        } catch (RundeckApiException e) {
+            // expected
+        }
+
+        Assert.assertEquals(rundeck.getUrl(), server.getAttribute(name, "Url"));
+        Assert.assertEquals(3L, server.getAttribute(name, "RequestCount"));
+        Assert.assertEquals(1L, server.getAttribute(name, "FailureCount"));
+        Assert.assertEquals(0, server.getAttribute(name, "InFlightRequests"));
+        Assert.assertEquals(2L * EXECUTION.length(), server.getAttribute(name, "BytesReceived"));
+        Assert.assertEquals(-1, server.getAttribute(name, "JobCacheSize"));
+
+        TabularData errors = (TabularData) server.getAttribute(name, "ErrorCounts");
+        CompositeData error = errors.get(new Object[] { "RundeckApiHttpStatusException" });
+        Assert.assertEquals(1L, error.get("value"));
+
+        TabularData endpoints = (TabularData) server.getAttribute(name, "Endpoints");
+        Assert.assertEquals(2, endpoints.size());
+        CompositeData execution = (CompositeData) endpoints.get(new Object[] { "GET /execution/{id}" }).get("value");
+        Assert.assertEquals(2L, execution.get("callCount"));
+        Assert.assertEquals(0L, execution.get("failureCount"));
+        Assert.assertTrue((Double) execution.get("p99Millis") > 0);
+        Assert.assertTrue((Double) execution.get("p99Millis") >= (Double) execution.get("p50Millis"));
+
+        server.invoke(name, "resetStatistics", null, null);
+        Assert.assertEquals(0L, server.getAttribute(name, "RequestCount"));
+        Assert.assertEquals(0, ((TabularData) server.getAttribute(name, "ErrorCounts")).size());
+    }
+
+    @Test
+    public void duplicateName() {
+        try {
+            RundeckClient.builder().url(rundeck.getUrl()).token("abc").jmxName("test").build();
+            Assert.fail("should have failed");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertTrue(server.isRegistered(name));
+    }
+
+    @Test
+    public void notRegisteredByDefault() throws Exception {
+        ObjectName all = new ObjectName(RundeckClientJmx.DOMAIN + ":type=RundeckClient,*");
+        int registered = server.queryNames(all, null).size();
+        RundeckClient first = RundeckClient.builder().url(rundeck.getUrl()).token("abc").build();
+        RundeckClient second = RundeckClient.builder().url(rundeck.getUrl()).token("abc").build();
+        try {
+            Assert.assertEquals(registered, server.queryNames(all, null).size());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void unregisteredOnClose() throws Exception {
+        Assert.assertTrue(server.isRegistered(name));
+        client.close();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void rateStartsAtZero() {
+        RateMeter meter = new RateMeter();
+        meter.mark();
+        Assert.assertEquals(0, meter.getRate(), 0);
+    }
+}
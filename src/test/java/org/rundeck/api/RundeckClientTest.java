@@ -70,12 +70,9 @@ public class RundeckClientTest {
         RundeckClient blah = createClient("blah", 0);
         Assert.assertEquals("/api/" + RundeckClient.API_VERSION, blah.getApiEndpoint());
         Assert.assertEquals(RundeckClient.API_VERSION, blah.getApiVersion());
-        blah.setApiVersion(0);
-        Assert.assertEquals(RundeckClient.API_VERSION, blah.getApiVersion());
-        blah.setApiVersion(-1);
-        Assert.assertEquals(RundeckClient.API_VERSION, blah.getApiVersion());
-        blah.setApiVersion(RundeckClient.Version.V9.getVersionNumber());
-        Assert.assertEquals(RundeckClient.Version.V9.getVersionNumber(), blah.getApiVersion());
+        Assert.assertEquals(RundeckClient.API_VERSION, createClient("blah", -1).getApiVersion());
+        Assert.assertEquals(RundeckClient.Version.V9.getVersionNumber(),
+                            createClient("blah", RundeckClient.Version.V9.getVersionNumber()).getApiVersion());
     }
     @Test
     @Betamax(tape = "get_projects", mode = TapeMode.READ_ONLY)
@@ -0,0 +1,177 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress the thread-safety contract of {@link RundeckClient} : immutable settings, visible to any thread however the
+ * client is shared, and a login credential replaced atomically when the session is renewed
+ */
+public class RundeckClientThreadSafetyTest {
+    private static final int THREADS = 16;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private RundeckStubServer server;
+    /** shared without synchronization on purpose */
+    private RundeckClient shared;
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (null != server) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void settingsVisibleWithoutSynchronization() throws Exception {
+        final int clients = 5000;
+        final AtomicInteger published = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(THREADS - 1);
+        List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            readers.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    started.countDown();
+                    int seen = 0;
+                    while (published.get() < clients) {
+                        RundeckClient client = shared;
+                        if (null != client) {
+                            Assert.assertEquals("http://rundeck.local:4440", client.getUrl());
+                            Assert.assertTrue(client.getToken().startsWith("token-"));
+                            Assert.assertNull(client.getLogin());
+                            Assert.assertEquals(14, client.getApiVersion());
+                            Assert.assertEquals(7, client.getMaxConnectionsTotal());
+                            Assert.assertTrue(client.isStaxParsers());
+                            Assert.assertEquals(42, client.getExecutionCacheSize());
+                            seen++;
+                        }
+                    }
+                    return seen;
+                }
+            }));
+        }
+        Assert.assertTrue(started.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < clients; i++) {
+            shared = RundeckClient.builder()
+                                  .url("http://rundeck.local:4440")
+                                  .token("token-" + i)
+                                  .version(14)
+                                  .maxConnectionsTotal(7)
+                                  .staxParsers(true)
+                                  .executionCacheSize(42)
+                                  .build();
+            published.incrementAndGet();
+        }
+        int seen = 0;
+        for (Future<Integer> reader : readers) {
+            seen += reader.get(30, TimeUnit.SECONDS);
+        }
+        // the readers raced with the publication of the clients
+        Assert.assertTrue(seen > 0);
+    }
+
+    @Test
+    public void sharedTokenClient() throws Exception {
+        final AtomicInteger unauthorized = new AtomicInteger();
+        server = new RundeckStubServer(THREADS).handle("/api/14/execution/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                if (!"secret".equals(exchange.getRequestHeaders().getFirst("X-Rundeck-Auth-Token"))) {
+                    unauthorized.incrementAndGet();
+                    RundeckStubServer.respond(exchange, 403, "text/html", "forbidden");
+                } else {
+                    RundeckStubServer.respond(exchange, 200, "text/xml", RundeckStubServer.executionsXml(1));
+                }
+            }
+        }).start();
+        shared = RundeckClient.builder()
+                              .url(server.getUrl())
+                              .token("secret")
+                              .version(14)
+                              .maxConnectionsTotal(THREADS)
+                              .maxConnectionsPerRoute(THREADS)
+                              .build();
+        try {
+            LoadDriver.Report report = new LoadDriver(server, shared, THREADS).call("execution", new LoadDriver.Call() {
+                @Override
+                public void call(final RundeckClient client, final long iteration) {
+                    client.getExecution(iteration + 1);
+                }
+            }).run(THREADS * 50, 1, TimeUnit.MINUTES);
+
+            Assert.assertEquals(report.getErrors().toString(), 0, report.getFailures());
+            Assert.assertEquals(THREADS * 50, report.getCalls());
+            Assert.assertEquals(0, unauthorized.get());
+            Assert.assertTrue(report.getConnections() <= THREADS);
+        } finally {
+            shared.close();
+        }
+    }
+
+    @Test
+    public void sessionRenewedWhileShared() throws Exception {
+        final int rounds = 10;
+        server = new RundeckStubServer(THREADS).formLogin()
+                                               .xml("/api/14/execution/", RundeckStubServer.executionsXml(1))
+                                               .start();
+        final RundeckClient client = RundeckClient.builder()
+                                                  .url(server.getUrl())
+                                                  .login("admin", "admin")
+                                                  .version(14)
+                                                  .maxConnectionsTotal(THREADS)
+                                                  .maxConnectionsPerRoute(THREADS)
+                                                  .build();
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS, new Runnable() {
+            @Override
+            public void run() {
+                // all the callers are idle : the next calls find the session expired
+                server.expireSessions();
+            }
+        });
+        try {
+            List<Future<Void>> callers = new ArrayList<Future<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                callers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        long generation = 0;
+                        for (int round = 0; round < rounds; round++) {
+                            for (int i = 0; i < 10; i++) {
+                                Assert.assertEquals(Long.valueOf(1), client.getExecution(1L).getId());
+                                LoginSession.Credential credential = client.getCurrentLoginSession().getCredential();
+                                Assert.assertTrue(credential.getGeneration() >= generation);
+                                generation = credential.getGeneration();
+                            }
+                            barrier.await(30, TimeUnit.SECONDS);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> caller : callers) {
+                caller.get(1, TimeUnit.MINUTES);
+            }
+            Assert.assertEquals(rounds, server.getLoginCount());
+            Assert.assertEquals(rounds, client.getCurrentLoginSession().getGeneration());
+        } finally {
+            client.close();
+        }
+    }
+}
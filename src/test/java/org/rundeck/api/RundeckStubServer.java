@@ -0,0 +1,345 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process HTTP server standing in for a Rundeck instance, for tests which need a live socket (connection
+ * reuse, login sessions, concurrency) rather than a recorded betamax tape.
+ */
+public class RundeckStubServer {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Pattern EXECUTION = Pattern.compile("/execution/\\d+");
+    private static final Pattern OUTPUT = Pattern.compile("/execution/\\d+/output");
+    private static final Pattern EXECUTIONS = Pattern.compile("/project/[^/]+/executions(/running)?");
+    private static final Pattern NODES = Pattern.compile("/project/[^/]+/resources");
+    private static final Pattern JOBS = Pattern.compile("/project/[^/]+/jobs");
+
+    static {
+        // without it, small responses on a kept-alive connection are delayed by the ack of the previous one
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<InetSocketAddress> connections =
+            Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+    private final AtomicInteger logins = new AtomicInteger();
+    private final Set<String> sessions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile boolean loginRequired;
+    private volatile long latencyNanos;
+    /** run before answering each login, or null */
+    private volatile Runnable loginHook;
+
+    public RundeckStubServer() throws IOException {
+        this(16);
+    }
+
+    public RundeckStubServer(final int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Serve the given XML content for all requests under the path
+     */
+    public RundeckStubServer xml(final String path, final String content) {
+        return handle(path, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, 200, "text/xml", content);
+            }
+        });
+    }
+
+    /**
+     * Serve the content of a classpath resource (relative to this class) for all requests under the path
+     */
+    public RundeckStubServer resource(final String path, final String resource) throws IOException {
+        InputStream input = getClass().getResourceAsStream(resource);
+        try {
+            return xml(path, IOUtils.toString(input, "UTF-8"));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Serve synthetic responses for the API calls of the given version, each list holding the given number of
+     * elements :
+     * <ul>
+     * <li>/execution/{id} : an execution</li>
+     * <li>/execution/{id}/output : the output of an execution, with "size" entries</li>
+     * <li>/project/{project}/executions and /project/{project}/executions/running : "size" executions</li>
+     * <li>/project/{project}/resources : "size" nodes</li>
+     * <li>/project/{project}/jobs : "size" jobs</li>
+     * </ul>
+     * Other requests get a 404 response.
+     */
+    public RundeckStubServer synthetic(final int version, final int size) {
+        final String prefix = "/api/" + version;
+        final String output = outputXml(size);
+        final String executions = executionsXml(size);
+        final String nodes = nodesXml(size);
+        final String jobs = jobsXml(size);
+        return handle(prefix + "/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath().substring(prefix.length());
+                if (EXECUTION.matcher(path).matches()) {
+                    long id = Long.parseLong(path.substring("/execution/".length()));
+                    respond(exchange, 200, "text/xml", "<executions count='1'>"
+                                                       + appendExecution(new StringBuilder(), id) + "</executions>");
+                } else if (OUTPUT.matcher(path).matches()) {
+                    respond(exchange, 200, "text/xml", output);
+                } else if (EXECUTIONS.matcher(path).matches()) {
+                    respond(exchange, 200, "text/xml", executions);
+                } else if (NODES.matcher(path).matches()) {
+                    respond(exchange, 200, "text/xml", nodes);
+                } else if (JOBS.matcher(path).matches()) {
+                    respond(exchange, 200, "text/xml", jobs);
+                } else {
+                    respond(exchange, 404, "text/xml", "<result error='true'><error><message>Not found : " + path
+                                                       + "</message></error></result>");
+                }
+            }
+        });
+    }
+
+    /**
+     * Delay each response, to simulate the processing time and the network latency of a Rundeck instance
+     */
+    public RundeckStubServer latency(final long latency, final TimeUnit unit) {
+        latencyNanos = unit.toNanos(latency);
+        return this;
+    }
+
+    /**
+     * @return a list of executions, as returned by /project/{project}/executions
+     */
+    static String executionsXml(final int count) {
+        StringBuilder xml = new StringBuilder("<executions count='").append(count).append("'>");
+        for (int i = 1; i <= count; i++) {
+            appendExecution(xml, i);
+        }
+        return xml.append("</executions>").toString();
+    }
+
+    private static StringBuilder appendExecution(final StringBuilder xml, final long id) {
+        return xml.append("<execution id='").append(id).append("' href='http://localhost:4440/execution/follow/")
+                  .append(id).append("' status='succeeded' project='test'>")
+                  .append("<user>admin</user>")
+                  .append("<date-started unixtime='1308322895104'>2011-06-17T15:01:35Z</date-started>")
+                  .append("<date-ended unixtime='1308322959420'>2011-06-17T15:02:39Z</date-ended>")
+                  .append("<job id='job-").append(id % 50).append("' averageDuration='1200'><name>job")
+                  .append(id % 50).append("</name><group>system</group><project>test</project>")
+                  .append("<description>list files</description></job>")
+                  .append("<description>ls ${option.dir}</description><argstring>-dir /tmp</argstring>")
+                  .append("<successfulNodes><node name='node1'/><node name='node2'/></successfulNodes>")
+                  .append("</execution>");
+    }
+
+    /**
+     * @return the output of an execution, as returned by /execution/{id}/output
+     */
+    static String outputXml(final int count) {
+        StringBuilder xml = new StringBuilder("<output><id>1</id><offset>").append(count * 100)
+                .append("</offset><completed>true</completed><execCompleted>true</execCompleted>")
+                .append("<hasFailedNodes>false</hasFailedNodes><execState>succeeded</execState>")
+                .append("<lastModified>1389894504000</lastModified><execDuration>1602</execDuration>")
+                .append("<totalSize>").append(count * 100).append("</totalSize><entries>");
+        for (int i = 1; i <= count; i++) {
+            xml.append("<entry time='09:48:23' absolute_time='2014-01-16T17:48:23Z' log='line ").append(i)
+               .append(" of the output' level='NORMAL' user='admin' command='' stepctx='1' node='node")
+               .append(i % 10).append("'/>");
+        }
+        return xml.append("</entries></output>").toString();
+    }
+
+    /**
+     * @return the nodes of a project, as returned by /project/{project}/resources
+     */
+    static String nodesXml(final int count) {
+        StringBuilder xml = new StringBuilder("<project>");
+        for (int i = 1; i <= count; i++) {
+            xml.append("<node name='node").append(i).append("' type='Node' description='node ").append(i)
+               .append("' tags='").append(i % 2 == 0 ? "web" : "db").append(",prod' hostname='node").append(i)
+               .append(".example.com' osArch='amd64' osFamily='unix' osName='Linux' osVersion='4.4.0'")
+               .append(" username='rundeck'/>");
+        }
+        return xml.append("</project>").toString();
+    }
+
+    /**
+     * @return the jobs of a project, as returned by /project/{project}/jobs
+     */
+    static String jobsXml(final int count) {
+        StringBuilder xml = new StringBuilder("<jobs count='").append(count).append("'>");
+        for (int i = 1; i <= count; i++) {
+            xml.append("<job id='job-").append(i).append("'><name>job").append(i)
+               .append("</name><group>system</group><project>test</project>")
+               .append("<description>list files</description></job>");
+        }
+        return xml.append("</jobs>").toString();
+    }
+
+    /**
+     * Require a login session for the API requests, and serve the login page and form like a Rundeck instance : API
+     * requests without a valid JSESSIONID cookie are redirected to the login page
+     */
+    public RundeckStubServer formLogin() {
+        loginRequired = true;
+        handle("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, 200, "text/html", "<form action='j_security_check'></form>");
+            }
+        });
+        handle("/j_security_check", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                Runnable hook = loginHook;
+                if (null != hook) {
+                    hook.run();
+                }
+                String session = "session" + logins.incrementAndGet();
+                sessions.add(session);
+                exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=" + session + ";Path=/");
+                exchange.getResponseHeaders().add("Location", getUrl() + "/menu/home");
+                respond(exchange, 302, null, null);
+            }
+        });
+        handle("/menu/home", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, 200, "text/html", "home");
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Run the given hook before answering each login (such as to hold the login), on the thread of the server
+     */
+    public RundeckStubServer onLogin(final Runnable hook) {
+        this.loginHook = hook;
+        return this;
+    }
+
+    /**
+     * Invalidate all the login sessions
+     */
+    public void expireSessions() {
+        sessions.clear();
+    }
+
+    /**
+     * @return number of successful logins
+     */
+    public int getLoginCount() {
+        return logins.get();
+    }
+
+    private boolean isLoggedIn(final HttpExchange exchange) {
+        String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+        return null != cookie && sessions.contains(cookie.replaceAll(".*JSESSIONID=([^;]*).*", "$1"));
+    }
+
+    /**
+     * Serve requests under the path with the given handler
+     */
+    public RundeckStubServer handle(final String path, final HttpHandler handler) {
+        server.createContext(path, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                connections.add(exchange.getRemoteAddress());
+                try {
+                    // read the whole request, otherwise the connection is not kept alive
+                    IOUtils.copy(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM);
+                    if (latencyNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(latencyNanos);
+                    }
+                    if (loginRequired && path.startsWith("/api/") && !isLoggedIn(exchange)) {
+                        exchange.getResponseHeaders().add("Location", getUrl() + "/user/login");
+                        respond(exchange, 302, null, null);
+                        return;
+                    }
+                    handler.handle(exchange);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Write a complete response
+     */
+    public static void respond(final HttpExchange exchange, final int status, final String contentType,
+            final String content) throws IOException {
+        byte[] bytes = null != content ? content.getBytes(UTF8) : new byte[0];
+        if (null != contentType) {
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            OutputStream body = exchange.getResponseBody();
+            body.write(bytes);
+            body.close();
+        }
+    }
+
+    public RundeckStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return base url of the server, eg. "http://127.0.0.1:12345"
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return number of requests served
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of distinct client sockets seen
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+}
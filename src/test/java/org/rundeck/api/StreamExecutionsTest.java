@@ -0,0 +1,150 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.query.ExecutionQuery;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test the executions streamed page by page by {@link RundeckClient#streamExecutions(ExecutionQuery, int, boolean)}
+ */
+public class StreamExecutionsTest {
+    private static final int TOTAL = 23;
+
+    private RundeckStubServer server;
+    private RundeckClient client;
+    private final AtomicInteger pages = new AtomicInteger();
+    private volatile boolean withTotal = true;
+    /** executions started between two pages */
+    private volatile int started;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/project/test/executions", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                int total = TOTAL + (pages.incrementAndGet() - 1) * started;
+                int max = intParam(exchange, "max");
+                int offset = intParam(exchange, "offset");
+                StringBuilder xml = new StringBuilder("<executions count='0' offset='" + offset + "' max='" + max + "'");
+                xml.append(withTotal ? " total='" + total + "'>" : ">");
+                for (int i = offset; i < Math.min(total, offset + max); i++) {
+                    xml.append("<execution id='").append(i + 1).append("' status='succeeded'/>");
+                }
+                xml.append("</executions>");
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.toString());
+            }
+        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    private static int intParam(final HttpExchange exchange, final String name) {
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            if (param.startsWith(name + "=")) {
+                return Integer.parseInt(param.substring(name.length() + 1));
+            }
+        }
+        return 0;
+    }
+
+    private static ExecutionQuery query() {
+        return ExecutionQuery.builder().project("test").build();
+    }
+
+    private static List<Long> ids(final Stream<RundeckExecution> executions) {
+        try {
+            return executions.map(RundeckExecution::getId).collect(Collectors.toList());
+        } finally {
+            executions.close();
+        }
+    }
+
+    private static void assertAllExecutions(final List<Long> ids) {
+        Assert.assertEquals(TOTAL, ids.size());
+        for (int i = 0; i < TOTAL; i++) {
+            Assert.assertEquals(Long.valueOf(i + 1), ids.get(i));
+        }
+    }
+
+    @Test
+    public void streamAllPages() {
+        assertAllExecutions(ids(client.streamExecutions(query(), 5)));
+        Assert.assertEquals(5, pages.get());
+    }
+
+    @Test
+    public void streamWithPrefetch() {
+        assertAllExecutions(ids(client.streamExecutions(query(), 5, true)));
+        Assert.assertEquals(5, pages.get());
+    }
+
+    @Test
+    public void totalOfTheFirstPage() {
+        started = 5;
+        assertAllExecutions(ids(client.streamExecutions(query(), 10)));
+        Assert.assertEquals(3, pages.get());
+    }
+
+    @Test
+    public void streamWithoutTotal() {
+        withTotal = false;
+        assertAllExecutions(ids(client.streamExecutions(query(), 5)));
+        Assert.assertEquals(5, pages.get());
+    }
+
+    @Test
+    public void streamExactPagesWithoutTotal() {
+        withTotal = false;
+        // the last page is full, so an empty page is needed to know the end
+        Assert.assertEquals(TOTAL, ids(client.streamExecutions(query(), 23)).size());
+        Assert.assertEquals(2, pages.get());
+    }
+
+    @Test
+    public void pagesFetchedOnDemand() {
+        Iterator<RundeckExecution> executions = client.streamExecutions(query(), 10).iterator();
+        Assert.assertEquals(0, pages.get());
+        for (int i = 0; i < 10; i++) {
+            executions.next();
+        }
+        Assert.assertEquals(1, pages.get());
+        executions.next();
+        Assert.assertEquals(2, pages.get());
+    }
+
+    @Test
+    public void closeWithPendingPrefetch() throws Exception {
+        Stream<RundeckExecution> executions = client.streamExecutions(query(), 5, true);
+        Assert.assertEquals(Long.valueOf(1), executions.iterator().next().getId());
+        executions.close();
+        Assert.assertTrue(pages.get() <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPageSize() {
+        client.streamExecutions(query(), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedClient() throws Exception {
+        client.close();
+        client.getScheduler();
+    }
+}
@@ -0,0 +1,116 @@
+package org.rundeck.api;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckNode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the XML responses parsed straight from the network stream
+ */
+public class StreamingResponsesTest {
+    private static final int NODES = 5000;
+
+    private RundeckStubServer server;
+    private RundeckClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder nodes = new StringBuilder("<project>");
+        for (int i = 0; i < NODES; i++) {
+            nodes.append("<node name='node").append(i).append("' hostname='host").append(i)
+                 .append(".local' tags='dev,web' osFamily='unix' username='rundeck'/>");
+        }
+        nodes.append("</project>");
+        server = new RundeckStubServer()
+                .xml("/api/14/project/test/resources", nodes.toString())
+                .xml("/api/14/jobs/export", "<result error='true'><error><message>no project</message></error></result>")
+                .start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != client) {
+            client.close();
+        }
+        server.stop();
+    }
+
+    private RundeckClient createClient(final boolean streamingResponses) {
+        return builder(streamingResponses).build();
+    }
+
+    private RundeckClientBuilder builder(final boolean streamingResponses) {
+        return RundeckClient.builder()
+                            .url(server.getUrl())
+                            .token("abc")
+                            .version(14)
+                            .maxConnectionsTotal(1)
+                            .maxConnectionsPerRoute(1)
+                            .connectionIdleTimeout(10, TimeUnit.SECONDS)
+                            .streamingResponses(streamingResponses);
+    }
+
+    @Test
+    public void builderDefault() {
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").build();
+        Assert.assertFalse(client.isStreamingResponses());
+    }
+
+    @Test(timeout = 30000)
+    public void streamedNodesReleaseConnection() throws Exception {
+        client = createClient(true);
+        Assert.assertTrue(client.isStreamingResponses());
+        // with a single pooled connection, the next call would block if the connection was not released
+        for (int i = 0; i < 5; i++) {
+            List<RundeckNode> nodes = client.getNodes("test");
+            Assert.assertEquals(NODES, nodes.size());
+            Assert.assertEquals("node0", nodes.get(0).getName());
+            Assert.assertEquals("host" + (NODES - 1) + ".local", nodes.get(NODES - 1).getHostname());
+        }
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void streamedAndBufferedNodesMatch() throws Exception {
+        client = createClient(true);
+        List<RundeckNode> streamed = client.getNodes("test");
+        RundeckClient buffered = createClient(false);
+        try {
+            Assert.assertEquals(buffered.getNodes("test"), streamed);
+        } finally {
+            buffered.close();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void streamedStaxNodes() throws Exception {
+        client = builder(true).staxParsers(true).build();
+        List<RundeckNode> streamed = client.getNodes("test");
+        client.getNodes("test");
+        RundeckClient buffered = createClient(false);
+        try {
+            List<RundeckNode> expected = buffered.getNodes("test");
+            Assert.assertEquals(expected, streamed);
+            Assert.assertEquals(expected.get(NODES - 1).getTags(), streamed.get(NODES - 1).getTags());
+        } finally {
+            buffered.close();
+        }
+    }
+
+    @Test
+    public void checkedErrorResult() throws Exception {
+        client = createClient(true);
+        try {
+            IOUtils.closeQuietly(new ApiCall(client).get(new ApiPathBuilder("/jobs/export"), true));
+            Assert.fail("expected failure");
+        } catch (RundeckApiException e) {
+            Assert.assertEquals("no project", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckExecution;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test the virtual-thread mode of {@link RundeckClient}
+ */
+public class VirtualThreadsTest {
+    private static final int JOBS = 10000;
+
+    private RundeckStubServer server;
+
+    @After
+    public void tearDown() {
+        if (null != server) {
+            server.stop();
+        }
+    }
+
+    private static String execution(final long id, final String status) {
+        return "<executions count='1'><execution id='" + id + "' status='" + status + "' project='test'>"
+               + "<user>admin</user></execution></executions>";
+    }
+
+    @Test
+    public void platformThreadFactory() throws Exception {
+        ThreadFactory factory = VirtualThreads.factory("test-thread-", false);
+        Thread thread = factory.newThread(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        Assert.assertTrue(thread.isDaemon());
+        Assert.assertEquals("test-thread-0", thread.getName());
+        Assert.assertEquals("test-thread-1", factory.newThread(thread).getName());
+    }
+
+    @Test
+    public void builderRejectsUnsupportedRuntime() throws Exception {
+        Assume.assumeFalse(VirtualThreads.isSupported());
+        try {
+            RundeckClient.builder().url("http://localhost:4440").token("abc").virtualThreads(true).build();
+            Assert.fail("expected failure");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Virtual threads require Java 21 or later", e.getMessage());
+        }
+    }
+
+    /**
+     * Each job keeps running until all the jobs have been triggered, so all the callers have to wait at the same time
+     */
+    @Test(timeout = 120000)
+    public void runJobFromManyVirtualThreads() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+        final AtomicLong ids = new AtomicLong();
+        final AtomicInteger polls = new AtomicInteger();
+        final AtomicInteger runningQueries = new AtomicInteger();
+        server = new RundeckStubServer(32).handle("/api/14/job/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                RundeckStubServer.respond(exchange, 200, "text/xml", execution(ids.incrementAndGet(), "running"));
+            }
+        }).handle("/api/14/execution/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                long id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+                polls.incrementAndGet();
+                RundeckStubServer.respond(exchange, 200, "text/xml",
+                                          execution(id, ids.get() < JOBS ? "running" : "succeeded"));
+            }
+        }).handle("/api/14/project/test/executions/running", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                runningQueries.incrementAndGet();
+                long triggered = ids.get();
+                StringBuilder xml = new StringBuilder("<executions>");
+                for (long id = 1; triggered < JOBS && id <= triggered; id++) {
+                    xml.append("<execution id='").append(id).append("' status='running' project='test'/>");
+                }
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.append("</executions>").toString());
+            }
+        }).start();
+        final RundeckClient client = RundeckClient.builder()
+                                                  .url(server.getUrl())
+                                                  .token("abc")
+                                                  .version(14)
+                                                  .maxConnectionsTotal(64)
+                                                  .maxConnectionsPerRoute(64)
+                                                  .virtualThreads(true)
+                                                  .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        int platformThreadsBefore = threads.getThreadCount();
+        ExecutorService executor = VirtualThreads.newExecutor("test-run-job-");
+        try {
+            List<Future<RundeckExecution>> results = new ArrayList<Future<RundeckExecution>>();
+            for (int i = 0; i < JOBS; i++) {
+                results.add(executor.submit(() -> client.runJob(
+                        RunJobBuilder.builder().setJobId("job1").build(), 3, TimeUnit.SECONDS)));
+            }
+            for (Future<RundeckExecution> result : results) {
+                Assert.assertEquals(RundeckExecution.ExecutionStatus.SUCCEEDED, result.get().getStatus());
+            }
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+        Assert.assertEquals(JOBS, ids.get());
+        // the waiting callers share the watcher of the client : one query per refresh, one call per finished job
+        Assert.assertTrue(runningQueries.get() > 0);
+        Assert.assertTrue(polls.get() >= JOBS);
+        // the waiting callers are parked virtual threads, not platform threads
+        int platformThreadsPeak = threads.getPeakThreadCount();
+        Assert.assertTrue("peak of " + platformThreadsPeak + " platform threads",
+                          platformThreadsPeak - platformThreadsBefore < 200);
+    }
+}
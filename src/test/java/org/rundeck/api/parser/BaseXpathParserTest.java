@@ -107,4 +107,18 @@ public class BaseXpathParserTest {
         Assert.assertEquals("/event",baseState.parseXmlNode(document));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void sameXpath_resultAndNoresultdocs_compiledPerVariant(){
+        BaseTest1 baseState = new BaseTest1("result/event");
+        Assert.assertEquals("/event",baseState.parseXmlNode(getNonResultDocument()));
+        Assert.assertNull(BaseXpathParser.selectNodeAndUnwrap(getResultErrorDocument(), "result/event"));
+        Assert.assertEquals("/event",baseState.parseXmlNode(getNonResultDocument()));
+    }
+    @Test
+    public void xpath_compiledOnce(){
+        Assert.assertSame(BaseXpathParser.xpath("@id"), BaseXpathParser.xpath("@id"));
+        Assert.assertEquals("/result/error",
+                            BaseXpathParser.selectNodesAndUnwrap(getResultErrorDocument(), "error").get(0).getPath());
+    }
+
+}
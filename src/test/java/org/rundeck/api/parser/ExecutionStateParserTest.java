@@ -3,11 +3,14 @@ package org.rundeck.api.parser;
 import org.dom4j.Document;
 import org.junit.Assert;
 import org.junit.Test;
+import org.rundeck.api.domain.ExecutionStateIndex;
 import org.rundeck.api.domain.RundeckExecutionState;
 import org.rundeck.api.domain.RundeckNodeIdentity;
+import org.rundeck.api.domain.RundeckWFExecState;
 
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 
 /**
@@ -66,4 +69,30 @@ public class ExecutionStateParserTest {
             Assert.assertTrue(expectedTargetNodes.contains(s));
         }
     }
+    @Test
+    public void testIndex(){
+        InputStream input = getClass().getResourceAsStream("execution-state2.xml");
+        Document document = ParserHelper.loadDocument(input);
+
+        RundeckExecutionState execution = new ExecutionStateParser("/result/executionState").parseXmlNode
+                (document);
+        ExecutionStateIndex index = execution.getIndex();
+
+        Assert.assertEquals(Arrays.asList("1", "2", "2/1"), index.getStepContextIds());
+        Assert.assertEquals(Arrays.asList("dignan"), index.getNodeNames());
+        Assert.assertEquals("2/1", index.getStep("2/1").getStepContextId());
+        Assert.assertNull(index.getStep("3"));
+        Assert.assertEquals(RundeckWFExecState.SUCCEEDED, index.getState("dignan", "1"));
+        Assert.assertEquals(RundeckWFExecState.RUNNING, index.getState("dignan", "2/1"));
+        Assert.assertNull(index.getState("dignan", "2"));
+        Assert.assertNull(index.getState("other", "1"));
+        Assert.assertEquals(Arrays.asList("dignan"), index.getNodes("2/1", RundeckWFExecState.RUNNING));
+        Assert.assertEquals(0, index.countNodes("2/1", RundeckWFExecState.FAILED));
+        Assert.assertEquals(Collections.singletonMap("1", Arrays.asList("dignan")),
+                            index.getNodesPerStep(RundeckWFExecState.SUCCEEDED));
+
+        //node states are the indexed states
+        Assert.assertSame(index.getNodeStepState("dignan", "1"), execution.getNodeStates().get("dignan").get(0));
+        Assert.assertSame(index.getNodeStepState("dignan", "2/1"), execution.getNodeStates().get("dignan").get(1));
+    }
 }
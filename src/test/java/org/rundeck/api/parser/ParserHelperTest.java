@@ -15,6 +15,7 @@
  */
 package org.rundeck.api.parser;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import org.dom4j.Document;
 import org.junit.Assert;
@@ -62,4 +63,35 @@ public class ParserHelperTest {
         Assert.assertNotNull(document);
     }
 
+    /**
+     * Checking an XML with an explicit "error" result should throw an exception
+     */
+    @Test
+    public void checkErrorDocument() throws Exception {
+        InputStream input = getClass().getResourceAsStream("error.xml");
+        try {
+            ParserHelper.checkDocument(input);
+            Assert.fail("should have thrown an exception !");
+        } catch (RundeckApiException e) {
+            Assert.assertEquals("This is the error message", e.getMessage());
+        }
+    }
+
+    /**
+     * Checking an XML with an explicit "success" result, or no result, should NOT throw an exception
+     */
+    @Test
+    public void checkSuccessDocument() throws Exception {
+        ParserHelper.checkDocument(getClass().getResourceAsStream("success.xml"));
+        ParserHelper.checkDocument(getClass().getResourceAsStream("empty.xml"));
+    }
+
+    /**
+     * Checking a malformed XML should throw an exception
+     */
+    @Test(expected = RundeckApiException.class)
+    public void checkMalformedDocument() throws Exception {
+        ParserHelper.checkDocument(new ByteArrayInputStream("<result><error>".getBytes("UTF-8")));
+    }
+
 }
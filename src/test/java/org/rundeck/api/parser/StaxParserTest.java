@@ -0,0 +1,202 @@
+package org.rundeck.api.parser;
+
+import org.dom4j.Document;
+import org.junit.Assert;
+import org.junit.Test;
+import org.rundeck.api.RundeckApiException;
+import org.rundeck.api.domain.RundeckEvent;
+import org.rundeck.api.domain.RundeckExecution;
+import org.rundeck.api.domain.RundeckHistory;
+import org.rundeck.api.domain.RundeckJob;
+import org.rundeck.api.domain.RundeckNode;
+import org.rundeck.api.domain.RundeckOutput;
+import org.rundeck.api.util.OutputEntryBatch;
+import org.rundeck.api.util.PagedResults;
+import org.rundeck.api.util.SpillingOutputEntryList;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Test the StAX parsers, against the results of the XPath parsers
+ */
+public class StaxParserTest {
+
+    private Document load(String resource) {
+        return ParserHelper.loadDocument(getClass().getResourceAsStream(resource));
+    }
+
+    private InputStream stream(String resource) {
+        return getClass().getResourceAsStream(resource);
+    }
+
+    @Test
+    public void parseExecutions() throws Exception {
+        for (String resource : new String[]{
+                "executions.xml",
+                "execution-running.xml",
+                "execution-result-v10.xml",
+                "execution-result-timedout.xml",
+                "execution-result-failedretry.xml"
+        }) {
+            List<RundeckExecution> expected = new ListParser<RundeckExecution>(new ExecutionParser(),
+                                                                               "/executions/execution")
+                    .parseXmlNode(load(resource));
+            List<RundeckExecution> executions = new StaxListParser<RundeckExecution>(new ExecutionStaxParser(),
+                                                                                     "/executions/execution")
+                    .parseResponse(stream(resource));
+
+            Assert.assertFalse(executions.isEmpty());
+            Assert.assertEquals(resource, expected, executions);
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(resource, expected.get(i).getUrl(), executions.get(i).getUrl());
+                Assert.assertEquals(resource, expected.get(i).getProject(), executions.get(i).getProject());
+                Assert.assertEquals(resource, expected.get(i).getSuccessfulNodes(),
+                                    executions.get(i).getSuccessfulNodes());
+                Assert.assertEquals(resource, expected.get(i).getFailedNodes(), executions.get(i).getFailedNodes());
+                Assert.assertEquals(resource, expected.get(i).getJob(), executions.get(i).getJob());
+            }
+        }
+    }
+
+    @Test
+    public void parsePagedExecutions() throws Exception {
+        PagedResults<RundeckExecution> expected = new PagedResultParser<RundeckExecution>(
+                new ListParser<RundeckExecution>(new ExecutionParser(), "execution"),
+                "/executions"
+        ).parseXmlNode(load("executions.xml"));
+        PagedResults<RundeckExecution> executions = new StaxPagedResultParser<RundeckExecution>(
+                new ExecutionStaxParser(),
+                "execution",
+                "/executions"
+        ).parseResponse(stream("executions.xml"));
+
+        Assert.assertEquals(expected.getResults(), executions.getResults());
+        Assert.assertEquals(2, executions.getCount());
+        Assert.assertEquals(expected.getMax(), executions.getMax());
+        Assert.assertEquals(expected.getOffset(), executions.getOffset());
+        Assert.assertEquals(expected.getTotal(), executions.getTotal());
+    }
+
+    @Test(expected = RundeckApiException.class)
+    public void parsePagedExecutionsMissingContainer() throws Exception {
+        new StaxPagedResultParser<RundeckExecution>(new ExecutionStaxParser(), "execution", "/executions")
+                .parseResponse(stream("jobs.xml"));
+    }
+
+    @Test
+    public void parseJobs() throws Exception {
+        List<RundeckJob> expected = new ListParser<RundeckJob>(new JobParser(), "/jobs/job")
+                .parseXmlNode(load("jobs.xml"));
+        List<RundeckJob> jobs = new StaxListParser<RundeckJob>(new JobStaxParser(), "/jobs/job")
+                .parseResponse(stream("jobs.xml"));
+
+        Assert.assertEquals(2, jobs.size());
+        Assert.assertEquals(expected, jobs);
+        Assert.assertEquals("ps", jobs.get(1).getName());
+        Assert.assertEquals("test", jobs.get(1).getProject());
+    }
+
+    @Test
+    public void parseNodes() throws Exception {
+        List<RundeckNode> expected = new ListParser<RundeckNode>(new NodeParser(), "project/node")
+                .parseXmlNode(load("resources.xml"));
+        List<RundeckNode> nodes = new StaxListParser<RundeckNode>(new NodeStaxParser(), "project/node")
+                .parseResponse(stream("resources.xml"));
+
+        Assert.assertEquals(1, nodes.size());
+        Assert.assertEquals(expected, nodes);
+        Assert.assertEquals(expected.get(0).getTags(), nodes.get(0).getTags());
+        Assert.assertNull(nodes.get(0).getEditUrl());
+    }
+
+    @Test
+    public void parseHistory() throws Exception {
+        RundeckHistory expected = new HistoryParser("/events").parseXmlNode(load("history.xml"));
+        RundeckHistory history = new StaxHistoryParser("/events").parseResponse(stream("history.xml"));
+
+        Assert.assertEquals(expected, history);
+        Assert.assertEquals(4, history.getTotal());
+        Assert.assertEquals(2, history.getEvents().size());
+        RundeckEvent event = history.getEvents().get(0);
+        Assert.assertEquals(expected.getEvents().get(0), event);
+        Assert.assertEquals(Long.valueOf(2), event.getExecutionId());
+        Assert.assertEquals("1", event.getJobId());
+        Assert.assertEquals(2, event.getNodeSummary().getSucceeded());
+        Assert.assertNull(history.getEvents().get(1).getJobId());
+    }
+
+    @Test
+    public void parseErrorResult() throws Exception {
+        try {
+            new StaxListParser<RundeckNode>(new NodeStaxParser(), "project/node").parseResponse(stream("error.xml"));
+            Assert.fail("should have thrown an exception !");
+        } catch (RundeckApiException e) {
+            Assert.assertEquals("This is the error message", e.getMessage());
+        }
+    }
+
+    @Test
+    public void parseUnwrappedWithNestedText() throws Exception {
+        String xml = "<executions count='1'><execution id='3' status='aborted'>"
+                     + "<description>run <b>this</b></description><abortedby>admin</abortedby>"
+                     + "<unknown><user>other</user></unknown><user>admin</user></execution></executions>";
+        List<RundeckExecution> executions = new StaxListParser<RundeckExecution>(new ExecutionStaxParser(),
+                                                                                 "result/executions/execution")
+                .parseResponse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+        Assert.assertEquals(1, executions.size());
+        Assert.assertEquals(RundeckExecution.ExecutionStatus.ABORTED, executions.get(0).getStatus());
+        Assert.assertEquals("run this", executions.get(0).getDescription());
+        Assert.assertEquals("admin", executions.get(0).getStartedBy());
+        Assert.assertEquals("admin", executions.get(0).getAbortedBy());
+        Assert.assertTrue(executions.get(0).getSuccessfulNodes().isEmpty());
+    }
+
+    @Test
+    public void parseOutputs() throws Exception {
+        for (String resource : new String[]{"output1.xml", "output-filtered.xml", "output-state.xml",
+                "output-unmodified.xml"}) {
+            RundeckOutput expected = new OutputParser("result/output", new OutputEntryParser())
+                    .parseXmlNode(load(resource));
+            for (long threshold : new long[]{0, Long.MAX_VALUE}) {
+                RundeckOutput output = new OutputStaxParser("/output", new OutputEntryStaxParser(), threshold)
+                        .parseResponse(stream(resource));
+                try {
+                    Assert.assertEquals(resource, expected.toString(), output.toString());
+                    Assert.assertEquals(resource, expected.getLogEntries(), output.getLogEntries());
+                    if (null != output.getLogEntries()) {
+                        Assert.assertEquals(resource, threshold == 0,
+                                            ((SpillingOutputEntryList) output.getLogEntries()).isSpilled());
+                    }
+                } finally {
+                    output.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parseOutputsInBatch() throws Exception {
+        for (String resource : new String[]{"output1.xml", "output-filtered.xml", "output-state.xml",
+                "output-unmodified.xml"}) {
+            RundeckOutput expected = new OutputParser("result/output", new OutputEntryParser())
+                    .parseXmlNode(load(resource));
+            RundeckOutput output = new OutputStaxParser("/output", new OutputEntryStaxParser())
+                    .parseResponse(stream(resource));
+
+            Assert.assertEquals(resource, expected.toString(), output.toString());
+            Assert.assertEquals(resource, expected.getLogEntries(), output.getLogEntries());
+            if (null != output.getLogEntries()) {
+                Assert.assertTrue(resource, output.getLogEntries() instanceof OutputEntryBatch);
+            }
+        }
+    }
+
+    @Test(expected = RundeckApiException.class)
+    public void parseMalformed() throws Exception {
+        new StaxListParser<RundeckJob>(new JobStaxParser(), "/jobs/job")
+                .parseResponse(new ByteArrayInputStream("<jobs><job>".getBytes("UTF-8")));
+    }
+}
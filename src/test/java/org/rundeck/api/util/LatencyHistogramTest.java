@@ -0,0 +1,77 @@
+package org.rundeck.api.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the values recorded in a {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMin());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void buckets() {
+        long previous = -1;
+        for (long value = 0; value < 1L << 20; value++) {
+            int bucket = LatencyHistogram.bucket(value);
+            Assert.assertTrue(value <= LatencyHistogram.highestValue(bucket));
+            if (bucket > 0) {
+                Assert.assertTrue(value > LatencyHistogram.highestValue(bucket - 1));
+            }
+            Assert.assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+        Assert.assertEquals(LatencyHistogram.bucket(Long.MAX_VALUE), LatencyHistogram.bucket(1L << 50));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.getMin());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getMax());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1001) / 2, histogram.getMean(), 1);
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(500), histogram.getValueAtPercentile(50));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(990), histogram.getValueAtPercentile(99));
+        Assert.assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        Assert.assertTrue(actual + " not within 3% of " + expected, Math.abs(actual - expected) <= expected * 0.03);
+    }
+
+    @Test
+    public void concurrentRecords() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(40000, histogram.getCount());
+        Assert.assertEquals(9999, histogram.getMax());
+        Assert.assertEquals(0, histogram.getMin());
+    }
+}
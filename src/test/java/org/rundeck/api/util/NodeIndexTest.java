@@ -0,0 +1,114 @@
+package org.rundeck.api.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.NodeFiltersBuilder;
+import org.rundeck.api.domain.RundeckNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Test the filters evaluated by a {@link NodeIndex}
+ */
+public class NodeIndexTest {
+    private NodeIndex index;
+
+    @Before
+    public void setUp() {
+        List<RundeckNode> nodes = new ArrayList<RundeckNode>();
+        nodes.add(node("web1", "web1.example.com", "Linux", "unix", "x86_64", "web", "prod"));
+        nodes.add(node("web2", "web2.example.com", "Linux", "unix", "aarch64", "web", "staging"));
+        nodes.add(node("db1", "db1.example.com", "Linux", "unix", "x86_64", "db", "prod"));
+        nodes.add(node("win1", "win1.example.com", "Windows Server", "windows", "x86_64", "web", "prod"));
+        index = new NodeIndex(nodes);
+    }
+
+    private static RundeckNode node(final String name, final String hostname, final String osName,
+            final String osFamily, final String osArch, final String... tags) {
+        RundeckNode node = new RundeckNode();
+        node.setName(name);
+        node.setHostname(hostname);
+        node.setType("Node");
+        node.setOsName(osName);
+        node.setOsFamily(osFamily);
+        node.setOsArch(osArch);
+        node.setTags(Arrays.asList(tags));
+        return node;
+    }
+
+    private List<String> names(final Properties filters) {
+        List<String> names = new ArrayList<String>();
+        for (RundeckNode node : index.filter(filters)) {
+            names.add(node.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void noFilter() {
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(Arrays.asList("web1", "web2", "db1", "win1"), names(null));
+        Assert.assertEquals(Arrays.asList("web1", "web2", "db1", "win1"), names(new Properties()));
+    }
+
+    @Test
+    public void includeValues() {
+        Assert.assertEquals(Arrays.asList("db1"), names(new NodeFiltersBuilder().name("db1").toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "db1"),
+                            names(new NodeFiltersBuilder().name("web1, db1").toProperties()));
+        Assert.assertEquals(Arrays.asList("win1"),
+                            names(new NodeFiltersBuilder().osFamily("windows").toProperties()));
+        Assert.assertTrue(names(new NodeFiltersBuilder().osVersion("10").toProperties()).isEmpty());
+    }
+
+    @Test
+    public void includeRegex() {
+        Assert.assertEquals(Arrays.asList("web1", "web2"),
+                            names(new NodeFiltersBuilder().hostname("web.*\\.example\\.com").toProperties()));
+        Assert.assertEquals(Arrays.asList("win1"),
+                            names(new NodeFiltersBuilder().osName("Windows.*").toProperties()));
+        Assert.assertTrue(names(new NodeFiltersBuilder().name("web[").toProperties()).isEmpty());
+    }
+
+    @Test
+    public void tags() {
+        Assert.assertEquals(Arrays.asList("web1", "web2", "win1"),
+                            names(new NodeFiltersBuilder().tags("web").toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "win1"),
+                            names(new NodeFiltersBuilder().tags("web+prod").toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "web2", "db1", "win1"),
+                            names(new NodeFiltersBuilder().tags("web+prod,db,staging").toProperties()));
+    }
+
+    @Test
+    public void includeFiltersCombined() {
+        Assert.assertEquals(Arrays.asList("web1"),
+                            names(new NodeFiltersBuilder().tags("web").osArch("x86_64").osFamily("unix")
+                                                          .toProperties()));
+    }
+
+    @Test
+    public void exclude() {
+        Assert.assertEquals(Arrays.asList("web1", "web2", "db1"),
+                            names(new NodeFiltersBuilder().excludeOsFamily("windows").toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "win1"),
+                            names(new NodeFiltersBuilder().tags("web").excludeTags("staging").toProperties()));
+        Assert.assertEquals(Arrays.asList("web2", "db1", "win1"),
+                            names(new NodeFiltersBuilder().excludeName("web1").excludeType("Node").toProperties()));
+    }
+
+    @Test
+    public void excludePrecedence() {
+        NodeFiltersBuilder filters = new NodeFiltersBuilder().tags("web").excludeOsArch("aarch64");
+        Assert.assertEquals(Arrays.asList("web1", "win1"), names(filters.toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "web2", "win1"),
+                            names(filters.excludePrecedence(false).toProperties()));
+        Assert.assertEquals(Arrays.asList("web1", "db1", "win1"),
+                            names(new NodeFiltersBuilder().excludeOsArch("aarch64").excludePrecedence(false)
+                                                          .toProperties()));
+    }
+}
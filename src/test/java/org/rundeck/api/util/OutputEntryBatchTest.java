@@ -0,0 +1,112 @@
+package org.rundeck.api.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckOutputEntry;
+import org.rundeck.api.domain.RundeckOutputEntry.RundeckLogLevel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test the {@link OutputEntryBatch}
+ */
+public class OutputEntryBatchTest {
+
+    private static RundeckOutputEntry entry(int i) {
+        RundeckOutputEntry entry = new RundeckOutputEntry();
+        entry.setTime("10:00:" + (i / 10));
+        entry.setAbsoluteTime(i % 5 == 0 ? null : new Date(1389894504000L + i));
+        entry.setLevel(i % 7 == 0 ? null : RundeckLogLevel.values()[i % RundeckLogLevel.values().length]);
+        entry.setMessage("message " + i);
+        entry.setUser("admin");
+        entry.setNode(i % 2 == 0 ? "node1" : "node2");
+        entry.setType("log");
+        if (i % 3 != 0) {
+            Map<String, String> metadata = new HashMap<String, String>();
+            metadata.put("stepctx", Integer.toString(i % 4));
+            if (i % 3 == 2) {
+                metadata.put("step", "1");
+            }
+            entry.setMetadata(metadata);
+        }
+        return entry;
+    }
+
+    @Test
+    public void addAndGet() throws Exception {
+        OutputEntryBatch batch = new OutputEntryBatch(4);
+        List<RundeckOutputEntry> expected = new ArrayList<RundeckOutputEntry>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(entry(i));
+            expected.add(entry(i));
+        }
+        Assert.assertEquals(100, batch.size());
+        Assert.assertEquals(expected, batch);
+        Assert.assertEquals(expected.hashCode(), batch.hashCode());
+        Assert.assertEquals(expected.get(42).toString(), batch.get(42).toString());
+
+        Assert.assertEquals("node1", batch.getNode(42));
+        Assert.assertEquals("1", batch.getMetadata(41, "stepctx"));
+        Assert.assertEquals("1", batch.getMetadata(41, "step"));
+        Assert.assertNull(batch.getMetadata(41, "unknown"));
+        Assert.assertNull(batch.getMetadata(3, "stepctx"));
+        Assert.assertEquals(OutputEntryBatch.NO_TIME, batch.getAbsoluteTime(5));
+        Assert.assertEquals(1389894504001L, batch.getAbsoluteTime(1));
+        Assert.assertNull(batch.getLevel(7));
+    }
+
+    @Test
+    public void append() throws Exception {
+        OutputEntryBatch batch = new OutputEntryBatch();
+        batch.append("10:00:00", OutputEntryBatch.NO_TIME, RundeckLogLevel.NORMAL, null, "admin", null, "node1", "log");
+        batch.appendMetadata("stepctx", "1");
+        batch.setMessage(0, "hello");
+        batch.append("10:00:01", 1389894504000L, RundeckLogLevel.ERROR, "world", "admin", null, "node1", "log");
+
+        RundeckOutputEntry first = batch.get(0);
+        Assert.assertEquals("hello", first.getMessage());
+        Assert.assertNull(first.getAbsoluteTime());
+        Assert.assertEquals(1, first.getMetadata().size());
+        Assert.assertEquals("1", first.getMetadata().get("stepctx"));
+
+        RundeckOutputEntry second = batch.get(1);
+        Assert.assertEquals(new Date(1389894504000L), second.getAbsoluteTime());
+        Assert.assertEquals(RundeckLogLevel.ERROR, second.getLevel());
+        Assert.assertNull(second.getMetadata());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() throws Exception {
+        OutputEntryBatch batch = new OutputEntryBatch();
+        batch.add(entry(1));
+        batch.get(0).setMessage("changed");
+    }
+
+    @Test
+    public void serialized() throws Exception {
+        OutputEntryBatch batch = new OutputEntryBatch();
+        for (int i = 0; i < 10; i++) {
+            batch.add(entry(i));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(batch);
+        output.writeObject(batch.get(2));
+        output.close();
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Object copy = input.readObject();
+        Object entry = input.readObject();
+
+        Assert.assertEquals(batch, copy);
+        Assert.assertEquals(RundeckOutputEntry.class, entry.getClass());
+        Assert.assertEquals(entry(2), entry);
+    }
+}
@@ -0,0 +1,110 @@
+package org.rundeck.api.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rundeck.api.domain.RundeckOutputEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test the {@link SpillingOutputEntryList}
+ */
+public class SpillingOutputEntryListTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static RundeckOutputEntry entry(int i) {
+        RundeckOutputEntry entry = new RundeckOutputEntry();
+        entry.setTime("10:00:" + i);
+        entry.setAbsoluteTime(new Date(1389894504000L + i));
+        entry.setLevel(RundeckOutputEntry.RundeckLogLevel.values()[i % RundeckOutputEntry.RundeckLogLevel.values().length]);
+        entry.setMessage("message é " + i);
+        entry.setUser("admin");
+        entry.setNode(i % 2 == 0 ? "node1" : null);
+        entry.setType("log");
+        if (i % 3 == 0) {
+            Map<String, String> metadata = new HashMap<String, String>();
+            metadata.put("stepctx", Integer.toString(i));
+            entry.setMetadata(metadata);
+        }
+        return entry;
+    }
+
+    @Test
+    public void heldOnHeapBelowThreshold() throws Exception {
+        SpillingOutputEntryList list = new SpillingOutputEntryList(Long.MAX_VALUE, folder.getRoot());
+        for (int i = 0; i < 10; i++) {
+            list.add(entry(i));
+        }
+        Assert.assertFalse(list.isSpilled());
+        Assert.assertEquals(10, list.size());
+        Assert.assertEquals(entry(4), list.get(4));
+        Assert.assertEquals(0, folder.getRoot().list().length);
+        list.close();
+    }
+
+    @Test
+    public void spilledAboveThreshold() throws Exception {
+        // small regions, so that the entries cross the region boundaries
+        SpillingOutputEntryList list = new SpillingOutputEntryList(1000, folder.getRoot(), 64);
+        List<RundeckOutputEntry> expected = new ArrayList<RundeckOutputEntry>();
+        for (int i = 0; i < 500; i++) {
+            list.add(entry(i));
+            expected.add(entry(i));
+        }
+        Assert.assertTrue(list.isSpilled());
+        Assert.assertEquals(2, folder.getRoot().list().length);
+        Assert.assertEquals(500, list.size());
+        Assert.assertEquals(expected.get(0), list.get(0));
+        Assert.assertEquals(expected.get(499), list.get(499));
+        Assert.assertEquals(expected.get(123), list.get(123));
+
+        Iterator<RundeckOutputEntry> iterator = list.iterator();
+        for (RundeckOutputEntry entry : expected) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(entry, iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(expected, list);
+
+        list.close();
+        Assert.assertEquals(0, folder.getRoot().list().length);
+        try {
+            list.get(0);
+            Assert.fail("should have thrown an exception !");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void serializedAsArrayList() throws Exception {
+        SpillingOutputEntryList list = new SpillingOutputEntryList(0, folder.getRoot());
+        list.add(entry(1));
+        list.add(entry(2));
+        Assert.assertTrue(list.isSpilled());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(list);
+        output.close();
+        list.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        Assert.assertEquals(ArrayList.class, copy.getClass());
+        Assert.assertEquals(2, ((List<?>) copy).size());
+        Assert.assertEquals(entry(2), ((List<?>) copy).get(1));
+    }
+}
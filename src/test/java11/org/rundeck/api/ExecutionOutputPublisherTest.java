@@ -0,0 +1,207 @@
+package org.rundeck.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.rundeck.api.domain.RundeckOutputEntry;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the output of an execution published by {@link ExecutionOutputPublisher}
+ */
+public class ExecutionOutputPublisherTest {
+    private RundeckStubServer server;
+    private RundeckClient client;
+    /** lines of the log, the offset of a line is its index */
+    private final List<String> lines = new CopyOnWriteArrayList<String>();
+    private volatile boolean execCompleted;
+    /** maxlines parameter of each call */
+    private final List<Integer> calls = new CopyOnWriteArrayList<Integer>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RundeckStubServer().handle("/api/14/execution/7/output", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                int offset = intParam(exchange, "offset", 0);
+                int maxlines = intParam(exchange, "maxlines", Integer.MAX_VALUE);
+                calls.add(maxlines);
+                boolean completed = execCompleted;
+                int available = lines.size();
+                int end = (int) Math.min(available, (long) offset + maxlines);
+                StringBuilder xml = new StringBuilder("<output><id>7</id><offset>").append(end).append("</offset>")
+                        .append("<completed>").append(completed && end == available).append("</completed>")
+                        .append("<unmodified>").append(end == offset).append("</unmodified>")
+                        .append("<execCompleted>").append(completed).append("</execCompleted>")
+                        .append("<lastModified>").append(1000 + available).append("</lastModified>")
+                        .append("<totalSize>").append(available).append("</totalSize><entries>");
+                for (int i = offset; i < end; i++) {
+                    xml.append("<entry time='09:48:23' log='").append(lines.get(i))
+                       .append("' level='NORMAL' node='node1'/>");
+                }
+                xml.append("</entries></output>");
+                RundeckStubServer.respond(exchange, 200, "text/xml", xml.toString());
+            }
+        }).start();
+        client = RundeckClient.builder().url(server.getUrl()).token("abc").version(14).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    private static int intParam(final HttpExchange exchange, final String name, final int defaultValue) {
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            if (param.startsWith(name + "=")) {
+                return Integer.parseInt(param.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+
+    private void addLines(final int count) {
+        for (int i = 0; i < count; i++) {
+            lines.add("line" + lines.size());
+        }
+    }
+
+    private static void awaitSize(final List<?> list, final int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(size, list.size());
+    }
+
+    /**
+     * Collects the signals of a subscription, requesting the given number of entries once subscribed
+     */
+    private static class TestSubscriber implements Flow.Subscriber<RundeckOutputEntry> {
+        private final long initialRequest;
+        private final List<RundeckOutputEntry> entries = new CopyOnWriteArrayList<RundeckOutputEntry>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable failure;
+        private volatile boolean completed;
+
+        private TestSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(final RundeckOutputEntry entry) {
+            entries.add(entry);
+        }
+
+        @Override
+        public void onError(final Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private TestSubscriber subscribe(final long initialRequest) {
+        TestSubscriber subscriber = new TestSubscriber(initialRequest);
+        new ExecutionOutputPublisher(client, 7L, 10, 40, TimeUnit.MILLISECONDS).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void completedWhenExecutionFinished() throws Exception {
+        addLines(20);
+        execCompleted = true;
+        TestSubscriber subscriber = subscribe(Long.MAX_VALUE);
+        subscriber.await();
+
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertNull(subscriber.failure);
+        Assert.assertEquals(20, subscriber.entries.size());
+        Assert.assertEquals("line0", subscriber.entries.get(0).getMessage());
+        Assert.assertEquals("line19", subscriber.entries.get(19).getMessage());
+    }
+
+    @Test
+    public void requestBoundsEntries() throws Exception {
+        addLines(30);
+        TestSubscriber subscriber = subscribe(5);
+        awaitSize(subscriber.entries, 5);
+        Thread.sleep(200);
+        Assert.assertEquals(5, subscriber.entries.size());
+        for (Integer maxlines : calls) {
+            Assert.assertTrue("maxlines " + maxlines, maxlines <= 5);
+        }
+
+        subscriber.subscription.request(10);
+        awaitSize(subscriber.entries, 15);
+        Thread.sleep(200);
+        Assert.assertEquals(15, subscriber.entries.size());
+        Assert.assertEquals("line14", subscriber.entries.get(14).getMessage());
+
+        execCompleted = true;
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.await();
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(30, subscriber.entries.size());
+    }
+
+    @Test
+    public void requestZeroFails() throws Exception {
+        addLines(10);
+        TestSubscriber subscriber = subscribe(0);
+        subscriber.await();
+
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertTrue(subscriber.failure instanceof IllegalArgumentException);
+        Assert.assertTrue(subscriber.entries.isEmpty());
+    }
+
+    @Test
+    public void cancelStopsFetches() throws Exception {
+        TestSubscriber subscriber = subscribe(Long.MAX_VALUE);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (calls.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertTrue(calls.size() >= 2);
+        subscriber.subscription.cancel();
+        // a call may still be in progress when cancelled
+        Thread.sleep(100);
+        int count = calls.size();
+        Thread.sleep(300);
+        Assert.assertEquals(count, calls.size());
+
+        addLines(5);
+        execCompleted = true;
+        Thread.sleep(200);
+        Assert.assertTrue(subscriber.entries.isEmpty());
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.failure);
+    }
+}